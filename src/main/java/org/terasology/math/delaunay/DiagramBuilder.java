@@ -0,0 +1,44 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.math.delaunay;
+
+/**
+ * Computes the edges and vertices of a Voronoi diagram as int ids. Site ids are indices into the sites
+ * sorted by y, then x. {@link Voronoi} creates the {@link Edge}s and {@link Vertex}s from the result.
+ * <p>
+ * All implementations follow the orientation of Fortune's algorithm, which {@link Edge#clipVertices} and
+ * the regions of {@link Site} rely on: the left site of an edge is the one with the lower id and the
+ * cross product <code>(right site - left site) x (right vertex - left vertex)</code> is negative.
+ */
+interface DiagramBuilder {
+
+    /**
+     * Computes the diagram. The edges and vertices are available afterwards.
+     */
+    void run();
+
+    int getEdgeCount();
+
+    int getEdgeLeftSite(int edge);
+
+    int getEdgeRightSite(int edge);
+
+    /**
+     * @param edge the edge id
+     * @return the vertex id or -1 if the edge extends to infinity
+     */
+    int getEdgeLeftVertex(int edge);
+
+    /**
+     * @param edge the edge id
+     * @return the vertex id or -1 if the edge extends to infinity
+     */
+    int getEdgeRightVertex(int edge);
+
+    int getVertexCount();
+
+    float getVertexX(int vertex);
+
+    float getVertexY(int vertex);
+}
@@ -33,15 +33,17 @@ public final class Edge {
     private Vertex rightVertex;
 
     /**
-     * Once clipVertices() is called, this HashMap will hold two Points
-     * representing the clipped coordinates of the left and right ends...
+     * Once clipVertices() is called, these hold the clipped coordinates of the left and right ends
+     * (both remain null if the edge is not visible)
      */
-    private final Map<LR, Vector2fc> clippedVertices = new EnumMap<LR, Vector2fc>(LR.class);
+    private Vector2fc leftClippedVertex;
+    private Vector2fc rightClippedVertex;
 
     /**
      * The two input Sites for which this Edge is a bisector:
      */
-    private final Map<LR, Site> sites = new EnumMap<LR, Site>(LR.class);
+    private Site leftSite;
+    private Site rightSite;
 
 
     private Edge() {
@@ -103,8 +105,7 @@ public final class Edge {
         if (!isVisible()) {
             return null;
         }
-        return new Line2f(clippedVertices.get(LR.LEFT),
-            clippedVertices.get(LR.RIGHT));
+        return new Line2f(leftClippedVertex, rightClippedVertex);
     }
 
     public Vertex getLeftVertex() {
@@ -147,40 +148,56 @@ public final class Edge {
         return -compareSitesDistancesMax(edge0, edge1);
     }
 
+    /**
+     * @return a new map with the clipped ends, empty if the edge is not visible
+     */
     public Map<LR, Vector2fc> getClippedEnds() {
-        return clippedVertices;
+        Map<LR, Vector2fc> ends = new EnumMap<>(LR.class);
+        if (isVisible()) {
+            ends.put(LR.LEFT, leftClippedVertex);
+            ends.put(LR.RIGHT, rightClippedVertex);
+        }
+        return ends;
+    }
+
+    /**
+     * @param leftRight the end of the edge
+     * @return the clipped end or <code>null</code> if the edge is not visible
+     */
+    public Vector2fc getClippedEnd(LR leftRight) {
+        return leftRight == LR.LEFT ? leftClippedVertex : rightClippedVertex;
     }
 
     /**
      * @return true unless the entire Edge is outside the bounds.
      */
     public boolean isVisible() {
-        return !clippedVertices.isEmpty();
+        return leftClippedVertex != null;
     }
 
     public void setLeftSite(Site s) {
-        sites.put(LR.LEFT, s);
+        leftSite = s;
     }
 
     public Site getLeftSite() {
-        return sites.get(LR.LEFT);
+        return leftSite;
     }
 
     public void setRightSite(Site s) {
-        sites.put(LR.RIGHT, s);
+        rightSite = s;
     }
 
     public Site getRightSite() {
-        return sites.get(LR.RIGHT);
+        return rightSite;
     }
 
     public Site getSite(LR leftRight) {
-        return sites.get(leftRight);
+        return leftRight == LR.LEFT ? leftSite : rightSite;
     }
 
     @Override
     public String toString() {
-        return "Edge [sites " + sites.get(LR.LEFT) + ", " + sites.get(LR.RIGHT)
+        return "Edge [sites " + leftSite + ", " + rightSite
                + "; endVertices " + leftVertex + ", " + rightVertex + "]";
     }
 
@@ -291,24 +308,23 @@ public final class Edge {
             }
         }
 
-        clippedVertices.clear();
         if (vertex0 == leftVertex) {
-            clippedVertices.put(LR.LEFT, new Vector2f(x0, y0));
-            clippedVertices.put(LR.RIGHT, new Vector2f(x1, y1));
+            leftClippedVertex = new Vector2f(x0, y0);
+            rightClippedVertex = new Vector2f(x1, y1);
         } else {
-            clippedVertices.put(LR.RIGHT, new Vector2f(x0, y0));
-            clippedVertices.put(LR.LEFT, new Vector2f(x1, y1));
+            rightClippedVertex = new Vector2f(x0, y0);
+            leftClippedVertex = new Vector2f(x1, y1);
         }
 
         // overwrite previously computed coordinates with exact vertex locations
         // where possible. This avoids rounding errors and ensures that equals() works properly.
         // TODO: check before computing the clipped vertices
         if (leftVertex != null && bounds.containsPoint(leftVertex.x(), leftVertex.y())) {
-            clippedVertices.put(LR.LEFT, new Vector2f(leftVertex.getCoord()));
+            leftClippedVertex = new Vector2f(leftVertex.getCoord());
         }
 
         if (rightVertex != null && bounds.containsPoint(rightVertex.x(), rightVertex.y())) {
-            clippedVertices.put(LR.RIGHT, rightVertex.getCoord());
+            rightClippedVertex = rightVertex.getCoord();
         }
     }
 
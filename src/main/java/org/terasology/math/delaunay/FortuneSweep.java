@@ -0,0 +1,628 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.math.delaunay;
+
+import java.util.Arrays;
+
+/**
+ * Fortune's algorithm on primitive arrays. Sites, half-edges, bisecting edges and vertices are int ids
+ * into pooled arrays, so the sweep itself does not allocate objects except when a pool grows.
+ * <p>
+ * The steps and the floating point operations are the same as those of {@link Halfedge}, {@link EdgeList},
+ * {@link HalfedgePriorityQueue} and {@link Vertex#intersect(Halfedge, Halfedge)}, so the result is identical
+ * to the object-based implementation: the same edges in the same order with the same vertices.
+ */
+final class FortuneSweep implements DiagramBuilder {
+
+    private static final int NONE = -1;
+
+    /**
+     * The edge of half-edges that were removed from the edge list
+     */
+    private static final int DELETED = -2;
+
+    private static final byte LEFT = 0;
+    private static final byte RIGHT = 1;
+
+    private final float[] siteX;
+    private final float[] siteY;
+    private final int siteCount;
+
+    // bisecting edges: ax + by = c, the sites on both sides and the vertices at both ends
+    private float[] edgeA;
+    private float[] edgeB;
+    private float[] edgeC;
+    private int[] edgeLeftSite;
+    private int[] edgeRightSite;
+    private int[] edgeLeftVertex;
+    private int[] edgeRightVertex;
+    private int edgeCount;
+
+    private float[] vertexX;
+    private float[] vertexY;
+    private int vertexCount;
+
+    // half-edges: neighbors in the edge list and in a priority queue bucket, edge, side, vertex and its y* value
+    private int[] heLeft;
+    private int[] heRight;
+    private int[] heNext;
+    private int[] heEdge;
+    private byte[] heSide;
+    private int[] heVertex;
+    private float[] heYStar;
+    private int halfedgeCount;
+
+    // the edge list: a doubly-linked list of half-edges between two dummies with a hash table for the entry point
+    private final float edgeListMinX;
+    private final float edgeListDeltaX;
+    private final int[] edgeListHash;
+    private final int leftEnd;
+    private final int rightEnd;
+
+    // the priority queue: a sorted list of half-edges per bucket, each starting with a dummy
+    private final float queueMinY;
+    private final float queueDeltaY;
+    private final int queueBuckets;
+    private final int queueFirstDummy;
+    private int queueCount;
+    private int queueMinBucket;
+
+    /**
+     * @param siteX the x coordinates of all sites, sorted by y, then x
+     * @param siteY the y coordinates of all sites, sorted by y, then x
+     * @param siteCount the number of sites
+     * @param minX the minimum x coordinate of all sites
+     * @param deltaX the extent of all sites along x
+     * @param minY the minimum y coordinate of all sites
+     * @param deltaY the extent of all sites along y
+     */
+    FortuneSweep(float[] siteX, float[] siteY, int siteCount, float minX, float deltaX, float minY, float deltaY) {
+        this.siteX = siteX;
+        this.siteY = siteY;
+        this.siteCount = siteCount;
+
+        // a Voronoi diagram has at most 3n - 6 edges and 2n - 5 vertices
+        int edgeCapacity = 3 * siteCount + 6;
+        edgeA = new float[edgeCapacity];
+        edgeB = new float[edgeCapacity];
+        edgeC = new float[edgeCapacity];
+        edgeLeftSite = new int[edgeCapacity];
+        edgeRightSite = new int[edgeCapacity];
+        edgeLeftVertex = new int[edgeCapacity];
+        edgeRightVertex = new int[edgeCapacity];
+
+        // vertices that turn out to be invalid are not removed
+        int vertexCapacity = 4 * siteCount + 6;
+        vertexX = new float[vertexCapacity];
+        vertexY = new float[vertexCapacity];
+
+        int sqrtNumSites = (int) Math.sqrt(siteCount + 4);
+        queueBuckets = 4 * sqrtNumSites;
+        // two per site event and one per vertex event, plus the dummies
+        int halfedgeCapacity = 2 + queueBuckets + 4 * siteCount + 8;
+        heLeft = new int[halfedgeCapacity];
+        heRight = new int[halfedgeCapacity];
+        heNext = new int[halfedgeCapacity];
+        heEdge = new int[halfedgeCapacity];
+        heSide = new byte[halfedgeCapacity];
+        heVertex = new int[halfedgeCapacity];
+        heYStar = new float[halfedgeCapacity];
+
+        edgeListMinX = minX;
+        edgeListDeltaX = deltaX;
+        edgeListHash = new int[2 * sqrtNumSites];
+        Arrays.fill(edgeListHash, NONE);
+        leftEnd = createHalfedge(NONE, LEFT);
+        rightEnd = createHalfedge(NONE, LEFT);
+        heRight[leftEnd] = rightEnd;
+        heLeft[rightEnd] = leftEnd;
+        edgeListHash[0] = leftEnd;
+        edgeListHash[edgeListHash.length - 1] = rightEnd;
+
+        queueMinY = minY;
+        queueDeltaY = deltaY;
+        queueFirstDummy = halfedgeCount;
+        for (int i = 0; i < queueBuckets; i++) {
+            createHalfedge(NONE, LEFT);
+        }
+    }
+
+    @Override
+    public void run() {
+        if (siteCount == 0) {
+            return;
+        }
+
+        int bottomMostSite = 0;
+        int newSite = siteCount > 1 ? 1 : NONE;
+
+        for (;;) {
+            int minHalfedge = NONE;
+            if (queueCount > 0) {
+                adjustMinBucket();
+                minHalfedge = heNext[queueFirstDummy + queueMinBucket];
+            }
+
+            if (newSite != NONE && (minHalfedge == NONE || compareSiteToEvent(newSite, minHalfedge) < 0)) {
+                // the new site is smallest
+                int lbnd = edgeListLeftNeighbor(siteX[newSite], siteY[newSite]);
+                int rbnd = heRight[lbnd];
+                int bottomSite = rightRegion(lbnd, bottomMostSite);
+
+                int edge = createBisectingEdge(bottomSite, newSite);
+
+                int bisector = createHalfedge(edge, LEFT);
+                edgeListInsert(lbnd, bisector);
+
+                int vertex = intersect(lbnd, bisector);
+                if (vertex != NONE) {
+                    queueRemove(lbnd);
+                    heVertex[lbnd] = vertex;
+                    heYStar[lbnd] = vertexY[vertex] + distance(newSite, vertex);
+                    queueInsert(lbnd);
+                }
+
+                lbnd = bisector;
+                bisector = createHalfedge(edge, RIGHT);
+                edgeListInsert(lbnd, bisector);
+
+                vertex = intersect(bisector, rbnd);
+                if (vertex != NONE) {
+                    heVertex[bisector] = vertex;
+                    heYStar[bisector] = vertexY[vertex] + distance(newSite, vertex);
+                    queueInsert(bisector);
+                }
+
+                newSite = newSite + 1 < siteCount ? newSite + 1 : NONE;
+            } else if (minHalfedge != NONE) {
+                // the intersection is smallest
+                int lbnd = queueExtractMin();
+                int llbnd = heLeft[lbnd];
+                int rbnd = heRight[lbnd];
+                int rrbnd = heRight[rbnd];
+                int bottomSite = leftRegion(lbnd, bottomMostSite);
+                int topSite = rightRegion(rbnd, bottomMostSite);
+
+                int v = heVertex[lbnd];
+                setVertex(heEdge[lbnd], heSide[lbnd], v);
+                setVertex(heEdge[rbnd], heSide[rbnd], v);
+                edgeListRemove(lbnd);
+                queueRemove(rbnd);
+                edgeListRemove(rbnd);
+
+                byte side = LEFT;
+                if (siteY[bottomSite] > siteY[topSite]) {
+                    int tempSite = bottomSite;
+                    bottomSite = topSite;
+                    topSite = tempSite;
+                    side = RIGHT;
+                }
+                int edge = createBisectingEdge(bottomSite, topSite);
+                int bisector = createHalfedge(edge, side);
+                edgeListInsert(llbnd, bisector);
+                setVertex(edge, (byte) (1 - side), v);
+
+                int vertex = intersect(llbnd, bisector);
+                if (vertex != NONE) {
+                    queueRemove(llbnd);
+                    heVertex[llbnd] = vertex;
+                    heYStar[llbnd] = vertexY[vertex] + distance(bottomSite, vertex);
+                    queueInsert(llbnd);
+                }
+                vertex = intersect(bisector, rrbnd);
+                if (vertex != NONE) {
+                    heVertex[bisector] = vertex;
+                    heYStar[bisector] = vertexY[vertex] + distance(bottomSite, vertex);
+                    queueInsert(bisector);
+                }
+            } else {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public int getEdgeLeftSite(int edge) {
+        return edgeLeftSite[edge];
+    }
+
+    @Override
+    public int getEdgeRightSite(int edge) {
+        return edgeRightSite[edge];
+    }
+
+    @Override
+    public int getEdgeLeftVertex(int edge) {
+        return edgeLeftVertex[edge];
+    }
+
+    @Override
+    public int getEdgeRightVertex(int edge) {
+        return edgeRightVertex[edge];
+    }
+
+    @Override
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    @Override
+    public float getVertexX(int vertex) {
+        return vertexX[vertex];
+    }
+
+    @Override
+    public float getVertexY(int vertex) {
+        return vertexY[vertex];
+    }
+
+    private int compareSiteToEvent(int site, int halfedge) {
+        float y = heYStar[halfedge];
+        float x = vertexX[heVertex[halfedge]];
+        if (siteY[site] < y) {
+            return -1;
+        }
+        if (siteY[site] > y) {
+            return 1;
+        }
+        if (siteX[site] < x) {
+            return -1;
+        }
+        if (siteX[site] > x) {
+            return 1;
+        }
+        return 0;
+    }
+
+    private int compareSites(int s1, int s2) {
+        if (siteY[s1] < siteY[s2]) {
+            return -1;
+        }
+        if (siteY[s1] > siteY[s2]) {
+            return 1;
+        }
+        if (siteX[s1] < siteX[s2]) {
+            return -1;
+        }
+        if (siteX[s1] > siteX[s2]) {
+            return 1;
+        }
+        return 0;
+    }
+
+    private float distance(int site, int vertex) {
+        float dx = siteX[site] - vertexX[vertex];
+        float dy = siteY[site] - vertexY[vertex];
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private int leftRegion(int halfedge, int bottomMostSite) {
+        int edge = heEdge[halfedge];
+        if (edge == NONE) {
+            return bottomMostSite;
+        }
+        return heSide[halfedge] == LEFT ? edgeLeftSite[edge] : edgeRightSite[edge];
+    }
+
+    private int rightRegion(int halfedge, int bottomMostSite) {
+        int edge = heEdge[halfedge];
+        if (edge == NONE) {
+            return bottomMostSite;
+        }
+        return heSide[halfedge] == LEFT ? edgeRightSite[edge] : edgeLeftSite[edge];
+    }
+
+    // ---- edges and vertices ----
+
+    /**
+     * Same as {@link Edge#createBisectingEdge(Site, Site)}
+     */
+    private int createBisectingEdge(int site0, int site1) {
+        float a;
+        float b;
+        float c;
+
+        float dx = siteX[site1] - siteX[site0];
+        float dy = siteY[site1] - siteY[site0];
+        float absdx = dx > 0 ? dx : -dx;
+        float absdy = dy > 0 ? dy : -dy;
+        c = siteX[site0] * dx + siteY[site0] * dy + (dx * dx + dy * dy) * 0.5f;
+        if (absdx > absdy) {
+            a = 1.0f;
+            b = dy / dx;
+            c /= dx;
+        } else {
+            b = 1.0f;
+            a = dx / dy;
+            c /= dy;
+        }
+
+        if (edgeCount == edgeA.length) {
+            int capacity = edgeCount * 2;
+            edgeA = Arrays.copyOf(edgeA, capacity);
+            edgeB = Arrays.copyOf(edgeB, capacity);
+            edgeC = Arrays.copyOf(edgeC, capacity);
+            edgeLeftSite = Arrays.copyOf(edgeLeftSite, capacity);
+            edgeRightSite = Arrays.copyOf(edgeRightSite, capacity);
+            edgeLeftVertex = Arrays.copyOf(edgeLeftVertex, capacity);
+            edgeRightVertex = Arrays.copyOf(edgeRightVertex, capacity);
+        }
+        int edge = edgeCount++;
+        edgeA[edge] = a;
+        edgeB[edge] = b;
+        edgeC[edge] = c;
+        edgeLeftSite[edge] = site0;
+        edgeRightSite[edge] = site1;
+        edgeLeftVertex[edge] = NONE;
+        edgeRightVertex[edge] = NONE;
+        return edge;
+    }
+
+    private void setVertex(int edge, byte side, int vertex) {
+        if (side == LEFT) {
+            edgeLeftVertex[edge] = vertex;
+        } else {
+            edgeRightVertex[edge] = vertex;
+        }
+    }
+
+    /**
+     * Same as {@link Vertex#intersect(Halfedge, Halfedge)}
+     * @return the new vertex or -1
+     */
+    private int intersect(int halfedge0, int halfedge1) {
+        int edge0 = heEdge[halfedge0];
+        int edge1 = heEdge[halfedge1];
+        if (edge0 < 0 || edge1 < 0) {
+            return NONE;
+        }
+        if (edgeRightSite[edge0] == edgeRightSite[edge1]) {
+            return NONE;
+        }
+
+        float determinant = edgeA[edge0] * edgeB[edge1] - edgeB[edge0] * edgeA[edge1];
+        if (-1.0e-10 < determinant && determinant < 1.0e-10) {
+            // the edges are parallel
+            return NONE;
+        }
+
+        float intersectionX = (edgeC[edge0] * edgeB[edge1] - edgeC[edge1] * edgeB[edge0]) / determinant;
+        float intersectionY = (edgeC[edge1] * edgeA[edge0] - edgeC[edge0] * edgeA[edge1]) / determinant;
+
+        int halfedge;
+        int edge;
+        if (compareSites(edgeRightSite[edge0], edgeRightSite[edge1]) < 0) {
+            halfedge = halfedge0;
+            edge = edge0;
+        } else {
+            halfedge = halfedge1;
+            edge = edge1;
+        }
+        boolean rightOfSite = intersectionX >= siteX[edgeRightSite[edge]];
+        if ((rightOfSite && heSide[halfedge] == LEFT) || (!rightOfSite && heSide[halfedge] == RIGHT)) {
+            return NONE;
+        }
+
+        if (vertexCount == vertexX.length) {
+            vertexX = Arrays.copyOf(vertexX, vertexCount * 2);
+            vertexY = Arrays.copyOf(vertexY, vertexCount * 2);
+        }
+        vertexX[vertexCount] = intersectionX;
+        vertexY[vertexCount] = intersectionY;
+        return vertexCount++;
+    }
+
+    // ---- half-edges ----
+
+    private int createHalfedge(int edge, byte side) {
+        if (halfedgeCount == heLeft.length) {
+            int capacity = halfedgeCount * 2;
+            heLeft = Arrays.copyOf(heLeft, capacity);
+            heRight = Arrays.copyOf(heRight, capacity);
+            heNext = Arrays.copyOf(heNext, capacity);
+            heEdge = Arrays.copyOf(heEdge, capacity);
+            heSide = Arrays.copyOf(heSide, capacity);
+            heVertex = Arrays.copyOf(heVertex, capacity);
+            heYStar = Arrays.copyOf(heYStar, capacity);
+        }
+        int he = halfedgeCount++;
+        heLeft[he] = NONE;
+        heRight[he] = NONE;
+        heNext[he] = NONE;
+        heEdge[he] = edge;
+        heSide[he] = side;
+        heVertex[he] = NONE;
+        heYStar[he] = 0;
+        return he;
+    }
+
+    /**
+     * Same as {@link Halfedge#isLeftOf(org.joml.Vector2fc)}
+     */
+    private boolean isLeftOf(int halfedge, float px, float py) {
+        int edge = heEdge[halfedge];
+        int topSite = edgeRightSite[edge];
+        boolean rightOfSite = px > siteX[topSite];
+        if (rightOfSite && heSide[halfedge] == LEFT) {
+            return true;
+        }
+        if (!rightOfSite && heSide[halfedge] == RIGHT) {
+            return false;
+        }
+
+        float a = edgeA[edge];
+        float b = edgeB[edge];
+        float c = edgeC[edge];
+        boolean above;
+        if (a == 1.0) {
+            float dyp = py - siteY[topSite];
+            float dxp = px - siteX[topSite];
+            boolean fast = false;
+            if ((!rightOfSite && b < 0.0) || (rightOfSite && b >= 0.0)) {
+                above = dyp >= b * dxp;
+                fast = above;
+            } else {
+                above = px + py * b > c;
+                if (b < 0.0) {
+                    above = !above;
+                }
+                if (!above) {
+                    fast = true;
+                }
+            }
+            if (!fast) {
+                float dxs = siteX[topSite] - siteX[edgeLeftSite[edge]];
+                above = b * (dxp * dxp - dyp * dyp)
+                        < dxs * dyp * (1.0 + 2.0 * dxp / dxs + b * b);
+                if (b < 0.0) {
+                    above = !above;
+                }
+            }
+        } else {
+            float yl = c - a * px;
+            float t1 = py - yl;
+            float t2 = px - siteX[topSite];
+            float t3 = yl - siteY[topSite];
+            above = t1 * t1 > t2 * t2 + t3 * t3;
+        }
+        return heSide[halfedge] == LEFT ? above : !above;
+    }
+
+    // ---- edge list ----
+
+    private void edgeListInsert(int lb, int halfedge) {
+        heLeft[halfedge] = lb;
+        heRight[halfedge] = heRight[lb];
+        heLeft[heRight[lb]] = halfedge;
+        heRight[lb] = halfedge;
+    }
+
+    private void edgeListRemove(int halfedge) {
+        heRight[heLeft[halfedge]] = heRight[halfedge];
+        heLeft[heRight[halfedge]] = heLeft[halfedge];
+        heEdge[halfedge] = DELETED;
+        heLeft[halfedge] = NONE;
+        heRight[halfedge] = NONE;
+    }
+
+    /**
+     * @return the rightmost half-edge that is still left of the point
+     */
+    private int edgeListLeftNeighbor(float px, float py) {
+        int hashSize = edgeListHash.length;
+        int bucket = (int) ((px - edgeListMinX) / edgeListDeltaX * hashSize);
+        if (bucket < 0) {
+            bucket = 0;
+        }
+        if (bucket >= hashSize) {
+            bucket = hashSize - 1;
+        }
+        int halfedge = getHash(bucket);
+        if (halfedge == NONE) {
+            for (int i = 1; true; ++i) {
+                halfedge = getHash(bucket - i);
+                if (halfedge != NONE) {
+                    break;
+                }
+                halfedge = getHash(bucket + i);
+                if (halfedge != NONE) {
+                    break;
+                }
+            }
+        }
+
+        // search the linear list of half-edges for the correct one
+        if (halfedge == leftEnd || (halfedge != rightEnd && isLeftOf(halfedge, px, py))) {
+            do {
+                halfedge = heRight[halfedge];
+            } while (halfedge != rightEnd && isLeftOf(halfedge, px, py));
+            halfedge = heLeft[halfedge];
+        } else {
+            do {
+                halfedge = heLeft[halfedge];
+            } while (halfedge != leftEnd && !isLeftOf(halfedge, px, py));
+        }
+
+        if (bucket > 0 && bucket < hashSize - 1) {
+            edgeListHash[bucket] = halfedge;
+        }
+        return halfedge;
+    }
+
+    private int getHash(int bucket) {
+        if (bucket < 0 || bucket >= edgeListHash.length) {
+            return NONE;
+        }
+        int halfedge = edgeListHash[bucket];
+        if (halfedge != NONE && heEdge[halfedge] == DELETED) {
+            edgeListHash[bucket] = NONE;
+            return NONE;
+        }
+        return halfedge;
+    }
+
+    // ---- priority queue ----
+
+    private int queueBucket(int halfedge) {
+        int bucket = (int) ((heYStar[halfedge] - queueMinY) / queueDeltaY * queueBuckets);
+        if (bucket < 0) {
+            bucket = 0;
+        }
+        if (bucket >= queueBuckets) {
+            bucket = queueBuckets - 1;
+        }
+        return bucket;
+    }
+
+    private void queueInsert(int halfedge) {
+        int bucket = queueBucket(halfedge);
+        if (bucket < queueMinBucket) {
+            queueMinBucket = bucket;
+        }
+        float ystar = heYStar[halfedge];
+        float x = vertexX[heVertex[halfedge]];
+        int previous = queueFirstDummy + bucket;
+        int next = heNext[previous];
+        while (next != NONE && (ystar > heYStar[next] || (ystar == heYStar[next] && x > vertexX[heVertex[next]]))) {
+            previous = next;
+            next = heNext[previous];
+        }
+        heNext[halfedge] = heNext[previous];
+        heNext[previous] = halfedge;
+        queueCount++;
+    }
+
+    private void queueRemove(int halfedge) {
+        if (heVertex[halfedge] != NONE) {
+            int previous = queueFirstDummy + queueBucket(halfedge);
+            while (heNext[previous] != halfedge) {
+                previous = heNext[previous];
+            }
+            heNext[previous] = heNext[halfedge];
+            queueCount--;
+            heVertex[halfedge] = NONE;
+            heNext[halfedge] = NONE;
+        }
+    }
+
+    private void adjustMinBucket() {
+        while (queueMinBucket < queueBuckets - 1 && heNext[queueFirstDummy + queueMinBucket] == NONE) {
+            ++queueMinBucket;
+        }
+    }
+
+    private int queueExtractMin() {
+        int dummy = queueFirstDummy + queueMinBucket;
+        int answer = heNext[dummy];
+        heNext[dummy] = heNext[answer];
+        queueCount--;
+        heNext[answer] = NONE;
+        return answer;
+    }
+}
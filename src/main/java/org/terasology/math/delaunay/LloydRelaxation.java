@@ -0,0 +1,457 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.math.delaunay;
+
+import org.joml.Vector2f;
+import org.joml.Vector2fc;
+import org.terasology.joml.geom.Rectanglef;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lloyd's algorithm on primitive arrays: every iteration moves each site to the centroid of its Voronoi cell,
+ * clipped to the bounds. Neither {@link Voronoi} nor any edge, site or region objects are created.
+ * <p>
+ * The area and centroid of a cell are summed up from the triangles between the site and each part of
+ * its boundary, i.e. its visible edges and the pieces of the border of the bounds that lie within the cell.
+ * This is exact for convex cells that contain their site, so all sites must lie within the bounds.
+ * The arrays are allocated once and reused by all iterations.
+ */
+public final class LloydRelaxation {
+
+    private final Rectanglef bounds;
+    private final Voronoi.Engine engine;
+
+    private final int count;
+    private final float[] siteX;
+    private final float[] siteY;
+    private final long[] siteKeys;
+
+    // the area and the first moments of the clipped cell of every site
+    private final double[] cellArea;
+    private final double[] cellMomentX;
+    private final double[] cellMomentY;
+
+    // the clipped ends on the border, sorted by their position along the border
+    private float[] hitX;
+    private float[] hitY;
+    private int[] hitEdges;
+    private long[] hitKeys;
+    private int hitCount;
+
+    private int iterations;
+
+    /**
+     * @param points the initial sites, all within the bounds
+     * @param bounds the bounds that the cells are clipped to
+     * @param engine the engine that computes the diagrams - the Fortune engines both use {@link FortuneSweep}
+     */
+    public LloydRelaxation(List<Vector2fc> points, Rectanglef bounds, Voronoi.Engine engine) {
+        this.bounds = new Rectanglef(bounds);
+        this.engine = engine;
+
+        count = points.size();
+        siteX = new float[count];
+        siteY = new float[count];
+        for (int i = 0; i < count; i++) {
+            siteX[i] = points.get(i).x();
+            siteY[i] = points.get(i).y();
+        }
+        siteKeys = new long[count];
+        cellArea = new double[count];
+        cellMomentX = new double[count];
+        cellMomentY = new double[count];
+
+        // most cells at the border touch it with one edge on each side
+        int hitCapacity = 2 * (int) Math.sqrt(count) + 16;
+        hitX = new float[hitCapacity];
+        hitY = new float[hitCapacity];
+        hitEdges = new int[hitCapacity];
+        hitKeys = new long[hitCapacity];
+    }
+
+    /**
+     * Runs iterations until the sites move less than the tolerance.
+     * @param maxIterations the maximum number of iterations
+     * @param tolerance the largest distance that any site may still move in the last iteration
+     * @return the number of iterations that were run
+     */
+    public int relax(int maxIterations, float tolerance) {
+        for (int i = 0; i < maxIterations; i++) {
+            if (step() < tolerance) {
+                return i + 1;
+            }
+        }
+        return maxIterations;
+    }
+
+    /**
+     * Moves every site to the centroid of its clipped cell. Sites of empty cells do not move.
+     * @return the largest distance that a site moved
+     */
+    public float step() {
+        if (count == 0) {
+            return 0;
+        }
+        sortSites();
+        DiagramBuilder builder = createBuilder();
+        builder.run();
+
+        Arrays.fill(cellArea, 0);
+        Arrays.fill(cellMomentX, 0);
+        Arrays.fill(cellMomentY, 0);
+        hitCount = 0;
+        for (int e = 0; e < builder.getEdgeCount(); e++) {
+            addEdge(builder, e);
+        }
+        addBorder(builder);
+
+        double maxDistSq = 0;
+        for (int i = 0; i < count; i++) {
+            if (cellArea[i] > 0) {
+                float x = (float) (cellMomentX[i] / cellArea[i]);
+                float y = (float) (cellMomentY[i] / cellArea[i]);
+                double dx = x - siteX[i];
+                double dy = y - siteY[i];
+                maxDistSq = Math.max(maxDistSq, dx * dx + dy * dy);
+                siteX[i] = x;
+                siteY[i] = y;
+            }
+        }
+        iterations++;
+        return (float) Math.sqrt(maxDistSq);
+    }
+
+    /**
+     * @return the number of iterations that have been run so far
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return the current sites - after an iteration, in the order of the sites of the diagram of that iteration
+     */
+    public List<Vector2fc> getSites() {
+        List<Vector2fc> sites = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sites.add(new Vector2f(siteX[i], siteY[i]));
+        }
+        return sites;
+    }
+
+    /**
+     * Sorts the sites by y, then x, as required by {@link DiagramBuilder}. Both coordinates are packed into
+     * one key, so that a primitive sort is sufficient.
+     */
+    private void sortSites() {
+        for (int i = 0; i < count; i++) {
+            // the sign bit of x is flipped, so that the lower half of the key is ordered when it is unsigned
+            long keyX = (sortableBits(siteX[i]) ^ 0x80000000) & 0xFFFFFFFFL;
+            siteKeys[i] = ((long) sortableBits(siteY[i]) << 32) | keyX;
+        }
+        Arrays.sort(siteKeys);
+        for (int i = 0; i < count; i++) {
+            siteY[i] = Float.intBitsToFloat(sortableBits((int) (siteKeys[i] >> 32)));
+            siteX[i] = Float.intBitsToFloat(sortableBits((int) siteKeys[i] ^ 0x80000000));
+        }
+    }
+
+    /**
+     * Maps float bits to ints with the same order as the floats. Applied twice, it restores the float bits.
+     */
+    private static int sortableBits(float value) {
+        return sortableBits(Float.floatToIntBits(value));
+    }
+
+    private static int sortableBits(int bits) {
+        return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+    }
+
+    private DiagramBuilder createBuilder() {
+        if (engine == Voronoi.Engine.SWEEP_HULL) {
+            return new SweepHullDelaunay(siteX, siteY, count);
+        }
+        // like SiteList.getSitesBounds()
+        float minX = Float.MAX_VALUE;
+        float maxX = Float.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            minX = Math.min(minX, siteX[i]);
+            maxX = Math.max(maxX, siteX[i]);
+        }
+        float minY = siteY[0];
+        float maxY = siteY[count - 1];
+        return new FortuneSweep(siteX, siteY, count, minX, maxX - minX, minY, maxY - minY);
+    }
+
+    /**
+     * Clips the edge like {@link Edge#clipVertices(Rectanglef)} and adds the visible part to both cells.
+     * Ends that are not vertices within the bounds are on the border.
+     */
+    private void addEdge(DiagramBuilder builder, int e) {
+        int left = builder.getEdgeLeftSite(e);
+        int right = builder.getEdgeRightSite(e);
+
+        // the bisector a * x + b * y = c, like Edge.createBisectingEdge()
+        float dx = siteX[right] - siteX[left];
+        float dy = siteY[right] - siteY[left];
+        float c = siteX[left] * dx + siteY[left] * dy + (dx * dx + dy * dy) * 0.5f;
+        float a;
+        float b;
+        if (Math.abs(dx) > Math.abs(dy)) {
+            a = 1.0f;
+            b = dy / dx;
+            c /= dx;
+        } else {
+            b = 1.0f;
+            a = dx / dy;
+            c /= dy;
+        }
+
+        // missing vertices are NaN, which fails all comparisons just like a null vertex
+        int leftVertex = builder.getEdgeLeftVertex(e);
+        int rightVertex = builder.getEdgeRightVertex(e);
+        float leftX = leftVertex < 0 ? Float.NaN : builder.getVertexX(leftVertex);
+        float leftY = leftVertex < 0 ? Float.NaN : builder.getVertexY(leftVertex);
+        float rightX = rightVertex < 0 ? Float.NaN : builder.getVertexX(rightVertex);
+        float rightY = rightVertex < 0 ? Float.NaN : builder.getVertexY(rightVertex);
+
+        boolean swap = a == 1.0f && b >= 0.0f;
+        float v0x = swap ? rightX : leftX;
+        float v0y = swap ? rightY : leftY;
+        float v1x = swap ? leftX : rightX;
+        float v1y = swap ? leftY : rightY;
+
+        float xmin = bounds.minX;
+        float ymin = bounds.minY;
+        float xmax = bounds.maxX;
+        float ymax = bounds.maxY;
+        float x0;
+        float y0;
+        float x1;
+        float y1;
+        if (a == 1.0f) {
+            y0 = v0y > ymin ? v0y : ymin;
+            if (y0 > ymax) {
+                return;
+            }
+            x0 = c - b * y0;
+            y1 = v1y < ymax ? v1y : ymax;
+            if (y1 < ymin) {
+                return;
+            }
+            x1 = c - b * y1;
+            if ((x0 > xmax && x1 > xmax) || (x0 < xmin && x1 < xmin)) {
+                return;
+            }
+            if (x0 > xmax || x0 < xmin) {
+                x0 = x0 > xmax ? xmax : xmin;
+                y0 = (c - x0) / b;
+            }
+            if (x1 > xmax || x1 < xmin) {
+                x1 = x1 > xmax ? xmax : xmin;
+                y1 = (c - x1) / b;
+            }
+        } else {
+            x0 = v0x > xmin ? v0x : xmin;
+            if (x0 > xmax) {
+                return;
+            }
+            y0 = c - a * x0;
+            x1 = v1x < xmax ? v1x : xmax;
+            if (x1 < xmin) {
+                return;
+            }
+            y1 = c - a * x1;
+            if ((y0 > ymax && y1 > ymax) || (y0 < ymin && y1 < ymin)) {
+                return;
+            }
+            if (y0 > ymax || y0 < ymin) {
+                y0 = y0 > ymax ? ymax : ymin;
+                x0 = (c - y0) / a;
+            }
+            if (y1 > ymax || y1 < ymin) {
+                y1 = y1 > ymax ? ymax : ymin;
+                x1 = (c - y1) / a;
+            }
+        }
+
+        if (bounds.containsPoint(v0x, v0y)) {
+            x0 = v0x;
+            y0 = v0y;
+        } else {
+            addHit(x0, y0, e);
+        }
+        if (bounds.containsPoint(v1x, v1y)) {
+            x1 = v1x;
+            y1 = v1y;
+        } else {
+            addHit(x1, y1, e);
+        }
+
+        addTriangle(left, x0, y0, x1, y1);
+        addTriangle(right, x0, y0, x1, y1);
+    }
+
+    private void addHit(float x, float y, int edge) {
+        if (hitCount == hitEdges.length) {
+            hitX = Arrays.copyOf(hitX, 2 * hitCount);
+            hitY = Arrays.copyOf(hitY, 2 * hitCount);
+            hitEdges = Arrays.copyOf(hitEdges, 2 * hitCount);
+            hitKeys = Arrays.copyOf(hitKeys, 2 * hitCount);
+        }
+        hitX[hitCount] = x;
+        hitY[hitCount] = y;
+        hitEdges[hitCount] = edge;
+        // the position along the border is not negative, so its float bits are ordered like the floats
+        hitKeys[hitCount] = ((long) Float.floatToIntBits(borderPosition(x, y)) << 32) | hitCount;
+        hitCount++;
+    }
+
+    /**
+     * Adds the pieces of the border between two consecutive clipped ends to the cell that they lie in.
+     * That is the cell of one of the two sites of either edge, whichever is closest to the middle of the piece.
+     */
+    private void addBorder(DiagramBuilder builder) {
+        float perimeter = 2 * (bounds.getSizeX() + bounds.getSizeY());
+        if (hitCount == 0) {
+            // a single site, or no edge crosses the bounds: one cell covers the whole border
+            int owner = closestSite(bounds.minX, bounds.minY);
+            addBorderPiece(owner, 0, perimeter, bounds.minX, bounds.minY, bounds.minX, bounds.minY);
+            return;
+        }
+
+        Arrays.sort(hitKeys, 0, hitCount);
+        for (int k = 0; k < hitCount; k++) {
+            int from = (int) hitKeys[k];
+            int to = (int) hitKeys[(k + 1) % hitCount];
+            float start = Float.intBitsToFloat((int) (hitKeys[k] >>> 32));
+            float end = Float.intBitsToFloat((int) (hitKeys[(k + 1) % hitCount] >>> 32));
+            if (k == hitCount - 1) {
+                end += perimeter;
+            }
+            if (end <= start) {
+                continue;
+            }
+
+            float middle = (start + end) / 2;
+            if (middle >= perimeter) {
+                middle -= perimeter;
+            }
+            float mx = borderX(middle);
+            float my = borderY(middle);
+            int owner = builder.getEdgeLeftSite(hitEdges[from]);
+            owner = closer(owner, builder.getEdgeRightSite(hitEdges[from]), mx, my);
+            owner = closer(owner, builder.getEdgeLeftSite(hitEdges[to]), mx, my);
+            owner = closer(owner, builder.getEdgeRightSite(hitEdges[to]), mx, my);
+            addBorderPiece(owner, start, end, hitX[from], hitY[from], hitX[to], hitY[to]);
+        }
+    }
+
+    /**
+     * Adds the triangles between the site and the border from one position to another,
+     * including all corners in between.
+     */
+    private void addBorderPiece(int site, float start, float end, float startX, float startY, float endX, float endY) {
+        float sizeX = bounds.getSizeX();
+        float sizeY = bounds.getSizeY();
+        float prevX = startX;
+        float prevY = startY;
+        // the corners of two rounds, because the piece may wrap around
+        float corner = 0;
+        for (int i = 0; i < 8; i++) {
+            corner += i % 2 == 0 ? sizeX : sizeY;
+            if (corner >= end) {
+                break;
+            }
+            if (corner > start) {
+                float cx = (i % 4 == 0 || i % 4 == 1) ? bounds.maxX : bounds.minX;
+                float cy = (i % 4 == 1 || i % 4 == 2) ? bounds.maxY : bounds.minY;
+                addTriangle(site, prevX, prevY, cx, cy);
+                prevX = cx;
+                prevY = cy;
+            }
+        }
+        addTriangle(site, prevX, prevY, endX, endY);
+    }
+
+    private void addTriangle(int site, float x0, float y0, float x1, float y1) {
+        double sx = siteX[site];
+        double sy = siteY[site];
+        double area = Math.abs((x0 - sx) * (y1 - sy) - (x1 - sx) * (y0 - sy)) / 2;
+        cellArea[site] += area;
+        cellMomentX[site] += area * (sx + x0 + x1) / 3;
+        cellMomentY[site] += area * (sy + y0 + y1) / 3;
+    }
+
+    /**
+     * @return the distance from the corner at the minimum along the border to the closest border point
+     */
+    private float borderPosition(float x, float y) {
+        float sizeX = bounds.getSizeX();
+        float sizeY = bounds.getSizeY();
+        float bottom = y - bounds.minY;
+        float right = bounds.maxX - x;
+        float top = bounds.maxY - y;
+        float left = x - bounds.minX;
+        float pos;
+        if (bottom <= right && bottom <= top && bottom <= left) {
+            pos = x - bounds.minX;
+        } else if (right <= top && right <= left) {
+            pos = sizeX + y - bounds.minY;
+        } else if (top <= left) {
+            pos = sizeX + sizeY + bounds.maxX - x;
+        } else {
+            pos = 2 * sizeX + sizeY + bounds.maxY - y;
+        }
+        // clamping also turns -0 into 0
+        return Math.min(Math.max(pos, 0f), 2 * (sizeX + sizeY));
+    }
+
+    private float borderX(float pos) {
+        float sizeX = bounds.getSizeX();
+        float sizeY = bounds.getSizeY();
+        if (pos < sizeX) {
+            return bounds.minX + pos;
+        } else if (pos < sizeX + sizeY) {
+            return bounds.maxX;
+        } else if (pos < 2 * sizeX + sizeY) {
+            return bounds.maxX - (pos - sizeX - sizeY);
+        }
+        return bounds.minX;
+    }
+
+    private float borderY(float pos) {
+        float sizeX = bounds.getSizeX();
+        float sizeY = bounds.getSizeY();
+        if (pos < sizeX) {
+            return bounds.minY;
+        } else if (pos < sizeX + sizeY) {
+            return bounds.minY + (pos - sizeX);
+        } else if (pos < 2 * sizeX + sizeY) {
+            return bounds.maxY;
+        }
+        return bounds.maxY - (pos - 2 * sizeX - sizeY);
+    }
+
+    private int closer(int site0, int site1, float x, float y) {
+        return distanceSq(site0, x, y) <= distanceSq(site1, x, y) ? site0 : site1;
+    }
+
+    private int closestSite(float x, float y) {
+        int closest = 0;
+        for (int i = 1; i < count; i++) {
+            closest = closer(closest, i, x, y);
+        }
+        return closest;
+    }
+
+    private double distanceSq(int site, float x, float y) {
+        double dx = siteX[site] - x;
+        double dy = siteY[site] - y;
+        return dx * dx + dy * dy;
+    }
+}
@@ -55,6 +55,10 @@ public final class Site implements ICoord {
 
     public static void sortSites(List<Site> sites) {
         Collections.sort(sites, (o1, o2) -> (int) compare(o1, o2));
+        // the swaps in compare() do not reliably match the result of the sort
+        for (int i = 0; i < sites.size(); i++) {
+            sites.get(i).siteIndex = i;
+        }
     }
 
     /**
@@ -97,6 +101,13 @@ public final class Site implements ICoord {
         return coord;
     }
 
+    /**
+     * @return the position of this site in its sorted {@link SiteList}
+     */
+    int getIndex() {
+        return siteIndex;
+    }
+
     @Override
     public String toString() {
         return "Site " + siteIndex + ": " + getCoord();
@@ -179,8 +190,8 @@ public final class Site implements ICoord {
         }
         edge = getEdges().get(i);
         LR orientation = edgeOrientations.get(i);
-        points.add(edge.getClippedEnds().get(orientation));
-        points.add(edge.getClippedEnds().get((orientation.other())));
+        points.add(edge.getClippedEnd(orientation));
+        points.add(edge.getClippedEnd((orientation.other())));
 
         for (int j = i + 1; j < n; ++j) {
             edge = getEdges().get(j);
@@ -200,7 +211,7 @@ public final class Site implements ICoord {
         Edge newEdge = getEdges().get(j);
         LR newOrientation = edgeOrientations.get(j);
         // the point that  must be connected to rightPoint:
-        Vector2fc newPoint = newEdge.getClippedEnds().get(newOrientation);
+        Vector2fc newPoint = newEdge.getClippedEnd(newOrientation);
         if (!closeEnough(rightPoint, newPoint)) {
             // The points do not coincide, so they must have been clipped at the bounds;
             // see if they are on the same border of the bounds:
@@ -292,7 +303,7 @@ public final class Site implements ICoord {
             }
             points.add(newPoint);
         }
-        Vector2fc newRightPoint = newEdge.getClippedEnds().get(newOrientation.other());
+        Vector2fc newRightPoint = newEdge.getClippedEnd(newOrientation.other());
         if (!closeEnough(points.get(0), newRightPoint)) {
             points.add(newRightPoint);
         }
@@ -43,6 +43,17 @@ final class SiteList {
         return sites.size();
     }
 
+    /**
+     * @param index the index of the site in the sorted order
+     * @return the site
+     */
+    Site get(int index) {
+        if (!sorted) {
+            throw new IllegalStateException("Sites have not been sorted");
+        }
+        return sites.get(index);
+    }
+
     public Site next() {
         if (!sorted) {
             throw new IllegalStateException("Sites have not been sorted");
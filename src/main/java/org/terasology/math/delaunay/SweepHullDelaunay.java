@@ -0,0 +1,642 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.math.delaunay;
+
+import java.util.Arrays;
+
+/**
+ * An incremental sweep-hull Delaunay triangulation on flat arrays (after Sinclair's S-hull and Mapbox' Delaunator),
+ * and the Voronoi diagram as its dual.
+ * <p>
+ * The sites are added in order of their distance to the circumcircle of a seed triangle, so that every new site
+ * lies outside of the convex hull of the previous ones. A new site is connected to all hull edges it can see
+ * and the new triangles are flipped until they are Delaunay. A hash of the hull vertices by their angle around
+ * the seed finds the first visible edge in constant time on average.
+ * <p>
+ * Triangles are stored as three consecutive half-edges. Half-edge <code>e</code> starts at site
+ * <code>triangles[e]</code> and its twin in the adjacent triangle is <code>halfedges[e]</code> or -1 on the hull.
+ * All triangles are clockwise, i.e. the triangle of a half-edge lies to its right.
+ * <p>
+ * Every Delaunay edge is a Voronoi edge between the same two sites and its vertices are the circumcenters
+ * of the triangles on both sides. Hull edges have a single triangle and extend to infinity. If all sites are
+ * collinear, there are no triangles and the edges are the parallel bisectors of neighboring sites.
+ */
+final class SweepHullDelaunay implements DiagramBuilder {
+
+    private static final int NONE = -1;
+
+    /**
+     * Sites that are closer to the previous site are skipped
+     */
+    private static final double EPSILON = Math.ulp(1.0);
+
+    private final float[] siteX;
+    private final float[] siteY;
+    private final int siteCount;
+
+    private int[] triangles = new int[0];
+    private int[] halfedges = new int[0];
+    private int trianglesLen;
+
+    // the convex hull as a doubly-linked list of site ids with the hull triangle of the outgoing edge
+    private int[] hullPrev;
+    private int[] hullNext;
+    private int[] hullTri;
+    private int[] hullHash;
+    private int hullStart;
+    private double centerX;
+    private double centerY;
+
+    private int[] edgeStack = new int[512];
+
+    private int[] edgeLeftSite = new int[0];
+    private int[] edgeRightSite = new int[0];
+    private int[] edgeLeftVertex = new int[0];
+    private int[] edgeRightVertex = new int[0];
+    private int edgeCount;
+
+    private float[] vertexX = new float[0];
+    private float[] vertexY = new float[0];
+    private int vertexCount;
+
+    /**
+     * @param siteX the x coordinates of all sites, sorted by y, then x
+     * @param siteY the y coordinates of all sites, sorted by y, then x
+     * @param siteCount the number of sites
+     */
+    SweepHullDelaunay(float[] siteX, float[] siteY, int siteCount) {
+        this.siteX = siteX;
+        this.siteY = siteY;
+        this.siteCount = siteCount;
+    }
+
+    @Override
+    public void run() {
+        if (siteCount >= 3) {
+            triangulate();
+        }
+        if (trianglesLen == 0) {
+            createCollinearEdges();
+        } else {
+            createDualEdges();
+        }
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public int getEdgeLeftSite(int edge) {
+        return edgeLeftSite[edge];
+    }
+
+    @Override
+    public int getEdgeRightSite(int edge) {
+        return edgeRightSite[edge];
+    }
+
+    @Override
+    public int getEdgeLeftVertex(int edge) {
+        return edgeLeftVertex[edge];
+    }
+
+    @Override
+    public int getEdgeRightVertex(int edge) {
+        return edgeRightVertex[edge];
+    }
+
+    @Override
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    @Override
+    public float getVertexX(int vertex) {
+        return vertexX[vertex];
+    }
+
+    @Override
+    public float getVertexY(int vertex) {
+        return vertexY[vertex];
+    }
+
+    private void triangulate() {
+        int n = siteCount;
+
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, siteX[i]);
+            minY = Math.min(minY, siteY[i]);
+            maxX = Math.max(maxX, siteX[i]);
+            maxY = Math.max(maxY, siteY[i]);
+            ids[i] = i;
+        }
+        double cx = (minX + maxX) / 2;
+        double cy = (minY + maxY) / 2;
+
+        // the seed triangle: the site closest to the center, its closest neighbor and the site
+        // that forms the smallest circumcircle with both
+        int i0 = NONE;
+        double minDist = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            double d = dist(cx, cy, siteX[i], siteY[i]);
+            if (d < minDist) {
+                i0 = i;
+                minDist = d;
+            }
+        }
+        double i0x = siteX[i0];
+        double i0y = siteY[i0];
+
+        int i1 = NONE;
+        minDist = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            if (i != i0) {
+                double d = dist(i0x, i0y, siteX[i], siteY[i]);
+                if (d < minDist && d > 0) {
+                    i1 = i;
+                    minDist = d;
+                }
+            }
+        }
+        if (i1 == NONE) {
+            return;
+        }
+        double i1x = siteX[i1];
+        double i1y = siteY[i1];
+
+        int i2 = NONE;
+        double minRadius = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            if (i != i0 && i != i1) {
+                double r = circumradius(i0x, i0y, i1x, i1y, siteX[i], siteY[i]);
+                if (r < minRadius) {
+                    i2 = i;
+                    minRadius = r;
+                }
+            }
+        }
+        if (i2 == NONE) {
+            // all sites are collinear
+            return;
+        }
+        double i2x = siteX[i2];
+        double i2y = siteY[i2];
+
+        if (isCounterClockwise(i0x, i0y, i1x, i1y, i2x, i2y)) {
+            int i = i1;
+            i1 = i2;
+            i2 = i;
+            i1x = siteX[i1];
+            i1y = siteY[i1];
+            i2x = siteX[i2];
+            i2y = siteY[i2];
+        }
+
+        centerX = circumcenterX(i0x, i0y, i1x, i1y, i2x, i2y);
+        centerY = circumcenterY(i0x, i0y, i1x, i1y, i2x, i2y);
+
+        double[] dists = new double[n];
+        for (int i = 0; i < n; i++) {
+            dists[i] = dist(siteX[i], siteY[i], centerX, centerY);
+        }
+        quicksort(ids, dists, 0, n - 1);
+
+        // a triangulation has at most 2n - 5 triangles
+        int maxTriangles = Math.max(2 * n - 5, 0);
+        triangles = new int[maxTriangles * 3];
+        halfedges = new int[maxTriangles * 3];
+
+        int hashSize = (int) Math.ceil(Math.sqrt(n));
+        hullPrev = new int[n];
+        hullNext = new int[n];
+        hullTri = new int[n];
+        hullHash = new int[hashSize];
+        Arrays.fill(hullHash, NONE);
+
+        hullStart = i0;
+        hullNext[i0] = i1;
+        hullPrev[i2] = i1;
+        hullNext[i1] = i2;
+        hullPrev[i0] = i2;
+        hullNext[i2] = i0;
+        hullPrev[i1] = i0;
+
+        hullTri[i0] = 0;
+        hullTri[i1] = 1;
+        hullTri[i2] = 2;
+
+        hullHash[hashKey(i0x, i0y)] = i0;
+        hullHash[hashKey(i1x, i1y)] = i1;
+        hullHash[hashKey(i2x, i2y)] = i2;
+
+        addTriangle(i0, i1, i2, NONE, NONE, NONE);
+
+        double xp = 0;
+        double yp = 0;
+        for (int k = 0; k < n; k++) {
+            int i = ids[k];
+            double x = siteX[i];
+            double y = siteY[i];
+
+            if (k > 0 && Math.abs(x - xp) <= EPSILON && Math.abs(y - yp) <= EPSILON) {
+                continue;
+            }
+            xp = x;
+            yp = y;
+
+            if (i == i0 || i == i1 || i == i2) {
+                continue;
+            }
+
+            // find a visible hull edge, starting with the hull vertex of the closest angle
+            int start = 0;
+            int key = hashKey(x, y);
+            for (int j = 0; j < hashSize; j++) {
+                start = hullHash[(key + j) % hashSize];
+                if (start != NONE && start != hullNext[start]) {
+                    break;
+                }
+            }
+
+            start = hullPrev[start];
+            int e = start;
+            int q = hullNext[e];
+            while (!isCounterClockwise(x, y, siteX[e], siteY[e], siteX[q], siteY[q])) {
+                e = q;
+                if (e == start) {
+                    e = NONE;
+                    break;
+                }
+                q = hullNext[e];
+            }
+            if (e == NONE) {
+                // a duplicate of a hull site
+                continue;
+            }
+
+            int t = addTriangle(e, i, hullNext[e], NONE, NONE, hullTri[e]);
+            hullTri[i] = legalize(t + 2);
+            hullTri[e] = t;
+
+            // walk forward along the hull and add triangles for all visible edges
+            int next = hullNext[e];
+            q = hullNext[next];
+            while (isCounterClockwise(x, y, siteX[next], siteY[next], siteX[q], siteY[q])) {
+                t = addTriangle(next, i, q, hullTri[i], NONE, hullTri[next]);
+                hullTri[i] = legalize(t + 2);
+                hullNext[next] = next;  // removed from the hull
+                next = q;
+                q = hullNext[next];
+            }
+
+            // walk backward, if the first visible edge was not the first edge of the walk
+            if (e == start) {
+                q = hullPrev[e];
+                while (isCounterClockwise(x, y, siteX[q], siteY[q], siteX[e], siteY[e])) {
+                    t = addTriangle(q, i, e, NONE, hullTri[e], hullTri[q]);
+                    legalize(t + 2);
+                    hullTri[q] = t;
+                    hullNext[e] = e;  // removed from the hull
+                    e = q;
+                    q = hullPrev[e];
+                }
+            }
+
+            hullStart = e;
+            hullPrev[i] = e;
+            hullNext[e] = i;
+            hullPrev[next] = i;
+            hullNext[i] = next;
+
+            hullHash[hashKey(x, y)] = i;
+            hullHash[hashKey(siteX[e], siteY[e])] = e;
+        }
+    }
+
+    /**
+     * Flips the edge and the edges of the flipped triangles until all of them are Delaunay.
+     * @param edge a half-edge of a new triangle
+     * @return the half-edge that replaces the third edge of the triangle
+     */
+    private int legalize(int edge) {
+        int a = edge;
+        int i = 0;
+        int ar;
+
+        while (true) {
+            int b = halfedges[a];
+
+            //            pl                    pl
+            //           /||\                  /  \
+            //        al/ || \bl            al/    \a
+            //         /  ||  \              /      \
+            //        /  a||b  \    flip    /___ar___\
+            //      p0\   ||   /p1   =>   p0\---bl---/p1
+            //         \  ||  /              \      /
+            //        ar\ || /br             b\    /br
+            //           \||/                  \  /
+            //            pr                    pr
+            int a0 = a - a % 3;
+            ar = a0 + (a + 2) % 3;
+
+            if (b == NONE) {
+                // a hull edge
+                if (i == 0) {
+                    break;
+                }
+                a = edgeStack[--i];
+                continue;
+            }
+
+            int b0 = b - b % 3;
+            int al = a0 + (a + 1) % 3;
+            int bl = b0 + (b + 2) % 3;
+
+            int p0 = triangles[ar];
+            int pr = triangles[a];
+            int pl = triangles[al];
+            int p1 = triangles[bl];
+
+            if (inCircle(siteX[p0], siteY[p0], siteX[pr], siteY[pr], siteX[pl], siteY[pl], siteX[p1], siteY[p1])) {
+                triangles[a] = p1;
+                triangles[b] = p0;
+
+                int hbl = halfedges[bl];
+
+                // the flipped edge is on the hull, so the hull triangle changes
+                if (hbl == NONE) {
+                    int e = hullStart;
+                    do {
+                        if (hullTri[e] == bl) {
+                            hullTri[e] = a;
+                            break;
+                        }
+                        e = hullPrev[e];
+                    } while (e != hullStart);
+                }
+                link(a, hbl);
+                link(b, halfedges[ar]);
+                link(ar, bl);
+
+                int br = b0 + (b + 1) % 3;
+                if (i == edgeStack.length) {
+                    edgeStack = Arrays.copyOf(edgeStack, i * 2);
+                }
+                edgeStack[i++] = br;
+            } else {
+                if (i == 0) {
+                    break;
+                }
+                a = edgeStack[--i];
+            }
+        }
+
+        return ar;
+    }
+
+    private void link(int a, int b) {
+        halfedges[a] = b;
+        if (b != NONE) {
+            halfedges[b] = a;
+        }
+    }
+
+    private int addTriangle(int i0, int i1, int i2, int a, int b, int c) {
+        int t = trianglesLen;
+
+        triangles[t] = i0;
+        triangles[t + 1] = i1;
+        triangles[t + 2] = i2;
+
+        link(t, a);
+        link(t + 1, b);
+        link(t + 2, c);
+
+        trianglesLen += 3;
+        return t;
+    }
+
+    private void createDualEdges() {
+        vertexCount = trianglesLen / 3;
+        vertexX = new float[vertexCount];
+        vertexY = new float[vertexCount];
+        for (int t = 0; t < vertexCount; t++) {
+            int p0 = triangles[3 * t];
+            int p1 = triangles[3 * t + 1];
+            int p2 = triangles[3 * t + 2];
+            vertexX[t] = (float) circumcenterX(siteX[p0], siteY[p0], siteX[p1], siteY[p1], siteX[p2], siteY[p2]);
+            vertexY[t] = (float) circumcenterY(siteX[p0], siteY[p0], siteX[p1], siteY[p1], siteX[p2], siteY[p2]);
+        }
+
+        // one edge per pair of twins and per hull half-edge
+        int capacity = trianglesLen;
+        edgeLeftSite = new int[capacity];
+        edgeRightSite = new int[capacity];
+        edgeLeftVertex = new int[capacity];
+        edgeRightVertex = new int[capacity];
+
+        for (int e = 0; e < trianglesLen; e++) {
+            int twin = halfedges[e];
+            if (twin != NONE && twin < e) {
+                continue;
+            }
+            int p = triangles[e];
+            int q = triangles[e % 3 == 2 ? e - 2 : e + 1];
+            int inner = e / 3;
+            int outer = twin == NONE ? NONE : twin / 3;
+
+            // the triangle of e lies to the right of p -> q
+            if (p < q) {
+                addEdge(p, q, outer, inner);
+            } else {
+                addEdge(q, p, inner, outer);
+            }
+        }
+    }
+
+    private void createCollinearEdges() {
+        if (siteCount < 2) {
+            return;
+        }
+        edgeLeftSite = new int[siteCount - 1];
+        edgeRightSite = new int[siteCount - 1];
+        edgeLeftVertex = new int[siteCount - 1];
+        edgeRightVertex = new int[siteCount - 1];
+
+        // sorted by y, then x is the order along the line
+        int prev = 0;
+        for (int i = 1; i < siteCount; i++) {
+            if (siteX[i] != siteX[prev] || siteY[i] != siteY[prev]) {
+                addEdge(prev, i, NONE, NONE);
+                prev = i;
+            }
+        }
+    }
+
+    private void addEdge(int leftSite, int rightSite, int leftVertex, int rightVertex) {
+        edgeLeftSite[edgeCount] = leftSite;
+        edgeRightSite[edgeCount] = rightSite;
+        edgeLeftVertex[edgeCount] = leftVertex;
+        edgeRightVertex[edgeCount] = rightVertex;
+        edgeCount++;
+    }
+
+    /**
+     * @return an index into the hull hash that increases monotonically with the angle around the center
+     */
+    private int hashKey(double x, double y) {
+        return (int) Math.floor(pseudoAngle(x - centerX, y - centerY) * hullHash.length) % hullHash.length;
+    }
+
+    /**
+     * @return a value in [0..1) that increases monotonically with the angle of the vector
+     */
+    private static double pseudoAngle(double dx, double dy) {
+        double p = dx / (Math.abs(dx) + Math.abs(dy));
+        return (dy > 0 ? 3 - p : 1 + p) / 4;
+    }
+
+    private static double dist(double ax, double ay, double bx, double by) {
+        double dx = ax - bx;
+        double dy = ay - by;
+        return dx * dx + dy * dy;
+    }
+
+    private static boolean isCounterClockwise(double px, double py, double qx, double qy, double rx, double ry) {
+        return (qy - py) * (rx - qx) - (qx - px) * (ry - qy) < 0;
+    }
+
+    /**
+     * @return true if p lies inside of the circumcircle of the clockwise triangle a, b, c
+     */
+    private static boolean inCircle(double ax, double ay, double bx, double by, double cx, double cy, double px, double py) {
+        double dx = ax - px;
+        double dy = ay - py;
+        double ex = bx - px;
+        double ey = by - py;
+        double fx = cx - px;
+        double fy = cy - py;
+
+        double ap = dx * dx + dy * dy;
+        double bp = ex * ex + ey * ey;
+        double cp = fx * fx + fy * fy;
+
+        return dx * (ey * cp - bp * fy) - dy * (ex * cp - bp * fx) + ap * (ex * fy - ey * fx) < 0;
+    }
+
+    /**
+     * @return the squared radius or infinity or NaN if the points are collinear
+     */
+    private static double circumradius(double ax, double ay, double bx, double by, double cx, double cy) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double ex = cx - ax;
+        double ey = cy - ay;
+
+        double bl = dx * dx + dy * dy;
+        double cl = ex * ex + ey * ey;
+        double d = 0.5 / (dx * ey - dy * ex);
+
+        double x = (ey * bl - dy * cl) * d;
+        double y = (dx * cl - ex * bl) * d;
+
+        return x * x + y * y;
+    }
+
+    private static double circumcenterX(double ax, double ay, double bx, double by, double cx, double cy) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double ex = cx - ax;
+        double ey = cy - ay;
+
+        double bl = dx * dx + dy * dy;
+        double cl = ex * ex + ey * ey;
+        double d = 0.5 / (dx * ey - dy * ex);
+
+        return ax + (ey * bl - dy * cl) * d;
+    }
+
+    private static double circumcenterY(double ax, double ay, double bx, double by, double cx, double cy) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double ex = cx - ax;
+        double ey = cy - ay;
+
+        double bl = dx * dx + dy * dy;
+        double cl = ex * ex + ey * ey;
+        double d = 0.5 / (dx * ey - dy * ex);
+
+        return ay + (dx * cl - ex * bl) * d;
+    }
+
+    /**
+     * Sorts the ids by their distance: insertion sort for short ranges, quicksort with a median of three otherwise.
+     */
+    private static void quicksort(int[] ids, double[] dists, int left, int right) {
+        if (right - left <= 20) {
+            for (int i = left + 1; i <= right; i++) {
+                int temp = ids[i];
+                double tempDist = dists[temp];
+                int j = i - 1;
+                while (j >= left && dists[ids[j]] > tempDist) {
+                    ids[j + 1] = ids[j];
+                    j--;
+                }
+                ids[j + 1] = temp;
+            }
+        } else {
+            int median = (left + right) >> 1;
+            int i = left + 1;
+            int j = right;
+            swap(ids, median, i);
+            if (dists[ids[left]] > dists[ids[right]]) {
+                swap(ids, left, right);
+            }
+            if (dists[ids[i]] > dists[ids[right]]) {
+                swap(ids, i, right);
+            }
+            if (dists[ids[left]] > dists[ids[i]]) {
+                swap(ids, left, i);
+            }
+
+            int temp = ids[i];
+            double tempDist = dists[temp];
+            while (true) {
+                do {
+                    i++;
+                } while (dists[ids[i]] < tempDist);
+                do {
+                    j--;
+                } while (dists[ids[j]] > tempDist);
+                if (j < i) {
+                    break;
+                }
+                swap(ids, i, j);
+            }
+            ids[left + 1] = ids[j];
+            ids[j] = temp;
+
+            if (right - i + 1 >= j - left) {
+                quicksort(ids, dists, i, right);
+                quicksort(ids, dists, left, j - 1);
+            } else {
+                quicksort(ids, dists, left, j - 1);
+                quicksort(ids, dists, i, right);
+            }
+        }
+    }
+
+    private static void swap(int[] arr, int i, int j) {
+        int tmp = arr[i];
+        arr[i] = arr[j];
+        arr[j] = tmp;
+    }
+}
@@ -29,7 +29,7 @@ final class Vertex implements ICoord {
         coord.set(x,y);
     }
 
-    private static Vertex create(float x, float y) {
+    static Vertex create(float x, float y) {
         if (Double.isNaN(x) || Double.isNaN(y)) {
             return VERTEX_AT_INFINITY;
         } else {
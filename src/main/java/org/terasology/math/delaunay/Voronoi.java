@@ -11,15 +11,52 @@ import org.terasology.commonworld.geom.Line2f;
 import org.terasology.joml.geom.Circlef;
 import org.terasology.joml.geom.Rectanglef;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
 
 public final class Voronoi {
 
+    /**
+     * The algorithms that compute the diagram. The Fortune engines create the same diagram.
+     */
+    public enum Engine {
+
+        /**
+         * Keeps sites, half-edges, edges and vertices in primitive arrays during the sweep
+         * and creates objects only for the resulting edges and vertices
+         */
+        FORTUNE,
+
+        /**
+         * Creates one object per half-edge, edge and vertex during the sweep
+         */
+        LEGACY_FORTUNE,
+
+        /**
+         * Triangulates the sites with an incremental sweep-hull and takes the edges from the dual
+         * of the triangulation. For sites in general position, the diagram equals that of Fortune's
+         * algorithm up to rounding and the order of the edges.
+         */
+        SWEEP_HULL
+    }
+
+    /**
+     * Receives a line segment as the coordinates of its two end points.
+     */
+    @FunctionalInterface
+    public interface SegmentConsumer {
+
+        void accept(float x0, float y0, float x1, float y1);
+    }
+
     private static final Logger logger = LoggerFactory.getLogger(Voronoi.class);
 
     private SiteList sites;
@@ -29,10 +66,39 @@ public final class Voronoi {
     // TODO generalize this so it doesn't have to be a rectangle;
     // then we can make the fractal voronois-within-voronois
     private Rectanglef plotBounds = new Rectanglef();
+    private Engine engine = Engine.FORTUNE;
+
+    /**
+     * The left site, right site, left vertex and right vertex ids of each edge
+     */
+    private int[] edgeIds;
+
+    /**
+     * The edges of site i are <code>siteEdges[siteEdgeOffsets[i]]</code> to
+     * <code>siteEdges[siteEdgeOffsets[i + 1] - 1]</code> in the order in which they were created
+     */
+    private int[] siteEdgeOffsets;
+    private int[] siteEdges;
+    private VoronoiCells cells;
 
     public Voronoi(List<Vector2fc> points, Rectanglef plotBounds) {
+        this(points, plotBounds, Engine.FORTUNE);
+    }
+
+    /**
+     * @param points the sites
+     * @param plotBounds the bounds that the edges are clipped to
+     * @param engine the implementation that computes the diagram
+     */
+    public Voronoi(List<Vector2fc> points, Rectanglef plotBounds, Engine engine) {
         init(points, plotBounds);
-        fortunesAlgorithm();
+        this.engine = engine;
+        if (engine == Engine.LEGACY_FORTUNE) {
+            fortunesAlgorithm();
+            indexEdges();
+        } else {
+            createDiagram();
+        }
     }
 
     public Voronoi(List<Vector2fc> points) {
@@ -45,7 +111,7 @@ public final class Voronoi {
         logger.debug(maxWidth + "," + maxHeight);
 
         init(points, new Rectanglef(0, 0, maxWidth, maxHeight));
-        fortunesAlgorithm();
+        createDiagram();
     }
 
     public Voronoi(int numSites, float maxWidth, float maxHeight, Random r) {
@@ -54,13 +120,20 @@ public final class Voronoi {
             points.add(new Vector2f(r.nextFloat() * maxWidth, r.nextFloat() * maxHeight));
         }
         init(points, new Rectanglef(0,0, maxWidth, maxHeight));
-        fortunesAlgorithm();
+        createDiagram();
     }
 
     public Rectanglef getPlotBounds() {
         return plotBounds;
     }
 
+    /**
+     * @return the algorithm that computed the diagram
+     */
+    public Engine getEngine() {
+        return engine;
+    }
+
     private void init(List<Vector2fc> points, Rectanglef bounds) {
         sites = new SiteList();
         sitesIndexedByLocation = new HashMap<Vector2fc, Site>();
@@ -93,16 +166,20 @@ public final class Voronoi {
         return site.region(plotBounds);
     }
 
-    // TODO: bug: if you call this before you call region(), something goes wrong :(
+    /**
+     * @param coord the location of a site
+     * @return the sites that share an edge with the site, in no particular order
+     */
     public List<Vector2fc> neighborSitesForSite(Vector2fc coord) {
         List<Vector2fc> points = new ArrayList<Vector2fc>();
-        Site site = sitesIndexedByLocation.get(coord);
-        if (site == null) {
+        int site = siteId(coord);
+        if (site < 0) {
             return points;
         }
-        List<Site> sts = site.neighborSites();
-        for (Site neighbor : sts) {
-            points.add(neighbor.getCoord());
+        for (int k = siteEdgeOffsets[site]; k < siteEdgeOffsets[site + 1]; k++) {
+            int e = siteEdges[k];
+            int neighbor = edgeIds[4 * e] == site ? edgeIds[4 * e + 1] : edgeIds[4 * e];
+            points.add(sites.get(neighbor).getCoord());
         }
         return points;
     }
@@ -111,16 +188,78 @@ public final class Voronoi {
         return sites.circles();
     }
 
-    private List<Edge> selectEdgesForSitePoint(Vector2f coord, List<Edge> edgesToTest) {
-        List<Edge> filtered = new ArrayList<Edge>();
+    /**
+     * Looks up the edges of a site in the index that is built with the diagram. The list is a view that
+     * takes constant time to create, so iterating over it does not allocate more than the iterator.
+     * @param coord the location of a site
+     * @return the edges of the site in the order in which they were created,
+     *         or an empty list if there is no such site
+     */
+    public List<Edge> edgesForSite(Vector2fc coord) {
+        int site = siteId(coord);
+        if (site < 0) {
+            return Collections.emptyList();
+        }
+        int from = siteEdgeOffsets[site];
+        int to = siteEdgeOffsets[site + 1];
+        return new AbstractList<Edge>() {
+            @Override
+            public Edge get(int index) {
+                Objects.checkIndex(index, to - from);
+                return edges.get(siteEdges[from + index]);
+            }
 
-        for (Edge e : edgesToTest) {
-            if (((e.getLeftSite() != null && e.getLeftSite().getCoord() == coord)
-                    || (e.getRightSite() != null && e.getRightSite().getCoord() == coord))) {
-                filtered.add(e);
+            @Override
+            public int size() {
+                return to - from;
+            }
+        };
+    }
+
+    /**
+     * Passes the visible parts of the edges of a site to the consumer without creating a line for each of them.
+     * @param coord the location of a site
+     * @param consumer receives the clipped ends of every visible edge
+     */
+    public void forEachBoundarySegment(Vector2fc coord, SegmentConsumer consumer) {
+        int site = siteId(coord);
+        if (site < 0) {
+            return;
+        }
+        for (int k = siteEdgeOffsets[site]; k < siteEdgeOffsets[site + 1]; k++) {
+            Edge edge = edges.get(siteEdges[k]);
+            if (edge.isVisible()) {
+                Vector2fc p1 = edge.getClippedEnd(LR.LEFT);
+                Vector2fc p2 = edge.getClippedEnd(LR.RIGHT);
+                consumer.accept(p1.x(), p1.y(), p2.x(), p2.y());
             }
         }
-        return filtered;
+    }
+
+    /**
+     * @param coord the location of a site
+     * @return true if the site lies on the convex hull of all sites, i.e. its region is unbounded
+     */
+    public boolean isHullSite(Vector2fc coord) {
+        int site = siteId(coord);
+        if (site < 0) {
+            return false;
+        }
+        for (int k = siteEdgeOffsets[site]; k < siteEdgeOffsets[site + 1]; k++) {
+            int e = siteEdges[k];
+            if (edgeIds[4 * e + 2] == VoronoiCells.NO_VERTEX || edgeIds[4 * e + 3] == VoronoiCells.NO_VERTEX) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the position of the site in the sorted sites or -1 if there is no site at the given location
+     */
+    private int siteId(Vector2fc coord) {
+        Site site = sitesIndexedByLocation.get(coord);
+        return site == null ? -1 : site.getIndex();
     }
 
     private List<Line2f> visibleLineSegments(List<Edge> edgs) {
@@ -128,8 +267,8 @@ public final class Voronoi {
 
         for (Edge edge : edgs) {
             if (edge.isVisible()) {
-                Vector2fc p1 = edge.getClippedEnds().get(LR.LEFT);
-                Vector2fc p2 = edge.getClippedEnds().get(LR.RIGHT);
+                Vector2fc p1 = edge.getClippedEnd(LR.LEFT);
+                Vector2fc p2 = edge.getClippedEnd(LR.RIGHT);
                 segments.add(new Line2f(p1, p2));
             }
         }
@@ -147,12 +286,12 @@ public final class Voronoi {
         return segments;
     }
 
-    public List<Line2f> voronoiBoundaryForSite(Vector2f coord) {
-        return visibleLineSegments(selectEdgesForSitePoint(coord, edges));
+    public List<Line2f> voronoiBoundaryForSite(Vector2fc coord) {
+        return visibleLineSegments(edgesForSite(coord));
     }
 
-    public List<Line2f> delaunayLinesForSite(Vector2f coord) {
-        return delaunayLinesForEdges(selectEdgesForSitePoint(coord, edges));
+    public List<Line2f> delaunayLinesForSite(Vector2fc coord) {
+        return delaunayLinesForEdges(edgesForSite(coord));
     }
 
     public List<Line2f> voronoiDiagram() {
@@ -210,10 +349,135 @@ public final class Voronoi {
         return sites.regions(plotBounds);
     }
 
+    /**
+     * Extracts the regions of all sites at once. This is much faster than calling {@link #region(Vector2fc)}
+     * for every site and creates a handful of arrays instead of several objects per corner.
+     * @return the clipped cells of all sites, computed on the first call
+     */
+    public VoronoiCells cells() {
+        if (cells == null) {
+            cells = new VoronoiCells(sites, edges, edgeIds, siteEdgeOffsets, siteEdges, plotBounds);
+        }
+        return cells;
+    }
+
+    /**
+     * Assigns ids to the sites and vertices of the edges of {@link Engine#LEGACY_FORTUNE}.
+     */
+    private void indexEdges() {
+        Map<Site, Integer> siteIds = new IdentityHashMap<>();
+        for (int i = 0; i < sites.getLength(); i++) {
+            siteIds.put(sites.get(i), i);
+        }
+        Map<Vertex, Integer> vertexIds = new IdentityHashMap<>();
+        edgeIds = new int[4 * edges.size()];
+        for (int e = 0; e < edges.size(); e++) {
+            Edge edge = edges.get(e);
+            edgeIds[4 * e] = siteIds.get(edge.getLeftSite());
+            edgeIds[4 * e + 1] = siteIds.get(edge.getRightSite());
+            edgeIds[4 * e + 2] = vertexId(vertexIds, edge.getLeftVertex());
+            edgeIds[4 * e + 3] = vertexId(vertexIds, edge.getRightVertex());
+        }
+        indexSiteEdges();
+    }
+
+    /**
+     * Groups the edge ids by site, in two counting passes over {@link #edgeIds}.
+     */
+    private void indexSiteEdges() {
+        int siteCount = sites.getLength();
+        int edgeCount = edgeIds.length / 4;
+        siteEdgeOffsets = new int[siteCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            siteEdgeOffsets[edgeIds[4 * e] + 1]++;
+            siteEdgeOffsets[edgeIds[4 * e + 1] + 1]++;
+        }
+        for (int i = 0; i < siteCount; i++) {
+            siteEdgeOffsets[i + 1] += siteEdgeOffsets[i];
+        }
+        siteEdges = new int[2 * edgeCount];
+        int[] fill = Arrays.copyOf(siteEdgeOffsets, siteCount);
+        for (int e = 0; e < edgeCount; e++) {
+            siteEdges[fill[edgeIds[4 * e]]++] = e;
+            siteEdges[fill[edgeIds[4 * e + 1]]++] = e;
+        }
+    }
+
+    private static int vertexId(Map<Vertex, Integer> vertexIds, Vertex vertex) {
+        if (vertex == null) {
+            return VoronoiCells.NO_VERTEX;
+        }
+        if (vertex == Vertex.VERTEX_AT_INFINITY) {
+            return VoronoiCells.INFINITE_VERTEX;
+        }
+        return vertexIds.computeIfAbsent(vertex, v -> vertexIds.size());
+    }
+
     public List<Vector2fc> siteCoords() {
         return sites.siteCoords();
     }
 
+    private void createDiagram() {
+        // also sorts the sites
+        Rectanglef dataBounds = sites.getSitesBounds();
+
+        int count = sites.getLength();
+        float[] siteX = new float[count];
+        float[] siteY = new float[count];
+        for (int i = 0; i < count; i++) {
+            Site site = sites.get(i);
+            siteX[i] = site.getX();
+            siteY[i] = site.getY();
+        }
+
+        DiagramBuilder builder;
+        if (engine == Engine.SWEEP_HULL) {
+            builder = new SweepHullDelaunay(siteX, siteY, count);
+        } else {
+            builder = new FortuneSweep(siteX, siteY, count,
+                    dataBounds.minX, dataBounds.getSizeX(), dataBounds.minY, dataBounds.getSizeY());
+        }
+        builder.run();
+
+        // edges that share a vertex id must share the vertex instance
+        Vertex[] vertices = new Vertex[builder.getVertexCount()];
+        edgeIds = new int[4 * builder.getEdgeCount()];
+        for (int e = 0; e < builder.getEdgeCount(); e++) {
+            int leftSite = builder.getEdgeLeftSite(e);
+            int rightSite = builder.getEdgeRightSite(e);
+            Edge edge = Edge.createBisectingEdge(sites.get(leftSite), sites.get(rightSite));
+            Vertex leftVertex = getVertex(builder, vertices, builder.getEdgeLeftVertex(e));
+            Vertex rightVertex = getVertex(builder, vertices, builder.getEdgeRightVertex(e));
+            edge.setVertex(LR.LEFT, leftVertex);
+            edge.setVertex(LR.RIGHT, rightVertex);
+            edges.add(edge);
+
+            edgeIds[4 * e] = leftSite;
+            edgeIds[4 * e + 1] = rightSite;
+            edgeIds[4 * e + 2] = vertexId(leftVertex, builder.getEdgeLeftVertex(e));
+            edgeIds[4 * e + 3] = vertexId(rightVertex, builder.getEdgeRightVertex(e));
+        }
+
+        for (Edge e : edges) {
+            e.clipVertices(plotBounds);
+        }
+        indexSiteEdges();
+    }
+
+    private static Vertex getVertex(DiagramBuilder builder, Vertex[] vertices, int id) {
+        if (id < 0) {
+            return null;
+        }
+        if (vertices[id] == null) {
+            vertices[id] = Vertex.create(builder.getVertexX(id), builder.getVertexY(id));
+        }
+        return vertices[id];
+    }
+
+    private static int vertexId(Vertex vertex, int id) {
+        return vertex == Vertex.VERTEX_AT_INFINITY ? VoronoiCells.INFINITE_VERTEX : id;
+    }
+
     private void fortunesAlgorithm() {
         Site newSite;
         Site bottomSite;
@@ -0,0 +1,548 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.math.delaunay;
+
+import org.joml.Vector2fc;
+import org.terasology.joml.geom.Rectanglef;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The clipped regions of all sites of a {@link Voronoi} diagram, extracted in a single pass into flat arrays.
+ * <p>
+ * Cell <code>i</code> belongs to the i-th site of {@link Voronoi#siteCoords()}. Its corners are the point ids
+ * <code>getCellPoint(getCellStart(i))</code> to <code>getCellPoint(getCellEnd(i) - 1)</code> in counter-clockwise
+ * order and match {@link Voronoi#region(Vector2fc)} exactly. Points with equal coordinates have the same id,
+ * so neighboring cells share their corners. Point ids are assigned in the order of their first occurrence
+ * in the cells, followed by the clipped ends of visible edges that are not part of any cell.
+ * <p>
+ * The edges of each site are taken from the site index of {@link Voronoi}, so that {@link Site}s,
+ * their edge lists and regions are neither used nor modified.
+ */
+public final class VoronoiCells {
+
+    /**
+     * The vertex id of an edge that extends to infinity
+     */
+    static final int NO_VERTEX = -1;
+
+    /**
+     * The vertex id of {@link Vertex#VERTEX_AT_INFINITY}
+     */
+    static final int INFINITE_VERTEX = -2;
+
+    private static final float EPSILON = .005f;
+
+    private static final int TOP = 1;
+    private static final int BOTTOM = 2;
+    private static final int LEFT = 4;
+    private static final int RIGHT = 8;
+
+    private final Rectanglef bounds;
+
+    private final float[] siteX;
+    private final float[] siteY;
+    private final int[] cellOffsets;
+    private int[] cellPoints;
+    private int cellPointCount;
+
+    private float[] pointX;
+    private float[] pointY;
+    private int pointCount;
+
+    // open addressing from the bits of both coordinates to the point id
+    private long[] pointKeys;
+    private int[] pointIds;
+
+    private final int[] edgeCells;
+    private final int[] edgePoints;
+
+    // the region of the current cell: the ordered edges with the end that connects to the previous edge
+    // in the middle of a double-ended queue, and the clipped corners
+    private int[] queueEdges;
+    private boolean[] queueReversed;
+    private boolean[] edgeDone;
+    private int queueHead;
+    private int queueTail;
+    private float[] cornerX = new float[16];
+    private float[] cornerY = new float[16];
+    private int cornerCount;
+
+    /**
+     * @param sites the sites, sorted by y, then x
+     * @param edges all edges, clipped to the bounds
+     * @param edgeIds the left site, right site, left vertex and right vertex of every edge
+     * @param siteEdgeOffsets the start of the edges of every site in <code>siteEdges</code>, plus the total length
+     * @param siteEdges the ids of the edges of every site in the order in which they were created
+     * @param bounds the bounds that the edges were clipped to
+     */
+    VoronoiCells(SiteList sites, List<Edge> edges, int[] edgeIds, int[] siteEdgeOffsets, int[] siteEdges,
+                 Rectanglef bounds) {
+        this.bounds = bounds;
+
+        int siteCount = sites.getLength();
+        int edgeCount = edges.size();
+        siteX = new float[siteCount];
+        siteY = new float[siteCount];
+        for (int i = 0; i < siteCount; i++) {
+            siteX[i] = sites.get(i).getX();
+            siteY[i] = sites.get(i).getY();
+        }
+
+        int maxDegree = 0;
+        for (int i = 0; i < siteCount; i++) {
+            maxDegree = Math.max(maxDegree, siteEdgeOffsets[i + 1] - siteEdgeOffsets[i]);
+        }
+
+        queueEdges = new int[2 * maxDegree + 1];
+        queueReversed = new boolean[2 * maxDegree + 1];
+        edgeDone = new boolean[maxDegree];
+
+        // about six corners per cell and two vertices per site, plus the clipped ends at the border
+        cellOffsets = new int[siteCount + 1];
+        cellPoints = new int[6 * siteCount + 16];
+        pointX = new float[3 * siteCount + 16];
+        pointY = new float[3 * siteCount + 16];
+        int tableSize = Integer.highestOneBit(8 * siteCount + 32);
+        pointKeys = new long[tableSize];
+        pointIds = new int[tableSize];
+        Arrays.fill(pointIds, -1);
+
+        for (int i = 0; i < siteCount; i++) {
+            cellOffsets[i] = cellPointCount;
+            int from = siteEdgeOffsets[i];
+            int to = siteEdgeOffsets[i + 1];
+            if (from < to && reorderEdges(siteEdges, from, to, edgeIds)) {
+                clipToBounds(edges);
+                fixWinding();
+                for (int k = 0; k < cornerCount; k++) {
+                    if (cellPointCount == cellPoints.length) {
+                        cellPoints = Arrays.copyOf(cellPoints, 2 * cellPointCount);
+                    }
+                    cellPoints[cellPointCount++] = pointId(cornerX[k], cornerY[k]);
+                }
+            }
+        }
+        cellOffsets[siteCount] = cellPointCount;
+
+        edgeCells = new int[2 * edgeCount];
+        edgePoints = new int[2 * edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            edgeCells[2 * e] = edgeIds[4 * e];
+            edgeCells[2 * e + 1] = edgeIds[4 * e + 1];
+            Edge edge = edges.get(e);
+            if (edge.isVisible()) {
+                Vector2fc p0 = edge.getClippedEnd(LR.LEFT);
+                Vector2fc p1 = edge.getClippedEnd(LR.RIGHT);
+                edgePoints[2 * e] = pointId(p0.x(), p0.y());
+                edgePoints[2 * e + 1] = pointId(p1.x(), p1.y());
+            } else {
+                edgePoints[2 * e] = -1;
+                edgePoints[2 * e + 1] = -1;
+            }
+        }
+
+        // the scratch buffers and the point table are not needed anymore
+        queueEdges = null;
+        queueReversed = null;
+        edgeDone = null;
+        cornerX = null;
+        cornerY = null;
+        pointKeys = null;
+        pointIds = null;
+    }
+
+    /**
+     * @return the number of cells, which equals the number of sites
+     */
+    public int getCellCount() {
+        return siteX.length;
+    }
+
+    public float getSiteX(int cell) {
+        return siteX[cell];
+    }
+
+    public float getSiteY(int cell) {
+        return siteY[cell];
+    }
+
+    /**
+     * @param cell the cell id
+     * @return the index of the first corner of the cell
+     */
+    public int getCellStart(int cell) {
+        return cellOffsets[cell];
+    }
+
+    /**
+     * @param cell the cell id
+     * @return the index after the last corner of the cell
+     */
+    public int getCellEnd(int cell) {
+        return cellOffsets[cell + 1];
+    }
+
+    /**
+     * @param index an index between the start and the end of a cell
+     * @return the point id of the corner
+     */
+    public int getCellPoint(int index) {
+        return cellPoints[index];
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public float getPointX(int point) {
+        return pointX[point];
+    }
+
+    public float getPointY(int point) {
+        return pointY[point];
+    }
+
+    /**
+     * @return the number of edges, in the order of {@link Voronoi#edges()}
+     */
+    public int getEdgeCount() {
+        return edgeCells.length / 2;
+    }
+
+    /**
+     * @param edge the edge id
+     * @return the cell of the left site
+     */
+    public int getEdgeLeftCell(int edge) {
+        return edgeCells[2 * edge];
+    }
+
+    /**
+     * @param edge the edge id
+     * @return the cell of the right site
+     */
+    public int getEdgeRightCell(int edge) {
+        return edgeCells[2 * edge + 1];
+    }
+
+    /**
+     * @param edge the edge id
+     * @return the point id of the clipped left end or -1 if the edge is not visible
+     */
+    public int getEdgeLeftPoint(int edge) {
+        return edgePoints[2 * edge];
+    }
+
+    /**
+     * @param edge the edge id
+     * @return the point id of the clipped right end or -1 if the edge is not visible
+     */
+    public int getEdgeRightPoint(int edge) {
+        return edgePoints[2 * edge + 1];
+    }
+
+    /**
+     * Chains the edges of a site at shared vertices, in the same way as {@link EdgeReorderer}.
+     * @return false if an edge ends at {@link Vertex#VERTEX_AT_INFINITY}
+     */
+    private boolean reorderEdges(int[] siteEdges, int from, int to, int[] edgeIds) {
+        int n = to - from;
+        for (int k = from; k < to; k++) {
+            int e = siteEdges[k];
+            if (edgeIds[4 * e + 2] == INFINITE_VERTEX || edgeIds[4 * e + 3] == INFINITE_VERTEX) {
+                return false;
+            }
+        }
+
+        queueHead = n;
+        queueTail = n;
+        int first = siteEdges[from];
+        append(first, false);
+        int firstPoint = edgeIds[4 * first + 2];
+        int lastPoint = edgeIds[4 * first + 3];
+
+        Arrays.fill(edgeDone, 0, n, false);
+        int done = 1;
+        while (done < n) {
+            int before = done;
+            for (int k = 1; k < n; k++) {
+                if (edgeDone[k]) {
+                    continue;
+                }
+                int e = siteEdges[from + k];
+                int leftPoint = edgeIds[4 * e + 2];
+                int rightPoint = edgeIds[4 * e + 3];
+                if (leftPoint == lastPoint) {
+                    lastPoint = rightPoint;
+                    append(e, false);
+                } else if (rightPoint == firstPoint) {
+                    firstPoint = leftPoint;
+                    prepend(e, false);
+                } else if (leftPoint == firstPoint) {
+                    firstPoint = rightPoint;
+                    prepend(e, true);
+                } else if (rightPoint == lastPoint) {
+                    lastPoint = leftPoint;
+                    append(e, true);
+                } else {
+                    continue;
+                }
+                edgeDone[k] = true;
+                done++;
+            }
+            if (done == before) {
+                // the remaining edges are not connected to the chain - EdgeReorderer would not terminate
+                break;
+            }
+        }
+        return true;
+    }
+
+    private void append(int edge, boolean reversed) {
+        queueEdges[queueTail] = edge;
+        queueReversed[queueTail] = reversed;
+        queueTail++;
+    }
+
+    private void prepend(int edge, boolean reversed) {
+        queueHead--;
+        queueEdges[queueHead] = edge;
+        queueReversed[queueHead] = reversed;
+    }
+
+    /**
+     * Connects the clipped ends of the ordered edges, in the same way as {@link Site}.
+     */
+    private void clipToBounds(List<Edge> edges) {
+        cornerCount = 0;
+        int i = queueHead;
+        while (i < queueTail && !edges.get(queueEdges[i]).isVisible()) {
+            i++;
+        }
+        if (i == queueTail) {
+            // no edges visible
+            return;
+        }
+
+        Edge edge = edges.get(queueEdges[i]);
+        LR orientation = queueReversed[i] ? LR.RIGHT : LR.LEFT;
+        addCorner(edge.getClippedEnd(orientation));
+        addCorner(edge.getClippedEnd(orientation.other()));
+
+        for (int j = i + 1; j < queueTail; j++) {
+            if (edges.get(queueEdges[j]).isVisible()) {
+                connect(edges, j, false);
+            }
+        }
+        // close up the polygon by adding another corner point of the bounds if needed
+        connect(edges, i, true);
+    }
+
+    private void connect(List<Edge> edges, int j, boolean closingUp) {
+        float rightX = cornerX[cornerCount - 1];
+        float rightY = cornerY[cornerCount - 1];
+        Edge newEdge = edges.get(queueEdges[j]);
+        LR newOrientation = queueReversed[j] ? LR.RIGHT : LR.LEFT;
+        // the point that must be connected to the right point
+        Vector2fc newPoint = newEdge.getClippedEnd(newOrientation);
+        float newX = newPoint.x();
+        float newY = newPoint.y();
+        if (!closeEnough(rightX, rightY, newX, newY)) {
+            // the points were clipped at the bounds; insert one or two corners of the bounds
+            // if they are on different borders
+            if (rightX != newX && rightY != newY) {
+                int rightCheck = check(rightX, rightY);
+                int newCheck = check(newX, newY);
+                float px;
+                float py;
+                if ((rightCheck & RIGHT) != 0) {
+                    px = bounds.maxX;
+                    if ((newCheck & BOTTOM) != 0) {
+                        addCorner(px, bounds.maxY);
+                    } else if ((newCheck & TOP) != 0) {
+                        addCorner(px, bounds.minY);
+                    } else if ((newCheck & LEFT) != 0) {
+                        if (rightY - bounds.minY + newY - bounds.minY < bounds.getSizeY()) {
+                            py = bounds.minY;
+                        } else {
+                            py = bounds.maxY;
+                        }
+                        addCorner(px, py);
+                        addCorner(bounds.minX, py);
+                    }
+                } else if ((rightCheck & LEFT) != 0) {
+                    px = bounds.minX;
+                    if ((newCheck & BOTTOM) != 0) {
+                        addCorner(px, bounds.maxY);
+                    } else if ((newCheck & TOP) != 0) {
+                        addCorner(px, bounds.minY);
+                    } else if ((newCheck & RIGHT) != 0) {
+                        if (rightY - bounds.minY + newY - bounds.minY < bounds.getSizeY()) {
+                            py = bounds.minY;
+                        } else {
+                            py = bounds.maxY;
+                        }
+                        addCorner(px, py);
+                        addCorner(bounds.maxX, py);
+                    }
+                } else if ((rightCheck & TOP) != 0) {
+                    py = bounds.minY;
+                    if ((newCheck & RIGHT) != 0) {
+                        addCorner(bounds.maxX, py);
+                    } else if ((newCheck & LEFT) != 0) {
+                        addCorner(bounds.minX, py);
+                    } else if ((newCheck & BOTTOM) != 0) {
+                        if (rightX - bounds.minX + newX - bounds.minX < bounds.getSizeX()) {
+                            px = bounds.minX;
+                        } else {
+                            px = bounds.maxX;
+                        }
+                        addCorner(px, py);
+                        addCorner(px, bounds.maxY);
+                    }
+                } else if ((rightCheck & BOTTOM) != 0) {
+                    py = bounds.maxY;
+                    if ((newCheck & RIGHT) != 0) {
+                        addCorner(bounds.maxX, py);
+                    } else if ((newCheck & LEFT) != 0) {
+                        addCorner(bounds.minX, py);
+                    } else if ((newCheck & TOP) != 0) {
+                        if (rightX - bounds.minX + newX - bounds.minX < bounds.getSizeX()) {
+                            px = bounds.minX;
+                        } else {
+                            px = bounds.maxX;
+                        }
+                        addCorner(px, py);
+                        addCorner(px, bounds.minY);
+                    }
+                }
+            }
+            if (closingUp) {
+                // the ends of the new edge have already been added
+                return;
+            }
+            addCorner(newX, newY);
+        }
+        Vector2fc newRightPoint = newEdge.getClippedEnd(newOrientation.other());
+        if (!closeEnough(cornerX[0], cornerY[0], newRightPoint.x(), newRightPoint.y())) {
+            addCorner(newRightPoint);
+        }
+    }
+
+    /**
+     * Reverses clockwise corners, using the same signed area as {@link Poly2f#winding()}.
+     */
+    private void fixWinding() {
+        double signedDoubleArea = 0;
+        for (int k = 0; k < cornerCount; k++) {
+            int next = (k + 1) % cornerCount;
+            signedDoubleArea += cornerX[k] * cornerY[next] - cornerX[next] * cornerY[k];
+        }
+        if (signedDoubleArea * 0.5 <= 0) {
+            for (int lo = 0, hi = cornerCount - 1; lo < hi; lo++, hi--) {
+                float x = cornerX[lo];
+                float y = cornerY[lo];
+                cornerX[lo] = cornerX[hi];
+                cornerY[lo] = cornerY[hi];
+                cornerX[hi] = x;
+                cornerY[hi] = y;
+            }
+        }
+    }
+
+    private void addCorner(Vector2fc p) {
+        addCorner(p.x(), p.y());
+    }
+
+    private void addCorner(float x, float y) {
+        if (cornerCount == cornerX.length) {
+            cornerX = Arrays.copyOf(cornerX, 2 * cornerCount);
+            cornerY = Arrays.copyOf(cornerY, 2 * cornerCount);
+        }
+        cornerX[cornerCount] = x;
+        cornerY[cornerCount] = y;
+        cornerCount++;
+    }
+
+    /**
+     * @return the id of the point with equal coordinates, a new one if there is none
+     */
+    private int pointId(float x, float y) {
+        long key = ((long) Float.floatToIntBits(x) << 32) | (Float.floatToIntBits(y) & 0xFFFFFFFFL);
+        int mask = pointKeys.length - 1;
+        int slot = mix(key) & mask;
+        while (pointIds[slot] >= 0) {
+            if (pointKeys[slot] == key) {
+                return pointIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (pointCount == pointX.length) {
+            pointX = Arrays.copyOf(pointX, 2 * pointCount);
+            pointY = Arrays.copyOf(pointY, 2 * pointCount);
+        }
+        int id = pointCount++;
+        pointX[id] = x;
+        pointY[id] = y;
+        pointKeys[slot] = key;
+        pointIds[slot] = id;
+        if (2 * pointCount > pointKeys.length) {
+            growPointTable();
+        }
+        return id;
+    }
+
+    private void growPointTable() {
+        long[] oldKeys = pointKeys;
+        int[] oldIds = pointIds;
+        pointKeys = new long[2 * oldKeys.length];
+        pointIds = new int[2 * oldIds.length];
+        Arrays.fill(pointIds, -1);
+        int mask = pointKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldIds[i] >= 0) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (pointIds[slot] >= 0) {
+                    slot = (slot + 1) & mask;
+                }
+                pointKeys[slot] = oldKeys[i];
+                pointIds[slot] = oldIds[i];
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static boolean closeEnough(float x0, float y0, float x1, float y1) {
+        float dx = x0 - x1;
+        float dy = y0 - y1;
+        return dx * dx + dy * dy < EPSILON * EPSILON;
+    }
+
+    /**
+     * @return the borders of the bounds that the point lies on
+     */
+    private int check(float x, float y) {
+        int value = 0;
+        if (x == bounds.minX) {
+            value |= LEFT;
+        }
+        if (x == bounds.maxX) {
+            value |= RIGHT;
+        }
+        if (y == bounds.minY) {
+            value |= TOP;
+        }
+        if (y == bounds.maxY) {
+            value |= BOTTOM;
+        }
+        return value;
+    }
+}
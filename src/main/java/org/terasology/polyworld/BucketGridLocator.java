@@ -0,0 +1,94 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import com.google.common.base.Stopwatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.world.block.BlockArea;
+import org.terasology.engine.world.block.BlockAreac;
+import org.terasology.polyworld.graph.Graph;
+import org.terasology.polyworld.graph.Triangle;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Locates triangles through a uniform grid of cells. Every cell lists the triangles that overlap it,
+ * which are then tested one by one. The cell size is chosen so that there is about one triangle per cell.
+ */
+public class BucketGridLocator implements TriangleLocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BucketGridLocator.class);
+
+    private final GraphTriangles triangles;
+    private final TriangleBuckets buckets;
+
+    private final BlockArea bounds = new BlockArea(BlockArea.INVALID);
+
+    /**
+     * @param graph the graph
+     */
+    public BucketGridLocator(Graph graph) {
+        bounds.set(graph.getBounds());
+
+        Stopwatch sw = Stopwatch.createStarted();
+
+        triangles = new GraphTriangles(graph);
+        int cellSize = (int) Math.ceil(Math.sqrt((double) bounds.area() / Math.max(1, triangles.size())));
+        buckets = new TriangleBuckets(bounds, triangles.getCoords(), Math.max(cellSize, 1));
+
+        logger.debug("Created bucket grid for {} triangles in {}ms.", triangles.size(), sw.elapsed(TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public Triangle findTriangleAt(int x, int y) {
+        if (!bounds.contains(x, y)) {
+            logger.warn("Coordinate {}/{} is out of bounds", x, y);
+            return null;
+        }
+
+        int tri = findTriangleIndex(x, y);
+        if (tri < 0) {
+            logger.warn("Could not find a triangle for {}/{}", x, y);
+            return null;
+        }
+
+        return triangles.get(tri);
+    }
+
+    /**
+     * Uses the exact span of the triangle in the row, which matches a raster for valid triangulations.
+     */
+    @Override
+    public int findRunEnd(int x, int y, int maxX) {
+        int tri = bounds.contains(x, y) ? findTriangleIndex(x, y) : -1;
+        if (tri < 0) {
+            return x;
+        }
+        return Math.max(x, Math.min(triangles.findSpanEnd(tri, x, y), Math.min(maxX, bounds.maxX())));
+    }
+
+    private int findTriangleIndex(int x, int y) {
+        int cell = buckets.getCell(x, y);
+
+        // test in reverse order: later triangles overwrite earlier ones in a raster
+        for (int i = buckets.getEnd(cell) - 1; i >= buckets.getStart(cell); i--) {
+            int tri = buckets.getTriangle(i);
+            if (triangles.contains(tri, x, y)) {
+                return tri;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public BlockAreac getBounds() {
+        return bounds;
+    }
+    @Override
+    public long getEstimatedBytes() {
+        return 64L + triangles.getEstimatedBytes() + buckets.getEstimatedBytes();
+    }
+}
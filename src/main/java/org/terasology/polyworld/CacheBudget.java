@@ -0,0 +1,122 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A memory budget for caches that weigh their entries by their estimated size in bytes.
+ * A single budget is created for the world generator and shares of it are allocated to the
+ * providers, so that the sum of all cache limits never exceeds the budget.
+ * <p>
+ * Guava caches weigh entries with <code>int</code> values, so weights are measured in KiB.
+ */
+public final class CacheBudget {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheBudget.class);
+
+    private static final long BYTES_PER_WEIGHT = 1024;
+
+    private final long maxBytes;
+
+    /**
+     * The fraction of this budget that has been allocated to other budgets
+     */
+    private double allocated;
+
+    private CacheBudget(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param maxBytes the budget in bytes
+     * @return a new budget
+     */
+    public static CacheBudget ofBytes(long maxBytes) {
+        Preconditions.checkArgument(maxBytes > 0, "budget must be positive");
+        return new CacheBudget(maxBytes);
+    }
+
+    /**
+     * @param fraction the fraction of the maximum heap size
+     * @return a new budget
+     */
+    public static CacheBudget ofMaxHeapFraction(double fraction) {
+        Preconditions.checkArgument(fraction > 0 && fraction <= 1, "fraction must be in (0, 1]: %s", fraction);
+        return ofBytes((long) (Runtime.getRuntime().maxMemory() * fraction));
+    }
+
+    /**
+     * @param property the name of a system property that contains a fraction of the maximum heap size
+     * @param defaultFraction the fraction to use if the property is not set or not valid
+     * @return a new budget
+     */
+    public static CacheBudget ofMaxHeapFraction(String property, double defaultFraction) {
+        return ofMaxHeapFraction(parseFraction(property, System.getProperty(property), defaultFraction));
+    }
+
+    /**
+     * @param property the name of the property, for logging
+     * @param value the value of the property or <code>null</code>
+     * @param defaultFraction the fraction to use if the value is missing or not in (0, 1]
+     * @return the fraction
+     */
+    static double parseFraction(String property, String value, double defaultFraction) {
+        if (value == null || value.isBlank()) {
+            return defaultFraction;
+        }
+        try {
+            double fraction = Double.parseDouble(value.trim());
+            if (fraction > 0 && fraction <= 1) {
+                return fraction;
+            }
+        } catch (NumberFormatException e) {
+            // fall through
+        }
+        logger.warn("Invalid {}={} - must be a fraction in (0, 1], using {}", property, value, defaultFraction);
+        return defaultFraction;
+    }
+
+    /**
+     * Takes a part of this budget. All allocated shares must sum up to at most 1.
+     * @param share the fraction of this budget
+     * @return a new budget of the given size
+     */
+    public synchronized CacheBudget allocate(double share) {
+        Preconditions.checkArgument(share > 0, "share must be positive");
+        Preconditions.checkState(allocated + share <= 1 + 1e-9, "budget exceeded: %s already allocated", allocated);
+        allocated += share;
+        return new CacheBudget(Math.max(1, (long) (maxBytes * share)));
+    }
+
+    /**
+     * @return the budget in bytes
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return the budget in weight units, to be used with <code>CacheBuilder.maximumWeight()</code>
+     */
+    public long getMaxWeight() {
+        return Math.max(1, maxBytes / BYTES_PER_WEIGHT);
+    }
+
+    /**
+     * @param bytes the estimated size of a cache entry in bytes
+     * @return the weight of the entry (at least 1)
+     */
+    public static int toWeight(long bytes) {
+        long weight = (bytes + BYTES_PER_WEIGHT - 1) / BYTES_PER_WEIGHT;
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, weight));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheBudget [%d MiB]", maxBytes >> 20);
+    }
+}
@@ -0,0 +1,88 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.terasology.polyworld.graph.CompactGraph;
+import org.terasology.polyworld.graph.Graph;
+import org.terasology.polyworld.rp.RegionType;
+
+import java.util.function.Function;
+
+/**
+ * A second cache tier for islands that were evicted from the cache of live bundles. Islands are kept in the
+ * packed format of {@link IslandCodec}, which is a fraction of the size of the live graph, its lookup and
+ * models. Restoring an island only decodes the graph and rebuilds the triangle lookup.
+ * <p>
+ * The packed format is lossless, so a restored island is equal to a generated one.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class CompressedIslandCache {
+
+    /**
+     * The array header and the cache entry
+     */
+    private static final long ENTRY_BYTES = 128;
+
+    private final Cache<IslandKey, byte[]> cache;
+
+    /**
+     * @param maxSize the maximum number of islands
+     */
+    public CompressedIslandCache(int maxSize) {
+        cache = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+    }
+
+    /**
+     * @param budget the memory budget of the packed islands
+     */
+    public CompressedIslandCache(CacheBudget budget) {
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(budget.getMaxWeight())
+                .<IslandKey, byte[]>weigher((key, data) -> CacheBudget.toWeight(ENTRY_BYTES + data.length))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Packs and adds an island. Ocean regions are cheaper to generate than to restore and are ignored,
+     * as well as graphs that are not {@link CompactGraph}s.
+     * @param key the island
+     * @param bundle the bundle of the island
+     * @return true if the island was added
+     */
+    public boolean put(IslandKey key, IslandBundle bundle) {
+        if (bundle.getRegion().getType() == RegionType.OCEAN || !(bundle.getGraph() instanceof CompactGraph)) {
+            return false;
+        }
+        cache.put(key, IslandCodec.pack(bundle));
+        return true;
+    }
+
+    /**
+     * Restores and removes an island. It is removed, because the caller keeps the restored bundle
+     * in the cache of live bundles, which adds it here again when it is evicted.
+     * @param key the island
+     * @param lookupFactory creates the triangle lookup of the restored graph
+     * @param offHeap true to keep the restored model attributes in a direct buffer
+     * @return the restored island or <code>null</code> if it is not cached
+     */
+    public IslandBundle take(IslandKey key, Function<? super Graph, TriangleLocator> lookupFactory, boolean offHeap) {
+        byte[] data = cache.getIfPresent(key);
+        if (data == null) {
+            return null;
+        }
+        cache.invalidate(key);
+        return IslandCodec.unpack(key.createRegion(), data, lookupFactory::apply, offHeap);
+    }
+
+    /**
+     * @return the underlying cache, e.g. for statistics
+     */
+    public Cache<IslandKey, byte[]> getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,273 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import org.terasology.polyworld.elevation.AbstractElevationModel;
+import org.terasology.polyworld.elevation.ElevationModel;
+import org.terasology.polyworld.graph.Corner;
+import org.terasology.polyworld.graph.Edge;
+import org.terasology.polyworld.graph.Graph;
+import org.terasology.polyworld.graph.GraphRegion;
+import org.terasology.polyworld.graph.PackedInts;
+import org.terasology.polyworld.moisture.MoistureModel;
+import org.terasology.polyworld.rivers.RiverModel;
+import org.terasology.polyworld.water.WaterModel;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.List;
+
+/**
+ * The per-element attributes of the water, elevation, river and moisture models of a graph in flat arrays
+ * that are indexed by element id. Compared to the hash maps of the generating models, this is a handful of
+ * objects per graph. The arrays are stored on the heap or in one direct buffer.
+ * <p>
+ * This class is immutable once it is filled.
+ */
+final class DenseModels {
+
+    private static final int WATER = 1;
+    private static final int OCEAN = 2;
+    private static final int COAST = 4;
+
+    private final ByteBuffer cornerWater;
+    private final ByteBuffer regionWater;
+    private final FloatBuffer elevations;
+    private final IntBuffer edgeRivers;
+    private final IntBuffer cornerRivers;
+    private final FloatBuffer moisture;
+
+    private final boolean offHeap;
+
+    private final WaterModel waterModel = new DenseWaterModel();
+    private final ElevationModel elevationModel = new DenseElevationModel();
+    private final RiverModel riverModel = new DenseRiverModel();
+    private final MoistureModel moistureModel = new DenseMoistureModel();
+
+    /**
+     * Allocates zero-filled arrays.
+     * @param corners the number of corners
+     * @param regions the number of regions
+     * @param edges the number of edges
+     * @param offHeap true to allocate the arrays in a direct buffer
+     */
+    DenseModels(int corners, int regions, int edges, boolean offHeap) {
+        this.offHeap = offHeap;
+        PrimitiveStorage storage = PrimitiveStorage.allocate(getEncodedSize(corners, regions, edges), offHeap);
+        elevations = storage.floats(corners);
+        edgeRivers = storage.ints(edges);
+        cornerRivers = storage.ints(corners);
+        moisture = storage.floats(corners);
+        cornerWater = storage.bytes(corners);
+        regionWater = storage.bytes(regions);
+    }
+
+    /**
+     * @param graph the graph of the models
+     * @param water the water model to copy
+     * @param elevation the elevation model to copy
+     * @param rivers the river model to copy
+     * @param moist the moisture model to copy
+     * @param offHeap true to store the copy in a direct buffer
+     * @return a dense copy of all attributes of the given models
+     */
+    static DenseModels copyOf(Graph graph, WaterModel water, ElevationModel elevation, RiverModel rivers, MoistureModel moist,
+                              boolean offHeap) {
+        List<Corner> corners = graph.getCorners();
+        List<GraphRegion> regions = graph.getRegions();
+        List<Edge> edges = graph.getEdges();
+
+        DenseModels models = new DenseModels(corners.size(), regions.size(), edges.size(), offHeap);
+        for (Corner c : corners) {
+            int i = c.getIndex();
+            models.cornerWater.put(i, flags(water.isWater(c), water.isOcean(c), water.isCoast(c)));
+            models.elevations.put(i, elevation.getElevation(c));
+            models.cornerRivers.put(i, rivers.getRiverValue(c));
+            models.moisture.put(i, moist.getMoisture(c));
+        }
+        for (GraphRegion r : regions) {
+            models.regionWater.put(r.getIndex(), flags(water.isWater(r), water.isOcean(r), water.isCoast(r)));
+        }
+        for (Edge e : edges) {
+            models.edgeRivers.put(e.getIndex(), rivers.getRiverValue(e));
+        }
+        return models;
+    }
+
+    /**
+     * Reads all attributes in the order of {@link IslandCodec}.
+     * @param buffer the buffer to read from
+     * @param corners the number of corners
+     * @param regions the number of regions
+     * @param edges the number of edges
+     * @param offHeap true to store the attributes in a direct buffer
+     * @return the attributes
+     * @throws java.nio.BufferUnderflowException if the buffer ends too early
+     */
+    static DenseModels read(ByteBuffer buffer, int corners, int regions, int edges, boolean offHeap) {
+        return read(buffer, corners, regions, edges, false, offHeap);
+    }
+
+    /**
+     * Reads all attributes in the order of {@link IslandCodec}, with river values as {@link PackedInts}.
+     * @param buffer the buffer to read from
+     * @param corners the number of corners
+     * @param regions the number of regions
+     * @param edges the number of edges
+     * @param offHeap true to store the attributes in a direct buffer
+     * @return the attributes
+     * @throws IllegalArgumentException if the river values are malformed
+     * @throws java.nio.BufferUnderflowException if the buffer ends too early
+     */
+    static DenseModels readPacked(ByteBuffer buffer, int corners, int regions, int edges, boolean offHeap) {
+        return read(buffer, corners, regions, edges, true, offHeap);
+    }
+
+    private static DenseModels read(ByteBuffer buffer, int corners, int regions, int edges, boolean packed, boolean offHeap) {
+        DenseModels models = new DenseModels(corners, regions, edges, offHeap);
+        models.cornerWater.put(slice(buffer, corners));
+        models.regionWater.put(slice(buffer, regions));
+        models.elevations.put(slice(buffer, corners * 4).asFloatBuffer());
+        if (packed) {
+            PackedInts.get(buffer, models.edgeRivers);
+            PackedInts.get(buffer, models.cornerRivers);
+        } else {
+            models.edgeRivers.put(slice(buffer, edges * 4).asIntBuffer());
+            models.cornerRivers.put(slice(buffer, corners * 4).asIntBuffer());
+        }
+        models.moisture.put(slice(buffer, corners * 4).asFloatBuffer());
+        models.rewind();
+        return models;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int bytes) {
+        ByteBuffer slice = buffer.slice().order(buffer.order());
+        slice.limit(bytes);
+        buffer.position(buffer.position() + bytes);
+        return slice;
+    }
+
+    private void rewind() {
+        cornerWater.rewind();
+        regionWater.rewind();
+        elevations.rewind();
+        edgeRivers.rewind();
+        cornerRivers.rewind();
+        moisture.rewind();
+    }
+
+    /**
+     * @param corners the number of corners
+     * @param regions the number of regions
+     * @param edges the number of edges
+     * @return the size of all attributes in bytes
+     */
+    static int getEncodedSize(int corners, int regions, int edges) {
+        return corners + regions + corners * 4 + (edges + corners) * 4 + corners * 4;
+    }
+
+    /**
+     * @return the approximate number of bytes that the attributes retain
+     */
+    long getEstimatedBytes() {
+        return 256L + getEncodedSize(cornerWater.capacity(), regionWater.capacity(), edgeRivers.capacity());
+    }
+
+    boolean isOffHeap() {
+        return offHeap;
+    }
+
+    WaterModel getWaterModel() {
+        return waterModel;
+    }
+
+    ElevationModel getElevationModel() {
+        return elevationModel;
+    }
+
+    RiverModel getRiverModel() {
+        return riverModel;
+    }
+
+    MoistureModel getMoistureModel() {
+        return moistureModel;
+    }
+
+    static byte flags(boolean water, boolean ocean, boolean coast) {
+        return (byte) ((water ? WATER : 0) | (ocean ? OCEAN : 0) | (coast ? COAST : 0));
+    }
+
+    private final class DenseWaterModel implements WaterModel {
+
+        @Override
+        public boolean isWater(Corner c) {
+            return (cornerWater.get(c.getIndex()) & WATER) != 0;
+        }
+
+        @Override
+        public boolean isWater(GraphRegion p) {
+            return (regionWater.get(p.getIndex()) & WATER) != 0;
+        }
+
+        @Override
+        public boolean isOcean(Corner c) {
+            return (cornerWater.get(c.getIndex()) & OCEAN) != 0;
+        }
+
+        @Override
+        public boolean isOcean(GraphRegion p) {
+            return (regionWater.get(p.getIndex()) & OCEAN) != 0;
+        }
+
+        @Override
+        public boolean isCoast(Corner c) {
+            return (cornerWater.get(c.getIndex()) & COAST) != 0;
+        }
+
+        @Override
+        public boolean isCoast(GraphRegion p) {
+            return (regionWater.get(p.getIndex()) & COAST) != 0;
+        }
+    }
+
+    private final class DenseElevationModel extends AbstractElevationModel {
+
+        @Override
+        public float getElevation(Corner corner) {
+            return elevations.get(corner.getIndex());
+        }
+    }
+
+    private final class DenseRiverModel implements RiverModel {
+
+        @Override
+        public int getRiverValue(Edge e) {
+            return edgeRivers.get(e.getIndex());
+        }
+
+        @Override
+        public int getRiverValue(Corner c) {
+            return cornerRivers.get(c.getIndex());
+        }
+    }
+
+    private final class DenseMoistureModel implements MoistureModel {
+
+        @Override
+        public float getMoisture(Corner c) {
+            return moisture.get(c.getIndex());
+        }
+
+        @Override
+        public float getMoisture(GraphRegion r) {
+            // same as the default model: the average of all corners
+            float total = 0;
+            for (Corner c : r.getCorners()) {
+                total += getMoisture(c);
+            }
+            return total / r.getCorners().size();
+        }
+    }
+}
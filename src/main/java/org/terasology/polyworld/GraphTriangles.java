@@ -0,0 +1,112 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import org.terasology.polyworld.graph.Graph;
+import org.terasology.polyworld.graph.Triangle;
+import org.terasology.polyworld.graph.TriangleMesh;
+
+/**
+ * The canonical region triangles of a {@link Graph}, together with a private copy of their vertex coordinates
+ * for the rasterizer.
+ */
+final class GraphTriangles {
+
+    private final TriangleMesh mesh;
+
+    /**
+     * The vertex coordinates of all triangles (6 floats per triangle)
+     */
+    private final float[] coords;
+
+    GraphTriangles(Graph graph) {
+        mesh = graph.getTriangleMesh();
+        coords = mesh.copyCoordinates();
+    }
+
+    /**
+     * @return the number of triangles
+     */
+    int size() {
+        return mesh.size();
+    }
+
+    /**
+     * @param index the triangle index
+     * @return the triangle
+     */
+    Triangle get(int index) {
+        return mesh.getTriangle(index);
+    }
+
+    /**
+     * @param index the triangle index
+     * @return the index of the region of the triangle in the graph's region list
+     */
+    int getRegionId(int index) {
+        return mesh.getRegion(index);
+    }
+
+    /**
+     * @param index the triangle index
+     * @return the index of the first corner of the triangle in the graph's corner list
+     */
+    int getCorner1Id(int index) {
+        return mesh.getCorner1(index);
+    }
+
+    /**
+     * @param index the triangle index
+     * @return the index of the second corner of the triangle in the graph's corner list
+     */
+    int getCorner2Id(int index) {
+        return mesh.getCorner2(index);
+    }
+
+    /**
+     * @return the vertex coordinates of all triangles (6 floats per triangle), must not be modified
+     */
+    float[] getCoords() {
+        return coords;
+    }
+
+    /**
+     * Uses the same fill rule as the {@link TriangleRasterizer}.
+     * @param index the triangle index
+     * @param x the x world coord.
+     * @param y the y world coord.
+     * @return true if the triangle contains the point
+     */
+    boolean contains(int index, double x, double y) {
+        int off = index * 6;
+        double area = area(off);
+        return area != 0 && TriangleRasterizer.isInside(coords[off], coords[off + 1], coords[off + 2], coords[off + 3],
+                coords[off + 4], coords[off + 5], x, y, area > 0);
+    }
+
+    /**
+     * @param index the triangle index
+     * @param x the x world coord. of a block that is inside the triangle
+     * @param y the y world coord. of a block that is inside the triangle
+     * @return the x world coord. of the last block in the row that is inside the triangle
+     */
+    int findSpanEnd(int index, int x, int y) {
+        int off = index * 6;
+        return TriangleRasterizer.findSpanEnd(coords[off], coords[off + 1], coords[off + 2], coords[off + 3],
+                coords[off + 4], coords[off + 5], x, y, area(off) > 0);
+    }
+
+    /**
+     * The triangle mesh is shared with the graph and therefore not included.
+     * @return the approximate number of bytes that this instance retains
+     */
+    long getEstimatedBytes() {
+        return 32L + coords.length * 4L;
+    }
+
+    private double area(int off) {
+        return ((double) coords[off + 2] - coords[off]) * ((double) coords[off + 5] - coords[off + 1])
+                - ((double) coords[off + 3] - coords[off + 1]) * ((double) coords[off + 4] - coords[off]);
+    }
+}
@@ -0,0 +1,241 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import com.google.common.base.Preconditions;
+import org.terasology.polyworld.biome.BiomeModel;
+import org.terasology.polyworld.biome.DefaultBiomeModel;
+import org.terasology.polyworld.distribution.Distribution;
+import org.terasology.polyworld.distribution.PerlinDistribution;
+import org.terasology.polyworld.distribution.RadialDistribution;
+import org.terasology.polyworld.elevation.DefaultElevationModel;
+import org.terasology.polyworld.elevation.ElevationModel;
+import org.terasology.polyworld.elevation.FlatLakeProvider;
+import org.terasology.polyworld.graph.Graph;
+import org.terasology.polyworld.moisture.DefaultMoistureModel;
+import org.terasology.polyworld.moisture.MoistureModel;
+import org.terasology.polyworld.rivers.DefaultRiverModel;
+import org.terasology.polyworld.rivers.RiverModel;
+import org.terasology.polyworld.rp.RegionType;
+import org.terasology.polyworld.rp.WorldRegion;
+import org.terasology.polyworld.stats.BuildStage;
+import org.terasology.polyworld.stats.PolyWorldStats;
+import org.terasology.polyworld.water.DefaultWaterModel;
+import org.terasology.polyworld.water.PureOceanWaterModel;
+import org.terasology.polyworld.water.WaterModel;
+
+/**
+ * The graph, the triangle lookup and all derived models of a {@link WorldRegion}.
+ * Bundles are built as one unit, so they can be cached and evicted as one unit.
+ * This class is immutable.
+ */
+public final class IslandBundle {
+
+    /**
+     * The size of a hash map node plus its share of the table
+     */
+    private static final long MAP_ENTRY_BYTES = 40;
+
+    /**
+     * The size of a boxed Float or Integer
+     */
+    private static final long BOXED_BYTES = 16;
+
+    private final WorldRegion region;
+    private final Graph graph;
+    private final TriangleLocator lookup;
+    private final WaterModel waterModel;
+    private final ElevationModel elevationModel;
+    private final RiverModel riverModel;
+    private final MoistureModel moistureModel;
+    private final BiomeModel biomeModel;
+
+    /**
+     * The storage of all models if they are dense, <code>null</code> otherwise
+     */
+    private final DenseModels denseModels;
+
+    private IslandBundle(WorldRegion region, Graph graph, TriangleLocator lookup, WaterModel waterModel,
+                         ElevationModel elevationModel, RiverModel riverModel, MoistureModel moistureModel, PolyWorldStats stats) {
+        this(region, graph, lookup, waterModel, elevationModel, riverModel, moistureModel, null, stats);
+    }
+
+    private IslandBundle(WorldRegion region, Graph graph, TriangleLocator lookup, DenseModels models) {
+        this(region, graph, lookup, models.getWaterModel(), models.getElevationModel(), models.getRiverModel(),
+                models.getMoistureModel(), models, PolyWorldStats.disabled());
+    }
+
+    private IslandBundle(WorldRegion region, Graph graph, TriangleLocator lookup, WaterModel waterModel,
+                         ElevationModel elevationModel, RiverModel riverModel, MoistureModel moistureModel,
+                         DenseModels denseModels, PolyWorldStats stats) {
+        this.denseModels = denseModels;
+        this.region = region;
+        this.graph = graph;
+        this.lookup = lookup;
+        this.waterModel = waterModel;
+        this.elevationModel = elevationModel;
+        this.riverModel = riverModel;
+        this.moistureModel = moistureModel;
+        this.biomeModel = stats.time(BuildStage.BIOME, () -> new DefaultBiomeModel(elevationModel, waterModel, moistureModel));
+    }
+
+    /**
+     * Creates all models of a region.
+     * @param region the world region
+     * @param graph the graph of the region
+     * @param lookup the triangle lookup of the graph
+     * @param seed the world seed
+     * @return a new bundle
+     */
+    public static IslandBundle create(WorldRegion region, Graph graph, TriangleLocator lookup, long seed) {
+        return create(region, graph, lookup, seed, PolyWorldStats.disabled());
+    }
+
+    /**
+     * Creates all models of a region and records the time that every model takes.
+     * @param region the world region
+     * @param graph the graph of the region
+     * @param lookup the triangle lookup of the graph
+     * @param seed the world seed
+     * @param stats the statistics to record build times in
+     * @return a new bundle
+     */
+    public static IslandBundle create(WorldRegion region, Graph graph, TriangleLocator lookup, long seed, PolyWorldStats stats) {
+        checkBounds(region, graph, lookup);
+
+        WaterModel waterModel = stats.time(BuildStage.WATER, () -> createWaterModel(region, graph, seed));
+        // rivers, moisture and biomes are derived from the elevation with flat lakes
+        ElevationModel elevationModel = stats.time(BuildStage.ELEVATION, () -> FlatLakeProvider.flattenLakes(graph,
+                new DefaultElevationModel(graph, waterModel, region.getHeightScaleFactor()), waterModel));
+        RiverModel riverModel = stats.time(BuildStage.RIVERS, () -> new DefaultRiverModel(graph, elevationModel, waterModel));
+        MoistureModel moistureModel = stats.time(BuildStage.MOISTURE, () -> new DefaultMoistureModel(graph, riverModel, waterModel));
+        return new IslandBundle(region, graph, lookup, waterModel, elevationModel, riverModel, moistureModel, stats);
+    }
+
+    private static WaterModel createWaterModel(WorldRegion region, Graph graph, long seed) {
+        if (region.getType() == RegionType.OCEAN) {
+            return new PureOceanWaterModel();
+        }
+
+        long graphSeed = seed ^ graph.getBounds().hashCode();
+
+        Distribution waterDist = (graphSeed % 2 == 0)  // a very primitive noise function
+                ? new PerlinDistribution(graphSeed)
+                : new RadialDistribution(graphSeed);
+
+        return new DefaultWaterModel(graph, waterDist);
+    }
+
+    /**
+     * Combines models that were created before, e.g. read from an {@link IslandStore}. The biome model is derived.
+     * @param region the world region
+     * @param graph the graph of the region
+     * @param lookup the triangle lookup of the graph
+     * @param waterModel the water model of the graph
+     * @param elevationModel the elevation model of the graph
+     * @param riverModel the river model of the graph
+     * @param moistureModel the moisture model of the graph
+     * @return a new bundle
+     */
+    public static IslandBundle of(WorldRegion region, Graph graph, TriangleLocator lookup,
+                                  WaterModel waterModel, ElevationModel elevationModel, RiverModel riverModel, MoistureModel moistureModel) {
+        checkBounds(region, graph, lookup);
+        return new IslandBundle(region, graph, lookup, waterModel, elevationModel, riverModel, moistureModel, PolyWorldStats.disabled());
+    }
+
+    /**
+     * @param region the world region
+     * @param graph the graph of the region
+     * @param lookup the triangle lookup of the graph
+     * @param models the dense attributes of all models
+     * @return a new bundle
+     */
+    static IslandBundle of(WorldRegion region, Graph graph, TriangleLocator lookup, DenseModels models) {
+        checkBounds(region, graph, lookup);
+        return new IslandBundle(region, graph, lookup, models);
+    }
+
+    /**
+     * Copies the attributes of all models into flat arrays, which retain far fewer objects than the hash maps
+     * that the models are generated in. Ocean regions have hardly any attributes and are not copied.
+     * @param offHeap true to store the arrays outside of the garbage-collected heap
+     * @return a bundle with dense models or this bundle if the models are dense already
+     */
+    public IslandBundle withDenseModels(boolean offHeap) {
+        if (region.getType() == RegionType.OCEAN || (denseModels != null && denseModels.isOffHeap() == offHeap)) {
+            return this;
+        }
+        DenseModels models = DenseModels.copyOf(graph, waterModel, elevationModel, riverModel, moistureModel, offHeap);
+        return new IslandBundle(region, graph, lookup, models);
+    }
+
+    private static void checkBounds(WorldRegion region, Graph graph, TriangleLocator lookup) {
+        Preconditions.checkArgument(region.getArea().equals(graph.getBounds()), "region does not match graph");
+        Preconditions.checkArgument(graph.getBounds().equals(lookup.getBounds()), "graph does not match triangle lookup");
+    }
+
+    public WorldRegion getRegion() {
+        return region;
+    }
+
+    public Graph getGraph() {
+        return graph;
+    }
+
+    public TriangleLocator getLookup() {
+        return lookup;
+    }
+
+    public WaterModel getWaterModel() {
+        return waterModel;
+    }
+
+    public ElevationModel getElevationModel() {
+        return elevationModel;
+    }
+
+    public RiverModel getRiverModel() {
+        return riverModel;
+    }
+
+    public MoistureModel getMoistureModel() {
+        return moistureModel;
+    }
+
+    public BiomeModel getBiomeModel() {
+        return biomeModel;
+    }
+
+    /**
+     * Used to weigh bundles in memory-bounded caches. Off-heap data is included, so that the cache budget also
+     * bounds native memory. Models that are not dense are estimated from the number of graph elements,
+     * assuming one hash map entry per element and attribute.
+     * @return the approximate number of bytes that this bundle retains
+     */
+    public long getEstimatedBytes() {
+        if (denseModels != null) {
+            return graph.getEstimatedBytes() + lookup.getEstimatedBytes() + denseModels.getEstimatedBytes();
+        }
+
+        long corners = graph.getCorners().size();
+        long regions = graph.getRegions().size();
+        long edges = graph.getEdges().size();
+
+        long models = 0;
+        if (!(waterModel instanceof PureOceanWaterModel)) {
+            // water, ocean and coast flags of corners and regions (Boolean values are shared)
+            models += 3 * (corners + regions) * MAP_ENTRY_BYTES;
+        }
+        models += 2 * corners * (MAP_ENTRY_BYTES + BOXED_BYTES);        // elevation and flat lakes
+        models += (edges + corners) * (MAP_ENTRY_BYTES + BOXED_BYTES);  // rivers
+        models += corners * (MAP_ENTRY_BYTES + BOXED_BYTES);            // moisture
+
+        return graph.getEstimatedBytes() + lookup.getEstimatedBytes() + models;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("IslandBundle [%s, %s]", region.getType(), region.getArea());
+    }
+}
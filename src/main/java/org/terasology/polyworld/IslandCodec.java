@@ -0,0 +1,153 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import org.terasology.polyworld.elevation.ElevationModel;
+import org.terasology.polyworld.graph.CompactGraph;
+import org.terasology.polyworld.graph.Corner;
+import org.terasology.polyworld.graph.Edge;
+import org.terasology.polyworld.graph.GraphRegion;
+import org.terasology.polyworld.graph.PackedInts;
+import org.terasology.polyworld.moisture.MoistureModel;
+import org.terasology.polyworld.rivers.RiverModel;
+import org.terasology.polyworld.rp.WorldRegion;
+import org.terasology.polyworld.water.WaterModel;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Converts the graph and the per-element attributes of all models of an {@link IslandBundle} to a flat binary
+ * format and back. Restored models are {@link DenseModels}.
+ * <p>
+ * Layout: graph, water flags (1 byte per corner and region), corner elevations (float),
+ * river values (int per edge and corner), corner moisture (float).
+ * <p>
+ * The packed variant has the same layout, but writes all int arrays as {@link PackedInts}. It is meant for
+ * keeping islands in memory and does not contain a version.
+ */
+final class IslandCodec {
+
+    private IslandCodec() {
+        // no instances
+    }
+
+    /**
+     * @param graph the graph of the bundle
+     * @return the number of bytes that {@link #encode(IslandBundle, ByteBuffer)} writes
+     */
+    static int getEncodedSize(CompactGraph graph) {
+        return graph.getEncodedSize() + DenseModels.getEncodedSize(graph.getCornerCount(), graph.getRegionCount(), graph.getEdgeCount());
+    }
+
+    /**
+     * @param bundle the bundle to write - its graph must be a {@link CompactGraph}
+     * @param buffer the buffer to write to
+     */
+    static void encode(IslandBundle bundle, ByteBuffer buffer) {
+        CompactGraph graph = (CompactGraph) bundle.getGraph();
+        graph.encode(buffer);
+        encodeModels(bundle, graph, buffer, false);
+    }
+
+    /**
+     * @param bundle the bundle to write - its graph must be a {@link CompactGraph}
+     * @return the packed graph and models
+     */
+    static byte[] pack(IslandBundle bundle) {
+        CompactGraph graph = (CompactGraph) bundle.getGraph();
+        int corners = graph.getCornerCount();
+        int maxModelSize = corners + graph.getRegionCount() + corners * 8 + (graph.getEdgeCount() + corners) * PackedInts.MAX_BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(graph.getMaxPackedSize() + maxModelSize);
+        graph.encodePacked(buffer);
+        encodeModels(bundle, graph, buffer, true);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static void encodeModels(IslandBundle bundle, CompactGraph graph, ByteBuffer buffer, boolean packed) {
+        List<Corner> corners = graph.getCorners();
+        List<GraphRegion> regions = graph.getRegions();
+
+        WaterModel water = bundle.getWaterModel();
+        for (Corner c : corners) {
+            buffer.put(DenseModels.flags(water.isWater(c), water.isOcean(c), water.isCoast(c)));
+        }
+        for (GraphRegion r : regions) {
+            buffer.put(DenseModels.flags(water.isWater(r), water.isOcean(r), water.isCoast(r)));
+        }
+
+        ElevationModel elevation = bundle.getElevationModel();
+        for (Corner c : corners) {
+            buffer.putFloat(elevation.getElevation(c));
+        }
+
+        RiverModel rivers = bundle.getRiverModel();
+        List<Edge> edges = graph.getEdges();
+        int[] edgeRivers = new int[edges.size()];
+        for (Edge e : edges) {
+            edgeRivers[e.getIndex()] = rivers.getRiverValue(e);
+        }
+        int[] cornerRivers = new int[corners.size()];
+        for (Corner c : corners) {
+            cornerRivers[c.getIndex()] = rivers.getRiverValue(c);
+        }
+        if (packed) {
+            PackedInts.put(buffer, edgeRivers);
+            PackedInts.put(buffer, cornerRivers);
+        } else {
+            buffer.asIntBuffer().put(edgeRivers).put(cornerRivers);
+            buffer.position(buffer.position() + (edgeRivers.length + cornerRivers.length) * 4);
+        }
+
+        MoistureModel moisture = bundle.getMoistureModel();
+        for (Corner c : corners) {
+            buffer.putFloat(moisture.getMoisture(c));
+        }
+    }
+
+    /**
+     * @param region the world region of the bundle
+     * @param buffer the buffer to read from
+     * @param lookupFactory creates the triangle lookup of the restored graph
+     * @param offHeap true to keep the restored model attributes in a direct buffer
+     * @return the restored bundle
+     * @throws IllegalArgumentException if the data is not valid
+     * @throws java.nio.BufferUnderflowException if the buffer ends too early
+     */
+    static IslandBundle decode(WorldRegion region, ByteBuffer buffer, Function<CompactGraph, TriangleLocator> lookupFactory,
+                               boolean offHeap) {
+        CompactGraph graph = CompactGraph.decode(region.getArea(), buffer);
+        DenseModels models = DenseModels.read(buffer, graph.getCornerCount(), graph.getRegionCount(), graph.getEdgeCount(), offHeap);
+
+        if (buffer.hasRemaining()) {
+            throw new IllegalArgumentException(buffer.remaining() + " unexpected bytes");
+        }
+
+        return IslandBundle.of(region, graph, lookupFactory.apply(graph), models);
+    }
+
+    /**
+     * @param region the world region of the bundle
+     * @param packed the data written by {@link #pack(IslandBundle)}
+     * @param lookupFactory creates the triangle lookup of the restored graph
+     * @param offHeap true to keep the restored model attributes in a direct buffer
+     * @return the restored bundle
+     * @throws IllegalArgumentException if the data is not valid
+     * @throws java.nio.BufferUnderflowException if the data ends too early
+     */
+    static IslandBundle unpack(WorldRegion region, byte[] packed, Function<CompactGraph, TriangleLocator> lookupFactory,
+                               boolean offHeap) {
+        ByteBuffer buffer = ByteBuffer.wrap(packed);
+        CompactGraph graph = CompactGraph.decodePacked(region.getArea(), buffer);
+        DenseModels models = DenseModels.readPacked(buffer, graph.getCornerCount(), graph.getRegionCount(), graph.getEdgeCount(), offHeap);
+
+        if (buffer.hasRemaining()) {
+            throw new IllegalArgumentException(buffer.remaining() + " unexpected bytes");
+        }
+
+        return IslandBundle.of(region, graph, lookupFactory.apply(graph), models);
+    }
+}
@@ -0,0 +1,124 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import com.google.common.base.Preconditions;
+import org.terasology.engine.world.block.BlockArea;
+import org.terasology.engine.world.block.BlockAreac;
+import org.terasology.polyworld.rp.RegionType;
+import org.terasology.polyworld.rp.WorldRegion;
+
+/**
+ * Identifies an island by value: everything that determines its graph, lookup and models.
+ * Two keys are equal if they describe the same island, no matter which generator or
+ * {@link WorldRegion} instance they were created for.
+ * <p>
+ * This class is immutable. The hash code is computed once.
+ */
+public final class IslandKey {
+
+    private final long seed;
+    private final int minX;
+    private final int minY;
+    private final int sizeX;
+    private final int sizeY;
+    private final RegionType type;
+    private final float heightScale;
+    private final long configVersion;
+
+    private final int hash;
+
+    /**
+     * @param seed the world seed
+     * @param region the world region (its current type and height scale are copied)
+     * @param configVersion identifies the generator configuration - equal configurations must have equal versions
+     */
+    public IslandKey(long seed, WorldRegion region, long configVersion) {
+        Preconditions.checkArgument(region.getArea().isValid(), "invalid region area");
+
+        BlockAreac area = region.getArea();
+        this.seed = seed;
+        this.minX = area.minX();
+        this.minY = area.minY();
+        this.sizeX = area.getSizeX();
+        this.sizeY = area.getSizeY();
+        this.type = region.getType();
+        this.heightScale = region.getHeightScaleFactor();
+        this.configVersion = configVersion;
+
+        int h = Long.hashCode(seed);
+        h = 31 * h + minX;
+        h = 31 * h + minY;
+        h = 31 * h + sizeX;
+        h = 31 * h + sizeY;
+        h = 31 * h + type.ordinal();
+        h = 31 * h + Float.floatToIntBits(heightScale);
+        h = 31 * h + Long.hashCode(configVersion);
+        this.hash = h;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return a new area instance
+     */
+    public BlockAreac getArea() {
+        return new BlockArea(minX, minY).setSize(sizeX, sizeY);
+    }
+
+    public RegionType getType() {
+        return type;
+    }
+
+    public float getHeightScale() {
+        return heightScale;
+    }
+
+    public long getConfigVersion() {
+        return configVersion;
+    }
+
+    /**
+     * @return a new world region with the area, type and height scale of this key
+     */
+    public WorldRegion createRegion() {
+        WorldRegion region = new WorldRegion(getArea());
+        region.setType(type);
+        region.setHeightScaleFactor(heightScale);
+        return region;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof IslandKey)) {
+            return false;
+        }
+        IslandKey other = (IslandKey) obj;
+        return hash == other.hash
+                && seed == other.seed
+                && minX == other.minX
+                && minY == other.minY
+                && sizeX == other.sizeX
+                && sizeY == other.sizeY
+                && type == other.type
+                && Float.floatToIntBits(heightScale) == Float.floatToIntBits(other.heightScale)
+                && configVersion == other.configVersion;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("IslandKey [%s, (%d, %d) %dx%d, seed=%d, scale=%.3f, config=%016x]",
+                type, minX, minY, sizeX, sizeY, seed, heightScale, configVersion);
+    }
+}
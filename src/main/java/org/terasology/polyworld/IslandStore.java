@@ -0,0 +1,250 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import com.google.common.base.Stopwatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.world.block.BlockAreac;
+import org.terasology.polyworld.graph.CompactGraph;
+import org.terasology.polyworld.graph.Graph;
+import org.terasology.polyworld.rp.WorldRegion;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Persists generated islands (graph and model attributes) in a directory, one file per region.
+ * Files are read into heap buffers with a single sequential read, so restoring an island is much cheaper
+ * than sampling, triangulation, relaxation and all models. Files are not memory-mapped, because mapped
+ * files cannot be deleted on some platforms until the mapping is garbage-collected.
+ * <p>
+ * Every file starts with a header that contains the format version, the world seed, the region and a hash
+ * of the generator configuration, followed by a CRC32 checksum of the payload. Files whose header does not
+ * match or whose payload is corrupt are deleted and the island is generated again.
+ * <p>
+ * This class is thread-safe. Files are written to a temporary file first and then moved into place.
+ */
+public final class IslandStore {
+
+    /**
+     * Must be increased whenever the format or the generated results change
+     */
+    static final int VERSION = 3;
+
+    private static final Logger logger = LoggerFactory.getLogger(IslandStore.class);
+
+    private static final int MAGIC = 0x50574953;  // "PWIS"
+
+    /**
+     * magic, version, seed, area (4 ints), height scale, config hash, payload length, checksum
+     */
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 16 + 4 + 8 + 4 + 8;
+
+    private final Path directory;
+
+    /**
+     * @param directory the directory to store islands in - it is created if necessary
+     * @throws IOException if the directory cannot be created
+     */
+    public IslandStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * @param region the world region
+     * @param seed the world seed
+     * @param configHash a hash of all configuration values that affect the generated island
+     * @param lookupFactory creates the triangle lookup of the restored graph
+     * @return the stored island or <code>null</code> if there is no valid entry
+     */
+    public IslandBundle load(WorldRegion region, long seed, long configHash, Function<? super Graph, TriangleLocator> lookupFactory) {
+        return load(region, seed, configHash, lookupFactory, false);
+    }
+
+    /**
+     * @param region the world region
+     * @param seed the world seed
+     * @param configHash a hash of all configuration values that affect the generated island
+     * @param lookupFactory creates the triangle lookup of the restored graph
+     * @param offHeap true to keep the restored model attributes outside of the garbage-collected heap
+     * @return the stored island or <code>null</code> if there is no valid entry
+     */
+    public IslandBundle load(WorldRegion region, long seed, long configHash, Function<? super Graph, TriangleLocator> lookupFactory,
+                             boolean offHeap) {
+        Path file = getFile(region, seed, configHash);
+        Stopwatch sw = Stopwatch.createStarted();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = read(channel);
+            if (readHeader(buffer, region, seed, configHash)) {
+                IslandBundle bundle = IslandCodec.decode(region, buffer.slice(), lookupFactory::apply, offHeap);
+                logger.debug("Loaded island {} in {}ms.", region.getArea(), sw.elapsed(TimeUnit.MILLISECONDS));
+                return bundle;
+            }
+            logger.info("Discarding stale island file {}", file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("Could not read island file {}", file, e);
+            return null;
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            logger.warn("Discarding corrupt island file {}", file, e);
+        }
+
+        // the channel is closed and the file was never mapped, so it can be deleted on all platforms
+        delete(file);
+        return null;
+    }
+
+    /**
+     * Writes an island. Graphs other than {@link CompactGraph} are not supported and ignored.
+     * @param bundle the island
+     * @param seed the world seed
+     * @param configHash a hash of all configuration values that affect the generated island
+     */
+    public void save(IslandBundle bundle, long seed, long configHash) {
+        if (!(bundle.getGraph() instanceof CompactGraph)) {
+            return;
+        }
+
+        WorldRegion region = bundle.getRegion();
+        Path file = getFile(region, seed, configHash);
+        Path temp = null;
+        try {
+            int payloadSize = IslandCodec.getEncodedSize((CompactGraph) bundle.getGraph());
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payloadSize);
+            buffer.position(HEADER_SIZE);
+            IslandCodec.encode(bundle, buffer);
+            buffer.flip();
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().position(HEADER_SIZE));
+            writeHeader(buffer, region, seed, configHash, payloadSize, crc.getValue());
+
+            temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            move(temp, file);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not write island file {}", file, e);
+            if (temp != null) {
+                delete(temp);
+            }
+        }
+    }
+
+    /**
+     * Reads the complete file into a heap buffer.
+     * @throws IllegalArgumentException if the file is too large to be an island file
+     */
+    private static ByteBuffer read(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("file too large");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IllegalArgumentException("unexpected end of file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void writeHeader(ByteBuffer buffer, WorldRegion region, long seed, long configHash, int payloadSize, long checksum) {
+        BlockAreac area = region.getArea();
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, seed);
+        buffer.putInt(16, area.minX());
+        buffer.putInt(20, area.minY());
+        buffer.putInt(24, area.getSizeX());
+        buffer.putInt(28, area.getSizeY());
+        buffer.putFloat(32, region.getHeightScaleFactor());
+        buffer.putLong(36, configHash);
+        buffer.putInt(44, payloadSize);
+        buffer.putLong(48, checksum);
+    }
+
+    /**
+     * Checks the header and the checksum and moves the position to the start of the payload.
+     * @return false if the file belongs to a different version or key
+     * @throws IllegalArgumentException if the file is corrupt
+     */
+    private static boolean readHeader(ByteBuffer buffer, WorldRegion region, long seed, long configHash) {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("not an island file");
+        }
+
+        BlockAreac area = region.getArea();
+        boolean matches = buffer.getInt(4) == VERSION
+                && buffer.getLong(8) == seed
+                && buffer.getInt(16) == area.minX()
+                && buffer.getInt(20) == area.minY()
+                && buffer.getInt(24) == area.getSizeX()
+                && buffer.getInt(28) == area.getSizeY()
+                && Float.compare(buffer.getFloat(32), region.getHeightScaleFactor()) == 0
+                && buffer.getLong(36) == configHash;
+        if (!matches) {
+            return false;
+        }
+
+        int payloadSize = buffer.getInt(44);
+        if (payloadSize != buffer.remaining() - HEADER_SIZE) {
+            throw new IllegalArgumentException("truncated payload");
+        }
+
+        buffer.position(HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate());
+        if (crc.getValue() != buffer.getLong(48)) {
+            throw new IllegalArgumentException("checksum mismatch");
+        }
+        return true;
+    }
+
+    private Path getFile(WorldRegion region, long seed, long configHash) {
+        BlockAreac area = region.getArea();
+        String name = String.format("%016x_%d_%d_%dx%d_%016x.island", seed, area.minX(), area.minY(),
+                area.getSizeX(), area.getSizeY(), configHash);
+        return directory.resolve(name);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}", file, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "IslandStore [" + directory + "]";
+    }
+}
@@ -22,10 +22,13 @@ import org.joml.Vector2i;
 import org.joml.Vector3f;
 import org.joml.Vector3fc;
 import org.joml.Vector3i;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.terasology.core.world.generator.facetProviders.SeaLevelProvider;
 import org.terasology.core.world.generator.facetProviders.SurfaceToDensityProvider;
 import org.terasology.core.world.generator.rasterizers.FloraRasterizer;
 import org.terasology.core.world.generator.rasterizers.TreeRasterizer;
+import org.terasology.engine.core.PathManager;
 import org.terasology.engine.core.SimpleUri;
 import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.logic.location.LocationComponent;
@@ -45,7 +48,6 @@ import org.terasology.polyworld.biome.WhittakerBiomeModelProvider;
 import org.terasology.polyworld.biome.WhittakerBiomeProvider;
 import org.terasology.polyworld.elevation.ElevationModelFacetProvider;
 import org.terasology.polyworld.elevation.ElevationProvider;
-import org.terasology.polyworld.elevation.FlatLakeProvider;
 import org.terasology.polyworld.flora.FloraProvider;
 import org.terasology.polyworld.flora.TreeProvider;
 import org.terasology.polyworld.graph.Graph;
@@ -55,32 +57,105 @@ import org.terasology.polyworld.moisture.MoistureModelFacetProvider;
 import org.terasology.polyworld.raster.RiverRasterizer;
 import org.terasology.polyworld.raster.WhittakerRasterizer;
 import org.terasology.polyworld.rivers.RiverModelFacetProvider;
+import org.terasology.polyworld.rp.RegionPrefetcher;
 import org.terasology.polyworld.rp.WorldRegionFacetProvider;
+import org.terasology.polyworld.stats.PolyWorldStats;
 import org.terasology.polyworld.water.WaterModelFacetProvider;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
 @RegisterWorldGenerator(id = "island", displayName = "Island World")
 public class IslandWorldGenerator extends BaseFacetedWorldGenerator {
 
+    private static final Logger logger = LoggerFactory.getLogger(IslandWorldGenerator.class);
+
+    /**
+     * The system property that overrides the fraction of the maximum heap size that all PolyWorld caches may use
+     */
+    private static final String CACHE_BUDGET_PROPERTY = "polyworld.cacheBudget";
+
+    /**
+     * The fraction of the maximum heap size that all PolyWorld caches may use by default
+     */
+    private static final double DEFAULT_CACHE_HEAP_FRACTION = 0.25;
+
+    /**
+     * The sub-directory of the save directory that contains generated islands
+     */
+    private static final String ISLAND_DIRECTORY = "polyworld-islands";
+
+    /**
+     * Shared by all providers of this generator
+     */
+    private final PolyWorldStats stats = new PolyWorldStats();
+
+    /**
+     * Prefetches the islands of the current world, replaced with the world
+     */
+    private RegionPrefetcher prefetcher;
+
+    /**
+     * Overrides the save directory of the current game or <code>null</code> to use it
+     */
+    private Path saveDirectory;
+
     public IslandWorldGenerator(SimpleUri uri) {
         super(uri);
     }
 
+    /**
+     * Generated islands are stored in a sub-directory of the save directory of the current game, so that they can be
+     * restored instead of being generated again. Must be set before the world is created.
+     * @param saveDirectory the directory to use instead or <code>null</code> to use the save directory of the game
+     */
+    public void setSaveDirectory(Path saveDirectory) {
+        this.saveDirectory = saveDirectory;
+    }
+
+    /**
+     * @return the cache and build statistics of all PolyWorld providers
+     */
+    public PolyWorldStats getStats() {
+        return stats;
+    }
+
     @Override
     protected WorldBuilder createWorld() {
-        int maxCacheSize = 20;
+        CacheBudget budget = CacheBudget.ofMaxHeapFraction(CACHE_BUDGET_PROPERTY, DEFAULT_CACHE_HEAP_FRACTION);
+        logger.info("Using {} for graphs, lookups and models", budget);
+
+        // sector regions are tiny compared to island graphs
+        WorldRegionFacetProvider regionProvider = new WorldRegionFacetProvider(budget.allocate(0.02));
+        // evicted islands are kept packed, at a fraction of their live size
+        GraphFacetProvider graphProvider = new GraphFacetProvider(budget.allocate(0.78));
+        graphProvider.setCompressedCache(new CompressedIslandCache(budget.allocate(0.2)));
+        Path savePath = saveDirectory != null ? saveDirectory : PathManager.getInstance().getCurrentSavePath();
+        graphProvider.setIslandStore(createIslandStore(savePath));
+        regionProvider.setStats(stats);
+        graphProvider.setStats(stats);
+
+        // build the graphs and models of islands ahead of the requested chunks
+        if (prefetcher != null) {
+            prefetcher.close();
+        }
+        prefetcher = new RegionPrefetcher(regionProvider, Arrays.asList(regionProvider, graphProvider), 256, 2, 10);
+        prefetcher.setStats(stats);
+        prefetcher.install();
+
         return new WorldBuilder(CoreRegistry.get(WorldGeneratorPluginLibrary.class))
                 .setSeaLevel(6)
                 .addProvider(new SeaLevelProvider(6))
-                .addProvider(new WorldRegionFacetProvider(maxCacheSize))
-                .addProvider(new GraphFacetProvider(maxCacheSize))
-                .addProvider(new WaterModelFacetProvider(maxCacheSize))
-                .addProvider(new ElevationModelFacetProvider(maxCacheSize))
+                .addProvider(regionProvider)
+                .addProvider(graphProvider)
+                .addProvider(new WaterModelFacetProvider())
+                .addProvider(new ElevationModelFacetProvider())
                 .addProvider(new ElevationProvider())
                 .addProvider(new SurfaceToDensityProvider())
-                .addProvider(new RiverModelFacetProvider(maxCacheSize))
-                .addProvider(new FlatLakeProvider())
-                .addProvider(new MoistureModelFacetProvider(maxCacheSize))
-                .addProvider(new WhittakerBiomeModelProvider(maxCacheSize))
+                .addProvider(new RiverModelFacetProvider())
+                .addProvider(new MoistureModelFacetProvider())
+                .addProvider(new WhittakerBiomeModelProvider())
                 .addProvider(new WhittakerBiomeProvider())
                 .addProvider(new TreeProvider())
                 .addProvider(new FloraProvider())
@@ -90,6 +165,22 @@ public class IslandWorldGenerator extends BaseFacetedWorldGenerator {
                 .addRasterizer(new FloraRasterizer());
     }
 
+    /**
+     * @param savePath the save directory of the world or <code>null</code>
+     * @return a store in the save directory or <code>null</code> if there is none
+     */
+    private static IslandStore createIslandStore(Path savePath) {
+        if (savePath == null) {
+            return null;
+        }
+        try {
+            return new IslandStore(savePath.resolve(ISLAND_DIRECTORY));
+        } catch (IOException | SecurityException e) {
+            logger.warn("Could not create island store in {} - islands will not be persisted", savePath, e);
+            return null;
+        }
+    }
+
     @Override
     public Vector3fc getSpawnPosition(EntityRef entity) {
         LocationComponent loc = entity.getComponent(LocationComponent.class);
@@ -0,0 +1,31 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+/**
+ * Stores the triangle index + 1 for every block covered by a {@link TriangleLookup}.
+ * Index 0 is reserved for missing coverage.
+ */
+interface LookupTable {
+
+    /**
+     * @param col the column, relative to the lookup bounds
+     * @param row the row, relative to the lookup bounds
+     * @return the triangle index + 1 or 0 if the block is not covered
+     */
+    int get(int col, int row);
+
+    /**
+     * @param col the first column, relative to the lookup bounds
+     * @param row the row, relative to the lookup bounds
+     * @param maxCol the largest column to consider
+     * @return the last column (at most maxCol) of the run of blocks that share the value at (col, row)
+     */
+    int getRunEnd(int col, int row, int maxCol);
+
+    /**
+     * @return the approximate number of bytes that this table retains
+     */
+    long getEstimatedBytes();
+}
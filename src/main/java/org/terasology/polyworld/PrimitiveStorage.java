@@ -0,0 +1,83 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Hands out the primitive arrays of one long-lived object, either as wrapped heap arrays or as consecutive
+ * views of a single direct buffer. The contents of direct buffers are not traced by the garbage collector
+ * and their memory is returned when the buffer becomes unreachable.
+ * <p>
+ * Off-heap views are aligned to their element size only if all arrays of larger elements are requested
+ * first, i.e. ints and floats, then chars, then bytes.
+ */
+final class PrimitiveStorage {
+
+    private static final PrimitiveStorage HEAP = new PrimitiveStorage(null);
+
+    private final ByteBuffer block;
+
+    private PrimitiveStorage(ByteBuffer block) {
+        this.block = block;
+    }
+
+    /**
+     * @param bytes the total size of all arrays in bytes
+     * @param offHeap true to allocate one direct buffer of the given size, false to allocate heap arrays
+     * @return a new storage
+     */
+    static PrimitiveStorage allocate(long bytes, boolean offHeap) {
+        if (!offHeap) {
+            return HEAP;
+        }
+        Preconditions.checkArgument(bytes <= Integer.MAX_VALUE, "too large for a direct buffer: %s", bytes);
+        return new PrimitiveStorage(ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder()));
+    }
+
+    /**
+     * @param count the number of elements
+     * @return a new, zero-filled int array
+     */
+    IntBuffer ints(int count) {
+        return block == null ? IntBuffer.wrap(new int[count]) : next(count * 4).asIntBuffer();
+    }
+
+    /**
+     * @param count the number of elements
+     * @return a new, zero-filled float array
+     */
+    FloatBuffer floats(int count) {
+        return block == null ? FloatBuffer.wrap(new float[count]) : next(count * 4).asFloatBuffer();
+    }
+
+    /**
+     * @param count the number of elements
+     * @return a new, zero-filled char array
+     */
+    CharBuffer chars(int count) {
+        return block == null ? CharBuffer.wrap(new char[count]) : next(count * 2).asCharBuffer();
+    }
+
+    /**
+     * @param count the number of elements
+     * @return a new, zero-filled byte array
+     */
+    ByteBuffer bytes(int count) {
+        return block == null ? ByteBuffer.wrap(new byte[count]) : next(count);
+    }
+
+    private ByteBuffer next(int bytes) {
+        ByteBuffer view = block.slice().order(block.order());
+        view.limit(bytes);
+        block.position(block.position() + bytes);
+        return view;
+    }
+}
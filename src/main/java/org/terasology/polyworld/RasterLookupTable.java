@@ -0,0 +1,56 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import java.nio.IntBuffer;
+import java.util.List;
+
+/**
+ * Stores one int per block in row-major order.
+ */
+final class RasterLookupTable implements LookupTable {
+
+    private final int width;
+    private final IntBuffer data;
+
+    /**
+     * @param width the number of columns
+     * @param bands the rasterized bands of rows, top to bottom
+     * @param offHeap true to store the raster in a direct buffer
+     */
+    RasterLookupTable(int width, List<int[]> bands, boolean offHeap) {
+        this.width = width;
+
+        int size = 0;
+        for (int[] band : bands) {
+            size += band.length;
+        }
+
+        data = PrimitiveStorage.allocate(size * 4L, offHeap).ints(size);
+        for (int[] band : bands) {
+            data.put(band);
+        }
+    }
+
+    @Override
+    public int get(int col, int row) {
+        return data.get(row * width + col);
+    }
+
+    @Override
+    public long getEstimatedBytes() {
+        return 16L + data.capacity() * 4L;
+    }
+
+    @Override
+    public int getRunEnd(int col, int row, int maxCol) {
+        int offset = row * width;
+        int value = data.get(offset + col);
+        int end = col;
+        while (end < maxCol && data.get(offset + end + 1) == value) {
+            end++;
+        }
+        return end;
+    }
+}
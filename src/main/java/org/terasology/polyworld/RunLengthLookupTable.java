@@ -0,0 +1,184 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores every row as a sequence of runs (start column, value). Triangles cover long horizontal
+ * runs of blocks, so this is much smaller than a full raster. Queries use a binary search
+ * in the runs of the row, i.e. they are O(log k) for k runs per row.
+ */
+final class RunLengthLookupTable implements LookupTable {
+
+    /**
+     * Index of the first run of every row, plus the total number of runs
+     */
+    private final IntBuffer rowOffsets;
+
+    /**
+     * The start column of every run
+     */
+    private final CharBuffer starts;
+
+    /**
+     * The value of every run if all values fit into 16 bits, <code>null</code> otherwise
+     */
+    private final CharBuffer shortValues;
+
+    /**
+     * The value of every run if {@link #shortValues} is <code>null</code>
+     */
+    private final IntBuffer values;
+
+    /**
+     * @param width the number of columns
+     * @param bands the encoded bands of rows, top to bottom
+     * @param offHeap true to store all runs in a direct buffer
+     */
+    RunLengthLookupTable(int width, List<Band> bands, boolean offHeap) {
+        Preconditions.checkArgument(width <= Character.MAX_VALUE + 1, "lookup too wide: %s", width);
+
+        int rows = 0;
+        int runs = 0;
+        int maxValue = 0;
+        for (Band band : bands) {
+            rows += band.rows;
+            runs += band.runs;
+            maxValue = Math.max(maxValue, band.maxValue);
+        }
+
+        boolean isShort = maxValue <= Character.MAX_VALUE;
+        long bytes = (rows + 1) * 4L + runs * 2L + (isShort ? runs * 2L : runs * 4L);
+        PrimitiveStorage storage = PrimitiveStorage.allocate(bytes, offHeap);
+        rowOffsets = storage.ints(rows + 1);
+        values = isShort ? null : storage.ints(runs);
+        starts = storage.chars(runs);
+        shortValues = isShort ? storage.chars(runs) : null;
+
+        int row = 0;
+        int run = 0;
+        for (Band band : bands) {
+            for (int i = 0; i < band.rows; i++) {
+                rowOffsets.put(row++, run + band.rowOffsets[i]);
+            }
+            for (int i = 0; i < band.runs; i++) {
+                starts.put(run + i, (char) band.starts[i]);
+                if (isShort) {
+                    shortValues.put(run + i, (char) band.values[i]);
+                } else {
+                    values.put(run + i, band.values[i]);
+                }
+            }
+            run += band.runs;
+        }
+        rowOffsets.put(rows, run);
+    }
+
+    @Override
+    public int get(int col, int row) {
+        int run = findRun(col, row);
+        return shortValues != null ? shortValues.get(run) : values.get(run);
+    }
+
+    @Override
+    public int getRunEnd(int col, int row, int maxCol) {
+        int next = findRun(col, row) + 1;
+        if (next < rowOffsets.get(row + 1)) {
+            return Math.min(starts.get(next) - 1, maxCol);
+        }
+        return maxCol;
+    }
+
+    private int findRun(int col, int row) {
+        int lo = rowOffsets.get(row);
+        int hi = rowOffsets.get(row + 1) - 1;
+
+        // find the last run that starts at or before col - the first run of a row always starts at 0
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (starts.get(mid) <= col) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+
+        return lo;
+    }
+
+    @Override
+    public long getEstimatedBytes() {
+        long bytes = 64L + rowOffsets.capacity() * 4L + starts.capacity() * 2L;
+        return shortValues != null ? bytes + shortValues.capacity() * 2L : bytes + values.capacity() * 4L;
+    }
+
+    /**
+     * @return the number of runs
+     */
+    int getRunCount() {
+        return starts.capacity();
+    }
+
+    /**
+     * Encodes a rasterized band of rows.
+     * @param data the raster data in row-major order
+     * @param width the number of columns
+     * @return the encoded band
+     */
+    static Band encode(int[] data, int width) {
+        int rows = data.length / width;
+        int[] rowOffsets = new int[rows];
+        int[] starts = new int[rows * 8];
+        int[] values = new int[rows * 8];
+        int runs = 0;
+        int maxValue = 0;
+
+        for (int row = 0; row < rows; row++) {
+            rowOffsets[row] = runs;
+            int offset = row * width;
+            for (int col = 0; col < width; col++) {
+                int value = data[offset + col];
+                if (col == 0 || value != data[offset + col - 1]) {
+                    if (runs == starts.length) {
+                        starts = Arrays.copyOf(starts, runs * 2);
+                        values = Arrays.copyOf(values, runs * 2);
+                    }
+                    starts[runs] = col;
+                    values[runs] = value;
+                    maxValue = Math.max(maxValue, value);
+                    runs++;
+                }
+            }
+        }
+
+        return new Band(rows, runs, rowOffsets, starts, values, maxValue);
+    }
+
+    /**
+     * An encoded band of rows with temporary, uncompressed arrays
+     */
+    static final class Band {
+        private final int rows;
+        private final int runs;
+        private final int[] rowOffsets;
+        private final int[] starts;
+        private final int[] values;
+        private final int maxValue;
+
+        private Band(int rows, int runs, int[] rowOffsets, int[] starts, int[] values, int maxValue) {
+            this.rows = rows;
+            this.runs = runs;
+            this.rowOffsets = rowOffsets;
+            this.starts = starts;
+            this.values = values;
+            this.maxValue = maxValue;
+        }
+    }
+}
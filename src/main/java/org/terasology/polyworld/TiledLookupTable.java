@@ -0,0 +1,160 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import org.terasology.engine.world.block.BlockAreac;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Splits the lookup area into square tiles that are rasterized on demand, the first time they are accessed.
+ * Only triangles whose bounding boxes overlap a tile are rasterized. Every tile is stored as a
+ * {@link RunLengthLookupTable}.
+ * <p>
+ * This class is thread-safe. Concurrent first access to a tile may rasterize it more than
+ * once, but all threads will see the same instance.
+ */
+final class TiledLookupTable implements LookupTable {
+
+    static final int TILE_SIZE = 64;
+
+    private final int minX;
+    private final int minY;
+    private final int width;
+    private final int height;
+    private final int tilesX;
+
+    /**
+     * The vertex coordinates of all triangles (6 floats per triangle)
+     */
+    private final float[] coords;
+
+    /**
+     * The triangles that overlap a tile, in ascending order
+     */
+    private final TriangleBuckets buckets;
+
+    private final AtomicReferenceArray<LookupTable> tiles;
+
+    private final boolean offHeap;
+
+    /**
+     * The estimated size once all tiles are rasterized
+     */
+    private final long estimatedBytes;
+
+    /**
+     * @param bounds the area of the lookup table
+     * @param coords the vertex coordinates of all triangles (6 floats per triangle)
+     * @param offHeap true to store the runs of every tile in a direct buffer
+     */
+    TiledLookupTable(BlockAreac bounds, float[] coords, boolean offHeap) {
+        this.offHeap = offHeap;
+        this.minX = bounds.minX();
+        this.minY = bounds.minY();
+        this.width = bounds.getSizeX();
+        this.height = bounds.getSizeY();
+        this.coords = coords;
+
+        tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+
+        // triangles remain in ascending order per tile, so overlaps are resolved as in a full raster
+        buckets = new TriangleBuckets(bounds, coords, TILE_SIZE);
+
+        tiles = new AtomicReferenceArray<>(buckets.getCellCount());
+        estimatedBytes = estimateBytes();
+    }
+
+    /**
+     * Tiles are rasterized lazily, but a cache must weigh the table when it is added. Every triangle is
+     * assumed to add one run to each tile row that its bounding box covers.
+     */
+    private long estimateBytes() {
+        // the coordinates are shared with the owner of this table
+        long bytes = 64L + buckets.getEstimatedBytes() + tiles.length() * 16L;
+        for (int tile = 0; tile < tiles.length(); tile++) {
+            int ty = tile / tilesX;
+            int tileMinY = minY + ty * TILE_SIZE;
+            int tileMaxY = tileMinY + Math.min(TILE_SIZE, height - ty * TILE_SIZE) - 1;
+            long runs = tileMaxY - tileMinY + 1;
+            for (int j = buckets.getStart(tile); j < buckets.getEnd(tile); j++) {
+                int off = buckets.getTriangle(j) * 6;
+                int y0 = (int) Math.ceil(Math.min(coords[off + 1], Math.min(coords[off + 3], coords[off + 5])));
+                int y1 = (int) Math.floor(Math.max(coords[off + 1], Math.max(coords[off + 3], coords[off + 5])));
+                runs += Math.max(0, Math.min(y1, tileMaxY) - Math.max(y0, tileMinY) + 1);
+            }
+            // 4 bytes per row offset, start and value (16 bits each) per run
+            bytes += 64L + (tileMaxY - tileMinY + 2) * 4L + runs * 4L;
+        }
+        return bytes;
+    }
+
+    @Override
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    @Override
+    public int get(int col, int row) {
+        int tx = col / TILE_SIZE;
+        int ty = row / TILE_SIZE;
+        return getTile(tx, ty).get(col - tx * TILE_SIZE, row - ty * TILE_SIZE);
+    }
+
+    @Override
+    public int getRunEnd(int col, int row, int maxCol) {
+        int ty = row / TILE_SIZE;
+        int tileRow = row - ty * TILE_SIZE;
+        int tx = col / TILE_SIZE;
+        int value = get(col, row);
+        int end = col;
+
+        while (true) {
+            int tileMinCol = tx * TILE_SIZE;
+            int tileMaxCol = Math.min(tileMinCol + TILE_SIZE - 1, maxCol);
+            end = tileMinCol + getTile(tx, ty).getRunEnd(end - tileMinCol, tileRow, tileMaxCol - tileMinCol);
+
+            // the run can continue in the next tile only if it reaches the tile border
+            if (end < tileMaxCol || end == maxCol) {
+                return end;
+            }
+            tx++;
+            if (getTile(tx, ty).get(0, tileRow) != value) {
+                return end;
+            }
+            end++;
+        }
+    }
+
+    private LookupTable getTile(int tx, int ty) {
+        int tile = ty * tilesX + tx;
+
+        LookupTable table = tiles.get(tile);
+        if (table == null) {
+            tiles.compareAndSet(tile, null, drawTile(tx, ty));
+            table = tiles.get(tile);
+        }
+        return table;
+    }
+
+    private LookupTable drawTile(int tx, int ty) {
+        int tileMinX = minX + tx * TILE_SIZE;
+        int tileMinY = minY + ty * TILE_SIZE;
+        int tileWidth = Math.min(TILE_SIZE, width - tx * TILE_SIZE);
+        int tileHeight = Math.min(TILE_SIZE, height - ty * TILE_SIZE);
+        int[] data = new int[tileWidth * tileHeight];
+
+        int tile = ty * tilesX + tx;
+        for (int j = buckets.getStart(tile); j < buckets.getEnd(tile); j++) {
+            int i = buckets.getTriangle(j);
+            int off = i * 6;
+            // index 0 is reserved for missing coverage
+            TriangleRasterizer.fill(coords[off], coords[off + 1], coords[off + 2], coords[off + 3], coords[off + 4], coords[off + 5],
+                    i + 1, data, tileMinX, tileMinY, tileWidth, tileHeight);
+        }
+
+        return new RunLengthLookupTable(tileWidth, Collections.singletonList(RunLengthLookupTable.encode(data, tileWidth)), offHeap);
+    }
+}
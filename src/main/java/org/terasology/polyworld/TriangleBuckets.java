@@ -0,0 +1,136 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import org.terasology.engine.world.block.BlockAreac;
+
+/**
+ * Assigns triangles to the square cells of a uniform grid, based on the blocks that their bounding boxes cover.
+ * Triangles are listed in ascending order per cell.
+ */
+final class TriangleBuckets {
+
+    private final int minX;
+    private final int minY;
+    private final int cellSize;
+    private final int cellsX;
+    private final int cellsY;
+
+    /**
+     * The triangles that overlap a cell (CSR format):
+     * triangles[offsets[i]] to triangles[offsets[i + 1] - 1]
+     */
+    private final int[] offsets;
+    private final int[] triangles;
+
+    /**
+     * @param bounds the area that is covered by the grid
+     * @param coords the vertex coordinates of all triangles (6 floats per triangle)
+     * @param cellSize the edge length of a cell in blocks
+     */
+    TriangleBuckets(BlockAreac bounds, float[] coords, int cellSize) {
+        this.minX = bounds.minX();
+        this.minY = bounds.minY();
+        this.cellSize = cellSize;
+
+        int width = bounds.getSizeX();
+        int height = bounds.getSizeY();
+        cellsX = (width + cellSize - 1) / cellSize;
+        cellsY = (height + cellSize - 1) / cellSize;
+        int cellCount = cellsX * cellsY;
+        int triCount = coords.length / 6;
+
+        // two passes: count and fill
+        int[] cellRange = new int[triCount * 4];
+        offsets = new int[cellCount + 1];
+        for (int i = 0; i < triCount; i++) {
+            int off = i * 6;
+            // the rasterizer samples blocks at integer coordinates only
+            int x0 = (int) Math.ceil(Math.min(coords[off], Math.min(coords[off + 2], coords[off + 4])));
+            int y0 = (int) Math.ceil(Math.min(coords[off + 1], Math.min(coords[off + 3], coords[off + 5])));
+            int x1 = (int) Math.floor(Math.max(coords[off], Math.max(coords[off + 2], coords[off + 4])));
+            int y1 = (int) Math.floor(Math.max(coords[off + 1], Math.max(coords[off + 3], coords[off + 5])));
+            x0 = Math.max(x0 - minX, 0) / cellSize;
+            y0 = Math.max(y0 - minY, 0) / cellSize;
+            x1 = Math.min(x1 - minX, width - 1);
+            y1 = Math.min(y1 - minY, height - 1);
+            if (x1 < 0 || y1 < 0) {
+                x1 = -1;   // empty range
+            } else {
+                x1 /= cellSize;
+                y1 /= cellSize;
+            }
+            cellRange[i * 4 + 0] = x0;
+            cellRange[i * 4 + 1] = y0;
+            cellRange[i * 4 + 2] = x1;
+            cellRange[i * 4 + 3] = y1;
+            for (int cy = y0; cy <= y1; cy++) {
+                for (int cx = x0; cx <= x1; cx++) {
+                    offsets[cy * cellsX + cx + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < cellCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        triangles = new int[offsets[cellCount]];
+        int[] fill = new int[cellCount];
+        for (int i = 0; i < triCount; i++) {
+            for (int cy = cellRange[i * 4 + 1]; cy <= cellRange[i * 4 + 3]; cy++) {
+                for (int cx = cellRange[i * 4]; cx <= cellRange[i * 4 + 2]; cx++) {
+                    int cell = cy * cellsX + cx;
+                    triangles[offsets[cell] + fill[cell]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the approximate number of bytes that this instance retains
+     */
+    long getEstimatedBytes() {
+        return 48L + offsets.length * 4L + triangles.length * 4L;
+    }
+
+    /**
+     * @return the number of cells
+     */
+    int getCellCount() {
+        return cellsX * cellsY;
+    }
+
+    /**
+     * @param x the x world coord. (must be inside the bounds)
+     * @param y the y world coord. (must be inside the bounds)
+     * @return the cell index
+     */
+    int getCell(int x, int y) {
+        return (y - minY) / cellSize * cellsX + (x - minX) / cellSize;
+    }
+
+    /**
+     * @param cell the cell index
+     * @return the index of the first entry of the cell
+     */
+    int getStart(int cell) {
+        return offsets[cell];
+    }
+
+    /**
+     * @param cell the cell index
+     * @return the index after the last entry of the cell
+     */
+    int getEnd(int cell) {
+        return offsets[cell + 1];
+    }
+
+    /**
+     * @param entry the entry index
+     * @return the triangle index
+     */
+    int getTriangle(int entry) {
+        return triangles[entry];
+    }
+}
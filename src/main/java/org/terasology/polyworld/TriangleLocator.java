@@ -0,0 +1,64 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import org.terasology.engine.world.block.BlockAreac;
+import org.terasology.polyworld.graph.Graph;
+import org.terasology.polyworld.graph.Triangle;
+
+/**
+ * Finds the region triangle of a {@link Graph} that contains a given block.
+ * All implementations use the fill rule of the {@link TriangleRasterizer}, so they give identical results.
+ */
+public interface TriangleLocator {
+
+    /**
+     * The available point-location strategies
+     */
+    enum Type {
+
+        /**
+         * Rasterized lookup table: O(1) or O(log k) queries, memory per block (see {@link TriangleLookup.Storage})
+         */
+        RASTER,
+
+        /**
+         * Uniform grid of triangle lists: a few point-in-triangle tests per query, a few ints per triangle
+         */
+        BUCKET_GRID,
+
+        /**
+         * Directed walk from the last result: near O(1) for coherent queries such as scan lines,
+         * O(sqrt n) for random queries, three ints per triangle
+         */
+        WALK
+    }
+
+    /**
+     * @param x the x world coord.
+     * @param y the y world coord.
+     * @return the triangle that contains the point or <code>null</code>
+     */
+    Triangle findTriangleAt(int x, int y);
+
+    /**
+     * Finds the run of consecutive blocks in a row that share the same triangle.
+     * @param x the x world coord. of the first block
+     * @param y the y world coord. of the row
+     * @param maxX the largest x world coord. to consider
+     * @return the x world coord. of the last block (at most maxX and inside the bounds) that has the same triangle as (x, y)
+     */
+    int findRunEnd(int x, int y, int maxX);
+
+    /**
+     * @return the area that is covered by this locator
+     */
+    BlockAreac getBounds();
+
+    /**
+     * Used to weigh locators in memory-bounded caches. Data that is shared with the graph is not included.
+     * @return the approximate number of bytes that this locator retains
+     */
+    long getEstimatedBytes();
+}
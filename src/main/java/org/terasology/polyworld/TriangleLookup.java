@@ -17,61 +17,112 @@
 package org.terasology.polyworld;
 
 import com.google.common.base.Stopwatch;
-import com.google.common.collect.Lists;
-import org.joml.Vector2fc;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.engine.world.block.BlockArea;
 import org.terasology.engine.world.block.BlockAreac;
 import org.terasology.polyworld.graph.Graph;
-import org.terasology.polyworld.graph.GraphRegion;
 import org.terasology.polyworld.graph.Triangle;
 
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.geom.Path2D;
-import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferInt;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
- * Creates a image-based lookup table to map individual pixel to triangles
+ * Creates a raster-based lookup table to map individual pixel to triangles
  * of the regions in a {@link Graph}
  */
-public class TriangleLookup {
+public class TriangleLookup implements TriangleLocator {
 
     private static final Logger logger = LoggerFactory.getLogger(TriangleLookup.class);
 
-    private final BufferedImage image;
-    private final DataBufferInt dataBuffer;
+    /**
+     * The number of rows that are rasterized by a single task in parallel mode
+     */
+    private static final int BAND_HEIGHT = 64;
+
+    /**
+     * The available storage formats
+     */
+    public enum Storage {
+
+        /**
+         * One int per block: fastest access, but 4MB for a 1024x1024 area
+         */
+        RASTER,
+
+        /**
+         * Runs of blocks per row: O(log k) access, but only a fraction of the memory
+         */
+        RUN_LENGTH,
+
+        /**
+         * Run-length encoded tiles that are rasterized on first access: fast construction,
+         * memory is spent on explored tiles only
+         */
+        TILED
+    }
 
-    // TODO: consider not storing this explicitly -> O(1) -> O(log n)
-    //       due to binary search in region-triangle start index list
-    private final List<Triangle> triangles;
+    /**
+     * Triangle index + 1 for every block
+     */
+    private final LookupTable table;
 
-    private final BlockAreac bounds;
+    private final GraphTriangles triangles;
+
+    private final BlockArea bounds = new BlockArea(BlockArea.INVALID);
 
     /**
-     * Creates a lookup image for the graph's region triangles
+     * Creates a lookup table for the graph's region triangles
      */
     public TriangleLookup(Graph graph) {
+        this(graph, Storage.RASTER, false);
+    }
 
-        bounds = graph.getBounds();
-
-        // TODO: maybe use USHORT_GRAY instead
-        image = new BufferedImage(bounds.getSizeX(), bounds.getSizeY(), BufferedImage.TYPE_INT_RGB);
-        Graphics2D g = image.createGraphics();
-        g.translate(-bounds.minX(), -bounds.minY());
+    /**
+     * Creates a lookup table for the graph's region triangles
+     * @param graph the graph
+     * @param storage the storage format of the lookup table
+     * @param parallel true if blocks of rows should be rasterized in parallel (ignored for tiled storage)
+     */
+    public TriangleLookup(Graph graph, Storage storage, boolean parallel) {
+        this(graph, storage, parallel, false);
+    }
 
-        try {
-            Stopwatch sw = Stopwatch.createStarted();
-            triangles = drawTriangles(g, graph);
-            logger.debug("Cached {} triangle lookups in {}ms.", triangles.size(), sw.elapsed(TimeUnit.MILLISECONDS));
-        } finally {
-            g.dispose();
+    /**
+     * Creates a lookup table for the graph's region triangles
+     * @param graph the graph
+     * @param storage the storage format of the lookup table
+     * @param parallel true if blocks of rows should be rasterized in parallel (ignored for tiled storage)
+     * @param offHeap true to keep the lookup table in direct buffers, outside of the garbage-collected heap
+     */
+    public TriangleLookup(Graph graph, Storage storage, boolean parallel, boolean offHeap) {
+
+        bounds.set(graph.getBounds());
+
+        Stopwatch sw = Stopwatch.createStarted();
+
+        triangles = new GraphTriangles(graph);
+        float[] coords = triangles.getCoords();
+
+        int width = bounds.getSizeX();
+        switch (storage) {
+            case TILED:
+                table = new TiledLookupTable(bounds, coords, offHeap);
+                break;
+            case RUN_LENGTH:
+                List<RunLengthLookupTable.Band> runs = drawBands(coords, parallel, band -> RunLengthLookupTable.encode(band, width));
+                table = new RunLengthLookupTable(width, runs, offHeap);
+                break;
+            case RASTER:
+            default:
+                table = new RasterLookupTable(width, drawBands(coords, parallel, Function.identity()), offHeap);
+                break;
         }
 
-        dataBuffer = (DataBufferInt) image.getRaster().getDataBuffer();
+        logger.debug("Cached {} triangle lookups in {}ms.", triangles.size(), sw.elapsed(TimeUnit.MILLISECONDS));
     }
 
     /**
@@ -79,18 +130,19 @@ public class TriangleLookup {
      * @param y the y world coord.
      * @return the triangle that contains the point or <code>null</code>
      */
+    @Override
     public Triangle findTriangleAt(int x, int y) {
         int imgX = x - bounds.minX();
         int imgY = y - bounds.minY();
 
-        if (imgX < 0 || imgY < 0 || imgX >= image.getWidth() || imgY >= image.getHeight()) {
+        if (imgX < 0 || imgY < 0 || imgX >= bounds.getSizeX() || imgY >= bounds.getSizeY()) {
             logger.warn("Coordinate {}/{} is out of bounds", x, y);
             return null;
         }
 
         // index 0 is reserved for missing coverage
         // we need to subtract 1 to get the real list index
-        int index1 = dataBuffer.getElem(imgY * image.getWidth() + imgX) & 0xFFFFFF;
+        int index1 = table.get(imgX, imgY);
         if (index1 < 1 || index1 > triangles.size()) {
             logger.warn("Could not find a triangle for {}/{}", x, y);
             return null;
@@ -99,37 +151,58 @@ public class TriangleLookup {
         return triangles.get(index1 - 1);
     }
 
-    private static List<Triangle> drawTriangles(Graphics2D g, Graph graph) {
-        List<GraphRegion> regions = graph.getRegions();
-        List<Triangle> triangles = Lists.newArrayList();
+    @Override
+    public int findRunEnd(int x, int y, int maxX) {
+        if (!bounds.contains(x, y)) {
+            return x;
+        }
+        int minX = bounds.minX();
+        return minX + table.getRunEnd(x - minX, y - bounds.minY(), Math.min(maxX, bounds.maxX()) - minX);
+    }
+
+    /**
+     * Rasterizes all bands of rows and encodes them.
+     * @return the encoded bands, top to bottom
+     */
+    private <T> List<T> drawBands(float[] coords, boolean parallel, Function<int[], T> encoder) {
+        int bands = (bounds.getSizeY() + BAND_HEIGHT - 1) / BAND_HEIGHT;
+        IntStream stream = IntStream.range(0, bands);
+        if (parallel && bands > 1) {
+            stream = stream.parallel();
+        }
+        return stream.mapToObj(band -> encoder.apply(drawTriangles(coords, band))).collect(Collectors.toList());
+    }
+
+    /**
+     * Rasterizes all triangles that intersect with a band of rows.
+     * @return the raster data of the band in row-major order
+     */
+    private int[] drawTriangles(float[] coords, int band) {
+        int width = bounds.getSizeX();
+        int minY = bounds.minY() + band * BAND_HEIGHT;
+        int height = Math.min(BAND_HEIGHT, bounds.maxY() - minY + 1);
+        int[] bandData = new int[width * height];
 
         // index 0 is reserved for missing coverage
-        int index = 1;
-        for (final GraphRegion reg : regions) {
-            for (Triangle tri : reg.computeTriangles()) {
-                Vector2fc p0 = tri.getRegion().getCenter();
-                Vector2fc p1 = tri.getCorner1().getLocation();
-                Vector2fc p2 = tri.getCorner2().getLocation();
-
-                Path2D path = new Path2D.Double();
-                path.moveTo(p0.x(), p0.y());
-                path.lineTo(p1.x(), p1.y());
-                path.lineTo(p2.x(), p2.y());
-
-                triangles.add(tri);
-
-                g.setColor(new Color(index++));
-                g.fill(path);
+        for (int i = 0; i < coords.length / 6; i++) {
+            int off = i * 6;
+            float triMinY = Math.min(coords[off + 1], Math.min(coords[off + 3], coords[off + 5]));
+            float triMaxY = Math.max(coords[off + 1], Math.max(coords[off + 3], coords[off + 5]));
+            if (triMaxY >= minY && triMinY <= minY + height - 1) {
+                TriangleRasterizer.fill(coords[off], coords[off + 1], coords[off + 2], coords[off + 3], coords[off + 4], coords[off + 5],
+                        i + 1, bandData, bounds.minX(), minY, width, height);
             }
         }
 
-        return triangles;
+        return bandData;
     }
 
-    /**
-     * @return
-     */
+    @Override
     public BlockAreac getBounds() {
         return bounds;
     }
+    @Override
+    public long getEstimatedBytes() {
+        return 64L + triangles.getEstimatedBytes() + table.getEstimatedBytes();
+    }
 }
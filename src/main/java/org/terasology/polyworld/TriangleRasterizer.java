@@ -0,0 +1,157 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import java.util.Arrays;
+
+/**
+ * A pure-Java scanline rasterizer that fills triangles with an int value.
+ * Blocks are sampled at their center, i.e. at integer world coordinates: a graph for the blocks
+ * <code>[min..max]</code> spans <code>[min - 0.5, max + 0.5]</code>.
+ * <p>
+ * The former java2d lookup sampled pixel centers at <code>x + 0.5</code>, which is half a block off
+ * the block centers. Blocks close to a triangle edge can therefore map to the neighboring triangle.
+ * <p>
+ * Edge functions are always evaluated with the edge vertices in a canonical order, so two triangles that
+ * share an edge compute bit-identical values. Instead of the top-left rule of GPU rasterizers, samples that
+ * lie exactly on an edge or a vertex are tie-broken by a symbolic perturbation: they belong to the triangle
+ * that contains the sample moved by <code>(eps^2, eps)</code> for an infinitesimal <code>eps</code>, i.e.
+ * slightly in +y and even less in +x direction. Like the top-left rule, this fills every sample that is
+ * covered by a triangulation exactly once.
+ */
+final class TriangleRasterizer {
+
+    private TriangleRasterizer() {
+        // no instances
+    }
+
+    /**
+     * Fills all samples of a triangle that lie inside a rectangular window.
+     * @param ax the x coord. of the first vertex
+     * @param ay the y coord. of the first vertex
+     * @param bx the x coord. of the second vertex
+     * @param by the y coord. of the second vertex
+     * @param cx the x coord. of the third vertex
+     * @param cy the y coord. of the third vertex
+     * @param value the value to write
+     * @param data the target array in row-major order
+     * @param minX the world x coord. of the first column in the array
+     * @param minY the world y coord. of the first row in the array
+     * @param width the number of columns in the array
+     * @param height the number of rows in the array
+     */
+    static void fill(float ax, float ay, float bx, float by, float cx, float cy, int value,
+                     int[] data, int minX, int minY, int width, int height) {
+
+        double area = ((double) bx - ax) * ((double) cy - ay) - ((double) by - ay) * ((double) cx - ax);
+        if (area == 0) {
+            return;
+        }
+        boolean positive = area > 0;
+
+        int rowMin = Math.max((int) Math.ceil(Math.min(ay, Math.min(by, cy))), minY);
+        int rowMax = Math.min((int) Math.floor(Math.max(ay, Math.max(by, cy))), minY + height - 1);
+        int colMin = Math.max((int) Math.ceil(Math.min(ax, Math.min(bx, cx))) - 1, minX);
+        int colMax = Math.min((int) Math.floor(Math.max(ax, Math.max(bx, cx))) + 1, minX + width - 1);
+
+        for (int y = rowMin; y <= rowMax; y++) {
+            // intersect the scan line with all three edges to get an estimate of the span
+            double ab = intersect(ax, ay, bx, by, y);
+            double bc = intersect(bx, by, cx, cy, y);
+            double ca = intersect(cx, cy, ax, ay, y);
+            double lo = min(ab, min(bc, ca));
+            double hi = max(ab, max(bc, ca));
+            if (Double.isNaN(lo)) {
+                continue;
+            }
+
+            int x0 = (int) Math.max(Math.ceil(lo) - 1, colMin);
+            int x1 = (int) Math.min(Math.floor(hi) + 1, colMax);
+
+            // refine the estimate with the exact inside test
+            while (x0 <= x1 && !isInside(ax, ay, bx, by, cx, cy, x0, y, positive)) {
+                x0++;
+            }
+            while (x1 >= x0 && !isInside(ax, ay, bx, by, cx, cy, x1, y, positive)) {
+                x1--;
+            }
+
+            if (x0 <= x1) {
+                int offset = (y - minY) * width - minX;
+                Arrays.fill(data, offset + x0, offset + x1 + 1, value);
+            }
+        }
+    }
+
+    /**
+     * @param x the x coord. of a sample inside the triangle
+     * @param y the y coord. of a sample inside the triangle
+     * @return the x coord. of the last sample in the row that is inside the triangle
+     */
+    static int findSpanEnd(float ax, float ay, float bx, float by, float cx, float cy, int x, int y, boolean positive) {
+        double hi = max(intersect(ax, ay, bx, by, y), max(intersect(bx, by, cx, cy, y), intersect(cx, cy, ax, ay, y)));
+        int x1 = Double.isNaN(hi) ? x : Math.max(x, (int) Math.floor(hi) + 1);
+        while (x1 > x && !isInside(ax, ay, bx, by, cx, cy, x1, y, positive)) {
+            x1--;
+        }
+        return x1;
+    }
+
+    /**
+     * @return true if the sample at (x, y) is inside the triangle according to the fill rule
+     */
+    static boolean isInside(float ax, float ay, float bx, float by, float cx, float cy,
+                            double x, double y, boolean positive) {
+        return isInside(ax, ay, bx, by, x, y, positive)
+            && isInside(bx, by, cx, cy, x, y, positive)
+            && isInside(cx, cy, ax, ay, x, y, positive);
+    }
+
+    /**
+     * @param positive true if the interior is on the positive side of the edge p to q
+     * @return true if the sample at (x, y) is on the inner side of the edge according to the fill rule
+     */
+    static boolean isInside(float px, float py, float qx, float qy, double x, double y, boolean positive) {
+        // evaluate every edge in a canonical vertex order (lexicographically smaller vertex first)
+        if (px > qx || (px == qx && py > qy)) {
+            return isInside(qx, qy, px, py, x, y, !positive);
+        }
+
+        double dx = (double) qx - px;
+        double dy = (double) qy - py;
+        double e = dx * (y - py) - dy * (x - px);
+        if (e != 0) {
+            return (e > 0) == positive;
+        }
+
+        // the sample is on the edge: move it by (eps^2, eps) -> the sign of e becomes the sign of dx
+        // (dx is never negative due to the canonical order; for dx == 0 the sign is given by -dy < 0)
+        return (dx > 0) == positive;
+    }
+
+    /**
+     * @return the x coord. where the edge crosses the horizontal line or NaN. Horizontal edges
+     * also return NaN, as their end points are covered by the adjacent edges.
+     */
+    private static double intersect(float px, float py, float qx, float qy, double y) {
+        if (py == qy || y < Math.min(py, qy) || y > Math.max(py, qy)) {
+            return Double.NaN;
+        }
+        return px + (y - py) * ((double) qx - px) / ((double) qy - py);
+    }
+
+    /**
+     * @return the smaller value, ignoring NaN
+     */
+    private static double min(double a, double b) {
+        return Double.isNaN(a) ? b : Double.isNaN(b) ? a : Math.min(a, b);
+    }
+
+    /**
+     * @return the larger value, ignoring NaN
+     */
+    private static double max(double a, double b) {
+        return Double.isNaN(a) ? b : Double.isNaN(b) ? a : Math.max(a, b);
+    }
+}
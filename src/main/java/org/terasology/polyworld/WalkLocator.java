@@ -0,0 +1,196 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.world.block.BlockArea;
+import org.terasology.engine.world.block.BlockAreac;
+import org.terasology.polyworld.graph.Graph;
+import org.terasology.polyworld.graph.Triangle;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Locates triangles by walking through the triangulation, starting at the previous result.
+ * Every step crosses an edge that separates the current triangle from the target point.
+ * Consecutive queries (e.g. along a scan line) usually need zero or one step.
+ * <p>
+ * If the walk leaves the triangulation or takes too long, all triangles are tested.
+ * This class is thread-safe, but threads share the start triangle.
+ */
+public class WalkLocator implements TriangleLocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(WalkLocator.class);
+
+    private final GraphTriangles triangles;
+
+    /**
+     * The neighbor triangle across every triangle edge or -1 (3 ints per triangle)
+     */
+    private final int[] neighbors;
+
+    /**
+     * The orientation of every triangle: 1 (positive), -1 (negative) or 0 (degenerate)
+     */
+    private final byte[] orientation;
+
+    private final int maxSteps;
+
+    private final BlockArea bounds = new BlockArea(BlockArea.INVALID);
+
+    /**
+     * The last result - races are harmless as any triangle is a valid start
+     */
+    private int start;
+
+    /**
+     * @param graph the graph
+     */
+    public WalkLocator(Graph graph) {
+        bounds.set(graph.getBounds());
+
+        Stopwatch sw = Stopwatch.createStarted();
+
+        triangles = new GraphTriangles(graph);
+        int count = triangles.size();
+        int regionCount = graph.getRegions().size();
+
+        // vertex ids: regions first, then corners - taken from the mesh, because only the elements
+        // of a CompactGraph know their own index
+        int[] vertices = new int[count * 3];
+        for (int i = 0; i < count; i++) {
+            vertices[i * 3 + 0] = triangles.getRegionId(i);
+            vertices[i * 3 + 1] = regionCount + triangles.getCorner1Id(i);
+            vertices[i * 3 + 2] = regionCount + triangles.getCorner2Id(i);
+        }
+
+        neighbors = new int[count * 3];
+        Arrays.fill(neighbors, -1);
+        Map<Long, Integer> openEdges = Maps.newHashMapWithExpectedSize(count * 2);
+        for (int i = 0; i < count * 3; i++) {
+            int v0 = vertices[i];
+            int v1 = vertices[i % 3 == 2 ? i - 2 : i + 1];
+            long key = ((long) Math.min(v0, v1) << 32) | Math.max(v0, v1);
+            Integer other = openEdges.remove(key);
+            if (other != null) {
+                neighbors[i] = other / 3;
+                neighbors[other] = i / 3;
+            } else {
+                openEdges.put(key, i);
+            }
+        }
+
+        orientation = new byte[count];
+        float[] coords = triangles.getCoords();
+        for (int i = 0; i < count; i++) {
+            int off = i * 6;
+            double area = ((double) coords[off + 2] - coords[off]) * ((double) coords[off + 5] - coords[off + 1])
+                    - ((double) coords[off + 3] - coords[off + 1]) * ((double) coords[off + 4] - coords[off]);
+            orientation[i] = (byte) Math.signum(area);
+        }
+
+        maxSteps = 16 + 4 * (int) Math.sqrt(count);
+
+        logger.debug("Created walk locator for {} triangles in {}ms.", count, sw.elapsed(TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public Triangle findTriangleAt(int x, int y) {
+        if (!bounds.contains(x, y)) {
+            logger.warn("Coordinate {}/{} is out of bounds", x, y);
+            return null;
+        }
+
+        int tri = findTriangleIndex(x, y);
+        if (tri < 0) {
+            logger.warn("Could not find a triangle for {}/{}", x, y);
+            return null;
+        }
+
+        return triangles.get(tri);
+    }
+
+    /**
+     * Uses the exact span of the triangle in the row, which matches a raster for valid triangulations.
+     */
+    @Override
+    public int findRunEnd(int x, int y, int maxX) {
+        int tri = bounds.contains(x, y) ? findTriangleIndex(x, y) : -1;
+        if (tri < 0) {
+            return x;
+        }
+        return Math.max(x, Math.min(triangles.findSpanEnd(tri, x, y), Math.min(maxX, bounds.maxX())));
+    }
+
+    private int findTriangleIndex(int x, int y) {
+        int tri = start;
+        for (int step = 0; step < maxSteps && tri >= 0 && tri < triangles.size(); step++) {
+            int exit = findExit(tri, x, y, step);
+            if (exit == -1) {
+                start = tri;
+                return tri;
+            }
+            tri = exit >= 0 ? neighbors[tri * 3 + exit] : -1;
+        }
+
+        // test in reverse order: later triangles overwrite earlier ones in a raster
+        for (int i = triangles.size() - 1; i >= 0; i--) {
+            if (triangles.contains(i, x, y)) {
+                start = i;
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param step the step number - used to rotate the first edge to avoid cycles
+     * @return the edge (0-2) to leave the triangle towards the point, -1 if the triangle contains the point
+     *     or -2 if the point is outside, but there is no neighbor in that direction
+     */
+    private int findExit(int tri, double x, double y, int step) {
+        float[] coords = triangles.getCoords();
+        int off = tri * 6;
+        boolean positive = orientation[tri] > 0;
+        int result = -1;
+        for (int i = 0; i < 3; i++) {
+            int edge = (i + step) % 3;
+            int p = off + edge * 2;
+            int q = off + (edge == 2 ? 0 : edge * 2 + 2);
+            boolean inside = orientation[tri] != 0
+                    && TriangleRasterizer.isInside(coords[p], coords[p + 1], coords[q], coords[q + 1], x, y, positive);
+            if (!inside) {
+                if (neighbors[tri * 3 + edge] >= 0) {
+                    return edge;
+                }
+                result = -2;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param tri the triangle index
+     * @param edge the edge of the triangle (0-2)
+     * @return the neighbor triangle across the edge or -1 if there is none
+     */
+    int getNeighbor(int tri, int edge) {
+        return neighbors[tri * 3 + edge];
+    }
+
+    @Override
+    public BlockAreac getBounds() {
+        return bounds;
+    }
+    @Override
+    public long getEstimatedBytes() {
+        return 64L + triangles.getEstimatedBytes() + neighbors.length * 4L + orientation.length;
+    }
+}
@@ -16,7 +16,7 @@
 
 package org.terasology.polyworld.biome;
 
-import org.joml.Vector2ic;
+import org.terasology.engine.world.block.BlockAreac;
 import org.terasology.engine.world.generation.Border3D;
 import org.terasology.engine.world.generation.Facet;
 import org.terasology.engine.world.generation.FacetProvider;
@@ -50,19 +50,27 @@ public class WhittakerBiomeProvider implements FacetProvider {
 
         Graph graph = null;
         BiomeModel model = null;
+        BlockAreac area = facet.getWorldArea();
 
-        for (Vector2ic pos : facet.getWorldArea()) {
-            if (graph == null || !graph.getBounds().contains(pos.x(), pos.y())) {
-                graph = graphFacet.getWorld(pos.x(), pos.y());
-                model = biomeModelFacet.get(graph);
-            }
+        for (int z = area.minY(); z <= area.maxY(); z++) {
+            int x = area.minX();
+            while (x <= area.maxX()) {
+                Graph runGraph = graphFacet.getWorld(x, z);
+                if (runGraph != graph) {
+                    graph = runGraph;
+                    model = biomeModelFacet.get(graph);
+                }
 
-            Triangle tri = graphFacet.getWorldTriangle(pos.x(), pos.y());
-            GraphRegion r = tri.getRegion();
+                Triangle tri = graphFacet.getWorldTriangle(x, z);
+                int end = graphFacet.getWorldTriangleRunEnd(x, z, area.maxX());
+                GraphRegion r = tri.getRegion();
 
-            WhittakerBiome biome = model.getBiome(r);
+                WhittakerBiome biome = model.getBiome(r);
 
-            facet.setWorld(pos, biome);
+                for (; x <= end; x++) {
+                    facet.setWorld(x, z, biome);
+                }
+            }
         }
 
         region.setRegionFacet(WhittakerBiomeFacet.class, facet);
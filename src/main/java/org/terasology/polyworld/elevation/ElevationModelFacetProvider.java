@@ -16,45 +16,31 @@
 
 package org.terasology.polyworld.elevation;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.terasology.engine.world.generation.Facet;
 import org.terasology.engine.world.generation.FacetProvider;
 import org.terasology.engine.world.generation.GeneratingRegion;
 import org.terasology.engine.world.generation.Produces;
 import org.terasology.engine.world.generation.Requires;
-import org.terasology.polyworld.graph.Graph;
+import org.terasology.polyworld.IslandBundle;
 import org.terasology.polyworld.graph.GraphFacet;
-import org.terasology.polyworld.rp.WorldRegion;
-import org.terasology.polyworld.rp.WorldRegionFacet;
-import org.terasology.polyworld.water.WaterModel;
-import org.terasology.polyworld.water.WaterModelFacet;
-
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
 
 /**
- * TODO Type description
+ * Provides the elevation models of all graphs in the region, scaled by the size of their world region.
  */
 @Produces(ElevationModelFacet.class)
-@Requires({
-        @Facet(WorldRegionFacet.class),
-        @Facet(WaterModelFacet.class),
-        @Facet(GraphFacet.class)
-        })
+@Requires(@Facet(GraphFacet.class))
 public class ElevationModelFacetProvider implements FacetProvider {
 
-    private static final Logger logger = LoggerFactory.getLogger(ElevationModelFacetProvider.class);
-
-    private final Cache<Graph, ElevationModel> elevationCache;
+    public ElevationModelFacetProvider() {
+    }
 
     /**
-     * @param maxCacheSize maximum number of cached models
+     * @param maxCacheSize ignored
+     * @deprecated models are cached together with their graph, use {@link #ElevationModelFacetProvider()}
      */
+    @Deprecated
     public ElevationModelFacetProvider(int maxCacheSize) {
-        elevationCache = CacheBuilder.newBuilder().maximumSize(maxCacheSize).build();
+        this();
     }
 
     @Override
@@ -64,35 +50,13 @@ public class ElevationModelFacetProvider implements FacetProvider {
 
     @Override
     public void process(GeneratingRegion region) {
-        ElevationModelFacet elevationFacet = new ElevationModelFacet();
-
-        WorldRegionFacet regionFacet = region.getRegionFacet(WorldRegionFacet.class);
         GraphFacet graphFacet = region.getRegionFacet(GraphFacet.class);
-        WaterModelFacet waterFacet = region.getRegionFacet(WaterModelFacet.class);
+        ElevationModelFacet elevationFacet = new ElevationModelFacet();
 
-        for (WorldRegion wr : regionFacet.getRegions()) {
-            Graph graph = graphFacet.getGraph(wr);
-            WaterModel waterModel = waterFacet.get(graph);
-            float heightScale = wr.getHeightScaleFactor();
-            ElevationModel elevationModel = getOrCreate(graph, waterModel, heightScale);
-            elevationFacet.set(graph, elevationModel);
+        for (IslandBundle bundle : graphFacet.getAllBundles()) {
+            elevationFacet.set(bundle.getGraph(), bundle.getElevationModel());
         }
 
         region.setRegionFacet(ElevationModelFacet.class, elevationFacet);
     }
-
-    private ElevationModel getOrCreate(final Graph graph, final WaterModel waterModel, final float scale) {
-        try {
-            return elevationCache.get(graph, new Callable<ElevationModel>() {
-
-                @Override
-                public ElevationModel call() {
-                    return new DefaultElevationModel(graph, waterModel, scale);
-                }
-            });
-        } catch (ExecutionException e) {
-            logger.error("Could not create elevation model", e.getCause());
-            return null;
-        }
-    }
 }
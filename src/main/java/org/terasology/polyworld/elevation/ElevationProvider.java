@@ -18,9 +18,9 @@ package org.terasology.polyworld.elevation;
 
 import com.google.common.base.Stopwatch;
 import org.joml.Vector2f;
-import org.joml.Vector2ic;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.engine.world.block.BlockAreac;
 import org.terasology.engine.world.generation.Border3D;
 import org.terasology.engine.world.generation.Facet;
 import org.terasology.engine.world.generation.FacetProvider;
@@ -32,6 +32,7 @@ import org.terasology.engine.world.generation.facets.SeaLevelFacet;
 import org.terasology.polyworld.graph.Graph;
 import org.terasology.polyworld.graph.GraphFacet;
 import org.terasology.polyworld.graph.Triangle;
+import org.terasology.polyworld.graph.TriangleMesh;
 
 import java.util.concurrent.TimeUnit;
 
@@ -82,32 +83,44 @@ public class ElevationProvider implements FacetProvider {
         Stopwatch sw = traceLog ? Stopwatch.createStarted() : null;
 
         Graph graph = null;
+        TriangleMesh mesh = null;
         Triangle prevTri = null;
         float wreg = 0;
         float wc1 = 0;
         float wc2 = 0;
+        Vector2f gradient = new Vector2f();
 
         ElevationModel elevation = null;
-
-        for (Vector2ic p : facet.getWorldArea()) {
-            if (graph == null || !graph.getBounds().contains(p.x(), p.y())) {
-                graph = graphFacet.getWorld(p.x(), p.y());
-                elevation = elevationModelFacet.get(graph);
-            }
-
-            Triangle tri = graphFacet.getWorldTriangle(p.x(), p.y());
-
-            if (tri != prevTri) {
-                wreg = elevation.getElevation(tri.getRegion());
-                wc1 = elevation.getElevation(tri.getCorner1());
-                wc2 = elevation.getElevation(tri.getCorner2());
-                prevTri = tri;
+        BlockAreac area = facet.getWorldArea();
+
+        for (int z = area.minY(); z <= area.maxY(); z++) {
+            int x = area.minX();
+            while (x <= area.maxX()) {
+                Graph runGraph = graphFacet.getWorld(x, z);
+                if (runGraph != graph) {
+                    graph = runGraph;
+                    mesh = graph.getTriangleMesh();
+                    elevation = elevationModelFacet.get(graph);
+                }
+
+                Triangle tri = graphFacet.getWorldTriangle(x, z);
+                int end = graphFacet.getWorldTriangleRunEnd(x, z, area.maxX());
+
+                if (tri != prevTri) {
+                    wreg = elevation.getElevation(tri.getRegion());
+                    wc1 = elevation.getElevation(tri.getCorner1());
+                    wc2 = elevation.getElevation(tri.getCorner2());
+                    mesh.computeInterpolationGradient(tri.getIndex(), wreg, wc1, wc2, gradient);
+                    prevTri = tri;
+                }
+
+                // the elevation is linear inside the triangle, so step along the run
+                float ele = mesh.interpolate(tri.getIndex(), x, z, wreg, wc1, wc2);
+                for (; x <= end; x++) {
+                    facet.setWorld(x, z, convertModelElevation(seaLevel, seaFloor, maxHeight, ele));
+                    ele += gradient.x();
+                }
             }
-
-            float ele = tri.computeInterpolated(new Vector2f(p.x(), p.y()), wreg, wc1, wc2);
-            float blockHeight = convertModelElevation(seaLevel, seaFloor, maxHeight, ele);
-
-            facet.setWorld(p, blockHeight);
         }
 
         if (traceLog) {
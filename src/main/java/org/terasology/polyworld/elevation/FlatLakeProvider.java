@@ -37,6 +37,8 @@ import java.util.function.Predicate;
 
 /**
  * Makes sure that all corners of lake polygons have that same height.
+ * The models of an {@link org.terasology.polyworld.IslandBundle} have flat lakes already,
+ * so this provider is only needed for elevation models that come from elsewhere.
  */
 @Updates(@Facet(ElevationModelFacet.class))
 @Requires({
@@ -64,7 +66,14 @@ public class FlatLakeProvider implements FacetProvider {
         }
     }
 
-    private ElevationModel flattenLakes(Graph graph, ElevationModel elevationModel, WaterModel waterModel) {
+    /**
+     * Assigns the lowest elevation of every lake to all corners of that lake.
+     * @param graph the graph
+     * @param elevationModel the elevation model to start from, it is not modified
+     * @param waterModel the water model of the graph
+     * @return an elevation model with flat lakes
+     */
+    public static ElevationModel flattenLakes(Graph graph, ElevationModel elevationModel, WaterModel waterModel) {
         Set<GraphRegion> found = Sets.newHashSet();
         Predicate<GraphRegion> isLake = r -> waterModel.isWater(r) && !waterModel.isOcean(r);
 
@@ -80,7 +89,7 @@ public class FlatLakeProvider implements FacetProvider {
         return flatModel;
     }
 
-    private Collection<GraphRegion> floodFill(GraphRegion start, Predicate<GraphRegion> pred) {
+    private static Collection<GraphRegion> floodFill(GraphRegion start, Predicate<GraphRegion> pred) {
         Collection<GraphRegion> lake = new HashSet<GraphRegion>();
         lake.add(start);
 
@@ -99,7 +108,7 @@ public class FlatLakeProvider implements FacetProvider {
         return lake;
     }
 
-    private void flattenLake(FlatLakeElevationModel elevationModel, Collection<GraphRegion> lake) {
+    private static void flattenLake(FlatLakeElevationModel elevationModel, Collection<GraphRegion> lake) {
 
         float minHeight = Float.POSITIVE_INFINITY;
         for (GraphRegion r : lake) {
@@ -17,46 +17,61 @@
 package org.terasology.polyworld.graph;
 
 
-import com.google.common.collect.Ordering;
-import org.joml.Vector2f;
-import org.joml.Vector2fc;
-
 /**
- * Defines an order of points around a central point, based on their angle
+ * Defines an order of corner ids around a central point, based on their angle
  */
-final class AngleOrdering extends Ordering<Corner> {
+final class AngleOrdering {
 
-    private final Vector2f center = new Vector2f();
+    private final float centerX;
+    private final float centerY;
+    private final float[] xs;
+    private final float[] ys;
 
     /**
-     * @param center the center point
+     * @param centerX the x coord. of the center point
+     * @param centerY the y coord. of the center point
+     * @param xs the x coords. of all corners
+     * @param ys the y coords. of all corners
      */
-    AngleOrdering(Vector2fc center) {
-        this.center.set(center);
+    AngleOrdering(float centerX, float centerY, float[] xs, float[] ys) {
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.xs = xs;
+        this.ys = ys;
     }
 
-    @Override
-    public int compare(Corner o0, Corner o1) {
-        Vector2fc p0 = o0.getLocation();
-        Vector2fc p1 = o1.getLocation();
+    public int compare(int c0, int c1) {
+        return compare(centerX, centerY, xs[c0], ys[c0], xs[c1], ys[c1]);
+    }
 
-        if (p0.equals(p1)) {
+    /**
+     * Compares two points by their angle around a center point.
+     * @return a negative value, zero or a positive value if the first point comes before, at or after the second
+     */
+    static int compare(float centerX, float centerY, float x0, float y0, float x1, float y1) {
+        if (x0 == x1 && y0 == y1) {
             return 0;
         }
 
-        Vector2f a = new Vector2f(p0).sub(center).normalize();
-        Vector2f b = new Vector2f(p1).sub(center).normalize();
+        float ax = x0 - centerX;
+        float ay = y0 - centerY;
+        float bx = x1 - centerX;
+        float by = y1 - centerY;
+
+        // normalize x only - the sign of y is not affected by the length
+        ax /= (float) Math.sqrt(ax * ax + ay * ay);
+        bx /= (float) Math.sqrt(bx * bx + by * by);
 
-        if (a.y() > 0) { //a between 0 and 180
-            if (b.y() < 0) {  //b between 180 and 360
+        if (ay > 0) { //a between 0 and 180
+            if (by < 0) {  //b between 180 and 360
                 return -1;
             }
-            return a.x() < b.x() ? 1 : -1;
+            return ax < bx ? 1 : -1;
         } else { // a between 180 and 360
-            if (b.y() > 0) { //b between 0 and 180
+            if (by > 0) { //b between 0 and 180
                 return 1;
             }
-            return a.x() > b.x() ? 1 : -1;
+            return ax > bx ? 1 : -1;
         }
     }
 }
@@ -0,0 +1,506 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld.graph;
+
+import org.terasology.engine.world.block.BlockArea;
+import org.terasology.engine.world.block.BlockAreac;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A frozen graph that stores all elements as int ids in flat (struct-of-arrays) storage.
+ * Relations are kept in compressed sparse row (CSR) tables. {@link Corner}, {@link GraphRegion}
+ * and {@link Edge} are thin views (graph + id) that are created exactly once per element.
+ * Only corner locations are mutable.
+ */
+public class CompactGraph implements Graph {
+
+    private final BlockArea bounds = new BlockArea(BlockArea.INVALID);
+
+    private final float[] cornerX;
+    private final float[] cornerY;
+    private final boolean[] cornerBorder;
+
+    private final float[] regionX;
+    private final float[] regionY;
+
+    private final int[] edgeCorner0;
+    private final int[] edgeCorner1;
+    private final int[] edgeRegion0;
+    private final int[] edgeRegion1;
+
+    private final GraphBuilder.Csr regionCorners;
+    private final GraphBuilder.Csr regionNeighbors;
+    private final GraphBuilder.Csr regionBorders;
+    private final GraphBuilder.Csr cornerTouches;
+    private final GraphBuilder.Csr cornerAdjacent;
+    private final GraphBuilder.Csr cornerEdges;
+
+    private final Corner[] corners;
+    private final GraphRegion[] regions;
+    private final Edge[] edges;
+
+    /**
+     * The region triangles, created on first access and discarded when corners are moved
+     */
+    private volatile TriangleMesh triangleMesh;
+
+    /**
+     * @param bounds the bounding box
+     * @param builder the builder that contains all elements and relations
+     */
+    CompactGraph(BlockAreac bounds, GraphBuilder builder) {
+        this.bounds.set(bounds);
+
+        cornerX = builder.getCornerX();
+        cornerY = builder.getCornerY();
+        cornerBorder = builder.getCornerBorder();
+        regionX = builder.getRegionX();
+        regionY = builder.getRegionY();
+        edgeCorner0 = builder.getEdgeCorner0();
+        edgeCorner1 = builder.getEdgeCorner1();
+        edgeRegion0 = builder.getEdgeRegion0();
+        edgeRegion1 = builder.getEdgeRegion1();
+
+        regionCorners = builder.buildRegionCorners();
+        regionNeighbors = builder.buildRegionNeighbors();
+        regionBorders = builder.buildRegionBorders();
+        cornerTouches = builder.buildCornerTouches();
+        cornerAdjacent = builder.buildCornerAdjacent();
+        cornerEdges = builder.buildCornerEdges();
+
+        corners = new Corner[cornerX.length];
+        regions = new GraphRegion[regionX.length];
+        edges = new Edge[edgeCorner0.length];
+        createViews();
+    }
+
+    /**
+     * Reads a graph in the format of {@link #encode(ByteBuffer)} or {@link #encodePacked(ByteBuffer)}.
+     * @param bounds the bounding box
+     * @param buffer the buffer to read from, starting at its position
+     * @param packed true if all int arrays are {@link PackedInts}
+     */
+    private CompactGraph(BlockAreac bounds, ByteBuffer buffer, boolean packed) {
+        this.bounds.set(bounds);
+
+        int cornerCount = buffer.getInt();
+        int regionCount = buffer.getInt();
+        int edgeCount = buffer.getInt();
+
+        cornerX = readFloats(buffer, cornerCount);
+        cornerY = readFloats(buffer, cornerCount);
+        cornerBorder = new boolean[checkCount(buffer, cornerCount, 1)];
+        for (int i = 0; i < cornerCount; i++) {
+            cornerBorder[i] = buffer.get() != 0;
+        }
+        regionX = readFloats(buffer, regionCount);
+        regionY = readFloats(buffer, regionCount);
+        edgeCorner0 = readInts(buffer, edgeCount, packed);
+        edgeCorner1 = readInts(buffer, edgeCount, packed);
+        edgeRegion0 = readInts(buffer, edgeCount, packed);
+        edgeRegion1 = readInts(buffer, edgeCount, packed);
+
+        regionCorners = readCsr(buffer, regionCount, cornerCount, packed);
+        regionNeighbors = readCsr(buffer, regionCount, regionCount, packed);
+        regionBorders = readCsr(buffer, regionCount, edgeCount, packed);
+        cornerTouches = readCsr(buffer, cornerCount, regionCount, packed);
+        cornerAdjacent = readCsr(buffer, cornerCount, cornerCount, packed);
+        cornerEdges = readCsr(buffer, cornerCount, edgeCount, packed);
+
+        for (int e = 0; e < edgeCount; e++) {
+            checkIds(edgeCorner0[e], cornerCount);
+            checkIds(edgeCorner1[e], cornerCount);
+            checkIds(edgeRegion0[e], regionCount);
+            checkIds(edgeRegion1[e], regionCount);
+        }
+
+        corners = new Corner[cornerCount];
+        regions = new GraphRegion[regionCount];
+        edges = new Edge[edgeCount];
+        createViews();
+    }
+
+    private void createViews() {
+        for (int i = 0; i < corners.length; i++) {
+            corners[i] = new Corner(this, i);
+        }
+        for (int i = 0; i < regions.length; i++) {
+            regions[i] = new GraphRegion(this, i);
+        }
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = new Edge(this, i);
+        }
+    }
+
+    /**
+     * @param bounds the bounding box of the graph
+     * @param buffer the buffer to read from, starting at its position
+     * @return a new graph
+     * @throws IllegalArgumentException if the data is not a valid graph
+     * @throws java.nio.BufferUnderflowException if the buffer ends before the graph
+     */
+    public static CompactGraph decode(BlockAreac bounds, ByteBuffer buffer) {
+        return new CompactGraph(bounds, buffer, false);
+    }
+
+    /**
+     * @param bounds the bounding box of the graph
+     * @param buffer the buffer to read from, starting at its position
+     * @return a new graph
+     * @throws IllegalArgumentException if the data is not a valid graph
+     * @throws java.nio.BufferUnderflowException if the buffer ends before the graph
+     */
+    public static CompactGraph decodePacked(BlockAreac bounds, ByteBuffer buffer) {
+        return new CompactGraph(bounds, buffer, true);
+    }
+
+    /**
+     * Writes the elements, the current corner locations and all relations. The bounds are not included.
+     * @param buffer the buffer to write to, must have at least {@link #getEncodedSize()} bytes remaining
+     */
+    public void encode(ByteBuffer buffer) {
+        encode(buffer, false);
+    }
+
+    /**
+     * Writes the same data as {@link #encode(ByteBuffer)}, but all int arrays as {@link PackedInts}.
+     * Locations are not changed, so the decoded graph is equal to this one.
+     * @param buffer the buffer to write to, must have at least {@link #getMaxPackedSize()} bytes remaining
+     */
+    public void encodePacked(ByteBuffer buffer) {
+        encode(buffer, true);
+    }
+
+    private void encode(ByteBuffer buffer, boolean packed) {
+        buffer.putInt(corners.length);
+        buffer.putInt(regions.length);
+        buffer.putInt(edges.length);
+
+        buffer.asFloatBuffer().put(cornerX).put(cornerY);
+        buffer.position(buffer.position() + corners.length * 8);
+        for (boolean border : cornerBorder) {
+            buffer.put((byte) (border ? 1 : 0));
+        }
+        buffer.asFloatBuffer().put(regionX).put(regionY);
+        buffer.position(buffer.position() + regions.length * 8);
+        writeInts(buffer, edgeCorner0, packed);
+        writeInts(buffer, edgeCorner1, packed);
+        writeInts(buffer, edgeRegion0, packed);
+        writeInts(buffer, edgeRegion1, packed);
+
+        for (GraphBuilder.Csr csr : getRelations()) {
+            writeInts(buffer, csr.offsets, packed);
+            writeInts(buffer, csr.values, packed);
+        }
+    }
+
+    private static void writeInts(ByteBuffer buffer, int[] values, boolean packed) {
+        if (packed) {
+            PackedInts.put(buffer, values);
+        } else {
+            buffer.asIntBuffer().put(values);
+            buffer.position(buffer.position() + values.length * 4);
+        }
+    }
+
+    /**
+     * @return the number of bytes that {@link #encode(ByteBuffer)} writes
+     */
+    public int getEncodedSize() {
+        int size = 12 + corners.length * 9 + regions.length * 8 + edges.length * 16;
+        for (GraphBuilder.Csr csr : getRelations()) {
+            size += (csr.offsets.length + csr.values.length) * 4;
+        }
+        return size;
+    }
+
+    /**
+     * @return an upper bound of the number of bytes that {@link #encodePacked(ByteBuffer)} writes
+     */
+    public int getMaxPackedSize() {
+        int size = 12 + corners.length * 9 + regions.length * 8 + edges.length * 4 * PackedInts.MAX_BYTES;
+        for (GraphBuilder.Csr csr : getRelations()) {
+            size += (csr.offsets.length + csr.values.length) * PackedInts.MAX_BYTES;
+        }
+        return size;
+    }
+
+    /**
+     * @return all CSR tables, in the order in which they are encoded
+     */
+    private List<GraphBuilder.Csr> getRelations() {
+        return Arrays.asList(regionCorners, regionNeighbors, regionBorders, cornerTouches, cornerAdjacent, cornerEdges);
+    }
+
+    private static int checkCount(ByteBuffer buffer, int count, int bytesPerElement) {
+        if (count < 0 || (long) count * bytesPerElement > buffer.remaining()) {
+            throw new IllegalArgumentException("invalid element count: " + count);
+        }
+        return count;
+    }
+
+    private static void checkIds(int id, int count) {
+        if (id < 0 || id >= count) {
+            throw new IllegalArgumentException("invalid element id: " + id);
+        }
+    }
+
+    private static float[] readFloats(ByteBuffer buffer, int count) {
+        float[] values = new float[checkCount(buffer, count, 4)];
+        buffer.asFloatBuffer().get(values);
+        buffer.position(buffer.position() + count * 4);
+        return values;
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count, boolean packed) {
+        if (packed) {
+            // every packed value has at least one byte
+            return PackedInts.get(buffer, checkCount(buffer, count, 1));
+        }
+        int[] values = new int[checkCount(buffer, count, 4)];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * 4);
+        return values;
+    }
+
+    private static GraphBuilder.Csr readCsr(ByteBuffer buffer, int rows, int targetCount, boolean packed) {
+        int[] offsets = readInts(buffer, rows + 1, packed);
+        for (int i = 0; i < rows; i++) {
+            if (offsets[i] < 0 || offsets[i] > offsets[i + 1]) {
+                throw new IllegalArgumentException("invalid relation offsets");
+            }
+        }
+        int[] values = readInts(buffer, offsets[rows], packed);
+        for (int id : values) {
+            checkIds(id, targetCount);
+        }
+        return new GraphBuilder.Csr(offsets, values);
+    }
+
+    @Override
+    public List<GraphRegion> getRegions() {
+        return Collections.unmodifiableList(Arrays.asList(regions));
+    }
+
+    @Override
+    public List<Edge> getEdges() {
+        return Collections.unmodifiableList(Arrays.asList(edges));
+    }
+
+    @Override
+    public List<Corner> getCorners() {
+        return Collections.unmodifiableList(Arrays.asList(corners));
+    }
+
+    @Override
+    public BlockAreac getBounds() {
+        return bounds;
+    }
+
+    @Override
+    public TriangleMesh getTriangleMesh() {
+        TriangleMesh mesh = triangleMesh;
+        if (mesh == null) {
+            // concurrent first access could create more than one instance, but they are equivalent
+            mesh = new TriangleMesh(this);
+            triangleMesh = mesh;
+        }
+        return mesh;
+    }
+
+    @Override
+    public long getEstimatedBytes() {
+        long bytes = 256L;
+        bytes += corners.length * (4L + 4L + 1L);
+        bytes += regions.length * (4L + 4L);
+        bytes += edges.length * 4L * 4L;
+        for (GraphBuilder.Csr csr : getRelations()) {
+            bytes += 48L + csr.offsets.length * 4L + csr.values.length * 4L;
+        }
+
+        // every view object has a header, a graph reference and an index, plus its array slot
+        bytes += (corners.length + regions.length + edges.length) * (24L + 4L);
+
+        // corners and regions also cache their location in a vector; all views have unused detached fields
+        bytes += (corners.length + regions.length) * (24L + 8L);
+        bytes += edges.length * 16L;
+
+        // there is one triangle per region corner
+        bytes += TriangleMesh.estimateBytes(regionCorners.values.length, regions.length);
+        return bytes;
+    }
+
+    /**
+     * @return the number of corners
+     */
+    public int getCornerCount() {
+        return corners.length;
+    }
+
+    /**
+     * @return the number of regions
+     */
+    public int getRegionCount() {
+        return regions.length;
+    }
+
+    /**
+     * @return the number of edges
+     */
+    public int getEdgeCount() {
+        return edges.length;
+    }
+
+    /**
+     * @param corner the corner id
+     * @return the x coord. of the corner
+     */
+    public float getCornerX(int corner) {
+        return cornerX[corner];
+    }
+
+    /**
+     * @param corner the corner id
+     * @return the y coord. of the corner
+     */
+    public float getCornerY(int corner) {
+        return cornerY[corner];
+    }
+
+    /**
+     * @param corner the corner id
+     * @return true if the corner is on the graph border
+     */
+    public boolean isBorderCorner(int corner) {
+        return cornerBorder[corner];
+    }
+
+    /**
+     * @param region the region id
+     * @return the x coord. of the region center
+     */
+    public float getRegionX(int region) {
+        return regionX[region];
+    }
+
+    /**
+     * @param region the region id
+     * @return the y coord. of the region center
+     */
+    public float getRegionY(int region) {
+        return regionY[region];
+    }
+
+    /**
+     * @param region the region id
+     * @return the number of corners of the region
+     */
+    public int getRegionCornerCount(int region) {
+        return regionCorners.offsets[region + 1] - regionCorners.offsets[region];
+    }
+
+    /**
+     * @param region the region id
+     * @param i the index of the corner, sorted by angle around the region center
+     * @return the corner id
+     */
+    public int getRegionCorner(int region, int i) {
+        return regionCorners.values[regionCorners.offsets[region] + i];
+    }
+
+    void setCornerLocation(int corner, float x, float y) {
+        cornerX[corner] = x;
+        cornerY[corner] = y;
+        corners[corner].updateLocation(x, y);
+        triangleMesh = null;
+    }
+
+    int getEdgeCorner0(int edge) {
+        return edgeCorner0[edge];
+    }
+
+    int getEdgeCorner1(int edge) {
+        return edgeCorner1[edge];
+    }
+
+    int getEdgeRegion0(int edge) {
+        return edgeRegion0[edge];
+    }
+
+    int getEdgeRegion1(int edge) {
+        return edgeRegion1[edge];
+    }
+
+    Corner corner(int corner) {
+        return corners[corner];
+    }
+
+    GraphRegion region(int region) {
+        return regions[region];
+    }
+
+    Edge edge(int edge) {
+        return edges[edge];
+    }
+
+    List<Corner> regionCorners(int region) {
+        return new View<>(corners, regionCorners, region);
+    }
+
+    List<GraphRegion> regionNeighbors(int region) {
+        return new View<>(regions, regionNeighbors, region);
+    }
+
+    List<Edge> regionBorders(int region) {
+        return new View<>(edges, regionBorders, region);
+    }
+
+    List<GraphRegion> cornerTouches(int corner) {
+        return new View<>(regions, cornerTouches, corner);
+    }
+
+    List<Corner> cornerAdjacent(int corner) {
+        return new View<>(corners, cornerAdjacent, corner);
+    }
+
+    List<Edge> cornerEdges(int corner) {
+        return new View<>(edges, cornerEdges, corner);
+    }
+
+    /**
+     * An unmodifiable list view on a single row of a CSR table
+     */
+    private static final class View<T> extends AbstractList<T> implements RandomAccess {
+        private final T[] elements;
+        private final int[] ids;
+        private final int start;
+        private final int size;
+
+        View(T[] elements, GraphBuilder.Csr csr, int row) {
+            this.elements = elements;
+            this.ids = csr.values;
+            this.start = csr.offsets[row];
+            this.size = csr.offsets[row + 1] - start;
+        }
+
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return elements[ids[start + index]];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -25,46 +25,86 @@ import java.util.Collections;
 import java.util.Set;
 
 /**
- * Corner.java
- *
+ * A corner of a {@link Graph}. Corners of a {@link CompactGraph} are views on its arrays and cannot be modified,
+ * except for their location. Corners that are created with the public constructor keep their own relations.
  */
-public class Corner {
+public final class Corner {
+
+    private final CompactGraph graph;
+    private final int index;
+
+    /**
+     * The location, updated in place when the corner is moved
+     */
+    private final Vector2f location;
 
-    private final Set<GraphRegion> touches = Sets.newLinkedHashSet();
-    private final Set<Corner> adjacent = Sets.newLinkedHashSet();
-    private final Set<Edge> protrudes = Sets.newLinkedHashSet();
-    private Vector2f loc = new Vector2f();
-    private boolean border;
+    /**
+     * The relations of a corner that does not belong to a {@link CompactGraph}, otherwise <code>null</code>
+     */
+    private final Relations relations;
 
     /**
-     * @param loc
+     * @param graph the owning graph
+     * @param index the corner id
      */
+    Corner(CompactGraph graph, int index) {
+        this.graph = graph;
+        this.index = index;
+        this.location = new Vector2f(graph.getCornerX(index), graph.getCornerY(index));
+        this.relations = null;
+    }
+
+    /**
+     * Creates a corner that does not belong to a {@link CompactGraph}.
+     * @param loc the location
+     * @deprecated graphs are created by {@link VoronoiGraph} and {@link GridGraph}
+     */
+    @Deprecated
     public Corner(Vector2fc loc) {
-        setLocation(loc);
+        this.graph = null;
+        this.index = -1;
+        this.location = new Vector2f(loc);
+        this.relations = new Relations();
+    }
+
+    /**
+     * @return the corner id in the range [0..graph.getCornerCount()) or -1 if the corner does not belong to a graph
+     */
+    public int getIndex() {
+        return index;
     }
 
     /**
-     * @return
+     * @return an unmodifiable collection of all adjacent corners in insertion order
      */
     public Collection<Corner> getAdjacent() {
-        return Collections.unmodifiableCollection(adjacent);
+        if (relations != null) {
+            return Collections.unmodifiableCollection(relations.adjacent);
+        }
+        return graph.cornerAdjacent(index);
     }
 
     /**
      * @param c a corner (can be in the set already). <code>null</code> values are ignored
+     * @throws UnsupportedOperationException if the corner belongs to a {@link CompactGraph}
+     * @deprecated the relations of graph corners are fixed when the graph is built
      */
+    @Deprecated
     public void addAdjacent(Corner c) {
         if (c != null) {
-            adjacent.add(c);
+            getRelations().adjacent.add(c);
         }
     }
 
     /**
      * @param region the touching region to add (can be null or already added)
+     * @throws UnsupportedOperationException if the corner belongs to a {@link CompactGraph}
+     * @deprecated the relations of graph corners are fixed when the graph is built
      */
+    @Deprecated
     public void addTouches(GraphRegion region) {
         if (region != null) {
-            touches.add(region);
+            getRelations().touches.add(region);
         }
     }
 
@@ -72,57 +112,111 @@ public class Corner {
      * @return the border
      */
     public boolean isBorder() {
-        return border;
+        if (relations != null) {
+            return relations.border;
+        }
+        return graph.isBorderCorner(index);
     }
 
     /**
      * @param border the border to set
+     * @throws UnsupportedOperationException if the corner belongs to a {@link CompactGraph}
+     * @deprecated the border flags of graph corners are fixed when the graph is built
      */
+    @Deprecated
     public void setBorder(boolean border) {
-        this.border = border;
+        getRelations().border = border;
     }
 
     /**
      * @return the touches
      */
     public Collection<GraphRegion> getTouches() {
-        return Collections.unmodifiableSet(touches);
+        if (relations != null) {
+            return Collections.unmodifiableCollection(relations.touches);
+        }
+        return graph.cornerTouches(index);
     }
 
     /**
-     * @return the loc
+     * @return the location - the instance is updated when the corner is moved
      */
     public Vector2fc getLocation() {
-        return loc;
+        return location;
+    }
+
+    /**
+     * @return the x coord. of the location
+     */
+    public float getX() {
+        return location.x();
+    }
+
+    /**
+     * @return the y coord. of the location
+     */
+    public float getY() {
+        return location.y();
     }
 
     /**
      * @param nloc the loc to set
      */
     public void setLocation(Vector2fc nloc) {
-        this.loc.set(nloc);
+        if (graph != null) {
+            graph.setCornerLocation(index, nloc.x(), nloc.y());
+        } else {
+            location.set(nloc);
+        }
+    }
+
+    /**
+     * Called by the graph when the location changes.
+     */
+    void updateLocation(float x, float y) {
+        location.set(x, y);
     }
 
     /**
      * @return the protrudes
      */
     public Collection<Edge> getEdges() {
-        return Collections.unmodifiableSet(protrudes);
+        if (relations != null) {
+            return Collections.unmodifiableCollection(relations.protrudes);
+        }
+        return graph.cornerEdges(index);
     }
 
     /**
      * @param edge the protruding edge to add (can be null or already added)
+     * @throws UnsupportedOperationException if the corner belongs to a {@link CompactGraph}
+     * @deprecated the relations of graph corners are fixed when the graph is built
      */
+    @Deprecated
     public void addEdge(Edge edge) {
         if (edge != null) {
-            protrudes.add(edge);
+            getRelations().protrudes.add(edge);
         }
     }
 
+    private Relations getRelations() {
+        if (relations == null) {
+            throw new UnsupportedOperationException("The corners of a graph cannot be modified");
+        }
+        return relations;
+    }
+
     @Override
     public String toString() {
-        String borderStr = border ? " (border)" : "";
+        String borderStr = isBorder() ? " (border)" : "";
         String format = "Corner [%s%s]";
-        return String.format(format, loc, borderStr, touches.size(), protrudes.size(), adjacent.size());
+        return String.format(format, getLocation(), borderStr);
+    }
+
+    private static final class Relations {
+        private final Set<GraphRegion> touches = Sets.newLinkedHashSet();
+        private final Set<Corner> adjacent = Sets.newLinkedHashSet();
+        private final Set<Edge> protrudes = Sets.newLinkedHashSet();
+        private boolean border;
     }
 }
@@ -18,66 +18,105 @@ package org.terasology.polyworld.graph;
 
 import com.google.common.base.Preconditions;
 
-
 /**
- * Defines an edge
+ * Defines an edge. Edges of a {@link CompactGraph} are thin views on the graph's flat storage.
  */
-public class Edge {
+public final class Edge {
+
+    private final CompactGraph graph;
+    private final int index;
 
-    private final GraphRegion r0;  // Delaunay edge
-    private final GraphRegion r1;  // Delaunay edge
+    // only set if the edge does not belong to a CompactGraph
+    private final GraphRegion r0;
+    private final GraphRegion r1;
+    private final Corner c0;
+    private final Corner c1;
 
-    private final Corner c0;  // Voronoi edge
-    private final Corner c1;  // Voronoi edge
+    /**
+     * @param graph the owning graph
+     * @param index the edge id
+     */
+    Edge(CompactGraph graph, int index) {
+        this.graph = graph;
+        this.index = index;
+        this.c0 = null;
+        this.c1 = null;
+        this.r0 = null;
+        this.r1 = null;
+    }
 
     /**
-     * @param c0
-     * @param c1
-     * @param r1
-     * @param r0
+     * Creates an edge that does not belong to a {@link CompactGraph}.
+     * @param c0 the first corner
+     * @param c1 the second corner
+     * @param r0 the first region
+     * @param r1 the second region
+     * @deprecated graphs are created by {@link VoronoiGraph} and {@link GridGraph}
      */
+    @Deprecated
     public Edge(Corner c0, Corner c1, GraphRegion r0, GraphRegion r1) {
         Preconditions.checkArgument(c0 != null);
         Preconditions.checkArgument(c1 != null);
         Preconditions.checkArgument(r0 != null);
         Preconditions.checkArgument(r1 != null);
 
+        this.graph = null;
+        this.index = -1;
         this.c0 = c0;
         this.c1 = c1;
         this.r0 = r0;
         this.r1 = r1;
     }
 
+    /**
+     * @return the edge id in the range [0..graph.getEdgeCount()) or -1 if the edge does not belong to a graph
+     */
+    public int getIndex() {
+        return index;
+    }
+
     /**
      * @return the v0
      */
     public Corner getCorner0() {
-        return c0;
+        if (graph == null) {
+            return c0;
+        }
+        return graph.corner(graph.getEdgeCorner0(index));
     }
 
     /**
      * @return the v1
      */
     public Corner getCorner1() {
-        return c1;
+        if (graph == null) {
+            return c1;
+        }
+        return graph.corner(graph.getEdgeCorner1(index));
     }
 
     /**
      * @return the d1
      */
     public GraphRegion getRegion1() {
-        return r1;
+        if (graph == null) {
+            return r1;
+        }
+        return graph.region(graph.getEdgeRegion1(index));
     }
 
     /**
      * @return the d0
      */
     public GraphRegion getRegion0() {
-        return r0;
+        if (graph == null) {
+            return r0;
+        }
+        return graph.region(graph.getEdgeRegion0(index));
     }
 
     @Override
     public String toString() {
-        return String.format("Edge [%s -> %s]", c0.getLocation(), c1.getLocation());
+        return String.format("Edge [%s -> %s]", getCorner0().getLocation(), getCorner1().getLocation());
     }
 }
@@ -44,4 +44,31 @@ public interface Graph {
      * @return the bounds
      */
     BlockAreac getBounds();
+
+    /**
+     * The default implementation creates a new mesh from {@link #getRegions()} on every call,
+     * so implementations should cache it.
+     * @return the canonical triangles of all regions
+     */
+    default TriangleMesh getTriangleMesh() {
+        return new TriangleMesh(this);
+    }
+
+    /**
+     * Used to weigh graphs in memory-bounded caches. The triangle mesh is included, even if it has not been created yet.
+     * The default implementation assumes elements that keep their relations in hash sets,
+     * so implementations with a more compact layout should override it.
+     * @return the approximate number of bytes that this graph retains
+     */
+    default long getEstimatedBytes() {
+        // every corner and region has a location and up to four sets of relations
+        long bytes = 256L + (getCorners().size() + getRegions().size()) * 320L + getEdges().size() * 48L;
+
+        // there is one triangle per region corner
+        int triangleCount = 0;
+        for (GraphRegion region : getRegions()) {
+            triangleCount += region.getCorners().size();
+        }
+        return bytes + TriangleMesh.estimateBytes(triangleCount, getRegions().size());
+    }
 }
@@ -0,0 +1,364 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld.graph;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Collects corners, regions, edges and their relations as plain int ids.
+ * The result is frozen into the compressed (CSR) arrays of a {@link CompactGraph}.
+ * All relations are de-duplicated, but otherwise keep their insertion order.
+ */
+final class GraphBuilder {
+
+    private final FloatList cornerX = new FloatList();
+    private final FloatList cornerY = new FloatList();
+    private final IntList cornerBorder = new IntList();
+
+    private final FloatList regionX = new FloatList();
+    private final FloatList regionY = new FloatList();
+
+    private final IntList edgeCorner0 = new IntList();
+    private final IntList edgeCorner1 = new IntList();
+    private final IntList edgeRegion0 = new IntList();
+    private final IntList edgeRegion1 = new IntList();
+
+    private final IntList regionCornerFrom = new IntList();
+    private final IntList regionCornerTo = new IntList();
+    private final IntList neighborFrom = new IntList();
+    private final IntList neighborTo = new IntList();
+    private final IntList adjacentFrom = new IntList();
+    private final IntList adjacentTo = new IntList();
+
+    /**
+     * @param x the x coord. of the corner
+     * @param y the y coord. of the corner
+     * @param border true if the corner lies on the border of the graph
+     * @return the id of the new corner
+     */
+    int addCorner(float x, float y, boolean border) {
+        cornerX.add(x);
+        cornerY.add(y);
+        cornerBorder.add(border ? 1 : 0);
+        return cornerX.size() - 1;
+    }
+
+    /**
+     * @param x the x coord. of the region center
+     * @param y the y coord. of the region center
+     * @return the id of the new region
+     */
+    int addRegion(float x, float y) {
+        regionX.add(x);
+        regionY.add(y);
+        return regionX.size() - 1;
+    }
+
+    /**
+     * Adds the corner to the region and the region to the corner's touching regions.
+     * @param region the region id
+     * @param corner the corner id (can be already added)
+     */
+    void addRegionCorner(int region, int corner) {
+        regionCornerFrom.add(region);
+        regionCornerTo.add(corner);
+    }
+
+    /**
+     * @param region the region id
+     * @param neighbor the neighbor region id (negative values are ignored)
+     */
+    void addNeighbor(int region, int neighbor) {
+        if (neighbor >= 0) {
+            neighborFrom.add(region);
+            neighborTo.add(neighbor);
+        }
+    }
+
+    /**
+     * @param corner the corner id
+     * @param adjacent the adjacent corner id (negative values are ignored)
+     */
+    void addAdjacent(int corner, int adjacent) {
+        if (adjacent >= 0) {
+            adjacentFrom.add(corner);
+            adjacentTo.add(adjacent);
+        }
+    }
+
+    /**
+     * Adds an edge. Regions and corners are linked to the edge, but not to each other.
+     * @param c0 the first corner id (Voronoi edge)
+     * @param c1 the second corner id (Voronoi edge)
+     * @param r0 the first region id (Delaunay edge)
+     * @param r1 the second region id (Delaunay edge)
+     * @return the id of the new edge
+     */
+    int addEdge(int c0, int c1, int r0, int r1) {
+        Preconditions.checkArgument(c0 >= 0 && c1 >= 0 && r0 >= 0 && r1 >= 0);
+
+        edgeCorner0.add(c0);
+        edgeCorner1.add(c1);
+        edgeRegion0.add(r0);
+        edgeRegion1.add(r1);
+        return edgeCorner0.size() - 1;
+    }
+
+    int getCornerCount() {
+        return cornerX.size();
+    }
+
+    int getRegionCount() {
+        return regionX.size();
+    }
+
+    int getEdgeCount() {
+        return edgeCorner0.size();
+    }
+
+    float[] getCornerX() {
+        return cornerX.toArray();
+    }
+
+    float[] getCornerY() {
+        return cornerY.toArray();
+    }
+
+    boolean[] getCornerBorder() {
+        boolean[] border = new boolean[cornerBorder.size()];
+        for (int i = 0; i < border.length; i++) {
+            border[i] = cornerBorder.get(i) != 0;
+        }
+        return border;
+    }
+
+    float[] getRegionX() {
+        return regionX.toArray();
+    }
+
+    float[] getRegionY() {
+        return regionY.toArray();
+    }
+
+    int[] getEdgeCorner0() {
+        return edgeCorner0.toArray();
+    }
+
+    int[] getEdgeCorner1() {
+        return edgeCorner1.toArray();
+    }
+
+    int[] getEdgeRegion0() {
+        return edgeRegion0.toArray();
+    }
+
+    int[] getEdgeRegion1() {
+        return edgeRegion1.toArray();
+    }
+
+    /**
+     * @return the region corners, sorted by angle around the region center
+     */
+    Csr buildRegionCorners() {
+        Csr csr = Csr.create(getRegionCount(), regionCornerFrom, regionCornerTo);
+        float[] cx = cornerX.toArray();
+        float[] cy = cornerY.toArray();
+        for (int r = 0; r < getRegionCount(); r++) {
+            AngleOrdering ordering = new AngleOrdering(regionX.get(r), regionY.get(r), cx, cy);
+            csr.sort(r, ordering);
+        }
+        return csr;
+    }
+
+    Csr buildCornerTouches() {
+        return Csr.create(getCornerCount(), regionCornerTo, regionCornerFrom);
+    }
+
+    Csr buildRegionNeighbors() {
+        IntList from = new IntList(neighborFrom);
+        IntList to = new IntList(neighborTo);
+        for (int e = 0; e < getEdgeCount(); e++) {
+            from.add(edgeRegion0.get(e));
+            to.add(edgeRegion1.get(e));
+            from.add(edgeRegion1.get(e));
+            to.add(edgeRegion0.get(e));
+        }
+        return Csr.create(getRegionCount(), from, to);
+    }
+
+    Csr buildCornerAdjacent() {
+        IntList from = new IntList(adjacentFrom);
+        IntList to = new IntList(adjacentTo);
+        for (int e = 0; e < getEdgeCount(); e++) {
+            from.add(edgeCorner0.get(e));
+            to.add(edgeCorner1.get(e));
+            from.add(edgeCorner1.get(e));
+            to.add(edgeCorner0.get(e));
+        }
+        return Csr.create(getCornerCount(), from, to);
+    }
+
+    Csr buildRegionBorders() {
+        IntList from = new IntList();
+        IntList to = new IntList();
+        for (int e = 0; e < getEdgeCount(); e++) {
+            from.add(edgeRegion0.get(e));
+            to.add(e);
+            from.add(edgeRegion1.get(e));
+            to.add(e);
+        }
+        return Csr.create(getRegionCount(), from, to);
+    }
+
+    Csr buildCornerEdges() {
+        IntList from = new IntList();
+        IntList to = new IntList();
+        for (int e = 0; e < getEdgeCount(); e++) {
+            from.add(edgeCorner0.get(e));
+            to.add(e);
+            from.add(edgeCorner1.get(e));
+            to.add(e);
+        }
+        return Csr.create(getCornerCount(), from, to);
+    }
+
+    /**
+     * A compressed sparse row (CSR) adjacency table.
+     * The entries of element <code>i</code> are <code>values[offsets[i]]</code> to <code>values[offsets[i + 1] - 1]</code>.
+     */
+    static final class Csr {
+        final int[] offsets;
+        final int[] values;
+
+        Csr(int[] offsets, int[] values) {
+            this.offsets = offsets;
+            this.values = values;
+        }
+
+        /**
+         * Groups all (from, to) pairs by <code>from</code> in a stable manner and removes duplicates.
+         */
+        static Csr create(int count, IntList from, IntList to) {
+            int[] offsets = new int[count + 1];
+            for (int i = 0; i < from.size(); i++) {
+                offsets[from.get(i) + 1]++;
+            }
+            for (int i = 0; i < count; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+
+            int[] values = new int[from.size()];
+            int[] fill = Arrays.copyOf(offsets, count);
+            for (int i = 0; i < from.size(); i++) {
+                values[fill[from.get(i)]++] = to.get(i);
+            }
+
+            // remove duplicates and compact
+            int[] compactOffsets = new int[count + 1];
+            int pos = 0;
+            for (int i = 0; i < count; i++) {
+                compactOffsets[i] = pos;
+                for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+                    if (!contains(values, compactOffsets[i], pos, values[j])) {
+                        values[pos++] = values[j];
+                    }
+                }
+            }
+            compactOffsets[count] = pos;
+
+            return new Csr(compactOffsets, Arrays.copyOf(values, pos));
+        }
+
+        private static boolean contains(int[] values, int from, int to, int value) {
+            for (int i = from; i < to; i++) {
+                if (values[i] == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Insertion-sorts the entries of a single row - the rows are short.
+         */
+        void sort(int row, AngleOrdering ordering) {
+            int start = offsets[row];
+            int end = offsets[row + 1];
+            for (int i = start + 1; i < end; i++) {
+                int value = values[i];
+                int j = i - 1;
+                while (j >= start && ordering.compare(values[j], value) > 0) {
+                    values[j + 1] = values[j];
+                    j--;
+                }
+                values[j + 1] = value;
+            }
+        }
+    }
+
+    /**
+     * A minimal growable int array
+     */
+    static final class IntList {
+        private int[] data;
+        private int size;
+
+        IntList() {
+            data = new int[16];
+        }
+
+        IntList(IntList other) {
+            data = Arrays.copyOf(other.data, Math.max(16, other.size));
+            size = other.size;
+        }
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        int get(int index) {
+            return data[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+
+    /**
+     * A minimal growable float array
+     */
+    static final class FloatList {
+        private float[] data = new float[16];
+        private int size;
+
+        void add(float value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        float get(int index) {
+            return data[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        float[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
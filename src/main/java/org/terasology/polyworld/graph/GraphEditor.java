@@ -19,11 +19,10 @@ package org.terasology.polyworld.graph;
 import org.joml.Vector2f;
 import org.joml.Vector2fc;
 import org.terasology.engine.utilities.random.Random;
+import org.terasology.math.delaunay.LloydRelaxation;
 import org.terasology.math.delaunay.Voronoi;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 /**
  * TODO Type description
@@ -50,8 +49,8 @@ public final class GraphEditor {
                 float x = 0;
                 float y = 0;
                 for (GraphRegion region : c.getTouches()) {
-                    x += region.getCenter().x();
-                    y += region.getCenter().y();
+                    x += region.getX();
+                    y += region.getY();
                 }
                 newP[idx] = new Vector2f(x / c.getTouches().size(), y / c.getTouches().size());
             }
@@ -89,25 +88,14 @@ public final class GraphEditor {
 
     /**
      * Perform Lloyd's algorithm to achieve well-shaped and uniformly sized convex cells.
+     * Every site is moved to the centroid of its cell. Use {@link LloydRelaxation} directly for several iterations.
      *
      * @param v the Voronoi diagram to relax
      * @return a new Voronoi diagram
      */
     public static Voronoi lloydRelaxation(Voronoi v) {
-        List<Vector2fc> result = new ArrayList<>();
-        List<Vector2fc> points = v.siteCoords();
-        for (Vector2fc p : points) {
-            List<Vector2fc> region = v.region(p);
-            float x = 0;
-            float y = 0;
-            for (Vector2fc c : region) {
-                x += c.x();
-                y += c.y();
-            }
-            x /= region.size();
-            y /= region.size();
-            result.add(new Vector2f(x, y));
-        }
-        return new Voronoi(result, v.getPlotBounds());
+        LloydRelaxation relaxation = new LloydRelaxation(v.siteCoords(), v.getPlotBounds(), v.getEngine());
+        relaxation.step();
+        return new Voronoi(relaxation.getSites(), v.getPlotBounds(), v.getEngine());
     }
 }
@@ -18,6 +18,7 @@ package org.terasology.polyworld.graph;
 
 import org.joml.Vector2ic;
 import org.terasology.engine.world.generation.WorldFacet2D;
+import org.terasology.polyworld.IslandBundle;
 import org.terasology.polyworld.rp.WorldRegion;
 
 import java.util.Collection;
@@ -39,5 +40,25 @@ public interface GraphFacet extends WorldFacet2D {
 
     Graph getGraph(WorldRegion wr);
 
+    /**
+     * @param wr the world region
+     * @return the graph and all models of the region or <code>null</code>
+     */
+    IslandBundle getBundle(WorldRegion wr);
+
+    /**
+     * @return the bundles of all regions in insertion order
+     */
+    Collection<IslandBundle> getAllBundles();
+
     Triangle getWorldTriangle(int x, int z);
+
+    /**
+     * Finds the run of consecutive blocks in a row that share the same graph and triangle.
+     * @param x the x world coord. of the first block
+     * @param z the z world coord. of the row
+     * @param maxX the largest x world coord. to consider
+     * @return the x world coord. of the last block in the run (at most maxX)
+     */
+    int getWorldTriangleRunEnd(int x, int z, int maxX);
 }
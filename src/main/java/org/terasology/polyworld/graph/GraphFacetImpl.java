@@ -17,13 +17,17 @@
 package org.terasology.polyworld.graph;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Collections2;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.joml.Vector2ic;
+import org.terasology.engine.world.block.BlockArea;
+import org.terasology.engine.world.block.BlockAreac;
 import org.terasology.engine.world.block.BlockRegion;
 import org.terasology.engine.world.generation.Border3D;
 import org.terasology.engine.world.generation.facets.base.BaseFacet2D;
-import org.terasology.polyworld.TriangleLookup;
+import org.terasology.polyworld.IslandBundle;
+import org.terasology.polyworld.TriangleLocator;
 import org.terasology.polyworld.rp.WorldRegion;
 
 import java.util.Collection;
@@ -37,30 +41,76 @@ import java.util.Map;
  */
 public class GraphFacetImpl extends BaseFacet2D implements GraphFacet {
 
-    private final Map<WorldRegion, Graph> graphs = Maps.newLinkedHashMap();
-    private final List<TriangleLookup> lookups = Lists.newArrayList();
+    private final Map<WorldRegion, IslandBundle> bundles = Maps.newLinkedHashMap();
+
+    /**
+     * Graphs and their lookups in the order they were added, indexed by slot
+     */
+    private final List<Graph> slotGraphs = Lists.newArrayList();
+    private final List<TriangleLocator> lookups = Lists.newArrayList();
+
+    /**
+     * The slot + 1 of the first graph that covers a block of the facet's world area (0 = no graph)
+     */
+    private final short[] slots;
 
     public GraphFacetImpl(BlockRegion targetRegion, Border3D border) {
         super(targetRegion, border);
+        slots = new short[getWorldArea().area()];
     }
 
     /**
-     * @param graph the graph to add (must overlap the facet area)
+     * @param wr the region as requested by this facet's consumers
+     * @param bundle the graph and models of the region (must overlap the facet area)
      */
-    public void add(WorldRegion wr, Graph graph, TriangleLookup lookup) {
-        Preconditions.checkArgument(wr.getArea().equals(graph.getBounds()), "region does not match graph");
-        Preconditions.checkArgument(graph.getBounds().equals(lookup.getBounds()), "graph does not match triangle lookup");
+    public void add(WorldRegion wr, IslandBundle bundle) {
+        Preconditions.checkState(lookups.size() < Short.MAX_VALUE, "too many graphs");
 
-        graphs.put(wr, graph);
+        Graph graph = bundle.getGraph();
+        TriangleLocator lookup = bundle.getLookup();
+        bundles.put(wr, bundle);
+        slotGraphs.add(graph);
         lookups.add(lookup);
+
+        // the first graph that covers a block wins, as in a linear search
+        short slot1 = (short) lookups.size();
+        BlockAreac worldArea = getWorldArea();
+        BlockArea overlap = graph.getBounds().intersect(worldArea, new BlockArea(BlockArea.INVALID));
+        if (overlap.isValid()) {
+            for (int z = overlap.minY(); z <= overlap.maxY(); z++) {
+                int offset = (z - worldArea.minY()) * worldArea.getSizeX() - worldArea.minX();
+                for (int x = overlap.minX(); x <= overlap.maxX(); x++) {
+                    if (slots[offset + x] == 0) {
+                        slots[offset + x] = slot1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the slot of the first graph that covers the given block or -1
+     */
+    private int findSlot(int x, int z) {
+        BlockAreac worldArea = getWorldArea();
+        if (worldArea.contains(x, z)) {
+            return slots[(z - worldArea.minY()) * worldArea.getSizeX() + x - worldArea.minX()] - 1;
+        }
+
+        // outside of the facet area -> linear search
+        for (int i = 0; i < lookups.size(); i++) {
+            if (lookups.get(i).getBounds().contains(x, z)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     @Override
     public Graph getWorld(int x, int z) {
-        for (Graph g : graphs.values()) {
-            if (g.getBounds().contains(x, z)) {
-                return g;
-            }
+        int slot = findSlot(x, z);
+        if (slot >= 0) {
+            return slotGraphs.get(slot);
         }
 
        throw new IllegalArgumentException(String.format("no graph data for %d/%d", x, z));
@@ -73,15 +123,40 @@ public class GraphFacetImpl extends BaseFacet2D implements GraphFacet {
 
     @Override
     public Triangle getWorldTriangle(int x, int z) {
-        for (TriangleLookup lookup : lookups) {
-            if (lookup.getBounds().contains(x, z)) {
-                return lookup.findTriangleAt(x, z);
-            }
+        int slot = findSlot(x, z);
+        if (slot >= 0) {
+            return lookups.get(slot).findTriangleAt(x, z);
         }
 
        throw new IllegalArgumentException(String.format("no triangle lookup data for %d/%d", x, z));
     }
 
+    @Override
+    public int getWorldTriangleRunEnd(int x, int z, int maxX) {
+        int slot = findSlot(x, z);
+        if (slot < 0) {
+            throw new IllegalArgumentException(String.format("no triangle lookup data for %d/%d", x, z));
+        }
+
+        return lookups.get(slot).findRunEnd(x, z, findSlotEnd(slot, x, z, maxX));
+    }
+
+    /**
+     * Graphs could overlap, so the slot of a row changes where an earlier graph begins.
+     * This gives the same result as {@link #findSlot(int, int)} for every block of the run.
+     * @return the x coord. of the last block (at most maxX) in the row that has the same slot as (x, z)
+     */
+    private int findSlotEnd(int slot, int x, int z, int maxX) {
+        int end = Math.min(maxX, lookups.get(slot).getBounds().maxX());
+        for (int i = 0; i < slot; i++) {
+            BlockAreac bounds = lookups.get(i).getBounds();
+            if (bounds.minX() > x && z >= bounds.minY() && z <= bounds.maxY()) {
+                end = Math.min(end, bounds.minX() - 1);
+            }
+        }
+        return end;
+    }
+
     @Override
     public Graph get(int x, int z) {
         int wx = x - getRelativeArea().minX() + getRelativeArea().minX();
@@ -96,11 +171,22 @@ public class GraphFacetImpl extends BaseFacet2D implements GraphFacet {
 
     @Override
     public Graph getGraph(WorldRegion wr) {
-        return graphs.get(wr);
+        IslandBundle bundle = bundles.get(wr);
+        return bundle != null ? bundle.getGraph() : null;
     }
 
     @Override
     public Collection<Graph> getAllGraphs() {
-        return Collections.unmodifiableCollection(graphs.values());
+        return Collections2.transform(bundles.values(), IslandBundle::getGraph);
+    }
+
+    @Override
+    public IslandBundle getBundle(WorldRegion wr) {
+        return bundles.get(wr);
+    }
+
+    @Override
+    public Collection<IslandBundle> getAllBundles() {
+        return Collections.unmodifiableCollection(bundles.values());
     }
 }
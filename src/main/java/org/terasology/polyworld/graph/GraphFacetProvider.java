@@ -4,9 +4,11 @@
 package org.terasology.polyworld.graph;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.math.DoubleMath;
 import org.joml.Vector2fc;
 import org.slf4j.Logger;
@@ -23,20 +25,39 @@ import org.terasology.engine.world.generation.Produces;
 import org.terasology.engine.world.generation.Requires;
 import org.terasology.gestalt.entitysystem.component.Component;
 import org.terasology.joml.geom.Rectanglef;
+import org.terasology.math.delaunay.LloydRelaxation;
 import org.terasology.math.delaunay.Voronoi;
 import org.terasology.nui.properties.Range;
+import org.terasology.polyworld.BucketGridLocator;
+import org.terasology.polyworld.CacheBudget;
+import org.terasology.polyworld.CompressedIslandCache;
+import org.terasology.polyworld.IslandBundle;
+import org.terasology.polyworld.IslandKey;
+import org.terasology.polyworld.IslandStore;
+import org.terasology.polyworld.TriangleLocator;
 import org.terasology.polyworld.TriangleLookup;
+import org.terasology.polyworld.WalkLocator;
+import org.terasology.polyworld.rp.RegionPrefetcher;
 import org.terasology.polyworld.rp.RegionType;
 import org.terasology.polyworld.rp.WorldRegion;
 import org.terasology.polyworld.rp.WorldRegionFacet;
 import org.terasology.polyworld.sampling.PointSampling;
 import org.terasology.polyworld.sampling.PoissonDiscSampling;
+import org.terasology.polyworld.stats.BuildStage;
+import org.terasology.polyworld.stats.PolyWorldStats;
 
 import java.math.RoundingMode;
-import java.util.Collection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * TODO Type description
@@ -47,56 +68,129 @@ public class GraphFacetProvider implements ConfigurableFacetProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(GraphFacetProvider.class);
 
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(false);
+    private static final String CACHE_NAME = "islands";
 
-    private final CacheLoader<WorldRegion, Graph> graphLoader = new CacheLoader<WorldRegion, Graph>() {
+    private static final String COMPRESSED_CACHE_NAME = "compressed islands";
 
-        @Override
-        public Graph load(WorldRegion wr) throws Exception {
-            Stopwatch sw = Stopwatch.createStarted();
+    /**
+     * Lloyd relaxation stops before the configured number of iterations once no site moves further than this
+     * many blocks, which hardly changes the shape of the cells anymore
+     */
+    private static final float RELAXATION_TOLERANCE = 0.5f;
 
-            Graph graph = createGraph(wr);
+    /**
+     * Builds missing graphs and lookups of different regions concurrently. The pool is shared and
+     * bounded so that world generation does not starve the rest of the game. It is never shut down:
+     * its daemon threads do not keep the game alive and terminate after some idle time.
+     */
+    private static final ForkJoinPool BUILD_POOL = createBuildPool();
 
-            logger.debug("Created graph for {} in {}ms.", wr.getArea(), sw.elapsed(TimeUnit.MILLISECONDS));
+    /**
+     * Islands that are still referenced by any provider instance (e.g. the game and a world preview),
+     * so that equal keys always share the same graph and models
+     */
+    private static final ConcurrentMap<IslandKey, IslandBundle> SHARED_BUNDLES =
+            CacheBuilder.newBuilder().weakValues().<IslandKey, IslandBundle>build().asMap();
 
-            return graph;
-        }
-    };
+    /**
+     * The graph, lookup and all models per island, evicted as one unit. Islands of previous
+     * configurations are not removed, but age out because they are no longer requested.
+     */
+    private final Cache<IslandKey, IslandBundle> islandCache;
 
-    private final CacheLoader<Graph, TriangleLookup> lookupLoader = new CacheLoader<Graph, TriangleLookup>() {
+    /**
+     * Builds that are queued or running, so that concurrent requests for the same island share one build
+     */
+    private final ConcurrentMap<IslandKey, CompletableFuture<IslandBundle>> inFlight = new ConcurrentHashMap<>();
 
-        @Override
-        public TriangleLookup load(Graph graph) throws Exception {
-            return new TriangleLookup(graph);
-        }
-    };
+    private volatile PolyWorldStats stats = new PolyWorldStats();
 
-    private final LoadingCache<WorldRegion, Graph> graphCache;
-    private final LoadingCache<Graph, TriangleLookup> lookupCache;
+    /**
+     * Generated islands are read from and written to this store, if set
+     */
+    private volatile IslandStore islandStore;
 
-    private long seed;
-    private int graphUniformity = 1;
+    /**
+     * Islands that are evicted from the island cache are packed into this cache, if set
+     */
+    private volatile CompressedIslandCache compressedCache;
 
     private GraphProviderConfiguration configuration = new GraphProviderConfiguration();
 
     /**
-     * @param maxCacheSize maximum number of cached graphs
+     * Replaced, but never modified on configuration changes, so that generating threads never block
+     */
+    private volatile Settings settings = new Settings(0, 0, configuration.graphDensity, 1, Voronoi.Engine.FORTUNE,
+            TriangleLocator.Type.RASTER, TriangleLookup.Storage.TILED, false);
+
+    /**
+     * @param maxCacheSize maximum number of cached regions (graphs and models)
      */
     public GraphFacetProvider(int maxCacheSize) {
-        graphCache = CacheBuilder.newBuilder().maximumSize(maxCacheSize).build(graphLoader);
-        lookupCache = CacheBuilder.newBuilder().maximumSize(maxCacheSize).build(lookupLoader);
+        islandCache = newCacheBuilder().maximumSize(maxCacheSize).build();
+        stats.registerCache(CACHE_NAME, islandCache);
     }
 
+    /**
+     * @param budget the memory budget of the cached regions (graphs and models)
+     */
+    public GraphFacetProvider(CacheBudget budget) {
+        // a single segment, so that one large island can use the full budget
+        islandCache = newCacheBuilder()
+                .concurrencyLevel(1)
+                .maximumWeight(budget.getMaxWeight())
+                .weigher((key, bundle) -> CacheBudget.toWeight(bundle.getEstimatedBytes()))
+                .build();
+        stats.registerCache(CACHE_NAME, islandCache);
+    }
+
+    /**
+     * @param maxCacheSize maximum number of cached regions (graphs and models)
+     * @param graphDensity the number of graph cells per 1000 square blocks
+     * @param graphUniformity the maximum number of Lloyd relaxation iterations
+     */
     public GraphFacetProvider(int maxCacheSize, float graphDensity, int graphUniformity) {
-        graphCache = CacheBuilder.newBuilder().maximumSize(maxCacheSize).build(graphLoader);
-        lookupCache = CacheBuilder.newBuilder().maximumSize(maxCacheSize).build(lookupLoader);
+        islandCache = newCacheBuilder().maximumSize(maxCacheSize).build();
+        stats.registerCache(CACHE_NAME, islandCache);
         configuration.graphDensity = graphDensity;
-        this.graphUniformity = graphUniformity;
+        settings = new Settings(0, 0, graphDensity, graphUniformity,
+                settings.voronoiEngine, settings.locatorType, settings.lookupStorage, false);
+    }
+
+    private static ForkJoinPool createBuildPool() {
+        int parallelism = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        AtomicInteger threadCount = new AtomicInteger();
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("polyworld-island-builder-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ForkJoinPool(parallelism, factory, null, false);
+    }
+
+    private CacheBuilder<IslandKey, IslandBundle> newCacheBuilder() {
+        return CacheBuilder.newBuilder().recordStats().removalListener(this::onIslandRemoved);
+    }
+
+    private void onIslandRemoved(RemovalNotification<IslandKey, IslandBundle> notification) {
+        // explicit removals are islands of outdated configurations
+        CompressedIslandCache compressed = compressedCache;
+        if (compressed != null && notification.wasEvicted() && notification.getValue() != null) {
+            long start = System.nanoTime();
+            if (compressed.put(notification.getKey(), notification.getValue())) {
+                stats.record(BuildStage.PACK, System.nanoTime() - start);
+            }
+        }
     }
 
     @Override
-    public void setSeed(long seed) {
-        this.seed = seed;
+    public synchronized void setSeed(long seed) {
+        Settings s = settings;
+        if (s.seed != seed) {
+            settings = new Settings(s.version + 1, seed, s.graphDensity, s.graphUniformity,
+                    s.voronoiEngine, s.locatorType, s.lookupStorage, s.offHeap);
+        }
     }
 
     @Override
@@ -105,36 +199,141 @@ public class GraphFacetProvider implements ConfigurableFacetProvider {
         GraphFacetImpl facet = new GraphFacetImpl(region.getRegion(), border);
         WorldRegionFacet regionFacet = region.getRegionFacet(WorldRegionFacet.class);
 
-        Collection<WorldRegion> areas = regionFacet.getRegions();
-
+        List<WorldRegion> areas = new ArrayList<>(regionFacet.getRegions());
+        List<CompletableFuture<IslandBundle>> builds = new ArrayList<>(areas.size());
+        Settings current = settings;
 
+        // start all missing builds first, so that independent regions are built concurrently
         for (WorldRegion wr : areas) {
-            Graph graph = graphCache.getIfPresent(wr);
-            TriangleLookup lookup = graph == null ? null : lookupCache.getIfPresent(graph);
-            if (lookup == null) {
-                try {
-                    lock.readLock().lock();
-                    graph = graphCache.getUnchecked(wr);
-                    lookup = lookupCache.getUnchecked(graph);
-                } finally {
-                    lock.readLock().unlock();
-                }
+            IslandKey key = new IslandKey(current.seed, wr, current.fingerprint);
+            // look before counting, so that a cold island is counted as a single miss by the builder
+            IslandBundle bundle = islandCache.asMap().containsKey(key) ? islandCache.getIfPresent(key) : null;
+            if (bundle != null) {
+                builds.add(CompletableFuture.completedFuture(bundle));
+            } else {
+                builds.add(submitBuild(key, current));
             }
-            facet.add(wr, graph, lookup);
+        }
+
+        // add the results in the original order - every bundle depends on its key only, so the output is deterministic
+        for (int i = 0; i < areas.size(); i++) {
+            facet.add(areas.get(i), builds.get(i).join());
         }
 
         region.setRegionFacet(GraphFacet.class, facet);
     }
 
-    private Graph createGraph(WorldRegion wr) {
+    /**
+     * @param key the island
+     * @param s the settings that the key was created from
+     * @return the pending build of the island's bundle, shared with all concurrent requests
+     */
+    private CompletableFuture<IslandBundle> submitBuild(IslandKey key, Settings s) {
+        CompletableFuture<IslandBundle> created = new CompletableFuture<>();
+        CompletableFuture<IslandBundle> pending = inFlight.putIfAbsent(key, created);
+        if (pending != null) {
+            return pending;
+        }
+
+        Runnable build = () -> {
+            try {
+                created.complete(islandCache.get(key, () -> loadBundle(key, s)));
+            } catch (ExecutionException e) {
+                created.completeExceptionally(e.getCause());
+            } catch (RuntimeException | Error e) {
+                created.completeExceptionally(e);
+            } finally {
+                inFlight.remove(key, created);
+            }
+
+            // the configuration changed while building - the caller still gets the island, but it is not kept
+            Settings latest = settings;
+            if (latest.version != s.version && !latest.matches(key)) {
+                islandCache.invalidate(key);
+            }
+        };
+
+        // speculative builds stay on the low-priority prefetching thread, so they never occupy the pool
+        // that requested chunks wait for - requests for the same island still join them
+        if (RegionPrefetcher.isPrefetching()) {
+            build.run();
+        } else {
+            BUILD_POOL.execute(build);
+        }
+        return created;
+    }
+
+    private IslandBundle loadBundle(IslandKey key, Settings s) {
+        IslandBundle shared = SHARED_BUNDLES.get(key);
+        if (shared != null) {
+            return shared;
+        }
+
+        IslandBundle bundle = createBundle(key, s);
+        IslandBundle previous = SHARED_BUNDLES.putIfAbsent(key, bundle);
+        return previous != null ? previous : bundle;
+    }
+
+    private IslandBundle createBundle(IslandKey key, Settings s) {
+        Stopwatch sw = Stopwatch.createStarted();
+        PolyWorldStats stats = this.stats;
+
+        CompressedIslandCache compressed = compressedCache;
+        if (compressed != null) {
+            IslandBundle unpacked = compressed.take(key, graph -> createLookup(graph, s), s.offHeap);
+            if (unpacked != null) {
+                stats.record(BuildStage.UNPACK, sw.elapsed(TimeUnit.NANOSECONDS));
+                return unpacked;
+            }
+        }
+
+        WorldRegion wr = key.createRegion();
+        long islandSeed = key.getSeed();
+
+        // ocean regions are a single grid cell - not worth a file
+        IslandStore store = islandStore;
+        boolean persistent = store != null && wr.getType() == RegionType.ISLAND;
+        if (persistent) {
+            IslandBundle stored = store.load(wr, islandSeed, s.graphConfigHash, graph -> createLookup(graph, s), s.offHeap);
+            if (stored != null) {
+                stats.record(BuildStage.RESTORE, sw.elapsed(TimeUnit.NANOSECONDS));
+                return stored;
+            }
+        }
+
+        Graph graph = stats.time(BuildStage.GRAPH, () -> createGraph(wr, islandSeed, s));
+        TriangleLocator lookup = stats.time(BuildStage.LOOKUP, () -> createLookup(graph, s));
+        IslandBundle bundle = IslandBundle.create(wr, graph, lookup, islandSeed, stats).withDenseModels(s.offHeap);
+
+        logger.debug("Created graph and models for {} in {}ms.", wr.getArea(), sw.elapsed(TimeUnit.MILLISECONDS));
+
+        if (persistent) {
+            store.save(bundle, islandSeed, s.graphConfigHash);
+        }
+        return bundle;
+    }
+
+    private static TriangleLocator createLookup(Graph graph, Settings s) {
+        switch (s.locatorType) {
+            case BUCKET_GRID:
+                return new BucketGridLocator(graph);
+            case WALK:
+                return new WalkLocator(graph);
+            case RASTER:
+            default:
+                return new TriangleLookup(graph, s.lookupStorage, false, s.offHeap);
+        }
+    }
+
+    private static Graph createGraph(WorldRegion wr, long worldSeed, Settings s) {
         BlockAreac area = wr.getArea();
         if (wr.getType() == RegionType.OCEAN) {
 //            int rows = DoubleMath.roundToInt(area.height() / cellSize, RoundingMode.HALF_UP);
 //            int cols = DoubleMath.roundToInt(area.width() / cellSize, RoundingMode.HALF_UP);
             return createGridGraph(area, 1, 1);
         } else {
-            int numSites = DoubleMath.roundToInt(area.area() * configuration.graphDensity / 1000, RoundingMode.HALF_UP);
-            return createVoronoiGraph(area, numSites);
+            int numSites = DoubleMath.roundToInt(area.area() * s.graphDensity / 1000, RoundingMode.HALF_UP);
+            return createVoronoiGraph(area, numSites, worldSeed, s.graphUniformity, s.voronoiEngine);
         }
     }
 
@@ -147,12 +346,13 @@ public class GraphFacetProvider implements ConfigurableFacetProvider {
         return graph;
     }
 
-    private Graph createVoronoiGraph(BlockAreac bounds, int numSites) {
+    private static Graph createVoronoiGraph(BlockAreac bounds, int numSites, long worldSeed, int graphUniformity,
+                                            Voronoi.Engine voronoiEngine) {
 
         // use different seeds for different areas.
         // also use the number of target sites since similar numbers could lead to identical
         // distributions otherwise.
-        long areaSeed = seed ^ bounds.hashCode() ^ numSites;
+        long areaSeed = worldSeed ^ bounds.hashCode() ^ numSites;
         final Random rng = new FastRandom(areaSeed);
 
         PointSampling sampling = new PoissonDiscSampling();
@@ -164,18 +364,135 @@ public class GraphFacetProvider implements ConfigurableFacetProvider {
         Rectanglef islandBounds = area.expand(-5, -5).getBounds(new Rectanglef());
         List<Vector2fc> points = sampling.create(islandBounds, numSites, rng);
 
-        Voronoi v = new Voronoi(points, doubleBounds);
-
         // Lloyd relaxation makes regions more uniform
-        for (int i = 0; i < graphUniformity; i++) {
-            v = GraphEditor.lloydRelaxation(v);
-        }
+        LloydRelaxation relaxation = new LloydRelaxation(points, doubleBounds, voronoiEngine);
+        relaxation.relax(graphUniformity, RELAXATION_TOLERANCE);
+        Voronoi v = new Voronoi(relaxation.getSites(), doubleBounds, voronoiEngine);
+
         final Graph graph = new VoronoiGraph(bounds, v);
         GraphEditor.improveCorners(graph.getCorners());
 
         return graph;
     }
 
+    /**
+     * @return the statistics of the island cache and of all build stages of islands
+     */
+    public PolyWorldStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Records cache statistics and build times in a different instance, e.g. one that is shared by all providers.
+     * @param stats the statistics
+     */
+    public void setStats(PolyWorldStats stats) {
+        stats.registerCache(CACHE_NAME, islandCache);
+        CompressedIslandCache compressed = compressedCache;
+        if (compressed != null) {
+            stats.registerCache(COMPRESSED_CACHE_NAME, compressed.getCache());
+        }
+        this.stats = stats;
+    }
+
+    /**
+     * Sets the persistent store for generated islands. Islands that are in the store are not generated again.
+     * @param islandStore the store or <code>null</code> to keep islands in memory only
+     */
+    public void setIslandStore(IslandStore islandStore) {
+        this.islandStore = islandStore;
+    }
+
+    /**
+     * Sets a second cache tier for islands that are evicted from the island cache. Islands are packed
+     * when they are evicted and restored from there before they are read from the store or generated.
+     * @param compressedCache the cache or <code>null</code> to discard evicted islands
+     */
+    public void setCompressedCache(CompressedIslandCache compressedCache) {
+        if (compressedCache != null) {
+            stats.registerCache(COMPRESSED_CACHE_NAME, compressedCache.getCache());
+        }
+        this.compressedCache = compressedCache;
+    }
+
+    /**
+     * @return the algorithm that computes the Voronoi diagrams of new islands
+     */
+    public Voronoi.Engine getVoronoiEngine() {
+        return settings.voronoiEngine;
+    }
+
+    /**
+     * Changes the algorithm that computes the Voronoi diagrams for all islands that are requested afterwards.
+     * The Fortune engines create equal islands, the sweep-hull engine creates slightly different ones.
+     * @param voronoiEngine the new algorithm
+     */
+    public synchronized void setVoronoiEngine(Voronoi.Engine voronoiEngine) {
+        Settings s = settings;
+        settings = new Settings(s.version + 1, s.seed, s.graphDensity, s.graphUniformity,
+                voronoiEngine, s.locatorType, s.lookupStorage, s.offHeap);
+    }
+
+    /**
+     * @return the point-location strategy for new triangle lookups
+     */
+    public TriangleLocator.Type getLocatorType() {
+        return settings.locatorType;
+    }
+
+    /**
+     * Changes the point-location strategy for all islands that are requested afterwards.
+     * @param locatorType the new strategy
+     */
+    public synchronized void setLocatorType(TriangleLocator.Type locatorType) {
+        Settings s = settings;
+        settings = new Settings(s.version + 1, s.seed, s.graphDensity, s.graphUniformity,
+                s.voronoiEngine, locatorType, s.lookupStorage, s.offHeap);
+    }
+
+    /**
+     * @return the storage format of new triangle lookups (used by {@link TriangleLocator.Type#RASTER} only)
+     */
+    public TriangleLookup.Storage getLookupStorage() {
+        return settings.lookupStorage;
+    }
+
+    /**
+     * Changes the storage format of raster triangle lookups for all islands that are requested afterwards.
+     * @param lookupStorage the new storage format
+     */
+    public synchronized void setLookupStorage(TriangleLookup.Storage lookupStorage) {
+        Settings s = settings;
+        settings = new Settings(s.version + 1, s.seed, s.graphDensity, s.graphUniformity,
+                s.voronoiEngine, s.locatorType, lookupStorage, s.offHeap);
+    }
+
+    /**
+     * @return true if triangle lookups and model attributes of new islands are stored outside of the heap
+     */
+    public boolean isOffHeap() {
+        return settings.offHeap;
+    }
+
+    /**
+     * Stores the triangle lookups and model attributes of islands that are built afterwards in direct buffers.
+     * Their contents are not traced by the garbage collector, which makes collections of a large island cache
+     * cheaper. Existing islands are kept, because the generated content does not change.
+     * @param offHeap true to use direct buffers, false to use heap arrays
+     */
+    public synchronized void setOffHeap(boolean offHeap) {
+        Settings s = settings;
+        settings = new Settings(s.version + 1, s.seed, s.graphDensity, s.graphUniformity,
+                s.voronoiEngine, s.locatorType, s.lookupStorage, offHeap);
+    }
+
+    /**
+     * @return the version of the current configuration - it increases with every change
+     */
+    public long getConfigVersion() {
+        return settings.version;
+    }
+
     @Override
     public String getConfigurationName() {
         return "Voronoi Graphs";
@@ -187,14 +504,74 @@ public class GraphFacetProvider implements ConfigurableFacetProvider {
     }
 
     @Override
-    public void setConfiguration(Component configuration) {
-        try {
-            lock.writeLock().lock();
-            this.configuration = (GraphProviderConfiguration) configuration;
-            graphCache.invalidateAll();
-            lookupCache.invalidateAll();
-        } finally {
-            lock.writeLock().unlock();
+    public synchronized void setConfiguration(Component configuration) {
+        this.configuration = (GraphProviderConfiguration) configuration;
+        Settings s = settings;
+        settings = new Settings(s.version + 1, s.seed, this.configuration.graphDensity, s.graphUniformity,
+                s.voronoiEngine, s.locatorType, s.lookupStorage, s.offHeap);
+    }
+
+    /**
+     * An immutable copy of all settings that change generated islands.
+     */
+    private static final class Settings {
+
+        final long version;
+        final long seed;
+        final float graphDensity;
+        final int graphUniformity;
+        final Voronoi.Engine voronoiEngine;
+        final TriangleLocator.Type locatorType;
+        final TriangleLookup.Storage lookupStorage;
+
+        /**
+         * Where new islands are stored - not part of the fingerprint, because islands are equal either way
+         */
+        final boolean offHeap;
+
+        /**
+         * Covers all settings that change the generated graphs and models, but not the triangle lookups,
+         * because they are not stored. It is stable across sessions.
+         */
+        final long graphConfigHash;
+
+        /**
+         * Covers all settings except the seed and the storage location. Unlike the version, it is equal for equal settings,
+         * so islands are shared with other providers and reused when a change is reverted.
+         */
+        final long fingerprint;
+
+        Settings(long version, long seed, float graphDensity, int graphUniformity, Voronoi.Engine voronoiEngine,
+                 TriangleLocator.Type locatorType, TriangleLookup.Storage lookupStorage, boolean offHeap) {
+            this.version = version;
+            this.seed = seed;
+            this.graphDensity = graphDensity;
+            this.graphUniformity = graphUniformity;
+            this.voronoiEngine = voronoiEngine;
+            this.locatorType = locatorType;
+            this.lookupStorage = lookupStorage;
+            this.offHeap = offHeap;
+            Hasher graphHasher = Hashing.murmur3_128().newHasher()
+                    .putFloat(graphDensity)
+                    .putInt(graphUniformity);
+            // both Fortune engines create the same graphs, which are already in existing stores
+            if (voronoiEngine == Voronoi.Engine.SWEEP_HULL) {
+                graphHasher.putString(voronoiEngine.name(), StandardCharsets.UTF_8);
+            }
+            this.graphConfigHash = graphHasher.hash().asLong();
+            this.fingerprint = Hashing.murmur3_128().newHasher()
+                    .putLong(graphConfigHash)
+                    .putString(locatorType.name(), StandardCharsets.UTF_8)
+                    .putString(lookupStorage.name(), StandardCharsets.UTF_8)
+                    .hash().asLong();
+        }
+
+        /**
+         * @param key an island key
+         * @return true if the key can be requested with these settings
+         */
+        boolean matches(IslandKey key) {
+            return key.getSeed() == seed && key.getConfigVersion() == fingerprint;
         }
     }
 
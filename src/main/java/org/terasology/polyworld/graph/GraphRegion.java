@@ -16,72 +16,125 @@
 
 package org.terasology.polyworld.graph;
 
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 import org.joml.Vector2f;
 import org.joml.Vector2fc;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 /**
- * Defines a polygon region (vornoi region)
+ * Defines a polygon region (vornoi region). Regions of a {@link CompactGraph} are views on its arrays and
+ * cannot be modified. Regions that are created with the public constructor keep their own relations.
  */
-public class GraphRegion {
+public final class GraphRegion {
 
-    private final Collection<Corner> corners;
-    private final Collection<Edge> borders;
-    private final Collection<GraphRegion> neighbors;
+    private final CompactGraph graph;
+    private final int index;
+    private final Vector2f center;
 
-    private final Vector2f center = new Vector2f();
+    /**
+     * The relations of a region that does not belong to a {@link CompactGraph}, otherwise <code>null</code>
+     */
+    private final Relations relations;
+
+    /**
+     * @param graph the owning graph
+     * @param index the region id
+     */
+    GraphRegion(CompactGraph graph, int index) {
+        this.graph = graph;
+        this.index = index;
+        this.center = new Vector2f(graph.getRegionX(index), graph.getRegionY(index));
+        this.relations = null;
+    }
 
     /**
+     * Creates a region that does not belong to a {@link CompactGraph}.
      * @param centerPos the center of the region
+     * @deprecated graphs are created by {@link VoronoiGraph} and {@link GridGraph}
      */
+    @Deprecated
     public GraphRegion(Vector2fc centerPos) {
-        this.center.set(centerPos);
-        this.corners = Sets.newTreeSet(new AngleOrdering(centerPos));
-        this.borders = Sets.newLinkedHashSet();
-        this.neighbors = Sets.newLinkedHashSet();
+        this.graph = null;
+        this.index = -1;
+        this.center = new Vector2f(centerPos);
+        this.relations = new Relations(center);
+    }
+
+    /**
+     * @return the region id in the range [0..graph.getRegionCount()) or -1 if the region does not belong to a graph
+     */
+    public int getIndex() {
+        return index;
     }
 
     /**
-     * @return the pos
+     * @return the center point
      */
     public Vector2fc getCenter() {
         return center;
     }
 
+    /**
+     * @return the x coord. of the center point
+     */
+    public float getX() {
+        return center.x();
+    }
+
+    /**
+     * @return the y coord. of the center point
+     */
+    public float getY() {
+        return center.y();
+    }
+
     /**
      * @return an unmodifiable collection of all neighbors in insertion order
      */
     public Collection<GraphRegion> getNeighbors() {
-        return Collections.unmodifiableCollection(neighbors);
+        if (relations != null) {
+            return Collections.unmodifiableCollection(relations.neighbors);
+        }
+        return graph.regionNeighbors(index);
     }
 
     /**
-     * @return an unmodifiable collection of all border edges in insertion order
+     * @param neighbor the neighbor to add (can be null or already added)
+     * @throws UnsupportedOperationException if the region belongs to a {@link CompactGraph}
+     * @deprecated the relations of graph regions are fixed when the graph is built
      */
-    public Collection<Edge> getBorders() {
-        return Collections.unmodifiableCollection(borders);
+    @Deprecated
+    public void addNeigbor(GraphRegion neighbor) {
+        if (neighbor != null) {
+            getRelations().neighbors.add(neighbor);
+        }
     }
 
     /**
-     * @param region the region to add (can be null or already added)
+     * @return an unmodifiable collection of all border edges in insertion order
      */
-    public void addNeigbor(GraphRegion region) {
-        if (region != null) {
-            neighbors.add(region);
+    public Collection<Edge> getBorders() {
+        if (relations != null) {
+            return Collections.unmodifiableCollection(relations.borders);
         }
+        return graph.regionBorders(index);
     }
 
     /**
-     * @param edge the border edge to add  (can be null or already added)
+     * @param border the border edge to add (can be null or already added)
+     * @throws UnsupportedOperationException if the region belongs to a {@link CompactGraph}
+     * @deprecated the relations of graph regions are fixed when the graph is built
      */
-    public void addBorder(Edge edge) {
-        if (edge != null) {
-            borders.add(edge);
+    @Deprecated
+    public void addBorder(Edge border) {
+        if (border != null) {
+            getRelations().borders.add(border);
         }
     }
 
@@ -89,47 +142,69 @@ public class GraphRegion {
      * @return the corners, <b>sorted by angle</b> around the center point
      */
     public Collection<Corner> getCorners() {
-        return Collections.unmodifiableCollection(corners);
+        if (relations != null) {
+            return Collections.unmodifiableCollection(relations.corners);
+        }
+        return graph.regionCorners(index);
     }
 
     /**
-     * @param c the corner to add (can be null or already added)
+     * @param corner the corner to add (can be null or already added)
+     * @throws UnsupportedOperationException if the region belongs to a {@link CompactGraph}
+     * @deprecated the relations of graph regions are fixed when the graph is built
      */
-    public void addCorner(Corner c)  {
-        if (c != null) {
-            corners.add(c);
+    @Deprecated
+    public void addCorner(Corner corner) {
+        if (corner != null) {
+            getRelations().corners.add(corner);
         }
     }
 
     /**
-     * @return a new list that contains all triangles of this polygon
+     * @return an unmodifiable list that contains all triangles of this polygon
      */
     public List<Triangle> computeTriangles() {
-        List<Triangle> list = Lists.newArrayList();
-        if (corners.isEmpty()) {
-            return list;
+        if (relations == null) {
+            return graph.getTriangleMesh().getRegionTriangles(index);
         }
 
-        Corner first = corners.iterator().next();
-        Corner prev = null;
+        if (relations.corners.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-        for (Corner c : corners) {
-            if (prev != null) {
-                Triangle tri = new Triangle(this, prev, c);
-                list.add(tri);
-            }
+        ImmutableList.Builder<Triangle> list = ImmutableList.builder();
+        Iterator<Corner> it = relations.corners.iterator();
+        Corner first = it.next();
+        Corner prev = first;
+        while (it.hasNext()) {
+            Corner c = it.next();
+            list.add(new Triangle(this, prev, c));
             prev = c;
         }
-
         list.add(new Triangle(this, prev, first));
+        return list.build();
+    }
 
-        return list;
+    private Relations getRelations() {
+        if (relations == null) {
+            throw new UnsupportedOperationException("The regions of a graph cannot be modified");
+        }
+        return relations;
     }
 
     @Override
     public String toString() {
-        return String.format("Region [%s]", center.toString());
+        return String.format("Region [%s]", getCenter());
     }
 
+    private static final class Relations {
+        private final Set<GraphRegion> neighbors = Sets.newLinkedHashSet();
+        private final Set<Edge> borders = Sets.newLinkedHashSet();
+        private final Set<Corner> corners;
 
+        Relations(Vector2fc center) {
+            corners = Sets.newTreeSet((c0, c1) -> AngleOrdering.compare(center.x(), center.y(),
+                    c0.getX(), c0.getY(), c1.getX(), c1.getY()));
+        }
+    }
 }
@@ -16,37 +16,29 @@
 
 package org.terasology.polyworld.graph;
 
-import com.google.common.collect.Lists;
-import org.joml.Vector2f;
-import org.terasology.engine.world.block.BlockArea;
 import org.terasology.engine.world.block.BlockAreac;
 
-import java.util.Collections;
-import java.util.List;
-
 /**
  * A graph that is based on a rectangular grid.
  */
-public class GridGraph implements Graph {
+public class GridGraph extends CompactGraph {
 
     private final int rows;
     private final int cols;
 
-    private final List<Corner> corners = Lists.newArrayList();
-    private final List<GraphRegion> regions = Lists.newArrayList();
-    private final List<Edge> edges = Lists.newArrayList();
-
-    private final BlockArea bounds = new BlockArea(BlockArea.INVALID);
-
     /**
      * @param bounds the bounding box
      * @param rows the number of rows
      * @param cols the number of columns
      */
     public GridGraph(BlockAreac bounds, int rows, int cols) {
+        super(bounds, createBuilder(bounds, rows, cols));
         this.rows = rows;
         this.cols = cols;
-        this.bounds.set(bounds);
+    }
+
+    private static GraphBuilder createBuilder(BlockAreac bounds, int rows, int cols) {
+        GraphBuilder builder = new GraphBuilder();
 
         float dx = (float) bounds.getSizeX() / cols;
         float dy = (float) bounds.getSizeY() / rows;
@@ -55,19 +47,18 @@ public class GridGraph implements Graph {
             for (int c = 0; c <= cols; c++) {
                 float x = bounds.minX() + c * dx;
                 float y = bounds.minY() + r * dy;
-                Corner corner = new Corner(new Vector2f(x - .5f, y - .5f));
-                corner.setBorder(r == 0 || c == 0 || r == rows || c == cols);
-                corners.add(corner);
+                boolean border = r == 0 || c == 0 || r == rows || c == cols;
+                builder.addCorner(x - .5f, y - .5f, border);
             }
         }
 
         for (int r = 0; r <= rows; r++) {
             for (int c = 0; c <= cols; c++) {
-                Corner corner = getCorner(r, c);
-                corner.addAdjacent(getCorner(r - 1, c));
-                corner.addAdjacent(getCorner(r + 1, c));
-                corner.addAdjacent(getCorner(r, c - 1));
-                corner.addAdjacent(getCorner(r, c + 1));
+                int corner = getCorner(rows, cols, r, c);
+                builder.addAdjacent(corner, getCorner(rows, cols, r - 1, c));
+                builder.addAdjacent(corner, getCorner(rows, cols, r + 1, c));
+                builder.addAdjacent(corner, getCorner(rows, cols, r, c - 1));
+                builder.addAdjacent(corner, getCorner(rows, cols, r, c + 1));
             }
         }
 
@@ -75,116 +66,73 @@ public class GridGraph implements Graph {
             for (int c = 0; c < cols; c++) {
                 float x = bounds.minX() + (c + 0.5f) * dx;
                 float y = bounds.minY() + (r + 0.5f) * dy;
-                Vector2f pos = new Vector2f(x, y);
-                GraphRegion reg = new GraphRegion(pos);
-                Corner tl = getCorner(r, c);
-                Corner tr = getCorner(r, c + 1);
-                Corner br = getCorner(r + 1, c + 1);
-                Corner bl = getCorner(r + 1, c);
-                reg.addCorner(tl);
-                reg.addCorner(tr);
-                reg.addCorner(br);
-                reg.addCorner(bl);
-                tl.addTouches(reg);
-                tr.addTouches(reg);
-                bl.addTouches(reg);
-                br.addTouches(reg);
-                regions.add(reg);
+                int reg = builder.addRegion(x, y);
+                builder.addRegionCorner(reg, getCorner(rows, cols, r, c));
+                builder.addRegionCorner(reg, getCorner(rows, cols, r, c + 1));
+                builder.addRegionCorner(reg, getCorner(rows, cols, r + 1, c + 1));
+                builder.addRegionCorner(reg, getCorner(rows, cols, r + 1, c));
             }
         }
 
         for (int r = 0; r < rows; r++) {
             for (int c = 0; c < cols; c++) {
-                GraphRegion reg = getRegion(r, c);
-                reg.addNeigbor(getRegion(r - 1, c - 1));
-                reg.addNeigbor(getRegion(r - 1, c));
-                reg.addNeigbor(getRegion(r - 1, c + 1));
-                reg.addNeigbor(getRegion(r, c + 1));
-                reg.addNeigbor(getRegion(r, c - 1));
-                reg.addNeigbor(getRegion(r + 1, c - 1));
-                reg.addNeigbor(getRegion(r + 1, c));
-                reg.addNeigbor(getRegion(r + 1, c + 1));
+                int reg = getRegion(rows, cols, r, c);
+                builder.addNeighbor(reg, getRegion(rows, cols, r - 1, c - 1));
+                builder.addNeighbor(reg, getRegion(rows, cols, r - 1, c));
+                builder.addNeighbor(reg, getRegion(rows, cols, r - 1, c + 1));
+                builder.addNeighbor(reg, getRegion(rows, cols, r, c + 1));
+                builder.addNeighbor(reg, getRegion(rows, cols, r, c - 1));
+                builder.addNeighbor(reg, getRegion(rows, cols, r + 1, c - 1));
+                builder.addNeighbor(reg, getRegion(rows, cols, r + 1, c));
+                builder.addNeighbor(reg, getRegion(rows, cols, r + 1, c + 1));
             }
         }
 
         for (int r = 1; r < rows; r++) {
             for (int c = 0; c < cols; c++) {
-                Corner left = getCorner(r, c);
-                Corner right = getCorner(r, c + 1);
-                GraphRegion regTop = getRegion(r - 1, c);
-                GraphRegion regBot = getRegion(r, c);
-
-                Edge edge = new Edge(left, right, regTop, regBot);
-                left.addEdge(edge);
-                right.addEdge(edge);
-                regTop.addBorder(edge);
-                regBot.addBorder(edge);
-                edges.add(edge);
+                int left = getCorner(rows, cols, r, c);
+                int right = getCorner(rows, cols, r, c + 1);
+                int regTop = getRegion(rows, cols, r - 1, c);
+                int regBot = getRegion(rows, cols, r, c);
+                builder.addEdge(left, right, regTop, regBot);
             }
         }
 
         for (int r = 0; r < rows; r++) {
             for (int c = 1; c < cols; c++) {
-                Corner top = getCorner(r, c);
-                Corner bot = getCorner(r + 1, c);
-                GraphRegion regLeft = getRegion(r, c - 1);
-                GraphRegion regRight = getRegion(r, c);
-
-                Edge edge = new Edge(top, bot, regLeft, regRight);
-                top.addEdge(edge);
-                bot.addEdge(edge);
-                regLeft.addBorder(edge);
-                regRight.addBorder(edge);
-                edges.add(edge);
+                int top = getCorner(rows, cols, r, c);
+                int bot = getCorner(rows, cols, r + 1, c);
+                int regLeft = getRegion(rows, cols, r, c - 1);
+                int regRight = getRegion(rows, cols, r, c);
+                builder.addEdge(top, bot, regLeft, regRight);
             }
         }
 
+        return builder;
     }
 
-    private GraphRegion getRegion(int r, int c) {
+    private static int getRegion(int rows, int cols, int r, int c) {
         if (r < 0 || r >= rows) {
-            return null;
+            return -1;
         }
 
         if (c < 0 || c >= cols) {
-            return null;
+            return -1;
         }
 
-        int idx = r * cols + c;
-        return regions.get(idx);
+        return r * cols + c;
     }
 
-    private Corner getCorner(int r, int c) {
+    private static int getCorner(int rows, int cols, int r, int c) {
         if (r < 0 || r > rows) {
-            return null;
+            return -1;
         }
 
         if (c < 0 || c > cols) {
-            return null;
+            return -1;
         }
 
-        int idx = r * (cols + 1) + c;
-        return corners.get(idx);
-    }
-
-    @Override
-    public List<GraphRegion> getRegions() {
-        return Collections.unmodifiableList(regions);
-    }
-
-    @Override
-    public List<Edge> getEdges() {
-        return Collections.unmodifiableList(edges);
-    }
-
-    @Override
-    public List<Corner> getCorners() {
-        return Collections.unmodifiableList(corners);
-    }
-
-    @Override
-    public BlockAreac getBounds() {
-        return bounds;
+        return r * (cols + 1) + c;
     }
 
     /**
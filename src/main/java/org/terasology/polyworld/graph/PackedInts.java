@@ -0,0 +1,93 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld.graph;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Writes int arrays as the differences between consecutive values, zig-zag encoded in 1 - 5 bytes
+ * (7 bits per byte, low bits first). Ascending offsets, element ids of neighbors and long runs of
+ * equal values need a single byte per value.
+ */
+public final class PackedInts {
+
+    /**
+     * The maximum number of bytes per value
+     */
+    public static final int MAX_BYTES = 5;
+
+    private PackedInts() {
+        // no instances
+    }
+
+    /**
+     * @param buffer the buffer to write to
+     * @param values the values to write, from the first to the last element
+     */
+    public static void put(ByteBuffer buffer, IntBuffer values) {
+        int prev = 0;
+        for (int i = 0; i < values.limit(); i++) {
+            int value = values.get(i);
+            int delta = value - prev;
+            putVarInt(buffer, (delta << 1) ^ (delta >> 31));
+            prev = value;
+        }
+    }
+
+    /**
+     * @param buffer the buffer to write to
+     * @param values the values to write
+     */
+    public static void put(ByteBuffer buffer, int[] values) {
+        put(buffer, IntBuffer.wrap(values));
+    }
+
+    /**
+     * Fills the target from its first to its last element.
+     * @param buffer the buffer to read from
+     * @param target the buffer to fill
+     * @throws IllegalArgumentException if a value has more than {@link #MAX_BYTES}
+     * @throws java.nio.BufferUnderflowException if the buffer ends too early
+     */
+    public static void get(ByteBuffer buffer, IntBuffer target) {
+        int prev = 0;
+        for (int i = 0; i < target.limit(); i++) {
+            int zigzag = getVarInt(buffer);
+            prev += (zigzag >>> 1) ^ -(zigzag & 1);
+            target.put(i, prev);
+        }
+    }
+
+    /**
+     * @param buffer the buffer to read from
+     * @param count the number of values
+     * @return a new array
+     */
+    public static int[] get(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        get(buffer, IntBuffer.wrap(values));
+        return values;
+    }
+
+    private static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int getVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 7 * MAX_BYTES; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed packed int");
+    }
+}
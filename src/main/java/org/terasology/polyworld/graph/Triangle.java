@@ -25,29 +25,66 @@ import org.joml.Vector3fc;
 
 /**
  * Defines a triangle in the region-based {@link Graph} structure.
+ * Triangles of a graph are the canonical entries of its {@link TriangleMesh}. Triangles that are created
+ * with the public constructor do not belong to a mesh and compute their weights from the current locations.
  */
-public class Triangle {
+public final class Triangle {
 
+    /**
+     * The owning mesh or <code>null</code> if the triangle was created with the public constructor
+     */
+    private final TriangleMesh mesh;
+    private final int index;
     private final GraphRegion region;
     private final Corner c1;
     private final Corner c2;
 
     /**
-     * @param region
-     * @param c1
-     * @param c2
+     * Creates a triangle that does not belong to a {@link TriangleMesh}.
+     * @param region the region whose center is the first vertex
+     * @param c1 the second vertex
+     * @param c2 the third vertex
+     * @deprecated use the triangles of {@link Graph#getTriangleMesh()}, which interpolate without allocating
      */
+    @Deprecated
     public Triangle(GraphRegion region, Corner c1, Corner c2) {
+        this(null, -1, region, c1, c2);
+    }
+
+    /**
+     * @param mesh the owning mesh
+     * @param index the triangle id in the mesh
+     * @param region the region whose center is the first vertex
+     * @param c1 the second vertex
+     * @param c2 the third vertex
+     */
+    Triangle(TriangleMesh mesh, int index, GraphRegion region, Corner c1, Corner c2) {
         Preconditions.checkArgument(region != null);
         Preconditions.checkArgument(c1 != null);
         Preconditions.checkArgument(c2 != null);
         Preconditions.checkArgument(!c1.equals(c2), "c1 must be different from c2");
 
+        this.mesh = mesh;
+        this.index = index;
         this.region = region;
         this.c1 = c1;
         this.c2 = c2;
     }
 
+    /**
+     * @return the triangle id in the range [0..mesh.size()) or -1 if the triangle does not belong to a mesh
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the mesh that contains this triangle or <code>null</code>
+     */
+    public TriangleMesh getMesh() {
+        return mesh;
+    }
+
     public GraphRegion getRegion() {
         return region;
     }
@@ -61,12 +98,43 @@ public class Triangle {
     }
 
     public float computeInterpolated(Vector2fc p, float wreg, float wc1, float wc2) {
-        Vector3f bary = computeBarycentricCoordinates(p);
-        return wreg * bary.x() + wc1 * bary.y() + wc2 * bary.z();
+        if (mesh == null) {
+            Vector3f bary = computeBarycentricCoordinates(p);
+            return wreg * bary.x() + wc1 * bary.y() + wc2 * bary.z();
+        }
+        return mesh.interpolate(index, p.x(), p.y(), wreg, wc1, wc2);
+    }
+
+    /**
+     * Computes the partial derivatives of the linear interpolation of the vertex values.
+     * Moving one block in x direction changes the interpolated value by <code>dest.x()</code>.
+     * @param wreg the value at the region center
+     * @param wc1 the value at the first corner
+     * @param wc2 the value at the second corner
+     * @param dest the vector to store the gradient in
+     * @return dest
+     */
+    public Vector2f computeInterpolationGradient(float wreg, float wc1, float wc2, Vector2f dest) {
+        if (mesh == null) {
+            // the weights of the corners are linear, so their change per block is the weight at one block distance
+            Vector2fc a = region.getCenter();
+            float w0 = computeInterpolated(a, wreg, wc1, wc2);
+            float wx = computeInterpolated(new Vector2f(a.x() + 1, a.y()), wreg, wc1, wc2);
+            float wy = computeInterpolated(new Vector2f(a.x(), a.y() + 1), wreg, wc1, wc2);
+            return dest.set(wx - w0, wy - w0);
+        }
+        return mesh.computeInterpolationGradient(index, wreg, wc1, wc2, dest);
     }
 
+    /**
+     * @param p the point
+     * @return a new vector with the weights of region center, corner 1 and corner 2
+     */
     public Vector3f computeBarycentricCoordinates(Vector2fc p) {
-        return computeBarycentricCoordinates(region.getCenter(), c1.getLocation(), c2.getLocation(), p);
+        if (mesh == null) {
+            return computeBarycentricCoordinates(region.getCenter(), c1.getLocation(), c2.getLocation(), p);
+        }
+        return mesh.computeBarycentricCoordinates(index, p.x(), p.y(), new Vector3f());
     }
 
     public static boolean barycoordInsideTriangle(Vector3fc bary) {
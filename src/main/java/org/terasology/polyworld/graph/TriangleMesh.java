@@ -0,0 +1,260 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld.graph;
+
+import org.joml.Vector2f;
+import org.joml.Vector2fc;
+import org.joml.Vector3f;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The canonical, indexed table of all region triangles of a {@link Graph}. Every region is split
+ * into triangles (center, corner i, corner i+1) in the angular order of its corners; the triangles of a region
+ * are stored contiguously and regions appear in ascending order.
+ * <p>
+ * For every triangle, the barycentric weights of the two corners are stored as linear functions
+ * <code>w = a * (x - centerX) + b * (y - centerY)</code> relative to the region center, so interpolating a value
+ * takes two multiply-adds per weight and does not allocate. The center weight is <code>1 - w1 - w2</code>.
+ * <p>
+ * This class is immutable. The graph discards it when a corner is moved.
+ */
+public final class TriangleMesh {
+
+    /**
+     * The number of values that are stored per triangle in {@link #coeffs}
+     */
+    private static final int COEFFS = 4;
+
+    private final int[] triRegion;
+    private final int[] triCorner1;
+    private final int[] triCorner2;
+
+    /**
+     * Index of the first triangle of every region, plus the total number of triangles
+     */
+    private final int[] regionOffsets;
+
+    /**
+     * The vertex coordinates of all triangles (6 floats per triangle: center, corner 1, corner 2)
+     */
+    private final float[] coords;
+
+    /**
+     * The barycentric coefficients (a, b) of corner 1 and corner 2 for every triangle
+     */
+    private final double[] coeffs;
+
+    private final Triangle[] triangles;
+
+    /**
+     * @param graph the graph whose regions are split into triangles
+     */
+    TriangleMesh(Graph graph) {
+        List<GraphRegion> regions = graph.getRegions();
+        List<Corner> corners = graph.getCorners();
+
+        // only the corners of a CompactGraph know their position in the list
+        boolean compact = graph instanceof CompactGraph;
+        Map<Corner, Integer> cornerIds = new IdentityHashMap<>();
+        if (!compact) {
+            for (int i = 0; i < corners.size(); i++) {
+                cornerIds.put(corners.get(i), i);
+            }
+        }
+
+        int regionCount = regions.size();
+        regionOffsets = new int[regionCount + 1];
+        int count = 0;
+        for (int r = 0; r < regionCount; r++) {
+            regionOffsets[r] = count;
+            count += regions.get(r).getCorners().size();
+        }
+        regionOffsets[regionCount] = count;
+
+        triRegion = new int[count];
+        triCorner1 = new int[count];
+        triCorner2 = new int[count];
+        coords = new float[count * 6];
+        coeffs = new double[count * COEFFS];
+        triangles = new Triangle[count];
+
+        for (int r = 0; r < regionCount; r++) {
+            GraphRegion region = regions.get(r);
+            Vector2fc center = region.getCenter();
+            Corner[] regionCorners = region.getCorners().toArray(new Corner[0]);
+            for (int i = 0; i < regionCorners.length; i++) {
+                // the last triangle connects the last with the first corner
+                int tri = regionOffsets[r] + i;
+                Corner c1 = regionCorners[i];
+                Corner c2 = regionCorners[(i + 1) % regionCorners.length];
+                triRegion[tri] = r;
+                triCorner1[tri] = compact ? c1.getIndex() : cornerIds.get(c1);
+                triCorner2[tri] = compact ? c2.getIndex() : cornerIds.get(c2);
+
+                int off = tri * 6;
+                coords[off] = center.x();
+                coords[off + 1] = center.y();
+                coords[off + 2] = c1.getX();
+                coords[off + 3] = c1.getY();
+                coords[off + 4] = c2.getX();
+                coords[off + 5] = c2.getY();
+                computeCoefficients(tri);
+
+                triangles[tri] = new Triangle(this, tri, region, c1, c2);
+            }
+        }
+    }
+
+    private void computeCoefficients(int tri) {
+        int off = tri * 6;
+        double d1x = (double) coords[off + 2] - coords[off];
+        double d1y = (double) coords[off + 3] - coords[off + 1];
+        double d2x = (double) coords[off + 4] - coords[off];
+        double d2y = (double) coords[off + 5] - coords[off + 1];
+        double det = d1x * d2y - d1y * d2x;
+
+        // degenerate triangles keep zero coefficients: the center gets all the weight
+        if (det != 0) {
+            int c = tri * COEFFS;
+            coeffs[c] = d2y / det;
+            coeffs[c + 1] = -d2x / det;
+            coeffs[c + 2] = -d1y / det;
+            coeffs[c + 3] = d1x / det;
+        }
+    }
+
+    /**
+     * @param triangleCount the number of triangles
+     * @param regionCount the number of regions
+     * @return the approximate number of bytes that a mesh of this size retains
+     */
+    static long estimateBytes(int triangleCount, int regionCount) {
+        // per triangle: 3 ids, 6 coords, the coefficients, a Triangle instance (32 bytes) and its reference
+        long perTriangle = 3 * 4 + 6 * 4 + COEFFS * 8 + 32 + 4;
+        return 128L + triangleCount * perTriangle + (regionCount + 1) * 4L;
+    }
+
+    /**
+     * @return the approximate number of bytes that this instance retains
+     */
+    public long getEstimatedBytes() {
+        return estimateBytes(size(), regionOffsets.length - 1);
+    }
+
+    /**
+     * @return the number of triangles
+     */
+    public int size() {
+        return triangles.length;
+    }
+
+    /**
+     * @param tri the triangle id
+     * @return the canonical triangle instance
+     */
+    public Triangle getTriangle(int tri) {
+        return triangles[tri];
+    }
+
+    /**
+     * @return an unmodifiable list of all triangles, indexed by id
+     */
+    public List<Triangle> getTriangles() {
+        return Collections.unmodifiableList(Arrays.asList(triangles));
+    }
+
+    /**
+     * @param region the region id
+     * @return an unmodifiable list of all triangles of the region
+     */
+    public List<Triangle> getRegionTriangles(int region) {
+        return getTriangles().subList(regionOffsets[region], regionOffsets[region + 1]);
+    }
+
+    /**
+     * @param tri the triangle id
+     * @return the id of the region whose center is the first vertex
+     */
+    public int getRegion(int tri) {
+        return triRegion[tri];
+    }
+
+    /**
+     * @param tri the triangle id
+     * @return the corner id of the second vertex
+     */
+    public int getCorner1(int tri) {
+        return triCorner1[tri];
+    }
+
+    /**
+     * @param tri the triangle id
+     * @return the corner id of the third vertex
+     */
+    public int getCorner2(int tri) {
+        return triCorner2[tri];
+    }
+
+    /**
+     * @return a new array with the vertex coordinates of all triangles (6 floats per triangle: center, corner 1, corner 2)
+     */
+    public float[] copyCoordinates() {
+        return coords.clone();
+    }
+
+    /**
+     * Linearly interpolates the vertex values at the given point.
+     * @param tri the triangle id
+     * @param x the x world coord.
+     * @param y the y world coord.
+     * @param wreg the value at the region center
+     * @param wc1 the value at the first corner
+     * @param wc2 the value at the second corner
+     * @return the interpolated value
+     */
+    public float interpolate(int tri, float x, float y, float wreg, float wc1, float wc2) {
+        double lx = (double) x - coords[tri * 6];
+        double ly = (double) y - coords[tri * 6 + 1];
+        int c = tri * COEFFS;
+        return (float) (wreg + (wc1 - wreg) * (coeffs[c] * lx + coeffs[c + 1] * ly)
+                             + (wc2 - wreg) * (coeffs[c + 2] * lx + coeffs[c + 3] * ly));
+    }
+
+    /**
+     * Computes the partial derivatives of the linear interpolation of the vertex values.
+     * @param tri the triangle id
+     * @param wreg the value at the region center
+     * @param wc1 the value at the first corner
+     * @param wc2 the value at the second corner
+     * @param dest the vector to store the gradient in
+     * @return dest
+     */
+    public Vector2f computeInterpolationGradient(int tri, float wreg, float wc1, float wc2, Vector2f dest) {
+        int c = tri * COEFFS;
+        double w1 = wc1 - wreg;
+        double w2 = wc2 - wreg;
+        return dest.set((float) (w1 * coeffs[c] + w2 * coeffs[c + 2]), (float) (w1 * coeffs[c + 1] + w2 * coeffs[c + 3]));
+    }
+
+    /**
+     * @param tri the triangle id
+     * @param x the x world coord.
+     * @param y the y world coord.
+     * @param dest the vector to store the weights of center, corner 1 and corner 2 in
+     * @return dest
+     */
+    public Vector3f computeBarycentricCoordinates(int tri, float x, float y, Vector3f dest) {
+        double lx = (double) x - coords[tri * 6];
+        double ly = (double) y - coords[tri * 6 + 1];
+        int c = tri * COEFFS;
+        double w1 = coeffs[c] * lx + coeffs[c + 1] * ly;
+        double w2 = coeffs[c + 2] * lx + coeffs[c + 3] * ly;
+        return dest.set((float) (1 - w1 - w2), (float) w1, (float) w2);
+    }
+}
@@ -4,166 +4,83 @@
 package org.terasology.polyworld.graph;
 
 import org.joml.Vector2f;
-import org.joml.Vector2fc;
-import org.terasology.commonworld.geom.Line2f;
-import org.terasology.engine.world.block.BlockArea;
 import org.terasology.engine.world.block.BlockAreac;
 import org.terasology.joml.geom.Rectanglef;
 import org.terasology.math.delaunay.Voronoi;
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import org.terasology.math.delaunay.VoronoiCells;
 
 /**
  * VoronoiGraph.java
  *
  */
-public class VoronoiGraph implements Graph {
-
-    private final List<Edge> edges = new ArrayList<>();
-    private final List<Corner> corners = new ArrayList<>();
-    private final List<GraphRegion> regions = new ArrayList<>();
-    private final Rectanglef realBounds = new Rectanglef();
-    private final BlockArea intBounds = new BlockArea(BlockArea.INVALID);
+public class VoronoiGraph extends CompactGraph {
 
     /**
      * @param bounds bounds of the target area (points from Voronoi will be scaled and translated accordingly)
      * @param v the Voronoi diagram to use
      */
     public VoronoiGraph(BlockAreac bounds, Voronoi v) {
+        super(bounds, createBuilder(bounds, v));
+    }
 
-        intBounds.set(bounds);
-        bounds.getBounds(realBounds);
+    private static GraphBuilder createBuilder(BlockAreac bounds, Voronoi v) {
 
-        final Map<Vector2fc, GraphRegion> regionMap = new HashMap<>();
-        final Map<Vector2fc, Corner> pointCornerMap = new HashMap<>();
+        Rectanglef realBounds = bounds.getBounds(new Rectanglef());
+        Rectanglef srcBounds = v.getPlotBounds();
+        VoronoiCells cells = v.cells();
+        GraphBuilder builder = new GraphBuilder();
 
-        for (Vector2fc vorSite : v.siteCoords()) {
-            Vector2f site = transform(v.getPlotBounds(), realBounds, vorSite);
-            GraphRegion region = new GraphRegion(new Vector2f(site));
-            regions.add(region);
-            regionMap.put(new Vector2f(vorSite), region);
+        // equal points have a single id in the order of their first occurrence, so they are the corner ids
+        for (int p = 0; p < cells.getPointCount(); p++) {
+            Vector2f pt = transform(srcBounds, realBounds, cells.getPointX(p), cells.getPointY(p));
 
-            for (Vector2fc pt : v.region(vorSite)) {
-                Corner c0 = makeCorner(pointCornerMap, v.getPlotBounds(), pt);
+            float diff = 0.01f;
+            boolean onLeft = closeEnough(pt.x(), realBounds.minX, diff);
+            boolean onTop = closeEnough(pt.y(), realBounds.minY, diff);
+            boolean onRight = closeEnough(pt.x(), realBounds.maxX, diff);
+            boolean onBottom = closeEnough(pt.y(), realBounds.maxY, diff);
 
-                region.addCorner(c0);
-                c0.addTouches(region);
-            }
+            builder.addCorner(pt.x(), pt.y(), onLeft || onTop || onRight || onBottom);
         }
 
-        for (org.terasology.math.delaunay.Edge libedge : v.edges()) {
+        for (int cell = 0; cell < cells.getCellCount(); cell++) {
+            Vector2f site = transform(srcBounds, realBounds, cells.getSiteX(cell), cells.getSiteY(cell));
+            int region = builder.addRegion(site.x(), site.y());
 
-            if (!libedge.isVisible()) {
-                continue;
+            for (int i = cells.getCellStart(cell); i < cells.getCellEnd(cell); i++) {
+                builder.addRegionCorner(region, cells.getCellPoint(i));
             }
-
-            final Line2f dEdge = libedge.delaunayLine();
-            final Line2f vEdge = libedge.voronoiEdge();
-
-            Corner c0 = makeCorner(pointCornerMap, v.getPlotBounds(), vEdge.getStart());
-            Corner c1 = makeCorner(pointCornerMap, v.getPlotBounds(), vEdge.getEnd());
-
-            GraphRegion r0 = regionMap.get(dEdge.getStart());
-            GraphRegion r1 = regionMap.get(dEdge.getEnd());
-
-            final Edge edge = new Edge(c0, c1, r0, r1);
-
-            edges.add(edge);
-
-            // Centers point to edges. Corners point to edges.
-
-            r0.addBorder(edge);
-            r1.addBorder(edge);
-
-            c0.addEdge(edge);
-            c1.addEdge(edge);
-
-            // Centers point to centers.
-            r0.addNeigbor(r1);
-            r1.addNeigbor(r0);
-
-            // Corners point to corners
-            c0.addAdjacent(c1);
-            c1.addAdjacent(c0);
         }
-    }
-
-    /**
-     * ensures that each corner is represented by only one corner object
-     */
-    private Corner makeCorner(Map<Vector2fc, Corner> pointCornerMap, Rectanglef srcRc, Vector2fc orgPt) {
 
-        Corner exist = pointCornerMap.get(orgPt);
-        if (exist != null) {
-            return exist;
-        }
+        for (int e = 0; e < cells.getEdgeCount(); e++) {
+            int c0 = cells.getEdgeLeftPoint(e);
+            if (c0 < 0) {
+                // not visible
+                continue;
+            }
+            int c1 = cells.getEdgeRightPoint(e);
 
-        Vector2f p = transform(srcRc, realBounds, orgPt);
-
-        Corner c = new Corner(p);
-        corners.add(c);
-        pointCornerMap.put(orgPt, c);
-        float diff = 0.01f;
-        boolean onLeft = closeEnough(p.x(), realBounds.minX, diff);
-        boolean onTop = closeEnough(p.y(), realBounds.minY, diff);
-        boolean onRight = closeEnough(p.x(), realBounds.maxX, diff);
-        boolean onBottom = closeEnough(p.y(), realBounds.maxY, diff);
-        if (onLeft || onTop || onRight || onBottom) {
-            c.setBorder(true);
+            // Centers point to edges and centers. Corners point to edges and corners.
+            builder.addEdge(c0, c1, cells.getEdgeLeftCell(e), cells.getEdgeRightCell(e));
         }
 
-        return c;
-    }
-
-    /**
-     * @return
-     */
-    @Override
-    public List<GraphRegion> getRegions() {
-        return Collections.unmodifiableList(regions);
-    }
-
-    /**
-     * @return
-     */
-    @Override
-    public List<Edge> getEdges() {
-        return Collections.unmodifiableList(edges);
-    }
-
-    /**
-     * @return the corners
-     */
-    @Override
-    public List<Corner> getCorners() {
-        return Collections.unmodifiableList(corners);
-    }
-
-    /**
-     * @return the bounds
-     */
-    @Override
-    public BlockAreac getBounds() {
-        return intBounds;
+        return builder;
     }
 
     /**
      * Transforms the given point from the source rectangle into the destination rectangle.
      * @param srcRc The source rectangle
      * @param dstRc The destination rectangle
-     * @param pt The point to transform
+     * @param px The x coordinate of the point to transform
+     * @param py The y coordinate of the point to transform
      * @return The new, transformed point
      */
-    private static Vector2f transform(Rectanglef srcRc, Rectanglef dstRc, Vector2fc pt) {
+    private static Vector2f transform(Rectanglef srcRc, Rectanglef dstRc, float px, float py) {
 
         // TODO: move this to a better place
 
-        float x = (pt.x() - srcRc.minX) / srcRc.getSizeX();
-        float y = (pt.y() - srcRc.minY) / srcRc.getSizeY();
+        float x = (px - srcRc.minX) / srcRc.getSizeX();
+        float y = (py - srcRc.minY) / srcRc.getSizeY();
 
         x = dstRc.minX + x * dstRc.getSizeX();
         y = dstRc.minY + y * dstRc.getSizeY();
@@ -76,11 +76,11 @@ public class RiverRasterizer implements WorldRasterizer {
                 if (riverValue > 0) {
                     int[][] structElem = getStructuringElement(riverValue);
 
-                    int x0 = TeraMath.floorToInt(e.getCorner0().getLocation().x());
-                    int z0 = TeraMath.floorToInt(e.getCorner0().getLocation().y());
+                    int x0 = TeraMath.floorToInt(e.getCorner0().getX());
+                    int z0 = TeraMath.floorToInt(e.getCorner0().getY());
 
-                    int x1 = TeraMath.floorToInt(e.getCorner1().getLocation().x());
-                    int z1 = TeraMath.floorToInt(e.getCorner1().getLocation().y());
+                    int x1 = TeraMath.floorToInt(e.getCorner1().getX());
+                    int z1 = TeraMath.floorToInt(e.getCorner1().getY());
 
                     BresenhamCollectorVisitor bresenhamCollector = new BresenhamCollectorVisitor();
                     BresenhamLineIterator.iterateLine2D(x0, z0, x1, z1, bresenhamCollector, EnumSet.allOf(BresenhamLineIterator.Overlap.class));
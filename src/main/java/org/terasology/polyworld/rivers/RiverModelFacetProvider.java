@@ -16,89 +16,47 @@
 
 package org.terasology.polyworld.rivers;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.terasology.engine.world.generation.Facet;
 import org.terasology.engine.world.generation.FacetProvider;
 import org.terasology.engine.world.generation.GeneratingRegion;
 import org.terasology.engine.world.generation.Produces;
 import org.terasology.engine.world.generation.Requires;
-import org.terasology.engine.world.generation.facets.SeaLevelFacet;
-import org.terasology.polyworld.elevation.ElevationModel;
-import org.terasology.polyworld.elevation.ElevationModelFacet;
-import org.terasology.polyworld.graph.Graph;
+import org.terasology.polyworld.IslandBundle;
 import org.terasology.polyworld.graph.GraphFacet;
-import org.terasology.polyworld.water.WaterModel;
-import org.terasology.polyworld.water.WaterModelFacet;
-
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
 
 /**
- * TODO Type description
+ * Provides the river models of all graphs in the region.
  */
 @Produces(RiverModelFacet.class)
-@Requires({
-        @Facet(GraphFacet.class),
-        @Facet(WaterModelFacet.class),
-        @Facet(ElevationModelFacet.class),
-        @Facet(SeaLevelFacet.class)
-        })
+@Requires(@Facet(GraphFacet.class))
 public class RiverModelFacetProvider implements FacetProvider {
 
-    private static final Logger logger = LoggerFactory.getLogger(RiverModelFacetProvider.class);
-
-    private final Cache<Graph, RiverModel> modelCache;
-
-    private long seed;
+    public RiverModelFacetProvider() {
+    }
 
     /**
-     * @param maxCacheSize maximum number of cached models
+     * @param maxCacheSize ignored
+     * @deprecated models are cached together with their graph, use {@link #RiverModelFacetProvider()}
      */
+    @Deprecated
     public RiverModelFacetProvider(int maxCacheSize) {
-        modelCache = CacheBuilder.newBuilder().maximumSize(maxCacheSize).build();
+        this();
     }
 
     @Override
     public void setSeed(long seed) {
-        if (this.seed != seed) {
-            this.seed = seed;
-            modelCache.invalidateAll();
-        }
+        // ignore
     }
 
     @Override
     public void process(GeneratingRegion region) {
         GraphFacet graphFacet = region.getRegionFacet(GraphFacet.class);
         RiverModelFacet riverFacet = new RiverModelFacet();
-        WaterModelFacet waterFacet = region.getRegionFacet(WaterModelFacet.class);
-        ElevationModelFacet elevationModelFacet = region.getRegionFacet(ElevationModelFacet.class);
 
-        for (Graph graph : graphFacet.getAllGraphs()) {
-            WaterModel waterModel = waterFacet.get(graph);
-            ElevationModel elevationModel = elevationModelFacet.get(graph);
-            RiverModel model = getOrCreate(graph, elevationModel, waterModel);
-            riverFacet.add(graph, model);
+        for (IslandBundle bundle : graphFacet.getAllBundles()) {
+            riverFacet.add(bundle.getGraph(), bundle.getRiverModel());
         }
 
         region.setRegionFacet(RiverModelFacet.class, riverFacet);
     }
-
-    private RiverModel getOrCreate(final Graph graph, final ElevationModel elevationModel, final WaterModel waterModel) {
-        try {
-            return modelCache.get(graph, new Callable<RiverModel>() {
-
-                @Override
-                public RiverModel call() {
-                    return new DefaultRiverModel(graph, elevationModel, waterModel);
-                }
-            });
-        } catch (ExecutionException e) {
-            logger.error("Could not create elevation model", e.getCause());
-            return null;
-        }
-    }
-
 }
@@ -0,0 +1,112 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld.rp;
+
+import com.google.common.collect.Lists;
+import org.terasology.engine.utilities.random.FastRandom;
+import org.terasology.engine.world.block.BlockAreac;
+
+import java.util.Collection;
+
+/**
+ * Subdivides a given rectangle recursively, like {@link SubdivRegionProvider}, but every split node
+ * has its own seed that is derived from the path that leads to it. Any node can therefore be generated
+ * without generating its siblings, so area and point queries descend only the branches that they need.
+ * <p>
+ * The layout differs from {@link SubdivRegionProvider} for the same seed, so only new worlds may use it.
+ */
+public class PathSeededRegionProvider extends SubdivRegionProvider {
+
+    public PathSeededRegionProvider(long seed, int minEdgeLen, float splitProb) {
+        super(seed, minEdgeLen, splitProb);
+    }
+
+    @Override
+    public Collection<BlockAreac> getSectorRegions(BlockAreac fullArea) {
+        Collection<BlockAreac> areas = Lists.newArrayList();
+        split(areas, null, rootSeed(fullArea), getSplitProb(), fullArea);
+        return areas;
+    }
+
+    /**
+     * Generates only the branches of the split tree that intersect the target area.
+     */
+    @Override
+    public Collection<BlockAreac> getSectorRegions(BlockAreac fullArea, BlockAreac target) {
+        Collection<BlockAreac> areas = Lists.newArrayList();
+        if (fullArea.intersectsBlockArea(target)) {
+            split(areas, target, rootSeed(fullArea), getSplitProb(), fullArea);
+        }
+        return areas;
+    }
+
+    /**
+     * Descends a single branch of the split tree.
+     */
+    @Override
+    public BlockAreac getSectorRegion(BlockAreac fullArea, int x, int y) {
+        if (!fullArea.contains(x, y)) {
+            return null;
+        }
+
+        long nodeSeed = rootSeed(fullArea);
+        float splitProb = getSplitProb();
+        BlockAreac area = fullArea;
+        while (true) {
+            BlockAreac[] children = splitNode(area, new FastRandom(nodeSeed), splitProb);
+            if (children == null) {
+                return area;
+            }
+            int child = children[0].contains(x, y) ? 0 : 1;
+            area = children[child];
+            nodeSeed = childSeed(nodeSeed, child);
+            splitProb /= 2f;
+        }
+    }
+
+    /**
+     * @param areas the collection that receives all leaves
+     * @param target only leaves that intersect this area are generated or <code>null</code> to generate all
+     * @param nodeSeed the seed of the node
+     * @param splitProb the base probability that the node is split
+     * @param fullArea the area of the node
+     */
+    private void split(Collection<BlockAreac> areas, BlockAreac target, long nodeSeed, float splitProb, BlockAreac fullArea) {
+        BlockAreac[] children = splitNode(fullArea, new FastRandom(nodeSeed), splitProb);
+        if (children == null) {
+            areas.add(fullArea);
+            return;
+        }
+
+        float childSplitProb = splitProb / 2f;
+        for (int i = 0; i < children.length; i++) {
+            if (target == null || children[i].intersectsBlockArea(target)) {
+                split(areas, target, childSeed(nodeSeed, i), childSplitProb, children[i]);
+            }
+        }
+    }
+
+    private long rootSeed(BlockAreac fullArea) {
+        return mix(getSeed() ^ mix(((long) fullArea.minX() << 32) ^ (fullArea.minY() & 0xFFFFFFFFL)
+                ^ ((long) fullArea.getSizeX() * 31 + fullArea.getSizeY()) * 0xC2B2AE3D27D4EB4FL));
+    }
+
+    /**
+     * Every node derives the seeds of its children from its own seed, so that any node can be
+     * generated from the path that leads to it without generating its siblings.
+     */
+    private static long childSeed(long nodeSeed, int child) {
+        return mix(nodeSeed + (child + 1) * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * The finalizer of SplitMix64 - spreads similar inputs over all bits
+     */
+    private static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
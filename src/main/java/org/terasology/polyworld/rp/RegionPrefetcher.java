@@ -0,0 +1,449 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld.rp;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.world.block.BlockAreac;
+import org.terasology.engine.world.block.BlockRegion;
+import org.terasology.engine.world.generation.Border3D;
+import org.terasology.engine.world.generation.FacetProvider;
+import org.terasology.engine.world.generation.GeneratingRegion;
+import org.terasology.engine.world.generation.WorldFacet;
+import org.terasology.polyworld.stats.PolyWorldStats;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Watches the areas that are requested from a {@link WorldRegionFacetProvider} and builds graphs and models
+ * of the island regions that lie ahead, on low-priority background threads.
+ * <p>
+ * Requests are grouped into tracks by their distance, so that every player gets its own heading: the smoothed
+ * movement of the areas in its track. Prefetching runs the configured providers on a single block in the
+ * center of a region, so all results end up in the providers' own caches.
+ * Speculative work is capped: if all slots are busy, predictions are dropped.
+ */
+public class RegionPrefetcher implements BiConsumer<BlockAreac, Collection<WorldRegion>>, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegionPrefetcher.class);
+
+    /**
+     * The weight of a new request in the smoothed request center
+     */
+    private static final float SMOOTHING = 0.1f;
+
+    /**
+     * The minimum smoothed movement per request (in blocks) that counts as a heading
+     */
+    private static final float MIN_SPEED = 0.5f;
+
+    /**
+     * Predictions are re-evaluated only if the predicted point moves to a different cell of this size
+     */
+    private static final int CELL_SIZE = 64;
+
+    /**
+     * Requests that are further away from all tracks start a new track. This is larger than the view distance
+     * of a player, but smaller than the distance between players that should be tracked separately.
+     */
+    private static final float TRACK_RADIUS = 1024;
+
+    /**
+     * The maximum number of tracks - the least recently used track is replaced
+     */
+    private static final int MAX_TRACKS = 8;
+
+    /**
+     * Marks the prefetching threads, so that their own requests are not tracked and islands are built on them
+     */
+    private static final ThreadLocal<Boolean> PREFETCHING = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final WorldRegionFacetProvider regionProvider;
+    private final List<FacetProvider> providers;
+    private final int lookahead;
+
+    private final Executor executor;
+    private final Semaphore slots;
+
+    /**
+     * Prefetched regions that were not requested yet (value = true). Regions are keyed by area,
+     * because a predicted region is not the same instance as the requested one.
+     */
+    private final Cache<BlockAreac, Boolean> pending;
+
+    /**
+     * Regions that were recently requested by world generation (value = true)
+     */
+    private final Cache<BlockAreac, Boolean> requested;
+
+    private final LongAdder prefetchCount = new LongAdder();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder wasteCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+
+    /**
+     * The tracks of all recent requesters (guarded by this)
+     */
+    private final List<Track> tracks = new ArrayList<>();
+    private long requestCount;
+
+    private volatile boolean installed;
+    private volatile boolean closed;
+
+    /**
+     * @param regionProvider the provider whose requests are observed
+     * @param providers the facet providers to run for a region, in dependency order (including the region provider)
+     * @param lookahead the distance in blocks to look ahead in the direction of the movement
+     * @param maxConcurrent the maximum number of regions that are prefetched at the same time
+     * @param maxPending the maximum number of prefetched regions that are tracked until they are requested
+     */
+    public RegionPrefetcher(WorldRegionFacetProvider regionProvider, List<FacetProvider> providers,
+                            int lookahead, int maxConcurrent, int maxPending) {
+        this(regionProvider, providers, lookahead, maxConcurrent, maxPending, createExecutor(maxConcurrent));
+    }
+
+    /**
+     * @param executor runs the prefetching tasks, shut down on {@link #close()} if it is an {@link ExecutorService}
+     */
+    RegionPrefetcher(WorldRegionFacetProvider regionProvider, List<FacetProvider> providers,
+                     int lookahead, int maxConcurrent, int maxPending, Executor executor) {
+        Preconditions.checkArgument(lookahead > 0, "lookahead must be positive");
+        Preconditions.checkArgument(maxConcurrent > 0, "maxConcurrent must be positive");
+
+        this.regionProvider = regionProvider;
+        this.providers = ImmutableList.copyOf(providers);
+        this.lookahead = lookahead;
+        this.executor = executor;
+
+        slots = new Semaphore(maxConcurrent);
+
+        // prefetched regions that are evicted before they were requested were wasted
+        pending = CacheBuilder.newBuilder()
+                .maximumSize(maxPending)
+                .expireAfterWrite(5, TimeUnit.MINUTES)
+                .<BlockAreac, Boolean>removalListener(note -> {
+                    if (note.wasEvicted()) {
+                        wasteCount.increment();
+                    }
+                })
+                .build();
+        requested = CacheBuilder.newBuilder().maximumSize(maxPending * 4L).build();
+    }
+
+    /**
+     * Providers that build in a shared pool should build on the calling thread instead, if this is true.
+     * The prefetching threads have a low priority, but that only takes effect for work they do themselves.
+     * @return true if the current thread prefetches a region
+     */
+    public static boolean isPrefetching() {
+        return PREFETCHING.get();
+    }
+
+    private static ExecutorService createExecutor(int maxConcurrent) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("polyworld-prefetch-%d")
+                        .setDaemon(true)
+                        .setPriority(Thread.MIN_PRIORITY)
+                        .build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Registers this instance as request listener of the region provider.
+     */
+    public void install() {
+        installed = true;
+        regionProvider.setRequestListener(this);
+    }
+
+    /**
+     * Unregisters this instance from the region provider and stops all prefetching.
+     * Regions that are currently prefetched are interrupted.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (installed) {
+            installed = false;
+            regionProvider.setRequestListener(null);
+        }
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    /**
+     * Called for every area that is requested by world generation.
+     * @param target the requested area
+     * @param regions the regions that intersect the requested area
+     */
+    @Override
+    public void accept(BlockAreac target, Collection<WorldRegion> regions) {
+        if (PREFETCHING.get() || closed) {
+            return;
+        }
+
+        for (WorldRegion wr : regions) {
+            requested.put(wr.getArea(), Boolean.TRUE);
+            if (pending.asMap().remove(wr.getArea()) != null) {
+                hitCount.increment();
+            }
+        }
+
+        float x = (target.minX() + target.maxX()) * 0.5f;
+        float z = (target.minY() + target.maxY()) * 0.5f;
+        float fromX;
+        float fromZ;
+        float aheadX;
+        float aheadZ;
+        synchronized (this) {
+            Track track = findTrack(x, z);
+            if (track == null) {
+                addTrack(x, z);
+                return;
+            }
+            track.lastUse = ++requestCount;
+
+            float newX = track.centerX + (x - track.centerX) * SMOOTHING;
+            float newZ = track.centerZ + (z - track.centerZ) * SMOOTHING;
+            track.motionX += (newX - track.centerX - track.motionX) * SMOOTHING;
+            track.motionZ += (newZ - track.centerZ - track.motionZ) * SMOOTHING;
+            track.centerX = newX;
+            track.centerZ = newZ;
+
+            float speed = (float) Math.sqrt(track.motionX * track.motionX + track.motionZ * track.motionZ);
+            if (speed < MIN_SPEED) {
+                return;
+            }
+            fromX = track.centerX;
+            fromZ = track.centerZ;
+            aheadX = track.centerX + track.motionX / speed * lookahead;
+            aheadZ = track.centerZ + track.motionZ / speed * lookahead;
+
+            int cellX = Math.floorDiv((int) aheadX, CELL_SIZE);
+            int cellZ = Math.floorDiv((int) aheadZ, CELL_SIZE);
+            long cell = ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+            if (track.lastCell == cell) {
+                return;
+            }
+            track.lastCell = cell;
+        }
+
+        predict(fromX, fromZ, (int) aheadX, (int) aheadZ);
+    }
+
+    /**
+     * @return the closest track within {@link #TRACK_RADIUS} or <code>null</code>
+     */
+    private Track findTrack(float x, float z) {
+        Track closest = null;
+        float minDistSq = TRACK_RADIUS * TRACK_RADIUS;
+        for (Track track : tracks) {
+            float dx = track.centerX - x;
+            float dz = track.centerZ - z;
+            float distSq = dx * dx + dz * dz;
+            if (distSq <= minDistSq) {
+                minDistSq = distSq;
+                closest = track;
+            }
+        }
+        return closest;
+    }
+
+    private void addTrack(float x, float z) {
+        if (tracks.size() >= MAX_TRACKS) {
+            Track oldest = tracks.get(0);
+            for (Track track : tracks) {
+                if (track.lastUse < oldest.lastUse) {
+                    oldest = track;
+                }
+            }
+            tracks.remove(oldest);
+        }
+        Track track = new Track(x, z);
+        track.lastUse = ++requestCount;
+        tracks.add(track);
+    }
+
+    /**
+     * @return the number of requesters that are currently tracked
+     */
+    synchronized int getTrackCount() {
+        return tracks.size();
+    }
+
+    /**
+     * Prefetches all island regions on the line from the current center to the predicted point.
+     */
+    private void predict(float fromX, float fromZ, int aheadX, int aheadZ) {
+        int steps = Math.max(1, lookahead / CELL_SIZE);
+        for (int i = 1; i <= steps; i++) {
+            int x = Math.round(fromX + (aheadX - fromX) * i / steps);
+            int z = Math.round(fromZ + (aheadZ - fromZ) * i / steps);
+            WorldRegion wr = regionProvider.getRegion(x, z);
+            if (wr != null && wr.getType() == RegionType.ISLAND) {
+                submit(wr);
+            }
+        }
+    }
+
+    private void submit(WorldRegion wr) {
+        BlockAreac area = wr.getArea();
+        if (requested.getIfPresent(area) != null || pending.getIfPresent(area) != null) {
+            return;
+        }
+        if (!slots.tryAcquire()) {
+            droppedCount.increment();
+            return;
+        }
+
+        pending.put(area, Boolean.TRUE);
+        prefetchCount.increment();
+        try {
+            executor.execute(() -> prefetch(area));
+        } catch (RejectedExecutionException e) {
+            // closed concurrently
+            pending.invalidate(area);
+            slots.release();
+        }
+    }
+
+    private void prefetch(BlockAreac area) {
+        try {
+            PREFETCHING.set(Boolean.TRUE);
+            int x = (area.minX() + area.maxX()) / 2;
+            int z = (area.minY() + area.maxY()) / 2;
+            PrefetchRegion region = new PrefetchRegion(new BlockRegion(x, 0, z, x, 0, z));
+            for (FacetProvider provider : providers) {
+                if (closed) {
+                    break;
+                }
+                provider.process(region);
+            }
+            logger.debug("Prefetched region {}", area);
+        } catch (RuntimeException e) {
+            logger.warn("Could not prefetch region {}", area, e);
+        } finally {
+            PREFETCHING.set(Boolean.FALSE);
+            slots.release();
+        }
+    }
+
+    /**
+     * Registers the prefetch counters, so that they are reported together with the caches of the providers.
+     * @param stats the statistics of the world generator
+     */
+    public void setStats(PolyWorldStats stats) {
+        stats.registerCounter("prefetched regions", this::getPrefetchCount);
+        stats.registerCounter("prefetch hits", this::getHitCount);
+        stats.registerCounter("prefetch waste", this::getWasteCount);
+        stats.registerCounter("prefetch dropped", this::getDroppedCount);
+    }
+
+    /**
+     * @return the number of regions that were prefetched
+     */
+    public long getPrefetchCount() {
+        return prefetchCount.sum();
+    }
+
+    /**
+     * @return the number of prefetched regions that were requested later
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return the number of prefetched regions that were discarded before they were requested
+     */
+    public long getWasteCount() {
+        pending.cleanUp();
+        return wasteCount.sum();
+    }
+
+    /**
+     * @return the number of predicted regions that were not prefetched, because all slots were busy
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RegionPrefetcher [prefetched=%d, hits=%d, waste=%d, dropped=%d]",
+                getPrefetchCount(), getHitCount(), getWasteCount(), getDroppedCount());
+    }
+
+    /**
+     * The smoothed center and movement of the requests of one requester
+     */
+    private static final class Track {
+        private float centerX;
+        private float centerZ;
+        private float motionX;
+        private float motionZ;
+        private long lastCell = Long.MIN_VALUE;
+        private long lastUse;
+
+        Track(float centerX, float centerZ) {
+            this.centerX = centerX;
+            this.centerZ = centerZ;
+        }
+    }
+
+    /**
+     * A minimal generating region for a single block that only stores facets
+     */
+    private static final class PrefetchRegion implements GeneratingRegion {
+
+        private final BlockRegion region;
+        private final Map<Class<? extends WorldFacet>, WorldFacet> facets = Maps.newHashMap();
+
+        PrefetchRegion(BlockRegion region) {
+            this.region = region;
+        }
+
+        @Override
+        public BlockRegion getRegion() {
+            return region;
+        }
+
+        @Override
+        public <T extends WorldFacet> T getRegionFacet(Class<T> type) {
+            return type.cast(facets.get(type));
+        }
+
+        @Override
+        public <T extends WorldFacet> void setRegionFacet(Class<T> type, T facet) {
+            facets.put(type, facet);
+        }
+
+        @Override
+        public Border3D getBorderForFacet(Class<? extends WorldFacet> type) {
+            return new Border3D(0, 0, 0);
+        }
+    }
+}
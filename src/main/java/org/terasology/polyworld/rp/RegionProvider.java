@@ -18,6 +18,7 @@ package org.terasology.polyworld.rp;
 
 import org.terasology.engine.world.block.BlockAreac;
 
+import java.util.ArrayList;
 import java.util.Collection;
 
 /**
@@ -30,4 +31,34 @@ public interface RegionProvider {
      * @return a collection of regions that lie inside the given area
      */
     Collection<BlockAreac> getSectorRegions(BlockAreac fullArea);
+
+    /**
+     * @param fullArea the area that contains all sub-regions
+     * @param target the area of interest
+     * @return all regions in the given area that intersect the target area
+     */
+    default Collection<BlockAreac> getSectorRegions(BlockAreac fullArea, BlockAreac target) {
+        Collection<BlockAreac> result = new ArrayList<>();
+        for (BlockAreac area : getSectorRegions(fullArea)) {
+            if (area.intersectsBlockArea(target)) {
+                result.add(area);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param fullArea the area that contains all sub-regions
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the region in the given area that contains the point or <code>null</code> if there is none
+     */
+    default BlockAreac getSectorRegion(BlockAreac fullArea, int x, int y) {
+        for (BlockAreac area : getSectorRegions(fullArea)) {
+            if (area.contains(x, y)) {
+                return area;
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,218 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld.rp;
+
+import org.terasology.engine.world.block.BlockAreac;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A spatial index of the regions of one sector. The regions are kept in the order of the {@link RegionProvider}
+ * and the index is a binary split tree over them: every inner node divides a range of regions into two
+ * sub-ranges that are separated by a line along x or y. For the recursive splits of {@link SubdivRegionProvider}
+ * and the rows of {@link GridRegionProvider} such a line always exists. Regions that cannot be separated
+ * remain in one leaf and are tested one by one.
+ * <p>
+ * This class is immutable and queries do not allocate.
+ */
+final class SectorIndex {
+
+    private static final byte LEAF = 0;
+    private static final byte SPLIT_X = 1;
+    private static final byte SPLIT_Y = 2;
+
+    private final int sectorX;
+    private final int sectorY;
+    private final long version;
+
+    private final WorldRegion[] regions;
+    private final int[] minX;
+    private final int[] minY;
+    private final int[] maxX;
+    private final int[] maxY;
+
+    /**
+     * For inner nodes the children and the first coordinate of the second child along the split axis,
+     * for leaves the range of regions [first, second)
+     */
+    private final byte[] axis;
+    private final int[] split;
+    private final int[] first;
+    private final int[] second;
+    private int nodeCount;
+
+    /**
+     * @param sectorX the x index of the sector
+     * @param sectorY the y index of the sector
+     * @param version the settings version that the regions were created with
+     * @param regions the regions of the sector - they must not overlap
+     */
+    SectorIndex(int sectorX, int sectorY, long version, List<WorldRegion> regions) {
+        this.sectorX = sectorX;
+        this.sectorY = sectorY;
+        this.version = version;
+        this.regions = regions.toArray(new WorldRegion[0]);
+
+        int n = this.regions.length;
+        minX = new int[n];
+        minY = new int[n];
+        maxX = new int[n];
+        maxY = new int[n];
+        for (int i = 0; i < n; i++) {
+            BlockAreac area = this.regions[i].getArea();
+            minX[i] = area.minX();
+            minY[i] = area.minY();
+            maxX[i] = area.maxX();
+            maxY[i] = area.maxY();
+        }
+
+        // a binary tree with n leaves has 2n - 1 nodes
+        int maxNodes = Math.max(1, 2 * n - 1);
+        axis = new byte[maxNodes];
+        split = new int[maxNodes];
+        first = new int[maxNodes];
+        second = new int[maxNodes];
+        build(0, n, new int[n], new int[n]);
+    }
+
+    /**
+     * @param lo the first region (inclusive)
+     * @param hi the last region (exclusive)
+     * @param sufMinX temporary space for the minimum x of all suffixes
+     * @param sufMinY temporary space for the minimum y of all suffixes
+     * @return the index of the new node
+     */
+    private int build(int lo, int hi, int[] sufMinX, int[] sufMinY) {
+        int node = nodeCount++;
+        axis[node] = LEAF;
+        first[node] = lo;
+        second[node] = hi;
+        if (hi - lo < 2) {
+            return node;
+        }
+
+        sufMinX[hi - 1] = minX[hi - 1];
+        sufMinY[hi - 1] = minY[hi - 1];
+        for (int k = hi - 2; k > lo; k--) {
+            sufMinX[k] = Math.min(minX[k], sufMinX[k + 1]);
+            sufMinY[k] = Math.min(minY[k], sufMinY[k + 1]);
+        }
+
+        // find the separable split that is closest to the middle to keep the tree shallow
+        int mid = (lo + hi) >>> 1;
+        int bestK = -1;
+        byte bestAxis = LEAF;
+        int preMaxX = Integer.MIN_VALUE;
+        int preMaxY = Integer.MIN_VALUE;
+        for (int k = lo + 1; k < hi; k++) {
+            preMaxX = Math.max(preMaxX, maxX[k - 1]);
+            preMaxY = Math.max(preMaxY, maxY[k - 1]);
+            byte kAxis = preMaxX < sufMinX[k] ? SPLIT_X : preMaxY < sufMinY[k] ? SPLIT_Y : LEAF;
+            if (kAxis != LEAF && (bestK < 0 || Math.abs(k - mid) < Math.abs(bestK - mid))) {
+                bestK = k;
+                bestAxis = kAxis;
+            }
+        }
+
+        if (bestK < 0) {
+            return node;
+        }
+
+        axis[node] = bestAxis;
+        split[node] = bestAxis == SPLIT_X ? sufMinX[bestK] : sufMinY[bestK];
+        first[node] = build(lo, bestK, sufMinX, sufMinY);
+        second[node] = build(bestK, hi, sufMinX, sufMinY);
+        return node;
+    }
+
+    /**
+     * @param sx the x index of a sector
+     * @param sy the y index of a sector
+     * @param settingsVersion a settings version
+     * @return true if this index contains the regions of the given sector and version
+     */
+    boolean isSector(int sx, int sy, long settingsVersion) {
+        return sectorX == sx && sectorY == sy && version == settingsVersion;
+    }
+
+    /**
+     * @return the number of regions in the sector
+     */
+    int size() {
+        return regions.length;
+    }
+
+    /**
+     * Adds all regions that intersect the query rectangle (inclusive bounds) in the original order.
+     * @param qMinX the minimum x coordinate
+     * @param qMinY the minimum y coordinate
+     * @param qMaxX the maximum x coordinate
+     * @param qMaxY the maximum y coordinate
+     * @param result the collection that receives the regions
+     */
+    void collect(int qMinX, int qMinY, int qMaxX, int qMaxY, Collection<? super WorldRegion> result) {
+        if (regions.length > 0) {
+            collect(0, qMinX, qMinY, qMaxX, qMaxY, result);
+        }
+    }
+
+    private void collect(int node, int qMinX, int qMinY, int qMaxX, int qMaxY, Collection<? super WorldRegion> result) {
+        switch (axis[node]) {
+            case SPLIT_X:
+                if (qMinX < split[node]) {
+                    collect(first[node], qMinX, qMinY, qMaxX, qMaxY, result);
+                }
+                if (qMaxX >= split[node]) {
+                    collect(second[node], qMinX, qMinY, qMaxX, qMaxY, result);
+                }
+                break;
+            case SPLIT_Y:
+                if (qMinY < split[node]) {
+                    collect(first[node], qMinX, qMinY, qMaxX, qMaxY, result);
+                }
+                if (qMaxY >= split[node]) {
+                    collect(second[node], qMinX, qMinY, qMaxX, qMaxY, result);
+                }
+                break;
+            default:
+                for (int i = first[node]; i < second[node]; i++) {
+                    if (minX[i] <= qMaxX && maxX[i] >= qMinX && minY[i] <= qMaxY && maxY[i] >= qMinY) {
+                        result.add(regions[i]);
+                    }
+                }
+                break;
+        }
+    }
+
+    /**
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the region that contains the point or <code>null</code>
+     */
+    WorldRegion find(int x, int y) {
+        if (regions.length == 0) {
+            return null;
+        }
+        int node = 0;
+        while (axis[node] != LEAF) {
+            int coord = axis[node] == SPLIT_X ? x : y;
+            node = coord < split[node] ? first[node] : second[node];
+        }
+        for (int i = first[node]; i < second[node]; i++) {
+            if (minX[i] <= x && maxX[i] >= x && minY[i] <= y && maxY[i] >= y) {
+                return regions[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param regionBytes the approximate size of a single {@link WorldRegion}
+     * @return the approximate size of this index and its regions in bytes
+     */
+    long getEstimatedBytes(long regionBytes) {
+        return 96L + regions.length * (regionBytes + 4 * 4 + 8) + axis.length * (1 + 3 * 4);
+    }
+}
@@ -27,6 +27,8 @@ import java.util.Collection;
 
 /**
  * Subdivides a given rectangle recursively.
+ * All splits of a sector are drawn from one random stream, which defines the layout of existing worlds.
+ * See {@link PathSeededRegionProvider} for a layout that can be queried partially.
  */
 public class SubdivRegionProvider implements RegionProvider {
 
@@ -50,6 +52,10 @@ public class SubdivRegionProvider implements RegionProvider {
         setMinEdgeLen(minEdgeLen);
     }
 
+    long getSeed() {
+        return seed;
+    }
+
     public int getMinEdgeLen() {
         return minEdgeLen;
     }
@@ -59,6 +65,10 @@ public class SubdivRegionProvider implements RegionProvider {
         this.minEdgeLen = minEdgeLen;
     }
 
+    public float getSplitProb() {
+        return baseSplitProb;
+    }
+
     public void setSplitProb(float splitProb) {
         Preconditions.checkArgument(splitProb >= 0);
         Preconditions.checkArgument(splitProb <= 1);
@@ -77,7 +87,27 @@ public class SubdivRegionProvider implements RegionProvider {
         return areas;
     }
 
+    /**
+     * All nodes draw from the same stream, depth-first, so the subdivision cannot be generated partially.
+     */
     private void split(Collection<BlockAreac> areas, Random random, float splitProb, BlockAreac fullArea) {
+        BlockAreac[] children = splitNode(fullArea, random, splitProb);
+        if (children == null) {
+            areas.add(fullArea);
+        } else {
+            float childSplitProb = splitProb / 2f;
+            split(areas, random, childSplitProb, children[0]);
+            split(areas, random, childSplitProb, children[1]);
+        }
+    }
+
+    /**
+     * @param fullArea the area of the node
+     * @param random the random number generator of the node
+     * @param splitProb the base probability that the node is split
+     * @return the two children of the node or <code>null</code> if it is a leaf
+     */
+    BlockAreac[] splitNode(BlockAreac fullArea, Random random, float splitProb) {
         int maxWidth = fullArea.getSizeX();
         int maxHeight = fullArea.getSizeY();
 
@@ -92,33 +122,28 @@ public class SubdivRegionProvider implements RegionProvider {
         boolean stop = (range <= 0) || (rnd > realSplitProb);
 
         if (stop) {
-            areas.add(fullArea);
-        } else {
-
-            int splitPos = minEdgeLen + random.nextInt(range);
-            int x;
-            int y;
-            int width;
-            int height;
-            if (splitX) {
-                width = splitPos;
-                height = maxHeight;
-                x = fullArea.minX() + width;
-                y = fullArea.minY();
-            } else {
-                width = maxWidth;
-                height = splitPos;
-                x = fullArea.minX();
-                y = fullArea.minY() + height;
-            }
-
-            BlockArea first = new BlockArea(fullArea.minX(), fullArea.minY()).setSize(width, height);
-            BlockArea second = new BlockArea(x, y, fullArea.maxX(), fullArea.maxY());
+            return null;
+        }
 
-            float childSplitProb = splitProb / 2f;
-            split(areas, random, childSplitProb, first);
-            split(areas, random, childSplitProb, second);
+        int splitPos = minEdgeLen + random.nextInt(range);
+        int x;
+        int y;
+        int width;
+        int height;
+        if (splitX) {
+            width = splitPos;
+            height = maxHeight;
+            x = fullArea.minX() + width;
+            y = fullArea.minY();
+        } else {
+            width = maxWidth;
+            height = splitPos;
+            x = fullArea.minX();
+            y = fullArea.minY() + height;
         }
-    }
 
+        BlockArea first = new BlockArea(fullArea.minX(), fullArea.minY()).setSize(width, height);
+        BlockArea second = new BlockArea(x, y, fullArea.maxX(), fullArea.maxY());
+        return new BlockAreac[] {first, second};
+    }
 }
@@ -7,6 +7,7 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
 import org.joml.Vector3i;
 import org.terasology.engine.utilities.procedural.Noise;
 import org.terasology.engine.utilities.procedural.WhiteNoise;
@@ -19,11 +20,15 @@ import org.terasology.engine.world.generation.ConfigurableFacetProvider;
 import org.terasology.engine.world.generation.GeneratingRegion;
 import org.terasology.engine.world.generation.Produces;
 import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.nui.properties.Checkbox;
 import org.terasology.nui.properties.Range;
+import org.terasology.polyworld.CacheBudget;
+import org.terasology.polyworld.stats.BuildStage;
+import org.terasology.polyworld.stats.PolyWorldStats;
 
 import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
 
 /**
  * TODO Type description
@@ -31,61 +36,89 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 @Produces(WorldRegionFacet.class)
 public class WorldRegionFacetProvider implements ConfigurableFacetProvider {
 
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(false);
-
     public static final int SECTOR_SIZE = 1024;
     public static final int SECTOR_POWER = Integer.numberOfTrailingZeros(SECTOR_SIZE);
 
-    private RegionProvider regionProvider;
+    /**
+     * The approximate size of a {@link WorldRegion} including its area and list slot
+     */
+    private static final long REGION_BYTES = 96;
+
+    private static final String CACHE_NAME = "sectors";
+
     private Configuration configuration = new Configuration();
 
-    private Noise islandRatioNoise;
+    /**
+     * Replaced, but never modified on configuration changes, so that generating threads never block
+     */
+    private volatile Settings settings = new Settings(0, 0, configuration);
 
-    private final CacheLoader<BlockAreac, Collection<WorldRegion>> loader = new CacheLoader<BlockAreac, Collection<WorldRegion>>() {
+    private final CacheLoader<SectorKey, SectorIndex> loader = new CacheLoader<SectorKey, SectorIndex>() {
 
         @Override
-        public Collection<WorldRegion> load(BlockAreac fullArea) throws Exception {
-            float maxArea = 0.75f * SECTOR_SIZE * SECTOR_SIZE;
+        public SectorIndex load(SectorKey key) throws Exception {
+            long start = System.nanoTime();
+            Settings s = key.settings;
 
             List<WorldRegion> result = Lists.newArrayList();
-            for (BlockAreac area : regionProvider.getSectorRegions(fullArea)) {
-                float rnd = islandRatioNoise.noise(area.minX(), area.minY());
-                float scale = area.area() / maxArea;
-
-                WorldRegion wr = new WorldRegion(area);
-                wr.setHeightScaleFactor(scale);
-                if (rnd < configuration.islandDensity) {
-                    wr.setType(RegionType.ISLAND);
-                } else {
-                    wr.setType(RegionType.OCEAN);
-                }
-                result.add(wr);
+            for (BlockAreac area : s.regionProvider.getSectorRegions(getSectorArea(key.sectorX, key.sectorY))) {
+                result.add(createRegion(area, s));
             }
-            return result;
+            SectorIndex index = new SectorIndex(key.sectorX, key.sectorY, s.version, result);
+            stats.record(BuildStage.SECTORS, System.nanoTime() - start);
+            return index;
         }
     };
 
-    private final LoadingCache<BlockAreac, Collection<WorldRegion>> cache;
+    /**
+     * Sectors of previous configurations are not removed, but age out because they are no longer requested
+     */
+    private final LoadingCache<SectorKey, SectorIndex> cache;
+
+    /**
+     * The most recently used sector - most requests are smaller than a sector and hit the same one repeatedly
+     */
+    private volatile SectorIndex recentSector;
+
+    private volatile PolyWorldStats stats = new PolyWorldStats();
 
-    private long seed;
+    /**
+     * Notified about every requested area and the regions that intersect it
+     */
+    private volatile BiConsumer<BlockAreac, Collection<WorldRegion>> requestListener;
 
     /**
      * @param maxCacheSize maximum number of cached regions
      */
     public WorldRegionFacetProvider(int maxCacheSize) {
-        cache = CacheBuilder.newBuilder().maximumSize(maxCacheSize).build(loader);
+        cache = CacheBuilder.newBuilder().maximumSize(maxCacheSize).recordStats().build(loader);
+        stats.registerCache(CACHE_NAME, cache);
+    }
+
+    /**
+     * @param budget the memory budget of the cached sector regions
+     */
+    public WorldRegionFacetProvider(CacheBudget budget) {
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(budget.getMaxWeight())
+                .<SectorKey, SectorIndex>weigher((key, index) -> CacheBudget.toWeight(index.getEstimatedBytes(REGION_BYTES)))
+                .recordStats()
+                .build(loader);
+        stats.registerCache(CACHE_NAME, cache);
     }
 
     public WorldRegionFacetProvider(int maxCacheSize, float islandDensity) {
-        cache = CacheBuilder.newBuilder().maximumSize(maxCacheSize).build(loader);
+        cache = CacheBuilder.newBuilder().maximumSize(maxCacheSize).recordStats().build(loader);
+        stats.registerCache(CACHE_NAME, cache);
         configuration.islandDensity = islandDensity;
+        settings = new Settings(0, 0, configuration);
     }
 
     @Override
-    public void setSeed(long seed) {
-        this.seed = seed;
-        regionProvider = new SubdivRegionProvider(seed, configuration.minSize, 0.95f);
-        islandRatioNoise = new WhiteNoise(seed);
+    public synchronized void setSeed(long seed) {
+        if (settings.seed != seed) {
+            settings = new Settings(settings.version + 1, seed, configuration);
+        }
     }
 
     @Override
@@ -97,35 +130,125 @@ public class WorldRegionFacetProvider implements ConfigurableFacetProvider {
 
         Vector3i min = worldRegion.getMin(new Vector3i());
         Vector3i max = worldRegion.getMax(new Vector3i());
+        BlockAreac target = new BlockArea(min.x, min.z, max.x, max.z);
 
-        BlockAreac secArea = new BlockArea(
-            Chunks.toChunkPos(min.x, SECTOR_POWER), Chunks.toChunkPos(min.z, SECTOR_POWER),
-            Chunks.toChunkPos(max.x, SECTOR_POWER), Chunks.toChunkPos(max.z, SECTOR_POWER));
+        Collection<WorldRegion> regions = getRegions(target);
+        for (WorldRegion wr : regions) {
+            facet.addRegion(wr);
+        }
 
-        BlockAreac target = new BlockArea(min.x, min.z, max.x, max.z);
+        BiConsumer<BlockAreac, Collection<WorldRegion>> listener = requestListener;
+        if (listener != null) {
+            listener.accept(target, regions);
+        }
+
+        region.setRegionFacet(WorldRegionFacet.class, facet);
+    }
 
+    /**
+     * @param target the target area in world coordinates
+     * @return all regions that intersect the target area
+     */
+    public Collection<WorldRegion> getRegions(BlockAreac target) {
+        BlockAreac secArea = new BlockArea(
+            Chunks.toChunkPos(target.minX(), SECTOR_POWER), Chunks.toChunkPos(target.minY(), SECTOR_POWER),
+            Chunks.toChunkPos(target.maxX(), SECTOR_POWER), Chunks.toChunkPos(target.maxY(), SECTOR_POWER));
+
+        // all sectors of one request are taken from the same settings
+        Settings current = settings;
+        List<WorldRegion> result = Lists.newArrayList();
         for (int sx = secArea.minX(); sx <= secArea.maxX(); sx++) {
             for (int sz = secArea.minY(); sz <= secArea.maxY(); sz++) {
-                BlockAreac fullArea = new BlockArea(sx * SECTOR_SIZE, sz * SECTOR_SIZE).setSize(SECTOR_SIZE, SECTOR_SIZE);
-
-                Collection<WorldRegion> collection = cache.getIfPresent(fullArea);
-                if (collection == null) {
-                    try {
-                        lock.readLock().lock();
-                        collection = cache.getUnchecked(fullArea);
-                    } finally {
-                        lock.readLock().unlock();
-                    }
-                }
-                for (WorldRegion wr : collection) {
-                    if (wr.getArea().intersectsBlockArea(target)) {
-                        facet.addRegion(wr);
-                    }
-                }
+                getSector(sx, sz, current).collect(target.minX(), target.minY(), target.maxX(), target.maxY(), result);
             }
         }
+        return result;
+    }
 
-        region.setRegionFacet(WorldRegionFacet.class, facet);
+    /**
+     * If the sector of the position is not cached, only the region that contains the position is created
+     * and the sector is not cached (with path-seeded regions, only the splits that lead to it are generated).
+     * It covers the same area and has the same type and height scale as the region that is later provided
+     * to facets, but it is a different instance. Regions use identity equality, so compare them by area.
+     * @param x the x coordinate in world coordinates
+     * @param z the z coordinate in world coordinates
+     * @return the region that contains the position or <code>null</code> if there is none
+     */
+    public WorldRegion getRegion(int x, int z) {
+        int sx = Chunks.toChunkPos(x, SECTOR_POWER);
+        int sz = Chunks.toChunkPos(z, SECTOR_POWER);
+        Settings current = settings;
+
+        SectorIndex recent = recentSector;
+        SectorIndex index = recent != null && recent.isSector(sx, sz, current.version)
+                ? recent
+                : cache.getIfPresent(new SectorKey(sx, sz, current));
+        if (index != null) {
+            return index.find(x, z);
+        }
+
+        BlockAreac area = current.regionProvider.getSectorRegion(getSectorArea(sx, sz), x, z);
+        return area != null ? createRegion(area, current) : null;
+    }
+
+    private static BlockAreac getSectorArea(int sx, int sz) {
+        return new BlockArea(sx * SECTOR_SIZE, sz * SECTOR_SIZE).setSize(SECTOR_SIZE, SECTOR_SIZE);
+    }
+
+    private static WorldRegion createRegion(BlockAreac area, Settings s) {
+        float maxArea = 0.75f * SECTOR_SIZE * SECTOR_SIZE;
+        float rnd = s.islandRatioNoise.noise(area.minX(), area.minY());
+        float scale = area.area() / maxArea;
+
+        WorldRegion wr = new WorldRegion(area);
+        wr.setHeightScaleFactor(scale);
+        if (rnd < s.islandDensity) {
+            wr.setType(RegionType.ISLAND);
+        } else {
+            wr.setType(RegionType.OCEAN);
+        }
+        return wr;
+    }
+
+    private SectorIndex getSector(int sx, int sz, Settings current) {
+        SectorIndex recent = recentSector;
+        if (recent != null && recent.isSector(sx, sz, current.version)) {
+            return recent;
+        }
+
+        SectorKey key = new SectorKey(sx, sz, current);
+        SectorIndex index = cache.getUnchecked(key);
+        if (settings != current) {
+            // the configuration changed while loading - keep the result for this request only
+            cache.invalidate(key);
+        } else {
+            recentSector = index;
+        }
+        return index;
+    }
+
+    /**
+     * @return the statistics of the sector cache
+     */
+    public PolyWorldStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Records cache statistics and build times in a different instance, e.g. one that is shared by all providers.
+     * @param stats the statistics
+     */
+    public void setStats(PolyWorldStats stats) {
+        stats.registerCache(CACHE_NAME, cache);
+        this.stats = stats;
+    }
+
+    /**
+     * @param requestListener notified about every processed area and the regions that intersect it
+     *                        (on the generating thread), or <code>null</code>
+     */
+    public void setRequestListener(BiConsumer<BlockAreac, Collection<WorldRegion>> requestListener) {
+        this.requestListener = requestListener;
     }
 
     @Override
@@ -139,14 +262,91 @@ public class WorldRegionFacetProvider implements ConfigurableFacetProvider {
     }
 
     @Override
-    public void setConfiguration(Component configuration) {
-        try {
-            lock.writeLock().lock();
-            this.configuration = (Configuration) configuration;
-            setSeed(seed); // trigger updating fields with new configuration
-            cache.invalidateAll();
-        } finally {
-            lock.writeLock().unlock();
+    public synchronized void setConfiguration(Component configuration) {
+        this.configuration = (Configuration) configuration;
+        settings = new Settings(settings.version + 1, settings.seed, this.configuration);
+    }
+
+    /**
+     * @return the version of the current configuration - it increases with every change
+     */
+    public long getConfigVersion() {
+        return settings.version;
+    }
+
+    /**
+     * @return a hash of all configuration values that change the region layout - it is stable across sessions
+     */
+    public long getConfigFingerprint() {
+        return settings.fingerprint;
+    }
+
+    /**
+     * An immutable copy of the seed and the configuration, together with the generators derived from them.
+     */
+    private static final class Settings {
+
+        final long version;
+        final long seed;
+        final float islandDensity;
+        final RegionProvider regionProvider;
+        final Noise islandRatioNoise;
+
+        /**
+         * Covers all configuration values, but not the seed. Unlike the version, it is equal for equal configurations.
+         */
+        final long fingerprint;
+
+        Settings(long version, long seed, Configuration configuration) {
+            this.version = version;
+            this.seed = seed;
+            this.islandDensity = configuration.islandDensity;
+            this.regionProvider = configuration.pathSeededRegions
+                    ? new PathSeededRegionProvider(seed, configuration.minSize, 0.95f)
+                    : new SubdivRegionProvider(seed, configuration.minSize, 0.95f);
+            this.islandRatioNoise = new WhiteNoise(seed);
+            this.fingerprint = Hashing.murmur3_128().newHasher()
+                    .putInt(configuration.minSize)
+                    .putFloat(configuration.islandDensity)
+                    .putBoolean(configuration.pathSeededRegions)
+                    .hash().asLong();
+        }
+    }
+
+    /**
+     * A sector in a specific settings version. The settings are used for loading, but only the
+     * version is compared.
+     */
+    private static final class SectorKey {
+
+        final int sectorX;
+        final int sectorY;
+        final Settings settings;
+        private final int hash;
+
+        SectorKey(int sectorX, int sectorY, Settings settings) {
+            this.sectorX = sectorX;
+            this.sectorY = sectorY;
+            this.settings = settings;
+            this.hash = 31 * (31 * sectorX + sectorY) + Long.hashCode(settings.version);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof SectorKey)) {
+                return false;
+            }
+            SectorKey other = (SectorKey) obj;
+            return hash == other.hash && sectorX == other.sectorX && sectorY == other.sectorY
+                    && settings.version == other.settings.version;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
         }
     }
 
@@ -158,10 +358,17 @@ public class WorldRegionFacetProvider implements ConfigurableFacetProvider {
         @Range(min = 0.1f, max = 1.0f, increment = 0.1f, precision = 1, description = "Define the ratio islands/water")
         public float islandDensity = 0.7f;
 
+        /**
+         * Off for existing worlds, whose saved configuration does not contain this value
+         */
+        @Checkbox(description = "Seed every region split separately - changes the layout, for new worlds only")
+        public boolean pathSeededRegions;
+
         @Override
         public void copyFrom(Configuration other) {
             this.minSize = other.minSize;
             this.islandDensity = other.islandDensity;
+            this.pathSeededRegions = other.pathSeededRegions;
         }
     }
 }
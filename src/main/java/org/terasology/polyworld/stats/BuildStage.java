@@ -0,0 +1,50 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld.stats;
+
+/**
+ * The steps of creating an island that are timed separately.
+ */
+public enum BuildStage {
+
+    /**
+     * Splitting a sector into world regions
+     */
+    SECTORS,
+
+    /**
+     * Point sampling, Voronoi diagram, relaxation and graph creation
+     */
+    GRAPH,
+
+    /**
+     * Creation of the triangle locator
+     */
+    LOOKUP,
+
+    WATER,
+
+    ELEVATION,
+
+    RIVERS,
+
+    MOISTURE,
+
+    BIOME,
+
+    /**
+     * Reading a graph and its models from an island store
+     */
+    RESTORE,
+
+    /**
+     * Packing an evicted island into the compressed cache
+     */
+    PACK,
+
+    /**
+     * Unpacking an island from the compressed cache, including its triangle lookup
+     */
+    UNPACK
+}
@@ -0,0 +1,206 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld.stats;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Collects the statistics of the caches and the build times of all PolyWorld providers of a world generator.
+ * Caches must be built with <code>recordStats()</code> to report hits, misses and evictions.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class PolyWorldStats {
+
+    private static final PolyWorldStats DISABLED = new PolyWorldStats(false);
+
+    private final boolean enabled;
+
+    private final Map<BuildStage, LatencyHistogram> histograms = new EnumMap<>(BuildStage.class);
+
+    /**
+     * The registered caches and their statistics at the last reset, by name
+     */
+    private final Map<String, Cache<?, ?>> caches = new ConcurrentHashMap<>();
+    private final Map<String, CacheStats> baselines = new ConcurrentHashMap<>();
+
+    /**
+     * The registered counters and their values at the last reset, by name
+     */
+    private final Map<String, LongSupplier> counters = new ConcurrentHashMap<>();
+    private final Map<String, Long> counterBaselines = new ConcurrentHashMap<>();
+
+    public PolyWorldStats() {
+        this(true);
+    }
+
+    private PolyWorldStats(boolean enabled) {
+        this.enabled = enabled;
+        for (BuildStage stage : BuildStage.values()) {
+            histograms.put(stage, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * @return a shared instance that ignores all records and registrations
+     */
+    public static PolyWorldStats disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Adds a cache or replaces the cache with the same name.
+     * @param name the name of the cache
+     * @param cache the cache
+     */
+    public void registerCache(String name, Cache<?, ?> cache) {
+        if (enabled) {
+            caches.put(name, cache);
+            baselines.remove(name);
+        }
+    }
+
+    /**
+     * Adds a monotonic counter or replaces the counter with the same name.
+     * @param name the name of the counter
+     * @param counter supplies the current value of the counter
+     */
+    public void registerCounter(String name, LongSupplier counter) {
+        if (enabled) {
+            counters.put(name, counter);
+            counterBaselines.remove(name);
+        }
+    }
+
+    /**
+     * @param stage the build stage
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(BuildStage stage, long nanos) {
+        if (enabled) {
+            histograms.get(stage).record(nanos);
+        }
+    }
+
+    /**
+     * Runs a task and records its duration.
+     * @param stage the build stage
+     * @param task the task to run
+     * @return the result of the task
+     */
+    public <T> T time(BuildStage stage, Supplier<T> task) {
+        long start = System.nanoTime();
+        T result = task.get();
+        record(stage, System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * @param stage the build stage
+     * @return the durations of the stage since the last reset
+     */
+    public LatencyHistogram getHistogram(BuildStage stage) {
+        return histograms.get(stage);
+    }
+
+    /**
+     * @return the names of all registered caches
+     */
+    public Set<String> getCacheNames() {
+        return ImmutableSet.copyOf(caches.keySet());
+    }
+
+    /**
+     * @param name the name of the cache
+     * @return the statistics of the cache since the last reset or <code>null</code> if there is no such cache
+     */
+    public CacheStats getCacheStats(String name) {
+        Cache<?, ?> cache = caches.get(name);
+        if (cache == null) {
+            return null;
+        }
+        CacheStats baseline = baselines.get(name);
+        return baseline != null ? cache.stats().minus(baseline) : cache.stats();
+    }
+
+    /**
+     * @param name the name of the cache
+     * @return the approximate number of entries in the cache or 0 if there is no such cache
+     */
+    public long getCacheSize(String name) {
+        Cache<?, ?> cache = caches.get(name);
+        return cache != null ? cache.size() : 0;
+    }
+
+    /**
+     * @return the names of all registered counters
+     */
+    public Set<String> getCounterNames() {
+        return ImmutableSet.copyOf(counters.keySet());
+    }
+
+    /**
+     * @param name the name of the counter
+     * @return the increase of the counter since the last reset or 0 if there is no such counter
+     */
+    public long getCounter(String name) {
+        LongSupplier counter = counters.get(name);
+        if (counter == null) {
+            return 0;
+        }
+        return counter.getAsLong() - counterBaselines.getOrDefault(name, 0L);
+    }
+
+    /**
+     * Discards all build times and starts counting cache statistics and counters from zero. Cache contents are not changed.
+     */
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+        caches.forEach((name, cache) -> baselines.put(name, cache.stats()));
+        counters.forEach((name, counter) -> counterBaselines.put(name, counter.getAsLong()));
+    }
+
+    /**
+     * @return a human-readable summary of all caches, counters and build stages, one per line
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Caches:");
+        for (String name : getCacheNames()) {
+            CacheStats cs = getCacheStats(name);
+            sb.append(String.format("%n  %s: size=%d, hits=%d (%.1f%%), misses=%d, evictions=%d, mean load=%.1fms",
+                    name, getCacheSize(name), cs.hitCount(), cs.hitRate() * 100, cs.missCount(), cs.evictionCount(),
+                    cs.averageLoadPenalty() / 1e6));
+        }
+        if (!counters.isEmpty()) {
+            sb.append(String.format("%nCounters:"));
+            for (String name : new TreeMap<>(counters).keySet()) {
+                sb.append(String.format("%n  %s: %d", name, getCounter(name)));
+            }
+        }
+        sb.append(String.format("%nBuild stages:"));
+        for (BuildStage stage : BuildStage.values()) {
+            LatencyHistogram histogram = histograms.get(stage);
+            if (histogram.getCount() > 0) {
+                sb.append(String.format("%n  %s: %s", stage, histogram));
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return report();
+    }
+}
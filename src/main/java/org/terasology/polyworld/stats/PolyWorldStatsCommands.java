@@ -0,0 +1,52 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld.stats;
+
+import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
+import org.terasology.engine.entitySystem.systems.RegisterMode;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.logic.console.commandSystem.annotations.Command;
+import org.terasology.engine.logic.permission.PermissionManager;
+import org.terasology.engine.registry.CoreRegistry;
+import org.terasology.engine.world.generator.WorldGenerator;
+import org.terasology.polyworld.IslandWorldGenerator;
+
+/**
+ * Console commands that show the cache and build statistics of the island world generator.
+ */
+@RegisterSystem(RegisterMode.AUTHORITY)
+public class PolyWorldStatsCommands extends BaseComponentSystem {
+
+    @Command(shortDescription = "Shows PolyWorld cache and build statistics",
+            helpText = "Lists hits, misses, evictions and entries of all PolyWorld caches and the build times of islands per stage",
+            runOnServer = true,
+            requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String polyWorldStats() {
+        PolyWorldStats stats = findStats();
+        return stats != null ? stats.report() : "The current world is not generated by PolyWorld";
+    }
+
+    @Command(shortDescription = "Resets PolyWorld cache and build statistics",
+            runOnServer = true,
+            requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String polyWorldStatsReset() {
+        PolyWorldStats stats = findStats();
+        if (stats == null) {
+            return "The current world is not generated by PolyWorld";
+        }
+        stats.reset();
+        return "PolyWorld statistics reset";
+    }
+
+    /**
+     * The world generator is looked up for every command, because it is created after systems are initialized.
+     */
+    private static PolyWorldStats findStats() {
+        WorldGenerator worldGenerator = CoreRegistry.get(WorldGenerator.class);
+        if (worldGenerator instanceof IslandWorldGenerator) {
+            return ((IslandWorldGenerator) worldGenerator).getStats();
+        }
+        return null;
+    }
+}
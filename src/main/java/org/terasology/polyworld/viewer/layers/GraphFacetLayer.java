@@ -226,8 +226,8 @@ public class GraphFacetLayer extends AbstractFacetLayer {
 
             int i = 0;
             for (Corner corner : pts) {
-                xPoints[i] = (int) corner.getLocation().x();
-                yPoints[i] = (int) corner.getLocation().y();
+                xPoints[i] = (int) corner.getX();
+                yPoints[i] = (int) corner.getY();
                 i++;
             }
 
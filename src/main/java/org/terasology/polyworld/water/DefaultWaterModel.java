@@ -18,7 +18,6 @@ package org.terasology.polyworld.water;
 
 import com.google.common.collect.Maps;
 import org.joml.Vector2f;
-import org.joml.Vector2fc;
 import org.terasology.engine.world.block.BlockAreac;
 import org.terasology.polyworld.distribution.Distribution;
 import org.terasology.polyworld.graph.Corner;
@@ -54,9 +53,8 @@ public class DefaultWaterModel implements WaterModel {
 
         for (Corner c : graph.getCorners()) {
             BlockAreac bounds = graph.getBounds();
-            Vector2fc p2 = c.getLocation();
-            float nx = (p2.x() - bounds.minX()) / bounds.getSizeX();
-            float ny = (p2.y() - bounds.minY()) / bounds.getSizeY();
+            float nx = (c.getX() - bounds.minX()) / bounds.getSizeX();
+            float ny = (c.getY() - bounds.minY()) / bounds.getSizeY();
 
             setWater(c, dist.isInside(new Vector2f(nx, ny)));
         }
@@ -16,78 +16,46 @@
 
 package org.terasology.polyworld.water;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import org.terasology.engine.world.generation.Facet;
 import org.terasology.engine.world.generation.FacetProvider;
 import org.terasology.engine.world.generation.GeneratingRegion;
 import org.terasology.engine.world.generation.Produces;
 import org.terasology.engine.world.generation.Requires;
-import org.terasology.polyworld.distribution.Distribution;
-import org.terasology.polyworld.distribution.PerlinDistribution;
-import org.terasology.polyworld.distribution.RadialDistribution;
-import org.terasology.polyworld.graph.Graph;
+import org.terasology.polyworld.IslandBundle;
 import org.terasology.polyworld.graph.GraphFacet;
-import org.terasology.polyworld.rp.RegionType;
-import org.terasology.polyworld.rp.WorldRegion;
-import org.terasology.polyworld.rp.WorldRegionFacet;
 
 /**
- * TODO Type description
+ * Provides the water models of all graphs in the region.
+ * Island regions use a seeded noise distribution, ocean regions are entirely water (see {@link IslandBundle}).
  */
 @Produces(WaterModelFacet.class)
-@Requires({@Facet(WorldRegionFacet.class), @Facet(GraphFacet.class)})
+@Requires(@Facet(GraphFacet.class))
 public class WaterModelFacetProvider implements FacetProvider {
 
-    private final CacheLoader<Graph, WaterModel> loader = new CacheLoader<Graph, WaterModel>() {
-
-        @Override
-        public WaterModel load(Graph key) throws Exception {
-            long graphSeed = seed ^ key.getBounds().hashCode();
-
-            Distribution waterDist = (graphSeed % 2 == 0)  // a very primitive noise function
-                    ? new PerlinDistribution(graphSeed)
-                    : new RadialDistribution(graphSeed);
-
-            return new DefaultWaterModel(key, waterDist);
-        }
-
-    };
-
-    private final LoadingCache<Graph, WaterModel> waterModelCache;
-
-    private long seed;
+    public WaterModelFacetProvider() {
+    }
 
     /**
-     * @param maxCacheSize maximum number of cached models
+     * @param maxCacheSize ignored
+     * @deprecated models are cached together with their graph, use {@link #WaterModelFacetProvider()}
      */
+    @Deprecated
     public WaterModelFacetProvider(int maxCacheSize) {
-        waterModelCache = CacheBuilder.newBuilder().maximumSize(maxCacheSize).build(loader);
+        this();
     }
 
     @Override
     public void setSeed(long seed) {
-        if (this.seed != seed) {
-            this.seed = seed;
-            waterModelCache.invalidateAll();
-        }
+        // ignore
     }
 
     @Override
     public void process(GeneratingRegion region) {
         GraphFacet graphFacet = region.getRegionFacet(GraphFacet.class);
-        WorldRegionFacet regionFacet = region.getRegionFacet(WorldRegionFacet.class);
         WaterModelFacet waterFacet = new WaterModelFacet();
 
-        for (WorldRegion wr : regionFacet.getRegions()) {
-            // TODO: move to loading cache
-            Graph g = graphFacet.getGraph(wr);
-            if (wr.getType() == RegionType.OCEAN) {
-                waterFacet.add(g, new PureOceanWaterModel());
-            } else {
-                waterFacet.add(g, waterModelCache.getUnchecked(g));
-            }
+        for (IslandBundle bundle : graphFacet.getAllBundles()) {
+            waterFacet.add(bundle.getGraph(), bundle.getWaterModel());
         }
 
         region.setRegionFacet(WaterModelFacet.class, waterFacet);
@@ -0,0 +1,129 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.math.delaunay;
+
+import org.joml.Vector2f;
+import org.joml.Vector2fc;
+import org.junit.jupiter.api.Test;
+import org.terasology.engine.utilities.random.MersenneRandom;
+import org.terasology.joml.geom.Rectanglef;
+import org.terasology.polyworld.sampling.PoissonDiscSampling;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link LloydRelaxation} against the centroids of the regions of {@link Voronoi}.
+ */
+public class LloydRelaxationTest {
+
+    private final Rectanglef bounds = new Rectanglef(0, 0, 400, 300);
+
+    @Test
+    public void testRandomSites() {
+        Random rng = new Random(1234);
+        List<Vector2fc> points = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            points.add(new Vector2f(rng.nextFloat() * bounds.getSizeX(), rng.nextFloat() * bounds.getSizeY()));
+        }
+        assertCentroids(points);
+    }
+
+    @Test
+    public void testPoissonDiscSites() {
+        assertCentroids(new PoissonDiscSampling().create(bounds, 300, new MersenneRandom(17)));
+    }
+
+    @Test
+    public void testGridSites() {
+        List<Vector2fc> points = new ArrayList<>();
+        for (int y = 10; y < 300; y += 40) {
+            for (int x = 10; x < 400; x += 40) {
+                points.add(new Vector2f(x, y));
+            }
+        }
+        assertCentroids(points);
+    }
+
+    @Test
+    public void testFewSites() {
+        for (Voronoi.Engine engine : Voronoi.Engine.values()) {
+            LloydRelaxation empty = new LloydRelaxation(Collections.emptyList(), bounds, engine);
+            assertEquals(0, empty.step());
+            assertTrue(empty.getSites().isEmpty());
+
+            assertRelaxed(Collections.singletonList(new Vector2f(100, 100)), engine, new Vector2f(200, 150));
+            assertRelaxed(Arrays.asList(new Vector2f(100, 100), new Vector2f(300, 100)), engine,
+                    new Vector2f(100, 150), new Vector2f(300, 150));
+            assertRelaxed(Arrays.asList(new Vector2f(100, 100), new Vector2f(200, 100), new Vector2f(300, 100)), engine,
+                    new Vector2f(75, 150), new Vector2f(200, 150), new Vector2f(325, 150));
+        }
+    }
+
+    @Test
+    public void testEarlyStop() {
+        List<Vector2fc> points = new PoissonDiscSampling().create(bounds, 200, new MersenneRandom(5));
+
+        LloydRelaxation relaxation = new LloydRelaxation(points, bounds, Voronoi.Engine.FORTUNE);
+        assertEquals(0, relaxation.relax(0, 1f));
+        assertEquals(points, relaxation.getSites());
+
+        int iterations = relaxation.relax(100, 1f);
+        assertTrue(iterations < 100);
+        assertEquals(iterations, relaxation.getIterations());
+
+        // the sites barely move anymore
+        assertTrue(relaxation.step() < 2f);
+    }
+
+    private void assertRelaxed(List<Vector2fc> points, Voronoi.Engine engine, Vector2fc... expected) {
+        LloydRelaxation relaxation = new LloydRelaxation(points, bounds, engine);
+        relaxation.step();
+        List<Vector2fc> sites = relaxation.getSites();
+        assertEquals(expected.length, sites.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(0, expected[i].distance(sites.get(i)), 1e-3f, engine + ": site " + i);
+        }
+    }
+
+    private void assertCentroids(List<Vector2fc> points) {
+        for (Voronoi.Engine engine : Voronoi.Engine.values()) {
+            Voronoi v = new Voronoi(points, bounds, engine);
+            LloydRelaxation relaxation = new LloydRelaxation(points, bounds, engine);
+            float maxDist = relaxation.step();
+
+            List<Vector2fc> sites = relaxation.getSites();
+            assertEquals(v.siteCoords().size(), sites.size());
+            float expectedMaxDist = 0;
+            for (int i = 0; i < sites.size(); i++) {
+                Vector2fc site = v.siteCoords().get(i);
+                Vector2fc centroid = centroid(v.region(site));
+                assertEquals(0, centroid.distance(sites.get(i)), 1e-2f, engine + ": centroid of " + site);
+                expectedMaxDist = Math.max(expectedMaxDist, centroid.distance(site));
+            }
+            assertEquals(expectedMaxDist, maxDist, 1e-2f);
+        }
+    }
+
+    private static Vector2fc centroid(List<Vector2fc> polygon) {
+        double area = 0;
+        double x = 0;
+        double y = 0;
+        for (int i = 0; i < polygon.size(); i++) {
+            Vector2fc p = polygon.get(i);
+            Vector2fc q = polygon.get((i + 1) % polygon.size());
+            double cross = (double) p.x() * q.y() - (double) q.x() * p.y();
+            area += cross;
+            x += (p.x() + q.x()) * cross;
+            y += (p.y() + q.y()) * cross;
+        }
+        return new Vector2f((float) (x / (3 * area)), (float) (y / (3 * area)));
+    }
+}
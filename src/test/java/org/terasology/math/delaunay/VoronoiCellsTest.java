@@ -0,0 +1,123 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.math.delaunay;
+
+import org.joml.Vector2f;
+import org.joml.Vector2fc;
+import org.junit.jupiter.api.Test;
+import org.terasology.engine.utilities.random.MersenneRandom;
+import org.terasology.joml.geom.Rectanglef;
+import org.terasology.polyworld.sampling.PoissonDiscSampling;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that {@link VoronoiCells} matches the regions and clipped edges of {@link Voronoi}.
+ */
+public class VoronoiCellsTest {
+
+    private final Rectanglef bounds = new Rectanglef(0, 0, 400, 300);
+
+    @Test
+    public void testRandomSites() {
+        Random rng = new Random(4321);
+        List<Vector2fc> points = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            points.add(new Vector2f(rng.nextFloat() * bounds.getSizeX(), rng.nextFloat() * bounds.getSizeY()));
+        }
+        assertSameCells(points);
+    }
+
+    @Test
+    public void testPoissonDiscSites() {
+        assertSameCells(new PoissonDiscSampling().create(bounds, 300, new MersenneRandom(7)));
+    }
+
+    @Test
+    public void testGridSites() {
+        List<Vector2fc> points = new ArrayList<>();
+        for (int y = 10; y < 300; y += 40) {
+            for (int x = 10; x < 400; x += 40) {
+                points.add(new Vector2f(x, y));
+            }
+        }
+        assertSameCells(points);
+    }
+
+    @Test
+    public void testFewSites() {
+        assertSameCells(Collections.emptyList());
+        assertSameCells(Collections.singletonList(new Vector2f(100, 100)));
+        assertSameCells(Arrays.asList(new Vector2f(100, 100), new Vector2f(200, 150)));
+        assertSameCells(Arrays.asList(new Vector2f(100, 100), new Vector2f(200, 100), new Vector2f(300, 100)));
+    }
+
+    @Test
+    public void testSharedCorners() {
+        Voronoi v = new Voronoi(new PoissonDiscSampling().create(bounds, 200, new MersenneRandom(3)), bounds);
+        VoronoiCells cells = v.cells();
+
+        Set<Vector2f> distinct = new HashSet<>();
+        for (int p = 0; p < cells.getPointCount(); p++) {
+            distinct.add(new Vector2f(cells.getPointX(p), cells.getPointY(p)));
+        }
+        assertEquals(cells.getPointCount(), distinct.size());
+
+        // inner corners are shared by three cells
+        int[] cellsPerPoint = new int[cells.getPointCount()];
+        for (int i = 0; i < cells.getCellEnd(cells.getCellCount() - 1); i++) {
+            cellsPerPoint[cells.getCellPoint(i)]++;
+        }
+        assertTrue(Arrays.stream(cellsPerPoint).filter(c -> c == 3).count() > cells.getPointCount() / 2);
+        assertSame(cells, v.cells());
+    }
+
+    private void assertSameCells(List<Vector2fc> points) {
+        for (Voronoi.Engine engine : Voronoi.Engine.values()) {
+            Voronoi v = new Voronoi(points, bounds, engine);
+            VoronoiCells cells = new Voronoi(points, bounds, engine).cells();
+
+            List<Vector2fc> sites = v.siteCoords();
+            assertEquals(sites.size(), cells.getCellCount());
+            for (int cell = 0; cell < cells.getCellCount(); cell++) {
+                Vector2fc site = sites.get(cell);
+                assertEquals(site, new Vector2f(cells.getSiteX(cell), cells.getSiteY(cell)));
+
+                List<Vector2fc> corners = new ArrayList<>();
+                for (int i = cells.getCellStart(cell); i < cells.getCellEnd(cell); i++) {
+                    corners.add(point(cells, cells.getCellPoint(i)));
+                }
+                assertEquals(v.region(site), corners, engine + ": region of " + site);
+            }
+
+            assertEquals(v.edges().size(), cells.getEdgeCount());
+            for (int e = 0; e < cells.getEdgeCount(); e++) {
+                Edge edge = v.edges().get(e);
+                assertEquals(edge.getLeftSite().getCoord(), sites.get(cells.getEdgeLeftCell(e)));
+                assertEquals(edge.getRightSite().getCoord(), sites.get(cells.getEdgeRightCell(e)));
+                if (edge.isVisible()) {
+                    assertEquals(edge.getClippedEnd(LR.LEFT), point(cells, cells.getEdgeLeftPoint(e)));
+                    assertEquals(edge.getClippedEnd(LR.RIGHT), point(cells, cells.getEdgeRightPoint(e)));
+                } else {
+                    assertEquals(-1, cells.getEdgeLeftPoint(e));
+                    assertEquals(-1, cells.getEdgeRightPoint(e));
+                }
+            }
+        }
+    }
+
+    private static Vector2fc point(VoronoiCells cells, int point) {
+        return new Vector2f(cells.getPointX(point), cells.getPointY(point));
+    }
+}
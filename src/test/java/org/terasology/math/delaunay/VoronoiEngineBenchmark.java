@@ -0,0 +1,130 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.math.delaunay;
+
+import org.joml.Vector2fc;
+import org.terasology.engine.utilities.random.FastRandom;
+import org.terasology.joml.geom.Rectanglef;
+import org.terasology.polyworld.sampling.PoissonDiscSampling;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Compares the run time of all {@link Voronoi.Engine}s for Poisson disc sites as they are used for islands,
+ * from small islands to large islands with a high graph density. It measures the algorithm alone, the complete
+ * {@link Voronoi} and the {@link Voronoi} with all regions, which is what a Lloyd relaxation step or a graph needs.
+ * Every value is the best of a few rounds.
+ */
+public final class VoronoiEngineBenchmark {
+
+    private static final int[] SITE_COUNTS = {100, 300, 1000, 3000, 10000, 30000};
+    private static final int ROUNDS = 3;
+
+    private VoronoiEngineBenchmark() {
+        // no instances
+    }
+
+    public static void main(String[] args) {
+        List<List<Vector2fc>> pointSets = new ArrayList<>();
+        List<Rectanglef> boundsList = new ArrayList<>();
+        for (int siteCount : SITE_COUNTS) {
+            float size = (float) Math.sqrt(siteCount * 500f);
+            Rectanglef bounds = new Rectanglef(0, 0, size, size);
+            boundsList.add(bounds);
+            pointSets.add(new PoissonDiscSampling().create(bounds, siteCount, new FastRandom(siteCount)));
+        }
+
+        // warm up all engines before the first measurement
+        for (int i = 0; i < SITE_COUNTS.length; i++) {
+            for (Voronoi.Engine engine : Voronoi.Engine.values()) {
+                run(pointSets.get(i), boundsList.get(i), engine, 3);
+            }
+        }
+
+        System.out.printf("%8s %16s %12s %12s %14s%n", "sites", "engine", "algorithm ms", "diagram ms", "+ regions ms");
+        for (int i = 0; i < SITE_COUNTS.length; i++) {
+            List<Vector2fc> points = pointSets.get(i);
+            Rectanglef bounds = boundsList.get(i);
+            int runs = Math.max(5, 200000 / points.size());
+            for (Voronoi.Engine engine : Voronoi.Engine.values()) {
+                double[] best = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+                for (int round = 0; round < ROUNDS; round++) {
+                    double[] times = run(points, bounds, engine, runs);
+                    for (int k = 0; k < best.length; k++) {
+                        best[k] = Math.min(best[k], times[k]);
+                    }
+                }
+                System.out.printf("%8d %16s %12.3f %12.3f %14.3f%n", points.size(), engine, best[0], best[1], best[2]);
+            }
+        }
+    }
+
+    /**
+     * @return the average milliseconds of the algorithm, the diagram and the diagram with regions
+     */
+    private static double[] run(List<Vector2fc> points, Rectanglef bounds, Voronoi.Engine engine, int runs) {
+        float[] siteX = new float[points.size()];
+        float[] siteY = new float[points.size()];
+        List<Vector2fc> sorted = new ArrayList<>(points);
+        sorted.sort(Comparator.comparing(Vector2fc::y).thenComparing(Vector2fc::x));
+        for (int i = 0; i < sorted.size(); i++) {
+            siteX[i] = sorted.get(i).x();
+            siteY[i] = sorted.get(i).y();
+        }
+
+        long count = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            DiagramBuilder builder = createBuilder(engine, siteX, siteY);
+            if (builder != null) {
+                builder.run();
+                count += builder.getEdgeCount();
+            }
+        }
+        long algorithm = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            count += new Voronoi(points, bounds, engine).edges().size();
+        }
+        long diagram = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            Voronoi v = new Voronoi(points, bounds, engine);
+            for (Vector2fc site : points) {
+                count += v.region(site).size();
+            }
+        }
+        long regions = System.nanoTime() - start;
+
+        if (count < 0) {
+            // keeps the results alive
+            System.out.println(count);
+        }
+        return new double[] {algorithm / 1e6 / runs, diagram / 1e6 / runs, regions / 1e6 / runs};
+    }
+
+    private static DiagramBuilder createBuilder(Voronoi.Engine engine, float[] siteX, float[] siteY) {
+        switch (engine) {
+            case FORTUNE:
+                float minX = Float.MAX_VALUE;
+                float maxX = -Float.MAX_VALUE;
+                for (float x : siteX) {
+                    minX = Math.min(minX, x);
+                    maxX = Math.max(maxX, x);
+                }
+                float minY = siteY[0];
+                float maxY = siteY[siteY.length - 1];
+                return new FortuneSweep(siteX, siteY, siteX.length, minX, maxX - minX, minY, maxY - minY);
+            case SWEEP_HULL:
+                return new SweepHullDelaunay(siteX, siteY, siteX.length);
+            default:
+                // the legacy implementation works on objects only
+                return null;
+        }
+    }
+}
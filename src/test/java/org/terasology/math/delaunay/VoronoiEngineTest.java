@@ -0,0 +1,176 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.math.delaunay;
+
+import org.joml.Vector2f;
+import org.joml.Vector2fc;
+import org.junit.jupiter.api.Test;
+import org.terasology.engine.utilities.random.MersenneRandom;
+import org.terasology.joml.geom.Rectanglef;
+import org.terasology.polyworld.sampling.PoissonDiscSampling;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests that all {@link Voronoi.Engine}s create the same diagram: the Fortune engines exactly,
+ * the sweep-hull engine up to rounding.
+ */
+public class VoronoiEngineTest {
+
+    private final Rectanglef bounds = new Rectanglef(0, 0, 400, 300);
+
+    @Test
+    public void testRandomSites() {
+        Random rng = new Random(1234);
+        List<Vector2fc> points = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            points.add(new Vector2f(rng.nextFloat() * bounds.getSizeX(), rng.nextFloat() * bounds.getSizeY()));
+        }
+        assertSameDiagram(points);
+        assertSimilarDiagram(points);
+    }
+
+    @Test
+    public void testPoissonDiscSites() {
+        List<Vector2fc> points = new PoissonDiscSampling().create(bounds, 300, new MersenneRandom(5));
+        assertSameDiagram(points);
+        assertSimilarDiagram(points);
+    }
+
+    @Test
+    public void testManySweepHullSites() {
+        Random rng = new Random(99);
+        List<Vector2fc> points = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            points.add(new Vector2f(rng.nextFloat() * bounds.getSizeX(), rng.nextFloat() * bounds.getSizeY()));
+        }
+        assertSimilarDiagram(points);
+    }
+
+    @Test
+    public void testGridSites() {
+        // many co-circular sites and equal coordinates
+        List<Vector2fc> points = new ArrayList<>();
+        for (int y = 10; y < 300; y += 40) {
+            for (int x = 10; x < 400; x += 40) {
+                points.add(new Vector2f(x, y));
+            }
+        }
+        assertSameDiagram(points);
+        assertSameRegions(points);
+    }
+
+    @Test
+    public void testFewSites() {
+        assertSameDiagram(Collections.emptyList());
+        assertSameDiagram(Collections.singletonList(new Vector2f(100, 100)));
+        assertSameDiagram(Arrays.asList(new Vector2f(100, 100), new Vector2f(200, 150)));
+        assertSameDiagram(Arrays.asList(new Vector2f(100, 100), new Vector2f(200, 100), new Vector2f(300, 100)));
+
+        assertSimilarDiagram(Collections.emptyList());
+        assertSimilarDiagram(Collections.singletonList(new Vector2f(100, 100)));
+        assertSimilarDiagram(Arrays.asList(new Vector2f(100, 100), new Vector2f(200, 150)));
+        assertSimilarDiagram(Arrays.asList(new Vector2f(100, 100), new Vector2f(200, 100), new Vector2f(300, 100)));
+        assertSimilarDiagram(Arrays.asList(new Vector2f(100, 100), new Vector2f(150, 150), new Vector2f(200, 200)));
+        assertSimilarDiagram(Arrays.asList(new Vector2f(100, 100), new Vector2f(300, 120), new Vector2f(180, 250)));
+    }
+
+    private void assertSameDiagram(List<Vector2fc> points) {
+        Voronoi expected = new Voronoi(points, bounds, Voronoi.Engine.LEGACY_FORTUNE);
+        Voronoi actual = new Voronoi(points, bounds, Voronoi.Engine.FORTUNE);
+
+        assertEquals(expected.siteCoords(), actual.siteCoords());
+        assertEquals(expected.edges().size(), actual.edges().size());
+        for (int i = 0; i < expected.edges().size(); i++) {
+            Edge e0 = expected.edges().get(i);
+            Edge e1 = actual.edges().get(i);
+            assertEquals(e0.getLeftSite().getCoord(), e1.getLeftSite().getCoord());
+            assertEquals(e0.getRightSite().getCoord(), e1.getRightSite().getCoord());
+            assertSameVertex(e0.getLeftVertex(), e1.getLeftVertex());
+            assertSameVertex(e0.getRightVertex(), e1.getRightVertex());
+            assertEquals(e0.getClippedEnds(), e1.getClippedEnds());
+        }
+        for (Vector2fc site : expected.siteCoords()) {
+            assertEquals(expected.region(site), actual.region(site));
+        }
+    }
+
+    /**
+     * Compares the sweep-hull engine with Fortune's algorithm: the same Delaunay edges with close vertices
+     * and regions of the same shape.
+     */
+    private void assertSimilarDiagram(List<Vector2fc> points) {
+        Voronoi expected = new Voronoi(points, bounds, Voronoi.Engine.FORTUNE);
+        Voronoi actual = new Voronoi(points, bounds, Voronoi.Engine.SWEEP_HULL);
+
+        assertEquals(expected.siteCoords(), actual.siteCoords());
+        assertEquals(expected.edges().size(), actual.edges().size());
+
+        Map<List<Vector2fc>, Edge> expectedEdges = new HashMap<>();
+        for (Edge e : expected.edges()) {
+            expectedEdges.put(Arrays.asList(e.getLeftSite().getCoord(), e.getRightSite().getCoord()), e);
+        }
+        for (Edge e1 : actual.edges()) {
+            Edge e0 = expectedEdges.get(Arrays.asList(e1.getLeftSite().getCoord(), e1.getRightSite().getCoord()));
+            assertNotNull(e0, "no such edge in Fortune's diagram");
+            assertCloseVertex(e0.getLeftVertex(), e1.getLeftVertex());
+            assertCloseVertex(e0.getRightVertex(), e1.getRightVertex());
+            assertEquals(e0.isVisible(), e1.isVisible());
+        }
+        assertSameRegions(points, expected, actual);
+    }
+
+    private void assertSameRegions(List<Vector2fc> points) {
+        Voronoi expected = new Voronoi(points, bounds, Voronoi.Engine.FORTUNE);
+        Voronoi actual = new Voronoi(points, bounds, Voronoi.Engine.SWEEP_HULL);
+        assertSameRegions(points, expected, actual);
+    }
+
+    private static void assertSameRegions(List<Vector2fc> points, Voronoi expected, Voronoi actual) {
+        for (Vector2fc site : points) {
+            // regions may start at a different corner and Fortune's vertices are less precise
+            double area = area(expected.region(site));
+            assertEquals(area, area(actual.region(site)), Math.max(0.01, area * 1e-3));
+        }
+    }
+
+    private static double area(List<Vector2fc> polygon) {
+        double area = 0;
+        for (int i = 0; i < polygon.size(); i++) {
+            Vector2fc p0 = polygon.get(i);
+            Vector2fc p1 = polygon.get((i + 1) % polygon.size());
+            area += (double) p0.x() * p1.y() - (double) p1.x() * p0.y();
+        }
+        return Math.abs(area) / 2;
+    }
+
+    private static void assertCloseVertex(Vertex expected, Vertex actual) {
+        if (expected == null || actual == null) {
+            assertSame(expected, actual);
+        } else {
+            // far outside of the bounds for nearly collinear sites
+            float delta = Math.max(0.01f, 1e-5f * Math.max(Math.abs(expected.x()), Math.abs(expected.y())));
+            assertEquals(expected.x(), actual.x(), delta);
+            assertEquals(expected.y(), actual.y(), delta);
+        }
+    }
+
+    private static void assertSameVertex(Vertex expected, Vertex actual) {
+        if (expected == null || expected == Vertex.VERTEX_AT_INFINITY) {
+            assertSame(expected, actual);
+        } else {
+            assertEquals(expected.getCoord(), actual.getCoord());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.math.delaunay;
+
+import org.joml.Vector2f;
+import org.joml.Vector2fc;
+import org.junit.jupiter.api.Test;
+import org.terasology.engine.utilities.random.MersenneRandom;
+import org.terasology.joml.geom.Rectanglef;
+import org.terasology.polyworld.sampling.PoissonDiscSampling;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the per-site queries of {@link Voronoi} against a scan of all edges.
+ */
+public class VoronoiSiteEdgesTest {
+
+    private final Rectanglef bounds = new Rectanglef(0, 0, 400, 300);
+
+    @Test
+    public void testPoissonDiscSites() {
+        assertSameAsScan(new PoissonDiscSampling().create(bounds, 300, new MersenneRandom(11)));
+    }
+
+    @Test
+    public void testGridSites() {
+        List<Vector2fc> points = new ArrayList<>();
+        for (int y = 10; y < 300; y += 40) {
+            for (int x = 10; x < 400; x += 40) {
+                points.add(new Vector2f(x, y));
+            }
+        }
+        assertSameAsScan(points);
+    }
+
+    @Test
+    public void testCopiedCoordinates() {
+        List<Vector2fc> points = Arrays.asList(new Vector2f(100, 100), new Vector2f(200, 120), new Vector2f(150, 200));
+        Voronoi v = new Voronoi(points, bounds);
+
+        // sites are found by value, not by instance
+        Vector2f copy = new Vector2f(points.get(0));
+        assertEquals(2, v.edgesForSite(copy).size());
+        assertEquals(2, v.voronoiBoundaryForSite(copy).size());
+        assertEquals(2, v.delaunayLinesForSite(copy).size());
+        assertTrue(v.isHullSite(copy));
+
+        Vector2f unknown = new Vector2f(1, 1);
+        assertTrue(v.edgesForSite(unknown).isEmpty());
+        assertTrue(v.neighborSitesForSite(unknown).isEmpty());
+        assertFalse(v.isHullSite(unknown));
+    }
+
+    @Test
+    public void testNeighborsBeforeRegion() {
+        List<Vector2fc> points = new PoissonDiscSampling().create(bounds, 100, new MersenneRandom(5));
+        Voronoi expected = new Voronoi(points, bounds);
+        Voronoi v = new Voronoi(points, bounds);
+        for (Vector2fc site : v.siteCoords()) {
+            v.neighborSitesForSite(site);
+        }
+        for (Vector2fc site : v.siteCoords()) {
+            assertEquals(expected.region(site), v.region(site));
+        }
+    }
+
+    private void assertSameAsScan(List<Vector2fc> points) {
+        for (Voronoi.Engine engine : Voronoi.Engine.values()) {
+            Voronoi v = new Voronoi(points, bounds, engine);
+
+            Set<Vector2fc> hullSites = new HashSet<>(v.hullPointsInOrder());
+            for (Vector2fc site : v.siteCoords()) {
+                List<Edge> scanned = new ArrayList<>();
+                for (Edge edge : v.edges()) {
+                    if (edge.getLeftSite().getCoord().equals(site) || edge.getRightSite().getCoord().equals(site)) {
+                        scanned.add(edge);
+                    }
+                }
+                assertEquals(scanned, v.edgesForSite(site), engine + ": edges of " + site);
+
+                List<Vector2fc> neighbors = new ArrayList<>();
+                List<Vector2fc> boundary = new ArrayList<>();
+                for (Edge edge : scanned) {
+                    Site other = edge.getLeftSite().getCoord().equals(site) ? edge.getRightSite() : edge.getLeftSite();
+                    neighbors.add(other.getCoord());
+                    if (edge.isVisible()) {
+                        boundary.add(edge.getClippedEnd(LR.LEFT));
+                        boundary.add(edge.getClippedEnd(LR.RIGHT));
+                    }
+                }
+                assertEquals(neighbors, v.neighborSitesForSite(site));
+                assertEquals(scanned.size(), v.delaunayLinesForSite(site).size());
+                assertEquals(boundary.size() / 2, v.voronoiBoundaryForSite(site).size());
+
+                List<Vector2fc> visited = new ArrayList<>();
+                v.forEachBoundarySegment(site, (x0, y0, x1, y1) -> {
+                    visited.add(new Vector2f(x0, y0));
+                    visited.add(new Vector2f(x1, y1));
+                });
+                assertEquals(boundary, visited);
+
+                assertEquals(hullSites.contains(site), v.isHullSite(site), engine + ": hull site " + site);
+            }
+        }
+    }
+}
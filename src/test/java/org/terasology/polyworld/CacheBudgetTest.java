@@ -0,0 +1,51 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests {@link CacheBudget}.
+ */
+public class CacheBudgetTest {
+
+    private static final String PROPERTY = "polyworld.test.cacheBudget";
+
+    @Test
+    public void testAllocate() {
+        CacheBudget budget = CacheBudget.ofBytes(1 << 20);
+        assertEquals(1 << 19, budget.allocate(0.5).getMaxBytes());
+        assertEquals(256, budget.allocate(0.25).getMaxWeight());
+        assertThrows(IllegalStateException.class, () -> budget.allocate(0.5));
+    }
+
+    @Test
+    public void testParseFraction() {
+        assertEquals(0.25, CacheBudget.parseFraction(PROPERTY, null, 0.25));
+        assertEquals(0.5, CacheBudget.parseFraction(PROPERTY, " 0.5 ", 0.25));
+        assertEquals(1.0, CacheBudget.parseFraction(PROPERTY, "1", 0.25));
+
+        // invalid values fall back to the default
+        assertEquals(0.25, CacheBudget.parseFraction(PROPERTY, "", 0.25));
+        assertEquals(0.25, CacheBudget.parseFraction(PROPERTY, "half", 0.25));
+        assertEquals(0.25, CacheBudget.parseFraction(PROPERTY, "0", 0.25));
+        assertEquals(0.25, CacheBudget.parseFraction(PROPERTY, "1.5", 0.25));
+        assertEquals(0.25, CacheBudget.parseFraction(PROPERTY, "NaN", 0.25));
+    }
+
+    @Test
+    public void testSystemProperty() {
+        long maxMemory = Runtime.getRuntime().maxMemory();
+        try {
+            System.setProperty(PROPERTY, "0.1");
+            assertEquals((long) (maxMemory * 0.1), CacheBudget.ofMaxHeapFraction(PROPERTY, 0.25).getMaxBytes());
+        } finally {
+            System.clearProperty(PROPERTY);
+        }
+        assertEquals((long) (maxMemory * 0.25), CacheBudget.ofMaxHeapFraction(PROPERTY, 0.25).getMaxBytes());
+    }
+}
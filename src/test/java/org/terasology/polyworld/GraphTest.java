@@ -20,15 +20,19 @@ import org.joml.Vector2f;
 import org.joml.Vector2fc;
 import org.junit.jupiter.api.Test;
 import org.terasology.engine.world.block.BlockArea;
+import org.terasology.engine.world.block.BlockAreac;
 import org.terasology.joml.geom.Rectanglef;
 import org.terasology.polyworld.graph.Corner;
 import org.terasology.polyworld.graph.Edge;
 import org.terasology.polyworld.graph.Graph;
 import org.terasology.polyworld.graph.GraphRegion;
+import org.terasology.polyworld.graph.Triangle;
+import org.terasology.polyworld.graph.TriangleMesh;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -134,5 +138,55 @@ public abstract class GraphTest {
         }
     }
 
-}
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testDefaultTriangleMesh() {
+        // a graph that only implements the abstract methods
+        Graph plain = new Graph() {
+            @Override
+            public List<GraphRegion> getRegions() {
+                return graph.getRegions();
+            }
+
+            @Override
+            public List<Edge> getEdges() {
+                return graph.getEdges();
+            }
+
+            @Override
+            public List<Corner> getCorners() {
+                return graph.getCorners();
+            }
 
+            @Override
+            public BlockAreac getBounds() {
+                return graph.getBounds();
+            }
+
+            @Override
+            public long getEstimatedBytes() {
+                return graph.getEstimatedBytes();
+            }
+        };
+
+        TriangleMesh expected = graph.getTriangleMesh();
+        TriangleMesh mesh = plain.getTriangleMesh();
+        assertEquals(expected.size(), mesh.size());
+        assertArrayEquals(expected.copyCoordinates(), mesh.copyCoordinates());
+        for (int tri = 0; tri < mesh.size(); tri++) {
+            assertEquals(expected.getRegion(tri), mesh.getRegion(tri));
+            assertEquals(expected.getCorner1(tri), mesh.getCorner1(tri));
+            assertEquals(expected.getCorner2(tri), mesh.getCorner2(tri));
+
+            // a triangle outside of any mesh interpolates like the canonical one
+            Triangle canonical = mesh.getTriangle(tri);
+            Triangle detached = new Triangle(canonical.getRegion(), canonical.getCorner1(), canonical.getCorner2());
+            Vector2f p = new Vector2f(canonical.getRegion().getCenter())
+                    .add(canonical.getCorner1().getLocation()).add(canonical.getCorner2().getLocation()).mul(1f / 3);
+            assertEquals(canonical.computeInterpolated(p, 1, 2, 4), detached.computeInterpolated(p, 1, 2, 4), 1e-3f);
+            Vector2f expectedGradient = canonical.computeInterpolationGradient(1, 2, 4, new Vector2f());
+            Vector2f gradient = detached.computeInterpolationGradient(1, 2, 4, new Vector2f());
+            assertTrue(expectedGradient.equals(gradient, 1e-3f), expectedGradient + " != " + gradient);
+        }
+    }
+}
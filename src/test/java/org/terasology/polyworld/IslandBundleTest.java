@@ -0,0 +1,112 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import org.joml.Vector2fc;
+import org.junit.jupiter.api.Test;
+import org.terasology.engine.utilities.random.MersenneRandom;
+import org.terasology.engine.world.block.BlockArea;
+import org.terasology.engine.world.block.BlockRegion;
+import org.terasology.engine.world.generation.Border3D;
+import org.terasology.joml.geom.Rectanglef;
+import org.terasology.math.delaunay.Voronoi;
+import org.terasology.polyworld.biome.BiomeModel;
+import org.terasology.polyworld.biome.DefaultBiomeModel;
+import org.terasology.polyworld.biome.WhittakerBiome;
+import org.terasology.polyworld.elevation.DefaultElevationModel;
+import org.terasology.polyworld.elevation.ElevationModel;
+import org.terasology.polyworld.elevation.ElevationModelFacet;
+import org.terasology.polyworld.elevation.FlatLakeProvider;
+import org.terasology.polyworld.graph.Corner;
+import org.terasology.polyworld.graph.Edge;
+import org.terasology.polyworld.graph.Graph;
+import org.terasology.polyworld.graph.GraphFacet;
+import org.terasology.polyworld.graph.GraphFacetImpl;
+import org.terasology.polyworld.graph.GraphRegion;
+import org.terasology.polyworld.graph.VoronoiGraph;
+import org.terasology.polyworld.moisture.DefaultMoistureModel;
+import org.terasology.polyworld.moisture.MoistureModel;
+import org.terasology.polyworld.rivers.DefaultRiverModel;
+import org.terasology.polyworld.rivers.RiverModel;
+import org.terasology.polyworld.rp.RegionType;
+import org.terasology.polyworld.rp.WorldRegion;
+import org.terasology.polyworld.sampling.PoissonDiscSampling;
+import org.terasology.polyworld.water.WaterModel;
+import org.terasology.polyworld.water.WaterModelFacet;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the models of an {@link IslandBundle} with the models that the facet providers used to build
+ */
+public class IslandBundleTest {
+
+    private static final long SEED = 10;
+
+    @Test
+    public void testSameModelsAsFacetChain() {
+        BlockArea area = new BlockArea(0, 0).setSize(512, 512);
+        Rectanglef bounds = area.getBounds(new Rectanglef());
+        List<Vector2fc> points = new PoissonDiscSampling().create(bounds, area.area() / 200, new MersenneRandom(SEED));
+        Graph graph = new VoronoiGraph(area, new Voronoi(points, bounds));
+
+        WorldRegion wr = new WorldRegion(area);
+        wr.setType(RegionType.ISLAND);
+        wr.setHeightScaleFactor(1f);
+        IslandBundle bundle = IslandBundle.create(wr, graph, new TriangleLookup(graph), SEED);
+
+        // the elevation model facet provider created the default model, then the flat lake provider updated it
+        WaterModel waterModel = bundle.getWaterModel();
+        ElevationModelFacet elevationFacet = new ElevationModelFacet();
+        elevationFacet.set(graph, new DefaultElevationModel(graph, waterModel, wr.getHeightScaleFactor()));
+        WaterModelFacet waterFacet = new WaterModelFacet();
+        waterFacet.add(graph, waterModel);
+        BlockRegion target = new BlockRegion(0, 0, 0, 511, 0, 511);
+        GraphFacetImpl graphFacet = new GraphFacetImpl(target, new Border3D(0, 0, 0));
+        graphFacet.add(wr, bundle);
+
+        TinyGeneratingRegion region = new TinyGeneratingRegion(target);
+        region.setRegionFacet(GraphFacet.class, graphFacet);
+        region.setRegionFacet(WaterModelFacet.class, waterFacet);
+        region.setRegionFacet(ElevationModelFacet.class, elevationFacet);
+        new FlatLakeProvider().process(region);
+
+        ElevationModel elevationModel = elevationFacet.get(graph);
+        RiverModel riverModel = new DefaultRiverModel(graph, elevationModel, waterModel);
+        MoistureModel moistureModel = new DefaultMoistureModel(graph, riverModel, waterModel);
+        BiomeModel biomeModel = new DefaultBiomeModel(elevationModel, waterModel, moistureModel);
+
+        int lakes = 0;
+        for (GraphRegion r : graph.getRegions()) {
+            if (biomeModel.getBiome(r) == WhittakerBiome.LAKE) {
+                lakes++;
+            }
+        }
+        assertTrue(lakes > 0, "no lakes to flatten");
+
+        assertSameModels(graph, riverModel, biomeModel, bundle);
+        assertSameModels(graph, riverModel, biomeModel, bundle.withDenseModels(false));
+    }
+
+    private static void assertSameModels(Graph graph, RiverModel rivers, BiomeModel biomes, IslandBundle bundle) {
+        int riverCorners = 0;
+        for (Corner c : graph.getCorners()) {
+            assertEquals(rivers.getRiverValue(c), bundle.getRiverModel().getRiverValue(c), "river at " + c);
+            if (rivers.getRiverValue(c) > 0) {
+                riverCorners++;
+            }
+        }
+        assertTrue(riverCorners > 0, "no rivers to compare");
+
+        for (Edge e : graph.getEdges()) {
+            assertEquals(rivers.getRiverValue(e), bundle.getRiverModel().getRiverValue(e), "river at " + e);
+        }
+        for (GraphRegion r : graph.getRegions()) {
+            assertEquals(biomes.getBiome(r), bundle.getBiomeModel().getBiome(r), "biome of " + r);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import org.junit.jupiter.api.Test;
+import org.terasology.engine.world.block.BlockArea;
+import org.terasology.polyworld.rp.RegionType;
+import org.terasology.polyworld.rp.WorldRegion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Tests that {@link IslandKey} compares islands by value and not by region instance.
+ */
+public class IslandKeyTest {
+
+    private static final long SEED = 1234;
+    private static final long CONFIG = 5678;
+
+    @Test
+    public void testEqualRegions() {
+        IslandKey a = new IslandKey(SEED, region(RegionType.ISLAND, 0.5f), CONFIG);
+        IslandKey b = new IslandKey(SEED, region(RegionType.ISLAND, 0.5f), CONFIG);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+    }
+
+    @Test
+    public void testDifferentIslands() {
+        IslandKey key = new IslandKey(SEED, region(RegionType.ISLAND, 0.5f), CONFIG);
+        assertNotEquals(key, new IslandKey(SEED + 1, region(RegionType.ISLAND, 0.5f), CONFIG));
+        assertNotEquals(key, new IslandKey(SEED, region(RegionType.OCEAN, 0.5f), CONFIG));
+        assertNotEquals(key, new IslandKey(SEED, region(RegionType.ISLAND, 0.75f), CONFIG));
+        assertNotEquals(key, new IslandKey(SEED, region(RegionType.ISLAND, 0.5f), CONFIG + 1));
+
+        WorldRegion moved = new WorldRegion(new BlockArea(-99, 50).setSize(200, 100));
+        moved.setType(RegionType.ISLAND);
+        moved.setHeightScaleFactor(0.5f);
+        assertNotEquals(key, new IslandKey(SEED, moved, CONFIG));
+    }
+
+    @Test
+    public void testCreateRegion() {
+        IslandKey key = new IslandKey(SEED, region(RegionType.ISLAND, 0.5f), CONFIG);
+        WorldRegion copy = key.createRegion();
+        assertEquals(new BlockArea(-100, 50).setSize(200, 100), copy.getArea());
+        assertEquals(RegionType.ISLAND, copy.getType());
+        assertEquals(0.5f, copy.getHeightScaleFactor());
+        assertEquals(key, new IslandKey(SEED, copy, CONFIG));
+    }
+
+    private static WorldRegion region(RegionType type, float heightScale) {
+        WorldRegion region = new WorldRegion(new BlockArea(-100, 50).setSize(200, 100));
+        region.setType(type);
+        region.setHeightScaleFactor(heightScale);
+        return region;
+    }
+}
@@ -0,0 +1,189 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import org.joml.Vector2fc;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.terasology.engine.utilities.random.MersenneRandom;
+import org.terasology.engine.world.block.BlockArea;
+import org.terasology.engine.world.block.BlockAreac;
+import org.terasology.joml.geom.Rectanglef;
+import org.terasology.math.delaunay.Voronoi;
+import org.terasology.polyworld.graph.CompactGraph;
+import org.terasology.polyworld.graph.Corner;
+import org.terasology.polyworld.graph.Edge;
+import org.terasology.polyworld.graph.Graph;
+import org.terasology.polyworld.graph.GraphRegion;
+import org.terasology.polyworld.graph.VoronoiGraph;
+import org.terasology.polyworld.rp.RegionType;
+import org.terasology.polyworld.rp.WorldRegion;
+import org.terasology.polyworld.sampling.PoissonDiscSampling;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that islands survive a round trip through an {@link IslandStore} or a {@link CompressedIslandCache}
+ * and that invalid files are discarded.
+ */
+public class IslandStoreTest {
+
+    private static final long SEED = 0xC0FFEE;
+    private static final long CONFIG = 42;
+
+    private IslandStore store;
+    private Path directory;
+    private WorldRegion region;
+    private IslandBundle bundle;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("islands");
+        store = new IslandStore(directory);
+
+        BlockAreac area = new BlockArea(-300, 200).setSize(320, 240);
+        Rectanglef bounds = area.getBounds(new Rectanglef());
+        List<Vector2fc> points = new PoissonDiscSampling().create(bounds, 150, new MersenneRandom(1));
+        Graph graph = new VoronoiGraph(area, new Voronoi(points, bounds));
+
+        region = new WorldRegion(area);
+        region.setType(RegionType.ISLAND);
+        region.setHeightScaleFactor(0.5f);
+        bundle = IslandBundle.create(region, graph, new TriangleLookup(graph), SEED);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        store.save(bundle, SEED, CONFIG);
+        assertSameIsland(bundle, store.load(region, SEED, CONFIG, TriangleLookup::new));
+    }
+
+    @Test
+    public void testOffHeapRoundTrip() {
+        store.save(bundle, SEED, CONFIG);
+        assertSameIsland(bundle, store.load(region, SEED, CONFIG, TriangleLookup::new, true));
+    }
+
+    @Test
+    public void testDenseModels() {
+        assertSameIsland(bundle, bundle.withDenseModels(false));
+        assertSameIsland(bundle, bundle.withDenseModels(true));
+    }
+
+    @Test
+    public void testCompressedCache() {
+        CompressedIslandCache cache = new CompressedIslandCache(10);
+        IslandKey key = new IslandKey(SEED, region, CONFIG);
+        assertTrue(cache.put(key, bundle));
+        assertSameIsland(bundle, cache.take(key, TriangleLookup::new, false));
+
+        // restored islands are removed
+        assertNull(cache.take(key, TriangleLookup::new, false));
+    }
+
+    @Test
+    public void testPackedSize() {
+        byte[] packed = IslandCodec.pack(bundle);
+        assertTrue(packed.length < IslandCodec.getEncodedSize((CompactGraph) bundle.getGraph()));
+        assertSameIsland(bundle, IslandCodec.unpack(region, packed, TriangleLookup::new, true));
+    }
+
+    private static void assertSameIsland(IslandBundle bundle, IslandBundle loaded) {
+        assertNotNull(loaded);
+
+        Graph expected = bundle.getGraph();
+        Graph actual = loaded.getGraph();
+        assertEquals(expected.getCorners().size(), actual.getCorners().size());
+        assertEquals(expected.getRegions().size(), actual.getRegions().size());
+        assertEquals(expected.getEdges().size(), actual.getEdges().size());
+
+        for (int i = 0; i < expected.getCorners().size(); i++) {
+            Corner c0 = expected.getCorners().get(i);
+            Corner c1 = actual.getCorners().get(i);
+            assertEquals(c0.getLocation(), c1.getLocation());
+            assertEquals(indices(c0.getAdjacent()), indices(c1.getAdjacent()));
+            assertEquals(bundle.getWaterModel().isCoast(c0), loaded.getWaterModel().isCoast(c1));
+            assertEquals(bundle.getElevationModel().getElevation(c0), loaded.getElevationModel().getElevation(c1), 0f);
+            assertEquals(bundle.getRiverModel().getRiverValue(c0), loaded.getRiverModel().getRiverValue(c1));
+            assertEquals(bundle.getMoistureModel().getMoisture(c0), loaded.getMoistureModel().getMoisture(c1), 0f);
+        }
+        for (int i = 0; i < expected.getRegions().size(); i++) {
+            GraphRegion r0 = expected.getRegions().get(i);
+            GraphRegion r1 = actual.getRegions().get(i);
+            assertEquals(r0.getCenter(), r1.getCenter());
+            assertEquals(indices(r0.getCorners()), indices(r1.getCorners()));
+            assertEquals(bundle.getWaterModel().isOcean(r0), loaded.getWaterModel().isOcean(r1));
+            assertEquals(bundle.getBiomeModel().getBiome(r0), loaded.getBiomeModel().getBiome(r1));
+        }
+        for (int i = 0; i < expected.getEdges().size(); i++) {
+            Edge e0 = expected.getEdges().get(i);
+            Edge e1 = actual.getEdges().get(i);
+            assertEquals(bundle.getRiverModel().getRiverValue(e0), loaded.getRiverModel().getRiverValue(e1));
+        }
+    }
+
+    @Test
+    public void testStaleEntry() {
+        store.save(bundle, SEED, CONFIG);
+        assertNull(store.load(region, SEED, CONFIG + 1, TriangleLookup::new));
+        assertNull(store.load(region, SEED + 1, CONFIG, TriangleLookup::new));
+    }
+
+    @Test
+    public void testCorruptEntry() throws IOException {
+        store.save(bundle, SEED, CONFIG);
+        Path file = singleFile();
+
+        // flip a byte in the payload
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, 100);
+            b.flip();
+            b.put(0, (byte) ~b.get(0));
+            channel.write(b, 100);
+        }
+
+        assertNull(store.load(region, SEED, CONFIG, TriangleLookup::new));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void testTruncatedEntry() throws IOException {
+        store.save(bundle, SEED, CONFIG);
+        Path file = singleFile();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() / 2);
+        }
+
+        assertNull(store.load(region, SEED, CONFIG, TriangleLookup::new));
+        assertFalse(Files.exists(file));
+    }
+
+    private Path singleFile() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> list = files.collect(Collectors.toList());
+            assertEquals(1, list.size());
+            return list.get(0);
+        }
+    }
+
+    private static List<Integer> indices(Collection<Corner> corners) {
+        return corners.stream().map(Corner::getIndex).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,71 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.terasology.engine.core.PathManager;
+import org.terasology.engine.core.SimpleUri;
+import org.terasology.engine.world.block.BlockRegion;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the world generator persists generated islands
+ */
+public class IslandWorldGeneratorTest {
+
+    /**
+     * The sub-directory of the save directory that contains generated islands
+     */
+    private static final String ISLAND_DIRECTORY = "polyworld-islands";
+
+    @BeforeEach
+    public void setup() {
+        TinyEnvironment.setup();
+    }
+
+    @Test
+    public void testStoresIslandsInGameSaveDirectory() throws IOException {
+        PathManager pathManager = PathManager.getInstance();
+        pathManager.useOverrideHomePath(Files.createTempDirectory("polyworld-home"));
+        pathManager.setCurrentSaveTitle("islands");
+
+        generate(new IslandWorldGenerator(new SimpleUri("polyworld:island")), "save0");
+
+        assertTrue(countIslandFiles(pathManager.getCurrentSavePath().resolve(ISLAND_DIRECTORY)) > 0);
+    }
+
+    @Test
+    public void testStoresIslandsInSaveDirectoryOverride() throws IOException {
+        Path saveDirectory = Files.createTempDirectory("polyworld-save");
+        IslandWorldGenerator worldGen = new IslandWorldGenerator(new SimpleUri("polyworld:island"));
+        worldGen.setSaveDirectory(saveDirectory);
+
+        generate(worldGen, "save1");
+
+        assertTrue(countIslandFiles(saveDirectory.resolve(ISLAND_DIRECTORY)) > 0);
+    }
+
+    private static void generate(IslandWorldGenerator worldGen, String seed) {
+        // every test uses its own seed, so that no island is shared with the generators of other tests
+        worldGen.setWorldSeed(seed);
+        worldGen.initialize();
+        worldGen.getWorld().getWorldData(new BlockRegion(0, 0, 0, 512, 1, 512));
+    }
+
+    private static long countIslandFiles(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".island")).count();
+        }
+    }
+}
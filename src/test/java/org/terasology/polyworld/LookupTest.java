@@ -19,6 +19,8 @@ package org.terasology.polyworld;
 import com.google.common.math.DoubleMath;
 import org.joml.Vector2fc;
 import org.joml.Vector2ic;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -31,17 +33,28 @@ import org.terasology.engine.world.block.BlockArea;
 import org.terasology.engine.world.block.BlockAreac;
 import org.terasology.joml.geom.Rectanglef;
 import org.terasology.math.delaunay.Voronoi;
+import org.terasology.polyworld.graph.Corner;
+import org.terasology.polyworld.graph.Edge;
+import org.terasology.polyworld.graph.Graph;
+import org.terasology.polyworld.graph.GraphRegion;
 import org.terasology.polyworld.graph.Triangle;
+import org.terasology.polyworld.graph.TriangleMesh;
 import org.terasology.polyworld.graph.VoronoiGraph;
 import org.terasology.polyworld.sampling.PointSampling;
 import org.terasology.polyworld.sampling.PoissonDiscSampling;
 
 import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class LookupTest {
     private static final Logger logger = LoggerFactory.getLogger(LookupTest.class);
@@ -58,6 +71,203 @@ public class LookupTest {
     @ParameterizedTest
     @MethodSource("generateSeed")
     public void testCoverage(int seed) {
+        VoronoiGraph graph = createGraph(seed);
+
+        TriangleLookup lookup = new TriangleLookup(graph);
+        for (Vector2ic coord : graph.getBounds()) {
+            Triangle tri = lookup.findTriangleAt(coord.x(), coord.y());
+            assertNotNull(tri);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("generateSeed")
+    public void testRasterStorage(int seed) {
+        testStorage(createGraph(seed), TriangleLookup.Storage.RASTER);
+    }
+
+    @ParameterizedTest
+    @MethodSource("generateSeed")
+    public void testRunLengthStorage(int seed) {
+        testStorage(createGraph(seed), TriangleLookup.Storage.RUN_LENGTH);
+    }
+
+    @ParameterizedTest
+    @MethodSource("generateSeed")
+    public void testTiledStorage(int seed) {
+        testStorage(createGraph(seed), TriangleLookup.Storage.TILED);
+    }
+
+    @ParameterizedTest
+    @MethodSource("generateSeed")
+    public void testOffHeapStorage(int seed) {
+        VoronoiGraph graph = createGraph(seed);
+        for (TriangleLookup.Storage storage : TriangleLookup.Storage.values()) {
+            testLocator(graph, new TriangleLookup(graph, storage, false, true));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("generateSeed")
+    public void testBucketGridLocator(int seed) {
+        VoronoiGraph graph = createGraph(seed);
+        testLocator(graph, new BucketGridLocator(graph));
+    }
+
+    @ParameterizedTest
+    @MethodSource("generateSeed")
+    public void testWalkLocator(int seed) {
+        VoronoiGraph graph = createGraph(seed);
+        testLocator(graph, new WalkLocator(graph));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testWalkLocatorWithDetachedElements() {
+        VoronoiGraph graph = createGraph(4711);
+
+        // a copy whose elements do not know their index
+        List<Corner> corners = new ArrayList<>();
+        for (Corner c : graph.getCorners()) {
+            corners.add(new Corner(c.getLocation()));
+        }
+        List<GraphRegion> regions = new ArrayList<>();
+        for (GraphRegion r : graph.getRegions()) {
+            GraphRegion copy = new GraphRegion(r.getCenter());
+            r.getCorners().forEach(c -> copy.addCorner(corners.get(c.getIndex())));
+            regions.add(copy);
+        }
+        Graph detached = new Graph() {
+            @Override
+            public List<GraphRegion> getRegions() {
+                return regions;
+            }
+
+            @Override
+            public List<Edge> getEdges() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public List<Corner> getCorners() {
+                return corners;
+            }
+
+            @Override
+            public BlockAreac getBounds() {
+                return graph.getBounds();
+            }
+        };
+
+        WalkLocator expected = new WalkLocator(graph);
+        WalkLocator actual = new WalkLocator(detached);
+        int count = graph.getTriangleMesh().size();
+        for (int tri = 0; tri < count; tri++) {
+            for (int edge = 0; edge < 3; edge++) {
+                assertEquals(expected.getNeighbor(tri, edge), actual.getNeighbor(tri, edge), "neighbor " + edge + " of " + tri);
+            }
+        }
+
+        for (Vector2ic coord : graph.getBounds()) {
+            Triangle tri = expected.findTriangleAt(coord.x(), coord.y());
+            Triangle other = actual.findTriangleAt(coord.x(), coord.y());
+            assertEquals(tri.getRegion().getCenter(), other.getRegion().getCenter());
+            assertEquals(tri.getCorner1().getLocation(), other.getCorner1().getLocation());
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("generateSeed")
+    public void testTriangleMesh(int seed) {
+        VoronoiGraph graph = createGraph(seed);
+        TriangleMesh mesh = graph.getTriangleMesh();
+        Vector3f bary = new Vector3f();
+
+        int index = 0;
+        for (GraphRegion reg : graph.getRegions()) {
+            for (Triangle tri : reg.computeTriangles()) {
+                assertSame(mesh.getTriangle(index), tri);
+                assertEquals(index, tri.getIndex());
+                assertEquals(reg.getIndex(), mesh.getRegion(index));
+
+                Vector2fc p0 = reg.getCenter();
+                Vector2fc p1 = tri.getCorner1().getLocation();
+                Vector2fc p2 = tri.getCorner2().getLocation();
+
+                // every vertex gets the full weight at its own location
+                mesh.computeBarycentricCoordinates(index, p1.x(), p1.y(), bary);
+                assertEquals(0, bary.x(), 1e-3);
+                assertEquals(1, bary.y(), 1e-3);
+                assertEquals(0, bary.z(), 1e-3);
+
+                assertEquals(1f, mesh.interpolate(index, p0.x(), p0.y(), 1, 2, 3), 1e-3);
+                assertEquals(3f, mesh.interpolate(index, p2.x(), p2.y(), 1, 2, 3), 1e-3);
+                index++;
+            }
+        }
+        assertEquals(mesh.size(), index);
+    }
+
+    @ParameterizedTest
+    @MethodSource("generateSeed")
+    public void testEstimatedBytes(int seed) {
+        VoronoiGraph graph = createGraph(seed);
+
+        long raster = new TriangleLookup(graph, TriangleLookup.Storage.RASTER, false).getEstimatedBytes();
+        long runLength = new TriangleLookup(graph, TriangleLookup.Storage.RUN_LENGTH, false).getEstimatedBytes();
+        long tiled = new TriangleLookup(graph, TriangleLookup.Storage.TILED, false).getEstimatedBytes();
+        logger.info("Estimated lookup sizes: raster {}, run-length {}, tiled {}", raster, runLength, tiled);
+
+        BlockAreac bounds = graph.getBounds();
+        assertTrue(raster >= bounds.area() * 4L);
+        assertTrue(runLength < raster);
+        assertTrue(tiled < raster);
+        assertTrue(graph.getEstimatedBytes() > graph.getTriangleMesh().getEstimatedBytes());
+    }
+
+    private static void testStorage(VoronoiGraph graph, TriangleLookup.Storage storage) {
+        testLocator(graph, new TriangleLookup(graph, storage, true));
+    }
+
+    private static void testLocator(VoronoiGraph graph, TriangleLocator lookup) {
+        TriangleLookup raster = new TriangleLookup(graph, TriangleLookup.Storage.RASTER, false);
+        for (Vector2ic coord : graph.getBounds()) {
+            Triangle expected = raster.findTriangleAt(coord.x(), coord.y());
+            Triangle actual = lookup.findTriangleAt(coord.x(), coord.y());
+            assertSame(expected.getRegion(), actual.getRegion());
+            assertSame(expected.getCorner1(), actual.getCorner1());
+            assertSame(expected.getCorner2(), actual.getCorner2());
+        }
+
+        BlockAreac bounds = graph.getBounds();
+        for (int y = bounds.minY(); y <= bounds.maxY(); y++) {
+            testRunEnds(raster, lookup, y, bounds.minX(), bounds.maxX());
+            // runs must also stop at maxX
+            testRunEnds(raster, lookup, y, bounds.minX(), bounds.minX() + bounds.getSizeX() / 3);
+        }
+    }
+
+    /**
+     * Every block of a run must map to the same triangle as in the raster, the block after the run must not.
+     */
+    private static void testRunEnds(TriangleLocator raster, TriangleLocator lookup, int y, int minX, int maxX) {
+        int x = minX;
+        while (x <= maxX) {
+            int end = lookup.findRunEnd(x, y, maxX);
+            assertTrue(end >= x && end <= maxX, "run end " + end + " for " + x + "/" + y);
+
+            Triangle tri = raster.findTriangleAt(x, y);
+            for (int i = x; i <= end; i++) {
+                assertSame(tri, raster.findTriangleAt(i, y), "block " + i + "/" + y + " in run " + x + ".." + end);
+            }
+            if (end < maxX) {
+                assertNotSame(tri, raster.findTriangleAt(end + 1, y), "block after run " + x + ".." + end);
+            }
+            x = end + 1;
+        }
+    }
+
+    private static VoronoiGraph createGraph(int seed) {
         MersenneRandom rng = new MersenneRandom(seed);
 
         int x = rng.nextInt(-10000, 10000);
@@ -76,13 +286,7 @@ public class LookupTest {
         logger.info("Sampled {} with {} points", intBounds, points.size());
 
         Voronoi v = new Voronoi(points, realBounds);
-        VoronoiGraph graph = new VoronoiGraph(intBounds, v);
-
-        TriangleLookup lookup = new TriangleLookup(graph);
-        for (Vector2ic coord : intBounds) {
-            Triangle tri = lookup.findTriangleAt(coord.x(), coord.y());
-            assertNotNull(tri);
-        }
+        return new VoronoiGraph(intBounds, v);
     }
 
 }
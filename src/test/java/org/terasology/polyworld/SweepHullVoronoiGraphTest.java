@@ -0,0 +1,34 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import org.joml.Vector2f;
+import org.junit.jupiter.api.BeforeEach;
+import org.terasology.engine.world.block.BlockArea;
+import org.terasology.joml.geom.Rectanglef;
+import org.terasology.math.delaunay.Voronoi;
+import org.terasology.polyworld.graph.VoronoiGraph;
+
+import java.util.Arrays;
+
+/**
+ * Runs the graph tests on a graph of a diagram that was computed by {@link Voronoi.Engine#SWEEP_HULL}.
+ */
+public class SweepHullVoronoiGraphTest extends VoronoiGraphTest {
+
+    @BeforeEach
+    @Override
+    public void setup() {
+        intBounds = new BlockArea(0, 0, 512, 256);
+        realBounds = intBounds.getBounds(new Rectanglef());
+
+        points = Arrays.asList(
+                new Vector2f(128, 64), new Vector2f(384, 96),
+                new Vector2f(224, 72), new Vector2f(256, 192),
+                new Vector2f(128, 192), new Vector2f(384, 224));
+
+        Voronoi v = new Voronoi(points, realBounds, Voronoi.Engine.SWEEP_HULL);
+        graph = new VoronoiGraph(intBounds, v);
+    }
+}
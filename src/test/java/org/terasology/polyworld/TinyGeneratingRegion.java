@@ -0,0 +1,49 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import org.terasology.engine.world.block.BlockRegion;
+import org.terasology.engine.world.generation.Border3D;
+import org.terasology.engine.world.generation.GeneratingRegion;
+import org.terasology.engine.world.generation.WorldFacet;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A generating region without borders that keeps the facets that are set, so that facet providers
+ * can be run without a world generator
+ */
+public final class TinyGeneratingRegion implements GeneratingRegion {
+
+    private final BlockRegion region;
+    private final Map<Class<?>, WorldFacet> facets = new HashMap<>();
+
+    /**
+     * @param region the region to generate
+     */
+    public TinyGeneratingRegion(BlockRegion region) {
+        this.region = region;
+    }
+
+    @Override
+    public BlockRegion getRegion() {
+        return region;
+    }
+
+    @Override
+    public <T extends WorldFacet> T getRegionFacet(Class<T> type) {
+        return type.cast(facets.get(type));
+    }
+
+    @Override
+    public <T extends WorldFacet> void setRegionFacet(Class<T> type, T facet) {
+        facets.put(type, facet);
+    }
+
+    @Override
+    public Border3D getBorderForFacet(Class<? extends WorldFacet> type) {
+        return new Border3D(0, 0, 0);
+    }
+}
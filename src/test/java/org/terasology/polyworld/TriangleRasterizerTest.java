@@ -0,0 +1,118 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the sample positions and the fill rule of the {@link TriangleRasterizer}
+ */
+public class TriangleRasterizerTest {
+
+    private static final int SIZE = 24;
+
+    @Test
+    public void testSamplesBlockCenters() {
+        // contains the center of block (1, 1), but not the pixel center (0.5, 0.5) of java2d
+        int[] data = new int[4];
+        TriangleRasterizer.fill(0.6f, 0.6f, 1.4f, 0.6f, 1f, 1.4f, 7, data, 0, 0, 2, 2);
+        assertArrayEquals(new int[] {0, 0, 0, 7}, data);
+    }
+
+    @Test
+    public void testFanOnSamplePoints() {
+        // the center and all corners lie exactly on block centers, so all shared edges run through samples
+        float[] corners = {
+            18f, 10f, 16f, 16f, 10f, 18f, 4f, 16f,
+            2f, 10f, 4f, 4f, 10f, 2f, 16f, 4f};
+        assertFanCoverage(10f, 10f, corners);
+    }
+
+    @Test
+    public void testFanBetweenSamplePoints() {
+        float[] corners = {
+            20.5f, 10.5f, 17.5f, 17.5f, 10.5f, 21.5f, 3.5f, 17.5f,
+            1.5f, 10.5f, 3.5f, 3.5f, 10.5f, 1.5f, 17.5f, 3.5f};
+        assertFanCoverage(10.5f, 10.5f, corners);
+    }
+
+    @Test
+    public void testRandomFans() {
+        Random random = new Random(42);
+        for (int fan = 0; fan < 50; fan++) {
+            float cx = 8 + random.nextInt(16) * 0.5f;
+            float cy = 8 + random.nextInt(16) * 0.5f;
+            // keep the angle between consecutive corners below 180 degrees
+            int count = 4 + random.nextInt(7);
+            float[] corners = new float[count * 2];
+            for (int i = 0; i < count; i++) {
+                double angle = 2 * Math.PI * (i + random.nextFloat() * 0.5) / count;
+                double radius = 3 + random.nextInt(12) * 0.5;
+                corners[i * 2] = (float) (cx + radius * Math.cos(angle));
+                corners[i * 2 + 1] = (float) (cy + radius * Math.sin(angle));
+            }
+            assertFanCoverage(cx, cy, corners);
+        }
+    }
+
+    /**
+     * Rasterizes a fan of triangles (center, corner i, corner i + 1) and checks that every block center
+     * inside the polygon is written exactly once and that no block is written more than once.
+     */
+    private void assertFanCoverage(float cx, float cy, float[] corners) {
+        int count = corners.length / 2;
+        int[] writes = new int[SIZE * SIZE];
+        for (int i = 0; i < count; i++) {
+            int j = (i + 1) % count;
+            int[] data = new int[SIZE * SIZE];
+            TriangleRasterizer.fill(cx, cy, corners[i * 2], corners[i * 2 + 1], corners[j * 2], corners[j * 2 + 1],
+                    1, data, 0, 0, SIZE, SIZE);
+            for (int k = 0; k < data.length; k++) {
+                writes[k] += data[k];
+            }
+        }
+
+        int covered = 0;
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                int n = writes[y * SIZE + x];
+                assertTrue(n <= 1, "block " + x + "/" + y + " was written " + n + " times");
+                if (isInside(corners, x, y)) {
+                    assertEquals(1, n, "block " + x + "/" + y + " was missed");
+                }
+                covered += n;
+            }
+        }
+        assertTrue(covered > 0);
+    }
+
+    /**
+     * @return true if the point is inside the polygon and not on its outline
+     */
+    private static boolean isInside(float[] corners, double x, double y) {
+        int count = corners.length / 2;
+        boolean inside = false;
+        for (int i = 0; i < count; i++) {
+            int j = (i + 1) % count;
+            double x0 = corners[i * 2];
+            double y0 = corners[i * 2 + 1];
+            double x1 = corners[j * 2];
+            double y1 = corners[j * 2 + 1];
+            double cross = (x1 - x0) * (y - y0) - (y1 - y0) * (x - x0);
+            if (cross == 0 && x >= Math.min(x0, x1) && x <= Math.max(x0, x1) && y >= Math.min(y0, y1) && y <= Math.max(y0, y1)) {
+                return false;
+            }
+            if ((y0 > y) != (y1 > y) && x < x0 + (y - y0) * (x1 - x0) / (y1 - y0)) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+}
@@ -0,0 +1,159 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld.graph;
+
+import org.joml.Vector2f;
+import org.joml.Vector2fc;
+import org.junit.jupiter.api.Test;
+import org.terasology.engine.world.block.BlockArea;
+import org.terasology.joml.geom.Rectanglef;
+import org.terasology.math.delaunay.Voronoi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the relations that {@link GraphBuilder} freezes into a {@link CompactGraph}
+ */
+public class CompactGraphTest {
+
+    private final BlockArea bounds = new BlockArea(-2, -2, 2, 2);
+
+    @Test
+    public void testCsrDedupeKeepsInsertionOrder() {
+        GraphBuilder.IntList from = new GraphBuilder.IntList();
+        GraphBuilder.IntList to = new GraphBuilder.IntList();
+        int[][] pairs = {{1, 5}, {0, 3}, {1, 2}, {0, 3}, {1, 5}, {0, 1}, {2, 0}, {1, 7}};
+        for (int[] pair : pairs) {
+            from.add(pair[0]);
+            to.add(pair[1]);
+        }
+
+        GraphBuilder.Csr csr = GraphBuilder.Csr.create(4, from, to);
+        assertArrayEquals(new int[] {0, 2, 5, 6, 6}, csr.offsets);
+        assertArrayEquals(new int[] {3, 1, 5, 2, 7, 0}, csr.values);
+    }
+
+    @Test
+    public void testRegionCornersSortedByAngle() {
+        GraphBuilder builder = new GraphBuilder();
+        int region = builder.addRegion(0, 0);
+        int c0 = builder.addCorner(1, -1, true);
+        int c1 = builder.addCorner(-1, 1, true);
+        int c2 = builder.addCorner(1, 1, true);
+        int c3 = builder.addCorner(-1, -1, true);
+        for (int c : new int[] {c0, c1, c2, c3, c1}) {
+            builder.addRegionCorner(region, c);
+        }
+
+        CompactGraph graph = new CompactGraph(bounds, builder);
+        List<Integer> ids = new ArrayList<>();
+        graph.region(region).getCorners().forEach(c -> ids.add(c.getIndex()));
+
+        // counter-clockwise, starting at angle 0
+        assertEquals(Arrays.asList(c2, c1, c3, c0), ids);
+    }
+
+    @Test
+    public void testBorderFlags() {
+        GraphBuilder builder = new GraphBuilder();
+        builder.addCorner(0, 0, true);
+        builder.addCorner(1, 0, false);
+        builder.addCorner(1, 1, true);
+
+        CompactGraph graph = new CompactGraph(bounds, builder);
+        assertTrue(graph.corner(0).isBorder());
+        assertFalse(graph.corner(1).isBorder());
+        assertTrue(graph.corner(2).isBorder());
+    }
+
+    @Test
+    public void testNeighborSymmetry() {
+        List<Vector2fc> points = Arrays.asList(
+                new Vector2f(128, 64), new Vector2f(384, 96),
+                new Vector2f(224, 72), new Vector2f(256, 192),
+                new Vector2f(128, 192), new Vector2f(384, 224));
+        BlockArea area = new BlockArea(0, 0, 512, 256);
+        Graph graph = new VoronoiGraph(area, new Voronoi(points, area.getBounds(new Rectanglef())));
+
+        for (GraphRegion region : graph.getRegions()) {
+            for (GraphRegion neighbor : region.getNeighbors()) {
+                assertTrue(neighbor.getNeighbors().contains(region));
+            }
+            for (Corner corner : region.getCorners()) {
+                assertTrue(corner.getTouches().contains(region));
+            }
+        }
+        for (Corner corner : graph.getCorners()) {
+            for (Corner adjacent : corner.getAdjacent()) {
+                assertTrue(adjacent.getAdjacent().contains(corner));
+            }
+        }
+    }
+
+    @Test
+    public void testCachedLocation() {
+        GraphBuilder builder = new GraphBuilder();
+        int region = builder.addRegion(0, 0);
+        int c0 = builder.addCorner(1, 0, false);
+        int c1 = builder.addCorner(0, 1, false);
+        builder.addRegionCorner(region, c0);
+        builder.addRegionCorner(region, c1);
+
+        CompactGraph graph = new CompactGraph(bounds, builder);
+        Corner corner = graph.corner(c0);
+        Vector2fc loc = corner.getLocation();
+        assertSame(loc, corner.getLocation());
+        assertSame(graph.region(region).getCenter(), graph.region(region).getCenter());
+
+        TriangleMesh mesh = graph.getTriangleMesh();
+        corner.setLocation(new Vector2f(2, 0));
+        assertEquals(new Vector2f(2, 0), loc);
+        assertEquals(2f, corner.getX());
+        assertEquals(2f, graph.getCornerX(c0));
+        assertFalse(mesh == graph.getTriangleMesh());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testDetachedElements() {
+        GraphRegion region = new GraphRegion(new Vector2f(0, 0));
+        Corner c0 = new Corner(new Vector2f(1, -1));
+        Corner c1 = new Corner(new Vector2f(-1, 1));
+        Corner c2 = new Corner(new Vector2f(1, 1));
+        region.addCorner(c0);
+        region.addCorner(c1);
+        region.addCorner(c2);
+        region.addCorner(null);
+        assertEquals(Arrays.asList(c2, c1, c0), new ArrayList<>(region.getCorners()));
+        assertEquals(3, region.computeTriangles().size());
+
+        Edge edge = new Edge(c0, c1, region, region);
+        c0.addEdge(edge);
+        c0.addAdjacent(c1);
+        c0.addTouches(region);
+        c0.setBorder(true);
+        assertEquals(-1, c0.getIndex());
+        assertTrue(c0.isBorder());
+        assertSame(edge, c0.getEdges().iterator().next());
+        assertSame(c1, edge.getCorner1());
+
+        assertThrows(IllegalArgumentException.class, () -> new Edge(c0, null, region, region));
+
+        GraphBuilder builder = new GraphBuilder();
+        builder.addCorner(0, 0, false);
+        builder.addRegion(0, 0);
+        CompactGraph graph = new CompactGraph(bounds, builder);
+        assertThrows(UnsupportedOperationException.class, () -> graph.corner(0).setBorder(true));
+        assertThrows(UnsupportedOperationException.class, () -> graph.region(0).addCorner(c0));
+    }
+}
@@ -0,0 +1,75 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld.graph;
+
+import org.joml.Vector2fc;
+import org.junit.jupiter.api.Test;
+import org.terasology.engine.utilities.random.MersenneRandom;
+import org.terasology.engine.world.block.BlockArea;
+import org.terasology.engine.world.block.BlockAreac;
+import org.terasology.engine.world.block.BlockRegion;
+import org.terasology.engine.world.generation.Border3D;
+import org.terasology.joml.geom.Rectanglef;
+import org.terasology.math.delaunay.Voronoi;
+import org.terasology.polyworld.IslandBundle;
+import org.terasology.polyworld.TriangleLocator;
+import org.terasology.polyworld.TriangleLookup;
+import org.terasology.polyworld.WalkLocator;
+import org.terasology.polyworld.rp.WorldRegion;
+import org.terasology.polyworld.sampling.PoissonDiscSampling;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the run queries of {@link GraphFacetImpl} across overlapping graphs
+ */
+public class GraphFacetImplTest {
+
+    @Test
+    public void testRunEndsAcrossOverlappingGraphs() {
+        GraphFacetImpl facet = new GraphFacetImpl(new BlockRegion(0, 0, 0, 159, 0, 99), new Border3D(0, 0, 0));
+
+        // the first graph wins where they overlap, so rows of the second graph are split where the first begins
+        addGraph(facet, new BlockArea(60, 20).setSize(120, 60), 1, false);
+        addGraph(facet, new BlockArea(-40, -10).setSize(200, 120), 2, true);
+
+        // the facet keeps a slot table for its own area only, so also query blocks outside of it
+        for (int z = -10; z <= 109; z++) {
+            int maxX = 159;
+            int x = -40;
+            while (x <= maxX) {
+                int end = facet.getWorldTriangleRunEnd(x, z, maxX);
+                assertTrue(end >= x && end <= maxX);
+
+                Graph graph = facet.getWorld(x, z);
+                Triangle tri = facet.getWorldTriangle(x, z);
+                for (int i = x; i <= end; i++) {
+                    assertSame(graph, facet.getWorld(i, z), "graph of " + i + "/" + z);
+                    assertSame(tri, facet.getWorldTriangle(i, z), "triangle of " + i + "/" + z);
+                }
+                if (end < maxX) {
+                    assertTrue(graph != facet.getWorld(end + 1, z) || tri != facet.getWorldTriangle(end + 1, z),
+                            "block after run " + x + ".." + end + " in row " + z);
+                }
+                x = end + 1;
+            }
+        }
+
+        assertNotSame(facet.getWorld(70, 30), facet.getWorld(59, 30));
+    }
+
+    private static void addGraph(GraphFacetImpl facet, BlockAreac area, long seed, boolean walk) {
+        Rectanglef bounds = area.getBounds(new Rectanglef());
+        List<Vector2fc> points = new PoissonDiscSampling().create(bounds, area.area() / 200, new MersenneRandom(seed));
+        Graph graph = new VoronoiGraph(area, new Voronoi(points, bounds));
+        TriangleLocator lookup = walk ? new WalkLocator(graph) : new TriangleLookup(graph);
+
+        WorldRegion region = new WorldRegion(area);
+        facet.add(region, IslandBundle.create(region, graph, lookup, seed));
+    }
+}
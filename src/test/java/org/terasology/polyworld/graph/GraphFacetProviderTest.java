@@ -0,0 +1,139 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld.graph;
+
+import org.junit.jupiter.api.Test;
+import org.terasology.engine.world.block.BlockArea;
+import org.terasology.engine.world.block.BlockRegion;
+import org.terasology.engine.world.generation.Border3D;
+import org.terasology.polyworld.TinyGeneratingRegion;
+import org.terasology.polyworld.TriangleLocator;
+import org.terasology.polyworld.rp.RegionType;
+import org.terasology.polyworld.rp.WorldRegion;
+import org.terasology.polyworld.rp.WorldRegionFacet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests concurrent requests of a {@link GraphFacetProvider}
+ */
+public class GraphFacetProviderTest {
+
+    /**
+     * Not used by any other test, although the assertions do not rely on it
+     */
+    private static final long SEED = 0x9009_2021L;
+
+    private static final int REGION_COUNT = 6;
+    private static final int REQUESTS = 24;
+
+    @Test
+    public void testConcurrentOverlappingRequests() throws Exception {
+        List<WorldRegion> regions = new ArrayList<>();
+        for (int i = 0; i < REGION_COUNT; i++) {
+            WorldRegion wr = new WorldRegion(new BlockArea(i * 160, 0).setSize(160, 160));
+            wr.setType(i % 3 == 2 ? RegionType.OCEAN : RegionType.ISLAND);
+            wr.setHeightScaleFactor(0.5f);
+            regions.add(wr);
+        }
+
+        GraphFacetProvider provider = new GraphFacetProvider(100);
+        provider.setSeed(SEED);
+
+        // every request covers three neighboring regions, so all requests overlap with others
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<List<WorldRegion>> requests = new ArrayList<>();
+        List<Future<GraphFacet>> results = new ArrayList<>();
+        try {
+            for (int r = 0; r < REQUESTS; r++) {
+                int first = r % REGION_COUNT;
+                List<WorldRegion> request = regions.subList(first, Math.min(first + 3, REGION_COUNT));
+                requests.add(request);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return process(provider, request);
+                }));
+            }
+            start.countDown();
+
+            for (Future<GraphFacet> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // islands can also be served from bundles that other providers in this JVM still reference,
+        // so count the loads of this provider's own cache instead of the built graphs
+        assertEquals(REGION_COUNT, provider.getStats().getCacheStats("islands").loadCount());
+        assertEquals(REGION_COUNT, provider.getStats().getCacheStats("islands").missCount());
+
+        Map<WorldRegion, Long> checksums = new HashMap<>();
+        for (int r = 0; r < REQUESTS; r++) {
+            GraphFacet facet = results.get(r).get();
+            for (WorldRegion wr : requests.get(r)) {
+                long checksum = checksum(facet.getGraph(wr));
+                Long previous = checksums.putIfAbsent(wr, checksum);
+                if (previous != null) {
+                    assertEquals(previous.longValue(), checksum, "corners of " + wr);
+                }
+            }
+        }
+        assertEquals(REGION_COUNT, checksums.size());
+
+        // a different locator changes the key, so the islands are built again
+        GraphFacetProvider sequential = new GraphFacetProvider(100);
+        sequential.setSeed(SEED);
+        sequential.setLocatorType(TriangleLocator.Type.WALK);
+        for (WorldRegion wr : regions) {
+            GraphFacet facet = process(sequential, List.of(wr));
+            assertEquals(checksums.get(wr).longValue(), checksum(facet.getGraph(wr)), "corners of " + wr);
+        }
+        assertEquals(REGION_COUNT, sequential.getStats().getCacheStats("islands").loadCount());
+        assertEquals(REGION_COUNT, sequential.getStats().getCacheStats("islands").missCount());
+
+        // built islands are counted as hits only
+        for (WorldRegion wr : regions) {
+            process(sequential, List.of(wr));
+        }
+        assertEquals(REGION_COUNT, sequential.getStats().getCacheStats("islands").missCount());
+        assertEquals(REGION_COUNT, sequential.getStats().getCacheStats("islands").hitCount());
+
+        boolean named = Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(t -> t.getName().startsWith("polyworld-island-builder-") && t.isDaemon());
+        assertTrue(named, "no daemon island builder thread");
+    }
+
+    private static GraphFacet process(GraphFacetProvider provider, List<WorldRegion> regions) {
+        BlockRegion target = new BlockRegion(regions.get(0).getArea().minX(), 0, 0,
+                regions.get(regions.size() - 1).getArea().maxX(), 0, 159);
+        WorldRegionFacet regionFacet = new WorldRegionFacet(target, new Border3D(0, 0, 0));
+        regions.forEach(regionFacet::addRegion);
+
+        TinyGeneratingRegion region = new TinyGeneratingRegion(target);
+        region.setRegionFacet(WorldRegionFacet.class, regionFacet);
+        provider.process(region);
+        return region.getRegionFacet(GraphFacet.class);
+    }
+
+    private static long checksum(Graph graph) {
+        long sum = graph.getCorners().size();
+        for (Corner c : graph.getCorners()) {
+            sum = sum * 31 + Float.floatToIntBits(c.getX());
+            sum = sum * 31 + Float.floatToIntBits(c.getY());
+        }
+        return sum;
+    }
+}
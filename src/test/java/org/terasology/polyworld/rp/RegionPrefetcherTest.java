@@ -0,0 +1,203 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld.rp;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.terasology.engine.world.block.BlockArea;
+import org.terasology.engine.world.block.BlockAreac;
+import org.terasology.engine.world.generation.FacetProvider;
+import org.terasology.polyworld.graph.GraphFacetProvider;
+import org.terasology.polyworld.stats.PolyWorldStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the predictions and counters of a {@link RegionPrefetcher} with an executor that runs tasks on demand
+ */
+public class RegionPrefetcherTest {
+
+    private WorldRegionFacetProvider regionProvider;
+
+    /**
+     * The submitted, but not yet executed prefetching tasks
+     */
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    /**
+     * The areas of all prefetched regions, in the order they were processed
+     */
+    private final List<BlockAreac> prefetched = new ArrayList<>();
+
+    private final FacetProvider recorder = region -> {
+        assertTrue(RegionPrefetcher.isPrefetching());
+        int x = region.getRegion().minX();
+        int z = region.getRegion().minZ();
+        prefetched.add(regionProvider.getRegion(x, z).getArea());
+    };
+
+    @BeforeEach
+    public void setup() {
+        regionProvider = new WorldRegionFacetProvider(16);
+        regionProvider.setSeed(789);
+        WorldRegionFacetProvider.Configuration config = new WorldRegionFacetProvider.Configuration();
+        config.islandDensity = 2; // above all noise values -> only islands
+        regionProvider.setConfiguration(config);
+    }
+
+    @Test
+    public void testHeadingPerRequester() {
+        RegionPrefetcher prefetcher = createPrefetcher(100, 100);
+
+        // two players that move in opposite directions, far apart
+        for (int i = 0; i < 40; i++) {
+            request(prefetcher, -20000 - i * 32, 0);
+            request(prefetcher, 20000 + i * 32, 0);
+        }
+        assertEquals(2, prefetcher.getTrackCount());
+        runTasks();
+
+        assertFalse(prefetched.isEmpty());
+        boolean west = false;
+        boolean east = false;
+        for (BlockAreac area : prefetched) {
+            // every region lies ahead of one of the players
+            if (area.maxX() < 0) {
+                assertTrue(area.minX() < -20000, "west region " + area + " is not ahead");
+                west = true;
+            } else {
+                assertTrue(area.maxX() > 20000, "east region " + area + " is not ahead");
+                east = true;
+            }
+        }
+        assertTrue(west && east);
+    }
+
+    @Test
+    public void testStandingStill() {
+        RegionPrefetcher prefetcher = createPrefetcher(100, 100);
+        for (int i = 0; i < 40; i++) {
+            request(prefetcher, 500, 500);
+        }
+        assertEquals(1, prefetcher.getTrackCount());
+        assertEquals(0, prefetcher.getPrefetchCount());
+        assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    public void testDroppedWhileSlotsAreBusy() {
+        RegionPrefetcher prefetcher = createPrefetcher(1, 100);
+
+        int x = 0;
+        while (prefetcher.getDroppedCount() == 0 && x < 20000) {
+            request(prefetcher, x, 0);
+            x += 32;
+        }
+        // the first prediction takes the only slot, all others are dropped until it is done
+        assertEquals(1, prefetcher.getPrefetchCount());
+        assertEquals(1, tasks.size());
+        assertTrue(prefetcher.getDroppedCount() > 0);
+
+        runTasks();
+        assertEquals(1, prefetched.size());
+
+        long dropped = prefetcher.getDroppedCount();
+        while (prefetcher.getPrefetchCount() == 1 && x < 40000) {
+            request(prefetcher, x, 0);
+            x += 32;
+        }
+        assertEquals(2, prefetcher.getPrefetchCount());
+        assertEquals(dropped, prefetcher.getDroppedCount());
+    }
+
+    @Test
+    public void testHitsAndWaste() {
+        RegionPrefetcher prefetcher = createPrefetcher(100, 1);
+        PolyWorldStats stats = new PolyWorldStats();
+        prefetcher.setStats(stats);
+
+        int x = 0;
+        while (prefetcher.getPrefetchCount() < 2 && x < 20000) {
+            request(prefetcher, x, 0);
+            x += 32;
+        }
+        runTasks();
+        assertEquals(2, prefetched.size());
+
+        // only one prefetched region is kept until it is requested, the other one was wasted
+        assertEquals(1, prefetcher.getWasteCount());
+        assertEquals(0, prefetcher.getHitCount());
+
+        BlockAreac kept = prefetched.get(1);
+        prefetcher.accept(kept, Collections.singletonList(regionProvider.getRegion(kept.minX(), kept.minY())));
+        assertEquals(1, prefetcher.getHitCount());
+
+        // requested regions are not prefetched again
+        prefetcher.accept(kept, Collections.singletonList(regionProvider.getRegion(kept.minX(), kept.minY())));
+        assertEquals(1, prefetcher.getHitCount());
+
+        // the counters are reported with the caches of the world generator
+        assertEquals(prefetcher.getPrefetchCount(), stats.getCounter("prefetched regions"));
+        assertEquals(1, stats.getCounter("prefetch hits"));
+        assertEquals(1, stats.getCounter("prefetch waste"));
+        assertTrue(stats.report().contains("prefetch hits: 1"));
+    }
+
+    @Test
+    public void testBuildsOnPrefetchingThread() {
+        GraphFacetProvider graphProvider = new GraphFacetProvider(100);
+        graphProvider.setSeed(0x1010_2021L);
+        RegionPrefetcher prefetcher = new RegionPrefetcher(regionProvider, Arrays.asList(regionProvider, graphProvider, recorder),
+                256, 1, 100, tasks::add);
+
+        int x = 0;
+        while (tasks.isEmpty() && x < 20000) {
+            request(prefetcher, x, 0);
+            x += 32;
+        }
+        assertFalse(RegionPrefetcher.isPrefetching());
+        runTasks();
+        assertFalse(RegionPrefetcher.isPrefetching());
+
+        // the island was built and cached by the thread that ran the task
+        assertEquals(1, prefetched.size());
+        assertEquals(1, graphProvider.getStats().getCacheStats("islands").loadCount());
+    }
+
+    @Test
+    public void testClose() {
+        RegionPrefetcher prefetcher = createPrefetcher(100, 100);
+        prefetcher.close();
+        for (int i = 0; i < 40; i++) {
+            request(prefetcher, i * 32, 0);
+        }
+        assertEquals(0, prefetcher.getTrackCount());
+        assertTrue(tasks.isEmpty());
+    }
+
+    private RegionPrefetcher createPrefetcher(int maxConcurrent, int maxPending) {
+        return new RegionPrefetcher(regionProvider, Collections.singletonList(recorder), 256, maxConcurrent, maxPending,
+                tasks::add);
+    }
+
+    /**
+     * Requests a chunk-sized area around the given point, but does not mark its regions as requested
+     */
+    private void request(RegionPrefetcher prefetcher, int x, int z) {
+        prefetcher.accept(new BlockArea(x - 16, z - 16).setSize(32, 32), Collections.emptyList());
+    }
+
+    private void runTasks() {
+        List<Runnable> copy = new ArrayList<>(tasks);
+        tasks.clear();
+        copy.forEach(Runnable::run);
+    }
+}
@@ -0,0 +1,91 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld.rp;
+
+import org.junit.jupiter.api.Test;
+import org.terasology.engine.world.block.BlockArea;
+import org.terasology.engine.world.block.BlockAreac;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Compares the queries of {@link SectorIndex} with a linear search.
+ */
+public class SectorIndexTest {
+
+    private static final BlockAreac SECTOR = new BlockArea(-1024, 2048).setSize(1024, 1024);
+
+    @Test
+    public void testSubdivRegions() {
+        checkQueries(regions(new SubdivRegionProvider(42, 50, 0.95f).getSectorRegions(SECTOR)));
+    }
+
+    @Test
+    public void testGridRegions() {
+        checkQueries(regions(new GridRegionProvider(7, 5).getSectorRegions(SECTOR)));
+    }
+
+    @Test
+    public void testPinwheel() {
+        // no line separates these regions
+        List<BlockAreac> areas = Arrays.asList(
+                new BlockArea(0, 0, 59, 19),
+                new BlockArea(60, 0, 79, 59),
+                new BlockArea(20, 60, 79, 79),
+                new BlockArea(0, 20, 19, 79),
+                new BlockArea(20, 20, 59, 59));
+        checkQueries(regions(areas));
+    }
+
+    @Test
+    public void testEmpty() {
+        SectorIndex index = new SectorIndex(0, 0, 0, new ArrayList<>());
+        List<WorldRegion> result = new ArrayList<>();
+        index.collect(0, 0, 10, 10, result);
+        assertEquals(0, result.size());
+        assertNull(index.find(0, 0));
+    }
+
+    private static void checkQueries(List<WorldRegion> regions) {
+        SectorIndex index = new SectorIndex(0, 0, 0, regions);
+        assertEquals(regions.size(), index.size());
+
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            int x = SECTOR.minX() - 20 + random.nextInt(SECTOR.getSizeX() + 40);
+            int y = SECTOR.minY() - 20 + random.nextInt(SECTOR.getSizeY() + 40);
+            BlockAreac query = new BlockArea(x, y).setSize(1 + random.nextInt(100), 1 + random.nextInt(100));
+
+            List<WorldRegion> expected = new ArrayList<>();
+            WorldRegion expectedPoint = null;
+            for (WorldRegion wr : regions) {
+                if (wr.getArea().intersectsBlockArea(query)) {
+                    expected.add(wr);
+                }
+                if (wr.getArea().contains(x, y)) {
+                    expectedPoint = wr;
+                }
+            }
+
+            List<WorldRegion> actual = new ArrayList<>();
+            index.collect(query.minX(), query.minY(), query.maxX(), query.maxY(), actual);
+            assertEquals(expected, actual);
+            assertEquals(expectedPoint, index.find(x, y));
+        }
+    }
+
+    private static List<WorldRegion> regions(Iterable<BlockAreac> areas) {
+        List<WorldRegion> regions = new ArrayList<>();
+        for (BlockAreac area : areas) {
+            regions.add(new WorldRegion(area));
+        }
+        return regions;
+    }
+}
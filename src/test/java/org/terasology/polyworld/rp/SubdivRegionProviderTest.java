@@ -0,0 +1,130 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld.rp;
+
+import org.junit.jupiter.api.Test;
+import org.terasology.engine.utilities.random.MersenneRandom;
+import org.terasology.engine.world.block.BlockArea;
+import org.terasology.engine.world.block.BlockAreac;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the layout of a {@link SubdivRegionProvider} and that partial queries agree with the full subdivision,
+ * also for a {@link PathSeededRegionProvider}.
+ */
+public class SubdivRegionProviderTest {
+
+    private static final BlockAreac SECTOR = new BlockArea(2048, -1024).setSize(1024, 1024);
+
+    private static final long SEED = 987654321L;
+
+    private final SubdivRegionProvider legacy = new SubdivRegionProvider(SEED, 50, 0.95f);
+
+    private final SubdivRegionProvider pathSeeded = new PathSeededRegionProvider(SEED, 50, 0.95f);
+
+    @Test
+    public void testLegacyLayout() {
+        List<BlockAreac> expected = new ArrayList<>();
+        split(expected, new MersenneRandom(SEED ^ SECTOR.hashCode()), 0.95f, SECTOR);
+        assertEquals(expected, new ArrayList<>(legacy.getSectorRegions(SECTOR)));
+
+        // only new worlds may use the other layout
+        assertNotEquals(expected, new ArrayList<>(pathSeeded.getSectorRegions(SECTOR)));
+    }
+
+    @Test
+    public void testPartition() {
+        for (SubdivRegionProvider provider : Arrays.asList(legacy, pathSeeded)) {
+            Collection<BlockAreac> regions = provider.getSectorRegions(SECTOR);
+            assertTrue(regions.size() > 1);
+
+            long total = 0;
+            for (BlockAreac area : regions) {
+                assertTrue(SECTOR.contains(area.minX(), area.minY()) && SECTOR.contains(area.maxX(), area.maxY()));
+                total += area.area();
+            }
+            assertEquals(SECTOR.area(), total);
+            assertEquals(new ArrayList<>(regions), new ArrayList<>(provider.getSectorRegions(SECTOR)));
+        }
+    }
+
+    @Test
+    public void testPointQuery() {
+        for (SubdivRegionProvider provider : Arrays.asList(legacy, pathSeeded)) {
+            List<BlockAreac> regions = new ArrayList<>(provider.getSectorRegions(SECTOR));
+            Random random = new Random(3);
+            for (int i = 0; i < 1000; i++) {
+                int x = SECTOR.minX() + random.nextInt(SECTOR.getSizeX());
+                int y = SECTOR.minY() + random.nextInt(SECTOR.getSizeY());
+                BlockAreac expected = regions.stream().filter(a -> a.contains(x, y)).findFirst().get();
+                assertEquals(expected, provider.getSectorRegion(SECTOR, x, y));
+            }
+            assertNull(provider.getSectorRegion(SECTOR, SECTOR.minX() - 1, SECTOR.minY()));
+        }
+    }
+
+    @Test
+    public void testAreaQuery() {
+        for (SubdivRegionProvider provider : Arrays.asList(legacy, pathSeeded)) {
+            List<BlockAreac> regions = new ArrayList<>(provider.getSectorRegions(SECTOR));
+            Random random = new Random(4);
+            for (int i = 0; i < 500; i++) {
+                int x = SECTOR.minX() - 50 + random.nextInt(SECTOR.getSizeX());
+                int y = SECTOR.minY() - 50 + random.nextInt(SECTOR.getSizeY());
+                BlockAreac target = new BlockArea(x, y).setSize(1 + random.nextInt(200), 1 + random.nextInt(200));
+
+                List<BlockAreac> expected = new ArrayList<>();
+                for (BlockAreac area : regions) {
+                    if (area.intersectsBlockArea(target)) {
+                        expected.add(area);
+                    }
+                }
+                assertEquals(expected, new ArrayList<>(provider.getSectorRegions(SECTOR, target)));
+            }
+        }
+    }
+
+    /**
+     * The subdivision that existing worlds were generated with: one stream per sector, drawn depth-first
+     */
+    private static void split(List<BlockAreac> areas, MersenneRandom random, float splitProb, BlockAreac fullArea) {
+        int maxWidth = fullArea.getSizeX();
+        int maxHeight = fullArea.getSizeY();
+
+        boolean splitX = maxWidth >= maxHeight;
+        int range = (splitX ? maxWidth : maxHeight) - 2 * 50;
+
+        float ratio = (float) Math.min(maxWidth, maxHeight) / Math.max(maxWidth, maxHeight);
+        float realSplitProb = splitProb + (1 - ratio * ratio) * 0.5f;
+
+        float rnd = random.nextFloat();
+        if (range <= 0 || rnd > realSplitProb) {
+            areas.add(fullArea);
+            return;
+        }
+
+        int splitPos = 50 + random.nextInt(range);
+        BlockAreac first;
+        BlockAreac second;
+        if (splitX) {
+            first = new BlockArea(fullArea.minX(), fullArea.minY()).setSize(splitPos, maxHeight);
+            second = new BlockArea(fullArea.minX() + splitPos, fullArea.minY(), fullArea.maxX(), fullArea.maxY());
+        } else {
+            first = new BlockArea(fullArea.minX(), fullArea.minY()).setSize(maxWidth, splitPos);
+            second = new BlockArea(fullArea.minX(), fullArea.minY() + splitPos, fullArea.maxX(), fullArea.maxY());
+        }
+        split(areas, random, splitProb / 2f, first);
+        split(areas, random, splitProb / 2f, second);
+    }
+}
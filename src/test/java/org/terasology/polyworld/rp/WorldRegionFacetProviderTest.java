@@ -0,0 +1,110 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld.rp;
+
+import org.junit.jupiter.api.Test;
+import org.terasology.engine.world.block.BlockArea;
+import org.terasology.engine.world.block.BlockAreac;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that configuration changes of a {@link WorldRegionFacetProvider} apply to later requests only.
+ */
+public class WorldRegionFacetProviderTest {
+
+    private final BlockAreac target = new BlockArea(0, 0).setSize(2000, 2000);
+
+    @Test
+    public void testCachedUntilChanged() {
+        WorldRegionFacetProvider provider = new WorldRegionFacetProvider(16);
+        provider.setSeed(123);
+
+        Collection<WorldRegion> first = provider.getRegions(target);
+        Collection<WorldRegion> second = provider.getRegions(target);
+        assertFalse(first.isEmpty());
+        assertEquals(first.size(), second.size());
+        assertSame(first.iterator().next(), second.iterator().next());
+    }
+
+    @Test
+    public void testPointQuery() {
+        WorldRegionFacetProvider provider = new WorldRegionFacetProvider(16);
+        provider.setSeed(456);
+
+        // the first query does not load the sector
+        WorldRegion uncached = provider.getRegion(1500, 700);
+        WorldRegion cached = provider.getRegions(new BlockArea(1500, 700, 1500, 700)).iterator().next();
+        assertNotSame(cached, uncached);
+        assertNotEquals(cached, uncached);
+        assertEquals(cached.getArea(), uncached.getArea());
+        assertEquals(cached.getType(), uncached.getType());
+        assertEquals(cached.getHeightScaleFactor(), uncached.getHeightScaleFactor());
+        assertSame(cached, provider.getRegion(1500, 700));
+    }
+
+    @Test
+    public void testConfigurationChange() {
+        WorldRegionFacetProvider provider = new WorldRegionFacetProvider(16);
+        provider.setSeed(123);
+        long version = provider.getConfigVersion();
+        Collection<WorldRegion> before = provider.getRegions(target);
+
+        WorldRegionFacetProvider.Configuration config = new WorldRegionFacetProvider.Configuration();
+        config.islandDensity = 2; // above all noise values
+        provider.setConfiguration(config);
+        assertTrue(provider.getConfigVersion() > version);
+
+        Collection<WorldRegion> after = provider.getRegions(target);
+        assertEquals(before.size(), after.size());
+        for (WorldRegion wr : after) {
+            assertEquals(RegionType.ISLAND, wr.getType());
+        }
+
+        // changing the shared configuration instance does not affect the snapshot
+        config.islandDensity = -2;
+        for (WorldRegion wr : provider.getRegions(target)) {
+            assertEquals(RegionType.ISLAND, wr.getType());
+        }
+    }
+
+    @Test
+    public void testRegionLayout() {
+        WorldRegionFacetProvider provider = new WorldRegionFacetProvider(16);
+        provider.setSeed(321);
+        BlockAreac sector = new BlockArea(0, 0).setSize(WorldRegionFacetProvider.SECTOR_SIZE, WorldRegionFacetProvider.SECTOR_SIZE);
+        long legacyFingerprint = provider.getConfigFingerprint();
+
+        // existing worlds keep the layout of a single random stream per sector
+        List<BlockAreac> legacy = new ArrayList<>(new SubdivRegionProvider(321, 100, 0.95f).getSectorRegions(sector));
+        assertEquals(legacy, areas(provider.getRegions(sector)));
+
+        WorldRegionFacetProvider.Configuration config = new WorldRegionFacetProvider.Configuration();
+        config.pathSeededRegions = true;
+        provider.setConfiguration(config);
+        assertNotEquals(legacyFingerprint, provider.getConfigFingerprint());
+
+        List<BlockAreac> pathSeeded = new ArrayList<>(new PathSeededRegionProvider(321, 100, 0.95f).getSectorRegions(sector));
+        assertEquals(pathSeeded, areas(provider.getRegions(sector)));
+
+        // the fingerprint depends on the configuration only
+        provider.setConfiguration(new WorldRegionFacetProvider.Configuration());
+        assertEquals(legacyFingerprint, provider.getConfigFingerprint());
+    }
+
+    private static List<BlockAreac> areas(Collection<WorldRegion> regions) {
+        List<BlockAreac> areas = new ArrayList<>();
+        regions.forEach(wr -> areas.add(wr.getArea()));
+        return areas;
+    }
+}
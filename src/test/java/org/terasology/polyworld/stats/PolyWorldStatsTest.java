@@ -0,0 +1,95 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.polyworld.stats;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link PolyWorldStats} and {@link LatencyHistogram}.
+ */
+public class PolyWorldStatsTest {
+
+    @Test
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50.5, histogram.getMeanMillis(), 1e-6);
+        assertEquals(100.0, histogram.getMaxMillis(), 1e-6);
+
+        // percentiles are upper bounds within a factor of two
+        double p50 = histogram.getPercentileMillis(0.5);
+        assertTrue(p50 >= 50 && p50 <= 100, "p50: " + p50);
+        assertEquals(100.0, histogram.getPercentileMillis(1.0), 1e-6);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0.0, histogram.getPercentileMillis(0.9), 0.0);
+    }
+
+    @Test
+    public void testCacheStats() {
+        PolyWorldStats stats = new PolyWorldStats();
+        LoadingCache<Integer, Integer> cache = CacheBuilder.newBuilder().maximumSize(2).recordStats()
+                .build(CacheLoader.from(key -> key * 2));
+        stats.registerCache("test", cache);
+
+        cache.getUnchecked(1);
+        cache.getUnchecked(1);
+        cache.getUnchecked(2);
+        cache.getUnchecked(3);
+
+        assertEquals(1, stats.getCacheStats("test").hitCount());
+        assertEquals(3, stats.getCacheStats("test").missCount());
+        assertEquals(1, stats.getCacheStats("test").evictionCount());
+        assertEquals(2, stats.getCacheSize("test"));
+
+        stats.reset();
+        cache.getUnchecked(3);
+        assertEquals(1, stats.getCacheStats("test").hitCount());
+        assertEquals(0, stats.getCacheStats("test").missCount());
+    }
+
+    @Test
+    public void testCounters() {
+        PolyWorldStats stats = new PolyWorldStats();
+        LongAdder counter = new LongAdder();
+        stats.registerCounter("test", counter::sum);
+
+        counter.add(3);
+        assertEquals(3, stats.getCounter("test"));
+        assertTrue(stats.report().contains("test: 3"));
+
+        stats.reset();
+        counter.increment();
+        assertEquals(1, stats.getCounter("test"));
+        assertEquals(0, stats.getCounter("unknown"));
+
+        PolyWorldStats.disabled().registerCounter("test", counter::sum);
+        assertTrue(PolyWorldStats.disabled().getCounterNames().isEmpty());
+    }
+
+    @Test
+    public void testStages() {
+        PolyWorldStats stats = new PolyWorldStats();
+        assertEquals("x", stats.time(BuildStage.GRAPH, () -> "x"));
+        assertEquals(1, stats.getHistogram(BuildStage.GRAPH).getCount());
+        assertTrue(stats.report().contains("GRAPH"));
+
+        PolyWorldStats.disabled().record(BuildStage.GRAPH, 1000);
+        assertEquals(0, PolyWorldStats.disabled().getHistogram(BuildStage.GRAPH).getCount());
+    }
+}